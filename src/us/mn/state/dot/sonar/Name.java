@@ -1,6 +1,6 @@
 /*
  * SONAR -- Simple Object Notification And Replication
- * Copyright (C) 2008-2017  Minnesota Department of Transportation
+ * Copyright (C) 2008-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -14,8 +14,12 @@
  */
 package us.mn.state.dot.sonar;
 
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * A name represents a type, object or attribute in SONAR namespace.
+ * Names are stored as separate parts, with type and attribute parts
+ * interned.  The path form is only built when needed.
  *
  * @author Douglas Lau
  */
@@ -24,39 +28,78 @@ public class Name {
 	/** Name separator */
 	static private final String SEP = "/";
 
+	/** Maximum number of interned parts */
+	static private final int MAX_INTERNED = 4096;
+
+	/** Interned type and attribute parts */
+	static private final ConcurrentHashMap<String, String> INTERNED =
+		new ConcurrentHashMap<String, String>();
+
+	/** Intern a type or attribute part.  The number of interned parts is
+	 * limited, since names can be received from clients. */
+	static private String intern(String p) {
+		String i = INTERNED.get(p);
+		if (i != null)
+			return i;
+		if (INTERNED.size() < MAX_INTERNED) {
+			i = INTERNED.putIfAbsent(p, p);
+			return (i != null) ? i : p;
+		} else
+			return p;
+	}
+
 	/** Test if a SONAR path is absolute (versus relative) */
 	static public boolean isAbsolute(String p) {
 		return p.contains(SEP);
 	}
 
-	/** Name path */
-	private final String path;
+	/** Number of name parts */
+	private final int n_parts;
+
+	/** Type part */
+	private final String type_part;
 
-	/** Name parts */
-	private final String[] parts;
+	/** Object part */
+	private final String obj_part;
+
+	/** Attribute part */
+	private final String attr_part;
+
+	/** Name path (built lazily) */
+	private String path;
+
+	/** Full object name (built lazily) */
+	private String obj_name;
+
+	/** Attribute name with no object (built lazily) */
+	private String attr_name;
 
 	/** Create a new name */
 	public Name(String n) {
+		String[] parts = (n.length() > 0) ? n.split(SEP) : new String[0];
+		n_parts = parts.length;
+		type_part = (n_parts > 0) ? intern(parts[0]) : "";
+		obj_part = (n_parts > 1) ? parts[1] : "";
+		attr_part = (n_parts > 2) ? intern(parts[2]) : "";
 		path = n;
-		parts = getParts();
-	}
-
-	/** Get the parts of a name */
-	private String[] getParts() {
-		if (path.length() < 1)
-			return new String[0];
-		else
-			return path.split(SEP);
 	}
 
 	/** Create a name with a type and object */
 	public Name(String tname, String oname) {
-		this(tname + SEP + oname);
+		this(tname, oname, "");
 	}
 
-	/** Create a name with a type, object and attribute */
+	/** Create a name with a type, object and attribute.  Parts must not
+	 * contain separators.  Trailing empty parts are dropped, to match
+	 * parsing of the equivalent path. */
 	public Name(String tname, String oname, String aname) {
-		this(tname + SEP + oname + SEP + aname);
+		n_parts = (aname.length() > 0) ? 3
+		        : (oname.length() > 0) ? 2
+		        : (tname.length() > 0) ? 1
+		        : 0;
+		type_part = intern(tname);
+		obj_part = (n_parts > 1) ? oname : "";
+		attr_part = intern(aname);
 	}
 
 	/** Create a name for a SONAR object */
@@ -71,62 +114,81 @@ public class Name {
 
 	/** Check if the name is a root name */
 	public boolean isRoot() {
-		return parts.length == 0;
+		return n_parts == 0;
 	}
 
 	/** Check if the name is a type name */
 	public boolean isType() {
-		return parts.length == 1;
+		return n_parts == 1;
 	}
 
 	/** Check if the name is an object name */
 	public boolean isObject() {
-		return parts.length == 2;
+		return n_parts == 2;
 	}
 
 	/** Check if the name is an attribute name */
 	public boolean isAttribute() {
-		return parts.length == 3;
+		return n_parts == 3;
 	}
 
 	/** Get the name as a string */
 	@Override
 	public String toString() {
-		return path;
+		String p = path;
+		if (null == p) {
+			switch (n_parts) {
+			case 0:
+				p = "";
+				break;
+			case 1:
+				p = type_part;
+				break;
+			case 2:
+				p = getObjectName();
+				break;
+			default:
+				p = getObjectName() + SEP + attr_part;
+				break;
+			}
+			path = p;
+		}
+		return p;
 	}
 
 	/** Get the type part */
 	public String getTypePart() {
-		if (parts.length > 0)
-			return parts[0];
-		else
-			return "";
+		return type_part;
 	}
 
 	/** Get the object part */
 	public String getObjectPart() {
-		if (parts.length > 1)
-			return parts[1];
-		else
-			return "";
+		return obj_part;
 	}
 
 	/** Get the attribute part */
 	public String getAttributePart() {
-		if (parts.length > 2)
-			return parts[2];
-		else
-			return "";
+		return attr_part;
 	}
 
 	/** Get the full object name */
 	public String getObjectName() {
-		return getTypePart() + SEP + getObjectPart();
+		String n = obj_name;
+		if (null == n) {
+			n = type_part + SEP + obj_part;
+			obj_name = n;
+		}
+		return n;
 	}
 
 	/** Get the attribute name with no object specified */
 	public String getAttributeName() {
-		return getTypePart() + SEP + SEP + getAttributePart();
+		String n = attr_name;
+		if (null == n) {
+			n = type_part + SEP + SEP + attr_part;
+			attr_name = n;
+		}
+		return n;
 	}
 
 	/** Check for read privilege.
@@ -1,6 +1,6 @@
 /*
  * SONAR -- Simple Object Notification And Replication
- * Copyright (C) 2006-2019  Minnesota Department of Transportation
+ * Copyright (C) 2006-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -17,6 +17,8 @@ package us.mn.state.dot.sonar;
 import java.lang.reflect.Array;
 import java.lang.reflect.Field;
 import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A namespace is a mapping of names to objects.
@@ -174,92 +176,92 @@ abstract public class Namespace {
 		return params;
 	}
 
-	/** Check if a user has read privileges.
-	 * @param name Name to check.
-	 * @param u User to check.
-	 * @return true If user has read privileges. */
-	public boolean canRead(Name name, User u) {
-		return checkPriv(name, u, false);
+	/** Serial number of privileges, incremented on each change */
+	private final AtomicInteger priv_serial = new AtomicInteger();
+
+	/** Current permission matrix */
+	private volatile PermissionMatrix perms;
+
+	/** Serial numbers of changes, mapped by type name */
+	private final ConcurrentHashMap<String, AtomicInteger> type_serials =
+		new ConcurrentHashMap<String, AtomicInteger>();
+
+	/** Lookup the change serial number of a type */
+	private AtomicInteger lookupTypeSerial(String tname) {
+		AtomicInteger s = type_serials.get(tname);
+		if (null == s) {
+			type_serials.putIfAbsent(tname, new AtomicInteger());
+			s = type_serials.get(tname);
+		}
+		return s;
 	}
 
-	/** Check if a user has write privileges.
-	 * @param name Name to check.
-	 * @param u User to check.
-	 * @return true If user has write privileges. */
-	public boolean canWrite(Name name, User u) {
-		return checkPriv(name, u, true);
+	/** Record that an object of a type has been added, removed or
+	 * changed through the namespace */
+	protected void typeChanged(String tname) {
+		if (tname != null) {
+			lookupTypeSerial(tname).incrementAndGet();
+			if (isPermissionType(tname))
+				invalidatePermissions();
+		}
 	}
 
-	/** Check if a user has privileges.
-	 * @param name Name to check.
-	 * @param u User to check.
-	 * @param write Check for write privilege.
-	 * @return true If user has specified privileges. */
-	private boolean checkPriv(Name name, User u, boolean write) {
-		Role r = u.getRole();
-		return u.getEnabled()
-		    && (r != null)
-		    && r.getEnabled()
-		    && checkPriv(name, u, r.getCapabilities(), write);
+	/** Get the change serial number of a type.  This can be used to
+	 * invalidate data derived from all objects of a type. */
+	public int getTypeSerial(String tname) {
+		return lookupTypeSerial(tname).get();
 	}
 
-	/** Check if a user has privileges for a set of capabilites.
-	 * @param name Name to check.
-	 * @param u User to check.
-	 * @param caps Capabilities to check.
-	 * @param write Check for write privilege.
-	 * @return true If user has specified privileges. */
-	private boolean checkPriv(Name name, User u, Capability[] caps,
-		boolean write)
-	{
-		for (Capability c: caps) {
-			if (c.getEnabled() && checkPriv(name, u, c, write))
-				return true;
+	/** Invalidate permissions after a privilege, capability or role
+	 * has changed.  The permission matrix is rebuilt on the next check. */
+	protected void invalidatePermissions() {
+		priv_serial.incrementAndGet();
+	}
+
+	/** Check if a type affects permissions */
+	static protected boolean isPermissionType(String tname) {
+		return Privilege.SONAR_TYPE.equals(tname)
+		    || Capability.SONAR_TYPE.equals(tname)
+		    || Role.SONAR_TYPE.equals(tname);
+	}
+
+	/** Get the current permission matrix */
+	private PermissionMatrix getPermissions() {
+		int s = priv_serial.get();
+		PermissionMatrix pm = perms;
+		if (null == pm || pm.serial != s) {
+			pm = new PermissionMatrix(this, s);
+			perms = pm;
 		}
-		return false;
+		return pm;
 	}
 
-	/** Check if a user has privileges for a capability.
-	 * @param name Name to check.
+	/** Get the role of a user, if enabled.
 	 * @param u User to check.
-	 * @param c Capability to check.
-	 * @param write Check for write privilege.
-	 * @return true If capability has privileges. */
-	private boolean checkPriv(Name name, User u, Capability c,
-		boolean write)
-	{
-		Iterator<SonarObject> it = iterator(Privilege.SONAR_TYPE);
-		while (it.hasNext()) {
-			SonarObject so = it.next();
-			if (so instanceof Privilege) {
-				Privilege p = (Privilege) so;
-				if ((p.getCapability() == c)
-				  && checkPriv(name, u, p, write))
-					return true;
-			}
-		}
-		return false;
+	 * @return Enabled role of user, or null. */
+	static private Role getEnabledRole(User u) {
+		Role r = u.getRole();
+		return (u.getEnabled() && r != null && r.getEnabled())
+		      ? r
+		      : null;
 	}
 
-	/** Check for read/write privilege */
-	private boolean checkPriv(Name name, User u, Privilege p,
-		boolean write)
-	{
-		if (p.getWrite() == write) {
-			if (write) {
-				return name.checkWrite(p)
-				    && checkGroupWrite(name, u, p);
-			} else
-				return name.checkRead(p);
-		} else
-			return false;
+	/** Check if a user has read privileges.
+	 * @param name Name to check.
+	 * @param u User to check.
+	 * @return true If user has read privileges. */
+	public boolean canRead(Name name, User u) {
+		Role r = getEnabledRole(u);
+		return (r != null) && getPermissions().canRead(name, r);
 	}
 
-	/** Check for group write privilege */
-	private boolean checkGroupWrite(Name name, User u, Privilege p) {
-		String g = p.getGroupN();
-		return "".equals(g)
-		    || getGroupChecker(name).checkGroup(name, u, g);
+	/** Check if a user has write privileges.
+	 * @param name Name to check.
+	 * @param u User to check.
+	 * @return true If user has write privileges. */
+	public boolean canWrite(Name name, User u) {
+		Role r = getEnabledRole(u);
+		return (r != null) && getPermissions().canWrite(name, u, r);
 	}
 
 	/** Get the group checker for a name type */
@@ -0,0 +1,199 @@
+/*
+ * SONAR -- Simple Object Notification And Replication
+ * Copyright (C) 2020  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.sonar;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * A permission matrix is a precomputed snapshot of all privileges in a
+ * namespace.  The privileges of each role are compiled the first time the
+ * role is checked, into a table of read and write permissions by type name.
+ * A matrix is immutable once built, and must be replaced whenever any
+ * privilege, capability or role changes.
+ *
+ * @author Douglas Lau
+ */
+class PermissionMatrix {
+
+	/** Write rule compiled from one privilege */
+	static private class WriteRule {
+
+		/** Object name pattern (null matches any object) */
+		private final Pattern obj;
+
+		/** Flag indicating the object pattern is invalid */
+		private final boolean invalid;
+
+		/** Attribute name ("" matches any attribute) */
+		private final String attr;
+
+		/** Group name ("" matches any group) */
+		private final String group;
+
+		/** Compile a write rule from a privilege */
+		private WriteRule(Privilege p) {
+			Pattern o = null;
+			boolean inv = false;
+			String on = p.getObjN();
+			if (!"".equals(on)) {
+				try {
+					o = Pattern.compile(on);
+				}
+				catch (PatternSyntaxException e) {
+					inv = true;
+				}
+			}
+			obj = o;
+			invalid = inv;
+			attr = p.getAttrN();
+			group = p.getGroupN();
+		}
+
+		/** Check if the rule allows writing a name */
+		private boolean check(Namespace ns, Name name, User u) {
+			return !invalid
+			    && (null == obj ||
+			        obj.matcher(name.getObjectPart()).matches())
+			    && ("".equals(attr) ||
+			        attr.equals(name.getAttributePart()))
+			    && ("".equals(group) ||
+			        ns.getGroupChecker(name).checkGroup(name, u, group));
+		}
+	}
+
+	/** Permissions for one type */
+	static private class TypePerms {
+
+		/** Read permission */
+		private boolean read;
+
+		/** Write rules */
+		private WriteRule[] write = new WriteRule[0];
+
+		/** Add a write rule */
+		private void addWrite(WriteRule r) {
+			WriteRule[] w = new WriteRule[write.length + 1];
+			System.arraycopy(write, 0, w, 0, write.length);
+			w[write.length] = r;
+			write = w;
+		}
+
+		/** Check for write permission */
+		private boolean canWrite(Namespace ns, Name name, User u) {
+			for (WriteRule r: write) {
+				if (r.check(ns, name, u))
+					return true;
+			}
+			return false;
+		}
+	}
+
+	/** Privilege serial number when matrix was built */
+	public final int serial;
+
+	/** Namespace of privileges */
+	private final Namespace namespace;
+
+	/** Privileges grouped by capability */
+	private final HashMap<Capability, ArrayList<Privilege>> privs =
+		new HashMap<Capability, ArrayList<Privilege>>();
+
+	/** Compiled permissions for each role, by type name */
+	private final ConcurrentHashMap<Role, HashMap<String, TypePerms>> roles
+		= new ConcurrentHashMap<Role, HashMap<String, TypePerms>>();
+
+	/** Build a permission matrix from all privileges in a namespace */
+	public PermissionMatrix(Namespace ns, int s) {
+		serial = s;
+		namespace = ns;
+		Iterator<SonarObject> it = ns.iterator(Privilege.SONAR_TYPE);
+		while (it.hasNext()) {
+			SonarObject so = it.next();
+			if (so instanceof Privilege) {
+				Privilege p = (Privilege) so;
+				Capability c = p.getCapability();
+				if (c != null)
+					lookupPrivs(c).add(p);
+			}
+		}
+	}
+
+	/** Lookup the list of privileges for a capability */
+	private ArrayList<Privilege> lookupPrivs(Capability c) {
+		ArrayList<Privilege> pl = privs.get(c);
+		if (null == pl) {
+			pl = new ArrayList<Privilege>();
+			privs.put(c, pl);
+		}
+		return pl;
+	}
+
+	/** Get the permissions of a role for a type */
+	private TypePerms getPerms(Role r, String tname) {
+		HashMap<String, TypePerms> perms = roles.get(r);
+		if (null == perms) {
+			perms = compileRole(r);
+			roles.put(r, perms);
+		}
+		return perms.get(tname);
+	}
+
+	/** Compile permissions for a role */
+	private HashMap<String, TypePerms> compileRole(Role r) {
+		HashMap<String, TypePerms> perms =
+			new HashMap<String, TypePerms>();
+		for (Capability c: r.getCapabilities()) {
+			ArrayList<Privilege> pl = privs.get(c);
+			if (c.getEnabled() && pl != null) {
+				for (Privilege p: pl)
+					compilePrivilege(perms, p);
+			}
+		}
+		return perms;
+	}
+
+	/** Compile one privilege into a permission table */
+	private void compilePrivilege(HashMap<String, TypePerms> perms,
+		Privilege p)
+	{
+		String t = p.getTypeN();
+		TypePerms tp = perms.get(t);
+		if (null == tp) {
+			tp = new TypePerms();
+			perms.put(t, tp);
+		}
+		if (p.getWrite())
+			tp.addWrite(new WriteRule(p));
+		else
+			tp.read = true;
+	}
+
+	/** Check if a role has read permission for a name */
+	public boolean canRead(Name name, Role r) {
+		TypePerms tp = getPerms(r, name.getTypePart());
+		return (tp != null) && tp.read;
+	}
+
+	/** Check if a role has write permission for a name */
+	public boolean canWrite(Name name, User u, Role r) {
+		TypePerms tp = getPerms(r, name.getTypePart());
+		return (tp != null) && tp.canWrite(namespace, name, u);
+	}
+}
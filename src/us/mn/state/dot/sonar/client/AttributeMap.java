@@ -1,6 +1,6 @@
 /*
  * SONAR -- Simple Object Notification And Replication
- * Copyright (C) 2012  Minnesota Department of Transportation
+ * Copyright (C) 2012-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -14,23 +14,63 @@
  */
 package us.mn.state.dot.sonar.client;
 
-import java.util.Map;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import us.mn.state.dot.sonar.SonarException;
 
 /**
- * An attribute map defined all the attributes of one proxy.
+ * An attribute map defines all the attributes of one proxy.  It is also the
+ * invocation handler of the proxy, so no lookup is needed to find it.
+ * Values are stored in slots defined by the type's SonarInvoker.  Slots
+ * are written by the client thread and read by any thread, so they are
+ * stored in an atomic array for safe publication.
  *
  * @author Douglas Lau
  */
-final class AttributeMap {
+final class AttributeMap implements InvocationHandler {
 
-	/** Map of all attributes */
-	public final Map<String, Attribute> attrs;
+	/** Invoker for the proxy type */
+	public final SonarInvoker invoker;
+
+	/** Attribute values, indexed by slot */
+	private final AtomicReferenceArray<Object> values;
 
 	/** Flag indicating the proxy is a zombie */
-	public boolean zombie = false;
+	public volatile boolean zombie = false;
 
 	/** Create a new attribute map */
-	public AttributeMap(Map<String, Attribute> a) {
-		attrs = a;
+	public AttributeMap(SonarInvoker inv, int n_slots) {
+		invoker = inv;
+		values = new AtomicReferenceArray<Object>(n_slots);
+	}
+
+	/** Get the value of an attribute slot */
+	public Object getValue(int s) {
+		return values.get(s);
+	}
+
+	/** Set the value of an attribute slot */
+	public void setValue(int s, Object v) {
+		values.set(s, v);
+	}
+
+	/** Check if an attribute slot value equals the given value */
+	public boolean valueEquals(int s, Object[] v) {
+		Object value = values.get(s);
+		if(value == null && v[0] == null)
+			return true;
+		else if(value != null && value.equals(v[0]))
+			return true;
+		else
+			return false;
+	}
+
+	/** Invoke a method call on the proxy */
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args)
+		throws SonarException
+	{
+		return invoker.invoke(this, proxy, method, args);
 	}
 }
@@ -1,6 +1,6 @@
 /*
  * SONAR -- Simple Object Notification And Replication
- * Copyright (C) 2006-2017  Minnesota Department of Transportation
+ * Copyright (C) 2006-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -82,6 +82,13 @@ public class ClientNamespace extends Namespace {
 			cur_obj = getTypeCache(name).add(name.getObjectPart());
 		} else
 			cur_obj = getTypeCache().add(n);
+		currentTypeChanged();
+	}
+
+	/** Record a change to an object of the current type */
+	private void currentTypeChanged() {
+		if (cur_type != null)
+			typeChanged(cur_type.tname);
 	}
 
 	/** Remove an object from the cache */
@@ -93,6 +100,7 @@ public class ClientNamespace extends Namespace {
 			getTypeCache(name).remove(name.getObjectPart());
 		} else
 			getTypeCache().remove(n);
+		currentTypeChanged();
 	}
 
 	/** Update an object attribute */
@@ -117,6 +125,7 @@ public class ClientNamespace extends Namespace {
 		if (o == null)
 			throw NamespaceError.nameInvalid("No object");
 		t.updateAttribute(o, a, v);
+		currentTypeChanged();
 	}
 
 	/** Process a TYPE message from the server */
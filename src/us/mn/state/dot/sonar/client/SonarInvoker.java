@@ -1,6 +1,6 @@
 /*
  * SONAR -- Simple Object Notification And Replication
- * Copyright (C) 2006-2012  Minnesota Department of Transportation
+ * Copyright (C) 2006-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -14,21 +14,21 @@
  */
 package us.mn.state.dot.sonar.client;
 
-import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Map;
 import us.mn.state.dot.sonar.NamespaceError;
 import us.mn.state.dot.sonar.SonarException;
 import us.mn.state.dot.sonar.SonarObject;
 
 /**
- * A SonarInvoker handles method invocations on SonarObject proxies.
+ * A SonarInvoker handles method invocations on SonarObject proxies.  There is
+ * one invoker per type, which maps each attribute to a slot index.  The
+ * attribute values of one proxy are stored in an AttributeMap array.
  *
  * @author Douglas Lau
  */
-class SonarInvoker implements InvocationHandler {
+class SonarInvoker {
 
 	/** Get an attribute name from a method */
 	static protected String attribute_name(String prefix, Method m) {
@@ -43,101 +43,130 @@ class SonarInvoker implements InvocationHandler {
 			return null;
 	}
 
-	/** Lookup the accessor methods on an interface with a given prefix */
-	static protected HashMap<Method, String> lookup_accessors(Class iface,
-		String prefix)
-	{
-		HashMap<Method, String> methods = new HashMap<Method, String>();
+	/** Cache of all proxy objects of the specified type */
+	protected final TypeCache cache;
+
+	/** Type name (shared by all proxies of a type) */
+	private final String tname;
+
+	/** Map of attribute names to slot indices */
+	private final HashMap<String, Integer> slots =
+		new HashMap<String, Integer>();
+
+	/** Attribute names, indexed by slot */
+	private final ArrayList<String> names = new ArrayList<String>();
+
+	/** Attribute types, indexed by slot */
+	private final ArrayList<Class> types = new ArrayList<Class>();
+
+	/** Map of getter methods to slot indices */
+	private final HashMap<Method, Integer> getters =
+		new HashMap<Method, Integer>();
+
+	/** Map of setter methods to slot indices */
+	private final HashMap<Method, Integer> setters =
+		new HashMap<Method, Integer>();
+
+	/** Slot of "typeName" attribute */
+	private final int type_slot;
+
+	/** Slot of "name" attribute */
+	private final int name_slot;
+
+	/** Flags indicating which slots are readable (have a getter) */
+	private final boolean[] readable;
+
+	/** Create an invoker for the specified interface.
+	 * @param c Type cache (for setting attributes).
+	 * @param tn Type name.
+	 * @param iface Interface extending SonarObject. */
+	public SonarInvoker(TypeCache c, String tn, Class iface) {
+		cache = c;
+		tname = tn;
 		for(Method m: iface.getMethods()) {
-			String a = attribute_name(prefix, m);
+			String a = attribute_name("get", m);
 			if(a != null)
-				methods.put(m, a);
+				getters.put(m, addSlot(a, m.getReturnType()));
+		}
+		for(Method m: iface.getMethods()) {
+			String a = attribute_name("set", m);
+			if(a != null) {
+				Class[] p_types = m.getParameterTypes();
+				setters.put(m, addSlot(a, p_types[0]));
+			}
 		}
-		return methods;
+		type_slot = addSlot("typeName", String.class);
+		name_slot = addSlot("name", String.class);
+		readable = new boolean[types.size()];
+		for(Integer s: getters.values())
+			readable[s] = true;
 	}
 
-	/** Lookup all the setter methods on the specified interface */
-	static protected HashMap<Method, String> lookup_setters(Class iface) {
-		return lookup_accessors(iface, "set");
+	/** Add a slot for an attribute (if it does not already exist) */
+	private int addSlot(String a, Class t) {
+		Integer s = slots.get(a);
+		if(s != null)
+			return s;
+		int n = types.size();
+		slots.put(a, n);
+		names.add(a);
+		types.add(t);
+		return n;
 	}
 
-	/** Lookup all the getter methods on the specified interface */
-	static protected HashMap<Method, String> lookup_getters(Class iface) {
-		return lookup_accessors(iface, "get");
+	/** Lookup the slot index of an attribute */
+	public int lookupSlot(String a) throws NamespaceError {
+		Integer s = slots.get(a);
+		if(s != null)
+			return s;
+		else
+			throw NamespaceError.nameUnknown(a);
 	}
 
-	/** Cache of all proxy objects of the specified type */
-	protected final TypeCache cache;
-
-	/** Map of setter methods to attribute names */
-	protected final HashMap<Method, String> setters;
-
-	/** Map of getter methods to attribute names */
-	protected final HashMap<Method, String> getters;
-
-	/** Type name attribute (shared by all proxies of a type) */
-	protected final Attribute typeName;
+	/** Get the attribute name of a slot */
+	public String getAttribute(int s) {
+		return names.get(s);
+	}
 
-	/** Create an invoker for the specified interface */
-	public SonarInvoker(TypeCache c, Class iface) {
-		cache = c;
-		setters = lookup_setters(iface);
-		getters = lookup_getters(iface);
-		typeName = new Attribute(c.tname);
+	/** Get the type of an attribute slot */
+	public Class getType(int s) {
+		return types.get(s);
 	}
 
 	/** Invoke a method call on a proxy instance */
 	@SuppressWarnings("unchecked")
-	@Override
-	public Object invoke(Object proxy, Method method, Object[] args)
-		throws SonarException
+	public Object invoke(AttributeMap amap, Object proxy, Method method,
+		Object[] args) throws SonarException
 	{
 		assert proxy instanceof SonarObject;
 		SonarObject o = (SonarObject)proxy;
-		if(getters.containsKey(method))
-			return cache.getAttribute(o, getters.get(method));
-		else if(setters.containsKey(method)) {
-			String aname = setters.get(method);
-			boolean check = getters.containsValue(aname);
-			cache.setAttribute(o, aname, args, check);
+		Integer s = getters.get(method);
+		if(s != null)
+			return amap.getValue(s);
+		s = setters.get(method);
+		if(s != null) {
+			cache.setAttribute(o, amap, s, args, readable[s]);
+			return null;
+		}
+		String m = method.getName();
+		if(m.equals("hashCode"))
+			return System.identityHashCode(proxy);
+		if(m.equals("equals"))
+			return proxy == args[0];
+		if(m.equals("toString"))
+			return amap.getValue(name_slot);
+		if(m.equals("destroy")) {
+			cache.removeObject(o);
 			return null;
-		} else {
-			String m = method.getName();
-			if(m.equals("hashCode"))
-				return System.identityHashCode(proxy);
-			if(m.equals("equals"))
-				return proxy == args[0];
-			if(m.equals("toString"))
-				return cache.getAttribute(o, "name");
-			if(m.equals("destroy")) {
-				cache.removeObject(o);
-				return null;
-			}
 		}
 		throw NamespaceError.nameUnknown("*method*");
 	}
 
 	/** Create attributes for one proxy instance */
-	public Map<String, Attribute> createAttributes(String name) {
-		HashMap<String, Attribute> amap =
-			new HashMap<String, Attribute>();
-		for(Map.Entry<Method, String> e: getters.entrySet()) {
-			Method m = e.getKey();
-			String n = e.getValue();
-			Attribute a = new Attribute(m.getReturnType());
-			amap.put(n, a);
-		}
-		for(Map.Entry<Method, String> e: setters.entrySet()) {
-			Method m = e.getKey();
-			String n = e.getValue();
-			if(!amap.containsKey(n)) {
-				Class[] p_types = m.getParameterTypes();
-				Attribute a = new Attribute(p_types[0]);
-				amap.put(n, a);
-			}
-		}
-		amap.put("typeName", typeName);
-		amap.put("name", new Attribute(name));
-		return Collections.unmodifiableMap(amap);
+	public AttributeMap createAttributes(String name) {
+		AttributeMap amap = new AttributeMap(this, types.size());
+		amap.setValue(type_slot, tname);
+		amap.setValue(name_slot, name);
+		return amap;
 	}
 }
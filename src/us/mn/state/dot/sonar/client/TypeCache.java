@@ -1,6 +1,6 @@
 /*
  * SONAR -- Simple Object Notification And Replication
- * Copyright (C) 2006-2018  Minnesota Department of Transportation
+ * Copyright (C) 2006-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -14,12 +14,12 @@
  */
 package us.mn.state.dot.sonar.client;
 
+import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Proxy;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.Map;
-import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
 import us.mn.state.dot.sonar.GroupChecker;
 import us.mn.state.dot.sonar.Name;
@@ -74,11 +74,6 @@ public class TypeCache<T extends SonarObject> implements Iterable<T> {
 	private final ConcurrentHashMap<String, T> children =
 		new ConcurrentHashMap<String, T>(INITIAL_CAPACITY, 0.75f, 1);
 
-	/** Weak mapping from proxy object to attribute map.
-	 * All access must be synchronized on the "TypeCache" lock. */
-	private final WeakHashMap<T, AttributeMap> attributes =
-		new WeakHashMap<T, AttributeMap>();
-
 	/** Flag to indicate enumeration from server is complete */
 	private boolean enumerated = false;
 
@@ -109,7 +104,7 @@ public class TypeCache<T extends SonarObject> implements Iterable<T> {
 		assert SonarObject.class.isAssignableFrom(iface);
 		tname = Namespace.typeName(iface);
 		ifaces = new Class[] { iface };
-		invoker = new SonarInvoker(this, iface);
+		invoker = new SonarInvoker(this, tname, iface);
 		client = c;
 		namespace = client.getNamespace();
 		group_chk = (gc != null) ? gc : NO_GROUP;
@@ -153,12 +148,10 @@ public class TypeCache<T extends SonarObject> implements Iterable<T> {
 	/** Create a proxy in the type cache */
 	@SuppressWarnings("unchecked")
 	T createProxy(String name) {
-		T o = (T) Proxy.newProxyInstance(LOADER, ifaces, invoker);
-		AttributeMap amap = new AttributeMap(
-			invoker.createAttributes(name));
+		AttributeMap amap = invoker.createAttributes(name);
+		T o = (T) Proxy.newProxyInstance(LOADER, ifaces, amap);
 		synchronized (this) {
 			children.put(name, o);
-			attributes.put(o, amap);
 			phantom = o;
 		}
 		return o;
@@ -198,7 +191,7 @@ public class TypeCache<T extends SonarObject> implements Iterable<T> {
 			T proxy = children.remove(name);
 			if (proxy == null)
 				throw NamespaceError.nameUnknown(name);
-			AttributeMap amap = attributes.get(proxy);
+			AttributeMap amap = lookupAttributeMap(proxy);
 			if (amap != null)
 				amap.zombie = true;
 			notifyProxyRemoved(proxy);
@@ -235,30 +228,31 @@ public class TypeCache<T extends SonarObject> implements Iterable<T> {
 
 	/** Check if a proxy object is a zombie */
 	private boolean isZombie(T o) {
-		synchronized (this) {
-			AttributeMap amap = attributes.get(o);
-			return amap != null && amap.zombie;
-		}
+		AttributeMap amap = lookupAttributeMap(o);
+		return amap != null && amap.zombie;
 	}
 
-	/** Lookup the attribute map for the given object */
-	private Map<String, Attribute> lookupAttributeMap(T o) {
-		synchronized (this) {
-			AttributeMap amap = attributes.get(o);
-			return amap != null ? amap.attrs : null;
+	/** Lookup the attribute map (invocation handler) of a proxy */
+	private AttributeMap lookupAttributeMap(T o) {
+		if (Proxy.isProxyClass(o.getClass())) {
+			InvocationHandler h = Proxy.getInvocationHandler(o);
+			if (h instanceof AttributeMap) {
+				AttributeMap amap = (AttributeMap) h;
+				if (amap.invoker == invoker)
+					return amap;
+			}
 		}
+		return null;
 	}
 
-	/** Lookup an attribute of the given proxy */
-	private Attribute lookupAttribute(T o, String a) throws NamespaceError {
-		Map<String, Attribute> amap = lookupAttributeMap(o);
-		if (amap != null) {
-			Attribute attr = amap.get(a);
-			if (attr != null)
-				return attr;
-			else
-				throw NamespaceError.nameUnknown(a);
-		} else
+	/** Lookup the attribute map of a proxy, or throw an error */
+	private AttributeMap lookupAttributeMap(T o, String a)
+		throws NamespaceError
+	{
+		AttributeMap amap = lookupAttributeMap(o);
+		if (amap != null)
+			return amap;
+		else
 			throw NamespaceError.nameUnknown("o:" + a);
 	}
 
@@ -273,32 +267,35 @@ public class TypeCache<T extends SonarObject> implements Iterable<T> {
 
 	/** Get the value of an attribute from the given proxy */
 	Object getAttribute(T o, String a) throws NamespaceError {
-		Attribute attr = lookupAttribute(o, a);
-		return attr.getValue();
+		AttributeMap amap = lookupAttributeMap(o, a);
+		return amap.getValue(invoker.lookupSlot(a));
 	}
 
 	/** Set the value of an attribute on the given proxy.
 	 * @param o Proxy object
-	 * @param a Attribute name
+	 * @param amap Attribute map of proxy
+	 * @param s Attribute slot
 	 * @param args New attribute value
 	 * @param check Flag to check cache before sending message to server */
-	void setAttribute(T o, String a, Object[] args, boolean check)
-		throws SonarException
+	void setAttribute(T o, AttributeMap amap, int s, Object[] args,
+		boolean check) throws SonarException
 	{
-		Attribute attr = lookupAttribute(o, a);
-		if (check && attr.valueEquals(args))
+		if (check && amap.valueEquals(s, args))
 			return;
-		String[] values = namespace.marshall(attr.type, args);
-		if (!isZombie(o))
+		String[] values = namespace.marshall(invoker.getType(s), args);
+		if (!amap.zombie) {
+			String a = invoker.getAttribute(s);
 			client.setAttribute(new Name(o, a), values);
+		}
 	}
 
 	/** Update an attribute value into the given proxy */
 	void updateAttribute(T o, String a, String[] v)
 		throws SonarException
 	{
-		Attribute attr = lookupAttribute(o, a);
-		attr.setValue(namespace.unmarshall(attr.type, v));
+		AttributeMap amap = lookupAttributeMap(o, a);
+		int s = invoker.lookupSlot(a);
+		amap.setValue(s, namespace.unmarshall(invoker.getType(s), v));
 		synchronized (this) {
 			if (o != phantom)
 				notifyProxyChanged(o, a);
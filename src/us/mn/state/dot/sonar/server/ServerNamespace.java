@@ -1,6 +1,6 @@
 /*
  * SONAR -- Simple Object Notification And Replication
- * Copyright (C) 2006-2017  Minnesota Department of Transportation
+ * Copyright (C) 2006-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -84,7 +84,9 @@ public class ServerNamespace extends Namespace {
 	 * @return phantom object if one was created; null otherwise */
 	SonarObject setAttribute(Name name, String[] v) throws SonarException {
 		TypeNode t = getTypeNode(name);
-		return t.setValue(name, v);
+		SonarObject phantom = t.setValue(name, v);
+		typeChanged(name.getTypePart());
+		return phantom;
 	}
 
 	/** Set the value of an attribute on a phantom object.
@@ -124,6 +126,7 @@ public class ServerNamespace extends Namespace {
 	void removeObject(SonarObject o) throws SonarException {
 		TypeNode n = getTypeNode(o);
 		n.removeObject(o);
+		typeChanged(o.getTypeName());
 	}
 
 	/** Lookup the object with the specified name */
@@ -216,11 +219,13 @@ public class ServerNamespace extends Namespace {
 	/** Add an object into the namespace without storing */
 	public void addObject(SonarObject o) throws NamespaceError {
 		getTypeNode(o).addObject(o);
+		typeChanged(o.getTypeName());
 	}
 
 	/** Store an object in the namespace */
 	public void storeObject(SonarObject o) throws SonarException {
 		getTypeNode(o).storeObject(o);
+		typeChanged(o.getTypeName());
 	}
 
 	/** Create a new object */
@@ -448,15 +448,20 @@ public class CorridorBase<T extends R_Node> implements Iterable<T> {
 	public GeoLocDist snapGeoLoc(SphericalMercatorPosition smp, LaneType lt,
 		Distance max_dist)
 	{
+		return isSnappable(lt) ? snapGeoLoc2(smp, lt, max_dist) : null;
+	}
+
+	/** Check if a lane type can be snapped to the corridor */
+	private boolean isSnappable(LaneType lt) {
 		switch (lt) {
 		case EXIT:
 		case MERGE:
 		case MAINLINE:
 		case CD_LANE:
-			if (checkLaneType(lt))
-				return snapGeoLoc2(smp, lt, max_dist);
+			return checkLaneType(lt);
+		default:
+			return false;
 		}
-		return null;
 	}
 
 	/** Check if the road class is a CD road */
@@ -479,39 +484,99 @@ public class CorridorBase<T extends R_Node> implements Iterable<T> {
 		LaneType lt, Distance max_dist)
 	{
 		double dist = max_dist.m();
-		GeoLoc l0 = null;
-		GeoLoc l1 = null;
-		GeoLoc lp = null;	/* previous location */
+		NodeSegment near = null;
+		for (NodeSegment s: getSegments()) {
+			if (s.checkLaneType(lt)) {
+				double m = s.distance(smp);
+				if (m < dist) {
+					near = s;
+					dist = m;
+				}
+			}
+		}
+		return (near != null) ? near.snap(smp, dist) : null;
+	}
+
+	/** Get all segments which can be snapped to.  Inactive nodes are
+	 * skipped, and segments do not cross continuity breaks. */
+	public ArrayList<NodeSegment> getSegments() {
+		ArrayList<NodeSegment> segs = new ArrayList<NodeSegment>();
 		T np = null;		/* previous node */
 		for (T n: r_nodes) {
 			if (!n.getActive())
 				continue;
 			if (R_NodeHelper.isContinuityBreak(n)) {
 				np = null;
-				lp = null;
 				continue;
 			}
-			GeoLoc l = n.getGeoLoc();
-			if ((lp != null) &&
-			   (!skipExit(lt, np)) &&
-			   (!skipEntrance(lt, n)))
-			{
-				double m = segmentDistance(lp, l, smp);
-				if (m < dist) {
-					l0 = lp;
-					l1 = l;
-					dist = m;
-				}
-			}
+			if (np != null)
+				segs.add(new NodeSegment(np, n));
 			np = n;
-			lp = l;
 		}
-		if (l0 != null) {
-			GeoLoc loc = GeoLocHelper.snapSegment(l0, l1, smp);
-			if (loc != null)
-				return new GeoLocDist(loc, new Distance(dist));
+		return segs;
+	}
+
+	/** A segment between two consecutive r_nodes of the corridor */
+	public class NodeSegment {
+
+		/** Upstream node */
+		public final T n0;
+
+		/** Downstream node */
+		public final T n1;
+
+		/** Create a new node segment */
+		private NodeSegment(T a, T b) {
+			n0 = a;
+			n1 = b;
+		}
+
+		/** Get the corridor of the segment */
+		public CorridorBase<T> getCorridor() {
+			return CorridorBase.this;
+		}
+
+		/** Check if the segment matches a lane type */
+		private boolean checkLaneType(LaneType lt) {
+			return !skipExit(lt, n0) && !skipEntrance(lt, n1);
+		}
+
+		/** Get the distance from a point to the segment (meters) */
+		private double distance(SphericalMercatorPosition smp) {
+			return segmentDistance(n0.getGeoLoc(), n1.getGeoLoc(),
+				smp);
+		}
+
+		/** Snap a point to the segment.
+		 * @param smp Selected point.
+		 * @param m Distance to segment (meters).
+		 * @return GeoLocDist snapped to segment, or null. */
+		private GeoLocDist snap(SphericalMercatorPosition smp,
+			double m)
+		{
+			GeoLoc loc = GeoLocHelper.snapSegment(n0.getGeoLoc(),
+				n1.getGeoLoc(), smp);
+			return (loc != null)
+			      ? new GeoLocDist(loc, new Distance(m))
+			      : null;
+		}
+
+		/** Snap a point to the segment.
+		 * @param smp Selected point (spherical mercator position).
+		 * @param lt Lane type (MAINLINE, EXIT, MERGE or CD_LANE).
+		 * @param max_dist Maximum distance to snap.
+		 * @return GeoLocDist snapped to segment, or null if not
+		 *         found. */
+		public GeoLocDist snapGeoLoc(SphericalMercatorPosition smp,
+			LaneType lt, Distance max_dist)
+		{
+			if (isSnappable(lt) && checkLaneType(lt)) {
+				double m = distance(smp);
+				if (m < max_dist.m())
+					return snap(smp, m);
+			}
+			return null;
 		}
-		return null;
 	}
 
 	/** Check if exit lane type should be skipped */
@@ -91,13 +91,16 @@ public class FontHelper extends BaseHelper {
 	static public Glyph lookupGlyph(Font font, int cp)
 		throws InvalidMsgException
 	{
-		Iterator<Glyph> it = GlyphHelper.iterator();
-		while (it.hasNext()) {
-			Glyph g = it.next();
-			if (g.getFont() == font && g.getCodePoint() == cp)
-				return g;
-		}
-		throw new InvalidMsgException("code point: " + cp);
+		return GlyphAtlas.lookup(font).lookupGlyph(cp);
+	}
+
+	/** Lookup a glyph bitmap in the specified font.  The returned bitmap
+	 * is shared, and must not be modified.
+	 * @return Bitmap of glyph, or null if pixel data is invalid. */
+	static public BitmapGraphic lookupBitmap(Font font, int cp)
+		throws InvalidMsgException
+	{
+		return GlyphAtlas.lookup(font).lookupBitmap(cp);
 	}
 
 	/** Calculate the width of a span of text.
@@ -0,0 +1,134 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2020  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import us.mn.state.dot.sonar.Namespace;
+
+/**
+ * A glyph atlas contains all glyphs of one font, indexed by code point,
+ * along with decoded bitmaps.  Atlases are mapped by font name, and all of
+ * them are discarded whenever a font or glyph changes in the namespace.
+ * Missing code points are not looked up again until then.
+ *
+ * @author Douglas Lau
+ */
+final class GlyphAtlas {
+
+	/** Largest supported code point */
+	static private final int MAX_CODE_POINT = 0xFFFF;
+
+	/** Atlases for one set of font and glyph serial numbers */
+	static private final class Atlases {
+		private final Namespace ns;
+		private final int font_serial;
+		private final int glyph_serial;
+		private final HashMap<String, GlyphAtlas> atlases =
+			new HashMap<String, GlyphAtlas>();
+		private Atlases(Namespace n, int fs, int gs) {
+			ns = n;
+			font_serial = fs;
+			glyph_serial = gs;
+		}
+		private boolean isCurrent(Namespace n, int fs, int gs) {
+			return ns == n && font_serial == fs &&
+			       glyph_serial == gs;
+		}
+	}
+
+	/** Current atlases */
+	static private Atlases current = null;
+
+	/** Lock for current atlases */
+	static private final Object LOCK = new Object();
+
+	/** Lookup the atlas for a font */
+	static GlyphAtlas lookup(Font font) {
+		Namespace ns = BaseHelper.namespace;
+		int fs = (ns != null) ? ns.getTypeSerial(Font.SONAR_TYPE) : 0;
+		int gs = (ns != null) ? ns.getTypeSerial(Glyph.SONAR_TYPE) : 0;
+		synchronized (LOCK) {
+			if (null == current || !current.isCurrent(ns, fs, gs))
+				current = new Atlases(ns, fs, gs);
+			GlyphAtlas atlas = current.atlases.get(font.getName());
+			if (null == atlas) {
+				atlas = new GlyphAtlas(font);
+				current.atlases.put(font.getName(), atlas);
+			}
+			return atlas;
+		}
+	}
+
+	/** Glyphs indexed by code point */
+	private final Glyph[] glyphs;
+
+	/** Glyph bitmaps indexed by code point */
+	private final BitmapGraphic[] bitmaps;
+
+	/** Create a new glyph atlas from all glyphs in the namespace */
+	private GlyphAtlas(Font font) {
+		int n = 0;
+		Iterator<Glyph> it = GlyphHelper.iterator();
+		while (it.hasNext()) {
+			Glyph g = it.next();
+			if (isValid(font, g))
+				n = Math.max(n, g.getCodePoint() + 1);
+		}
+		glyphs = new Glyph[n];
+		bitmaps = new BitmapGraphic[n];
+		it = GlyphHelper.iterator();
+		while (it.hasNext()) {
+			Glyph g = it.next();
+			int cp = g.getCodePoint();
+			if (isValid(font, g) && cp < n) {
+				glyphs[cp] = g;
+				bitmaps[cp] = GlyphHelper.createBitmap(g);
+			}
+		}
+	}
+
+	/** Check if a glyph belongs in the atlas */
+	static private boolean isValid(Font font, Glyph g) {
+		int cp = g.getCodePoint();
+		return g.getFont() == font && cp >= 0 && cp <= MAX_CODE_POINT;
+	}
+
+	/** Check a code point.
+	 * @throws InvalidMsgException if the font is missing the glyph. */
+	private void checkCodePoint(int cp) throws InvalidMsgException {
+		if (cp < 0 || cp >= glyphs.length || null == glyphs[cp])
+			throw new InvalidMsgException("code point: " + cp);
+	}
+
+	/** Lookup a glyph.
+	 * @param cp Code point.
+	 * @return Glyph for code point.
+	 * @throws InvalidMsgException if the font is missing the glyph. */
+	Glyph lookupGlyph(int cp) throws InvalidMsgException {
+		checkCodePoint(cp);
+		return glyphs[cp];
+	}
+
+	/** Lookup a glyph bitmap.  The returned bitmap is shared, and must
+	 * not be modified.
+	 * @param cp Code point.
+	 * @return Bitmap of glyph, or null if pixel data is invalid.
+	 * @throws InvalidMsgException if the font is missing the glyph. */
+	BitmapGraphic lookupBitmap(int cp) throws InvalidMsgException {
+		checkCodePoint(cp);
+		return bitmaps[cp];
+	}
+}
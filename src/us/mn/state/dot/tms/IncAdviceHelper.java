@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2016-2019  Minnesota Department of Transportation
+ * Copyright (C) 2016-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -14,7 +14,12 @@
  */
 package us.mn.state.dot.tms;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
+import us.mn.state.dot.sonar.Namespace;
 import us.mn.state.dot.tms.utils.MultiString;
 
 /**
@@ -35,29 +40,76 @@ public class IncAdviceHelper extends BaseHelper {
 			IncAdvice.SONAR_TYPE));
 	}
 
-	/** Find a matching incident advice */
+	/** Create a match key */
+	static private List<Object> key(int imp, int rng, short lt) {
+		return Arrays.<Object>asList(imp, rng, lt);
+	}
+
+	/** Table of advices for matching, grouped by impact, range and lane
+	 * type.  It is rebuilt whenever an advice changes. */
+	static private final class Table {
+		private final Namespace ns;
+		private final int serial;
+		private final HashMap<List<Object>, ArrayList<IncAdvice>> advs =
+			new HashMap<List<Object>, ArrayList<IncAdvice>>();
+
+		private Table(Namespace n, int s) {
+			ns = n;
+			serial = s;
+			Iterator<IncAdvice> it = iterator();
+			while (it.hasNext()) {
+				IncAdvice adv = it.next();
+				List<Object> k = key(adv.getImpact(),
+					adv.getRange(), adv.getLaneType());
+				ArrayList<IncAdvice> al = advs.get(k);
+				if (null == al) {
+					al = new ArrayList<IncAdvice>(1);
+					advs.put(k, al);
+				}
+				al.add(adv);
+			}
+		}
+
+		/** Lookup advices for an impact, range and lane type */
+		private List<IncAdvice> lookup(int imp, int rng, short lt) {
+			ArrayList<IncAdvice> al = advs.get(key(imp, rng, lt));
+			return (al != null) ? al : new ArrayList<IncAdvice>(0);
+		}
+	}
+
+	/** Current advice table */
+	static private volatile Table table;
+
+	/** Get a current advice table */
+	static private Table getTable() {
+		Namespace ns = namespace;
+		int s = ns.getTypeSerial(IncAdvice.SONAR_TYPE);
+		Table t = table;
+		if (null == t || t.ns != ns || t.serial != s) {
+			t = new Table(ns, s);
+			table = t;
+		}
+		return t;
+	}
+
+	/** Find a matching incident advice.  Only advices with matching
+	 * impact, range and lane type are checked for lane matches. */
 	static public IncAdvice match(IncRange rng, Incident inc) {
 		IncAdvice res = null;
 		int priority = 0;
 		IncImpact imp = IncImpact.getImpact(inc);
-		Iterator<IncAdvice> it = iterator();
-		while (it.hasNext()) {
-			IncAdvice adv = it.next();
-			if (adv.getImpact() == imp.ordinal() &&
-			    adv.getRange() == rng.ordinal() &&
-			    adv.getLaneType() == inc.getLaneType())
-			{
-				LaneMatch open = LaneMatch.check(
-					adv.getOpenLanes(),
-					IncImpact.getOpenLanes(inc));
-				LaneMatch impacted = LaneMatch.check(
-					adv.getImpactedLanes(),
-					IncImpact.getImpactedLanes(inc));
-				Integer p = matchPriority(open, impacted);
-				if (p != null && p >= priority) {
-					res = adv;
-					priority = p;
-				}
+		List<IncAdvice> advs = getTable().lookup(imp.ordinal(),
+			rng.ordinal(), inc.getLaneType());
+		for (IncAdvice adv: advs) {
+			LaneMatch open = LaneMatch.check(adv.getOpenLanes(),
+				IncImpact.getOpenLanes(inc));
+			LaneMatch impacted = LaneMatch.check(
+				adv.getImpactedLanes(),
+				IncImpact.getImpactedLanes(inc));
+			Integer p = matchPriority(open, impacted);
+			if (p != null && p >= priority) {
+				res = adv;
+				priority = p;
 			}
 		}
 		return res;
@@ -14,7 +14,11 @@
  */
 package us.mn.state.dot.tms;
 
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
+import us.mn.state.dot.sonar.Namespace;
 import us.mn.state.dot.tms.utils.MultiString;
 
 /**
@@ -35,22 +39,64 @@ public class IncDescriptorHelper extends BaseHelper {
 			IncDescriptor.SONAR_TYPE));
 	}
 
-	/** Find a matching incident descriptor */
-	static public IncDescriptor match(Incident inc) {
-		IncDescriptor fallback = null;
-		Iterator<IncDescriptor> it = iterator();
-		while (it.hasNext()) {
-			IncDescriptor dsc = it.next();
-			if (dsc.getEventType() == inc.getEventType() &&
-			    dsc.getLaneType() == inc.getLaneType())
-			{
-				if (dsc.getDetail() == inc.getDetail())
-					return dsc;
-				else if (dsc.getDetail() == null)
-					fallback = dsc;
+	/** Create a match key */
+	static private List<Object> key(int et, short lt, IncidentDetail dtl) {
+		return Arrays.<Object>asList(et, lt, dtl);
+	}
+
+	/** Table of descriptors for matching, compiled from all descriptors
+	 * in the namespace.  It is rebuilt whenever a descriptor changes. */
+	static private final class Table {
+		private final Namespace ns;
+		private final int serial;
+
+		/** First descriptor for each (event, lane type, detail) */
+		private final HashMap<List<Object>, IncDescriptor> first =
+			new HashMap<List<Object>, IncDescriptor>();
+
+		/** Last descriptor with no detail (fallback) */
+		private final HashMap<List<Object>, IncDescriptor> fallback =
+			new HashMap<List<Object>, IncDescriptor>();
+
+		private Table(Namespace n, int s) {
+			ns = n;
+			serial = s;
+			Iterator<IncDescriptor> it = iterator();
+			while (it.hasNext()) {
+				IncDescriptor dsc = it.next();
+				List<Object> k = key(dsc.getEventType(),
+					dsc.getLaneType(), dsc.getDetail());
+				if (!first.containsKey(k))
+					first.put(k, dsc);
+				if (dsc.getDetail() == null)
+					fallback.put(k, dsc);
 			}
 		}
-		return fallback;
+	}
+
+	/** Current descriptor table */
+	static private volatile Table table;
+
+	/** Get a current descriptor table */
+	static private Table getTable() {
+		Namespace ns = namespace;
+		int s = ns.getTypeSerial(IncDescriptor.SONAR_TYPE);
+		Table t = table;
+		if (null == t || t.ns != ns || t.serial != s) {
+			t = new Table(ns, s);
+			table = t;
+		}
+		return t;
+	}
+
+	/** Find a matching incident descriptor.  An exact match of detail is
+	 * preferred, falling back to a descriptor with no detail. */
+	static public IncDescriptor match(Incident inc) {
+		Table t = getTable();
+		int et = inc.getEventType();
+		short lt = inc.getLaneType();
+		IncDescriptor dsc = t.first.get(key(et, lt, inc.getDetail()));
+		return (dsc != null) ? dsc : t.fallback.get(key(et, lt, null));
 	}
 
 	/** Validate a MULTI string */
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2016-2019  Minnesota Department of Transportation
+ * Copyright (C) 2016-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -15,6 +15,7 @@
 package us.mn.state.dot.tms;
 
 import java.util.Iterator;
+import us.mn.state.dot.sonar.Namespace;
 import us.mn.state.dot.tms.utils.MultiString;
 
 /**
@@ -35,19 +36,58 @@ public class IncLocatorHelper extends BaseHelper {
 			IncLocator.SONAR_TYPE));
 	}
 
+	/** Get the table index for a locator */
+	static private int index(int rng, boolean branched, boolean picked) {
+		return (rng << 2) | (branched ? 2 : 0) | (picked ? 1 : 0);
+	}
+
+	/** Table of locators for matching, indexed by range, branched and
+	 * picked.  It is rebuilt whenever a locator changes. */
+	static private final class Table {
+		private final Namespace ns;
+		private final int serial;
+		private final IncLocator[] locators =
+			new IncLocator[IncRange.values().length << 2];
+
+		private Table(Namespace n, int s) {
+			ns = n;
+			serial = s;
+			Iterator<IncLocator> it = iterator();
+			while (it.hasNext()) {
+				IncLocator iloc = it.next();
+				int r = iloc.getRange();
+				if (r < 0 || r >= IncRange.values().length)
+					continue;
+				int i = index(r, iloc.getBranched(),
+					iloc.getPicked());
+				// First matching locator wins
+				if (null == locators[i])
+					locators[i] = iloc;
+			}
+		}
+	}
+
+	/** Current locator table */
+	static private volatile Table table;
+
+	/** Get a current locator table */
+	static private Table getTable() {
+		Namespace ns = namespace;
+		int s = ns.getTypeSerial(IncLocator.SONAR_TYPE);
+		Table t = table;
+		if (null == t || t.ns != ns || t.serial != s) {
+			t = new Table(ns, s);
+			table = t;
+		}
+		return t;
+	}
+
 	/** Find a matching incident locator */
 	static public IncLocator match(IncRange rng, boolean branched,
 		boolean picked)
 	{
-		Iterator<IncLocator> it = iterator();
-		while (it.hasNext()) {
-			IncLocator iloc = it.next();
-			if (iloc.getRange() == rng.ordinal() &&
-			    iloc.getBranched() == branched &&
-			    iloc.getPicked() == picked)
-				return iloc;
-		}
-		return null;
+		int i = index(rng.ordinal(), branched, picked);
+		return getTable().locators[i];
 	}
 
 	/** Validate a MULTI string */
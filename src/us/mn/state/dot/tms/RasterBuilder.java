@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2008-2018  Minnesota Department of Transportation
+ * Copyright (C) 2008-2020  Minnesota Department of Transportation
  * Copyright (C) 2009-2010  AHMCT, University of California
  *
  * This program is free software; you can redistribute it and/or modify
@@ -96,45 +96,55 @@ public class RasterBuilder {
 	public BitmapGraphic[] createBitmaps(MultiString ms)
 		throws InvalidMsgException
 	{
-		final ArrayList<BitmapGraphic> bitmaps =
-			new ArrayList<BitmapGraphic>();
-		RasterGraphic.Factory factory = new RasterGraphic.Factory() {
-			public RasterGraphic create() {
-				BitmapGraphic bg = new BitmapGraphic(width,
-					height);
-				bitmaps.add(bg);
-				return bg;
-			}
-		};
-		render(ms, factory);
-		return bitmaps.toArray(new BitmapGraphic[0]);
+		RasterGraphic[] rasters = createRasters(ms, false);
+		BitmapGraphic[] bitmaps = new BitmapGraphic[rasters.length];
+		for (int i = 0; i < rasters.length; i++)
+			bitmaps[i] = (BitmapGraphic) rasters[i];
+		return bitmaps;
 	}
 
 	/** Render a PixmapGraphic for each page */
 	public RasterGraphic[] createPixmaps(MultiString ms)
 		throws InvalidMsgException
 	{
-		final ArrayList<RasterGraphic> pixmaps =
+		return createRasters(ms, true);
+	}
+
+	/** Create rasters for each page, checking the raster cache first */
+	private RasterGraphic[] createRasters(MultiString ms, boolean pix)
+		throws InvalidMsgException
+	{
+		MultiString multi = DMSHelper.ignoreFilter(ms);
+		String key = RasterCache.createKey(width, height, c_width,
+			c_height, default_font,
+			SystemAttrEnum.DMS_DEFAULT_JUSTIFICATION_LINE.getInt(),
+			SystemAttrEnum.DMS_DEFAULT_JUSTIFICATION_PAGE.getInt(),
+			pix, multi.toString());
+		RasterGraphic[] rasters = RasterCache.lookup(key);
+		if (null == rasters) {
+			rasters = render(ms, multi, pix);
+			RasterCache.store(key, rasters);
+		}
+		return rasters;
+	}
+
+	/** Render a RasterGraphic for each page */
+	private RasterGraphic[] render(MultiString ms, MultiString multi,
+		final boolean pix) throws InvalidMsgException
+	{
+		final ArrayList<RasterGraphic> rasters =
 			new ArrayList<RasterGraphic>();
 		RasterGraphic.Factory factory = new RasterGraphic.Factory() {
 			public RasterGraphic create() {
-				PixmapGraphic pg = new PixmapGraphic(width,
-					height);
-				pixmaps.add(pg);
-				return pg;
+				RasterGraphic rg = pix
+					? new PixmapGraphic(width, height)
+					: new BitmapGraphic(width, height);
+				rasters.add(rg);
+				return rg;
 			}
 		};
-		render(ms, factory);
-		return pixmaps.toArray(new RasterGraphic[0]);
-	}
-
-	/** Render to a RasterGraphic for the specified page number */
-	private void render(MultiString ms, RasterGraphic.Factory factory)
-		throws InvalidMsgException
-	{
 		MultiRenderer mr = new MultiRenderer(factory, c_width, c_height,
 			default_font);
-		MultiString multi = DMSHelper.ignoreFilter(ms);
 		multi.parse(mr);
 		mr.complete();
 		MultiSyntaxError err = mr.getSyntaxError();
@@ -142,5 +152,6 @@ public class RasterBuilder {
 			throw new InvalidMsgException(err.toString() +
 				": \"" + ms + '"');
 		}
+		return rasters.toArray(new RasterGraphic[0]);
 	}
 }
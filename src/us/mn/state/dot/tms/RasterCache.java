@@ -0,0 +1,176 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2020  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import us.mn.state.dot.sonar.Namespace;
+
+/**
+ * Cache of rendered page rasters, keyed by sign dimensions, default font,
+ * default justification and MULTI string.  Rasters are mutable, so callers
+ * always get copies.  All rasters are discarded whenever a font, glyph or
+ * graphic changes in the namespace.
+ *
+ * @author Douglas Lau
+ */
+public class RasterCache {
+
+	/** Maximum number of cached messages */
+	static private final int MAX_ENTRIES = 512;
+
+	/** Least-recently-used map of rendered rasters */
+	static private final LinkedHashMap<String, RasterGraphic[]> CACHE =
+		new LinkedHashMap<String, RasterGraphic[]>(MAX_ENTRIES, 0.75f,
+		true)
+	{
+		protected boolean removeEldestEntry(
+			Map.Entry<String, RasterGraphic[]> e)
+		{
+			return size() > MAX_ENTRIES;
+		}
+	};
+
+	/** Serial numbers of fonts, glyphs and graphics for cached rasters */
+	static private final class Serials {
+		private final Namespace ns;
+		private final int font_serial;
+		private final int glyph_serial;
+		private final int graphic_serial;
+		private Serials(Namespace n) {
+			ns = n;
+			font_serial = typeSerial(n, Font.SONAR_TYPE);
+			glyph_serial = typeSerial(n, Glyph.SONAR_TYPE);
+			graphic_serial = typeSerial(n, Graphic.SONAR_TYPE);
+		}
+		private boolean isCurrent(Serials o) {
+			return ns == o.ns && font_serial == o.font_serial &&
+			       glyph_serial == o.glyph_serial &&
+			       graphic_serial == o.graphic_serial;
+		}
+	}
+
+	/** Get the change serial number of a type */
+	static private int typeSerial(Namespace ns, String tname) {
+		return (ns != null) ? ns.getTypeSerial(tname) : 0;
+	}
+
+	/** Serial numbers of cached rasters */
+	static private Serials current = null;
+
+	/** Generation of cached rasters, incremented when serials change */
+	static private int generation = 0;
+
+	/** Get the current generation, discarding all cached rasters if a
+	 * font, glyph or graphic has changed */
+	static private int checkGeneration() {
+		Serials s = new Serials(BaseHelper.namespace);
+		synchronized (CACHE) {
+			if (null == current || !current.isCurrent(s)) {
+				current = s;
+				generation++;
+				CACHE.clear();
+			}
+			return generation;
+		}
+	}
+
+	/** Number of cache hits */
+	static private long hits = 0;
+
+	/** Number of cache misses */
+	static private long misses = 0;
+
+	/** Don't allow instances to be created */
+	private RasterCache() { }
+
+	/** Create a cache key.  The key includes the current generation, so
+	 * rasters rendered before a font, glyph or graphic changed are stored
+	 * with a stale key, which is never looked up.
+	 * @param w Sign width in pixels.
+	 * @param h Sign height in pixels.
+	 * @param cw Character width in pixels.
+	 * @param ch Character height in pixels.
+	 * @param df Default font number.
+	 * @param jl Default line justification.
+	 * @param jp Default page justification.
+	 * @param pix True for pixmaps, false for bitmaps.
+	 * @param multi Filtered MULTI string. */
+	static String createKey(int w, int h, int cw, int ch, int df,
+		int jl, int jp, boolean pix, String multi)
+	{
+		StringBuilder sb = new StringBuilder();
+		sb.append(checkGeneration()).append(':');
+		sb.append(w).append(',').append(h).append(',');
+		sb.append(cw).append(',').append(ch).append(',');
+		sb.append(df).append(',');
+		sb.append(jl).append(',').append(jp);
+		sb.append(pix ? 'p' : 'b');
+		sb.append(multi);
+		return sb.toString();
+	}
+
+	/** Lookup copies of cached rasters.
+	 * @param key Cache key.
+	 * @return Copies of the rasters, or null on a miss. */
+	static RasterGraphic[] lookup(String key) {
+		RasterGraphic[] rasters;
+		synchronized (CACHE) {
+			rasters = CACHE.get(key);
+			if (rasters != null)
+				hits++;
+			else
+				misses++;
+		}
+		return (rasters != null) ? copy(rasters) : null;
+	}
+
+	/** Store copies of rendered rasters */
+	static void store(String key, RasterGraphic[] rasters) {
+		RasterGraphic[] c = copy(rasters);
+		synchronized (CACHE) {
+			CACHE.put(key, c);
+		}
+	}
+
+	/** Copy an array of rasters */
+	static private RasterGraphic[] copy(RasterGraphic[] rasters) {
+		RasterGraphic[] c = new RasterGraphic[rasters.length];
+		for (int i = 0; i < rasters.length; i++)
+			c[i] = copy(rasters[i]);
+		return c;
+	}
+
+	/** Copy one raster */
+	static private RasterGraphic copy(RasterGraphic rg) {
+		int w = rg.getWidth();
+		int h = rg.getHeight();
+		RasterGraphic c = (rg instanceof BitmapGraphic)
+			? new BitmapGraphic(w, h)
+			: new PixmapGraphic(w, h);
+		c.setPixelData(rg.getPixelData());
+		return c;
+	}
+
+	/** Get cache statistics */
+	static public String getStats() {
+		synchronized (CACHE) {
+			long total = hits + misses;
+			int pct = (total > 0) ? (int) (100 * hits / total) : 0;
+			return CACHE.size() + " entries, " + hits + " hits, " +
+				misses + " misses (" + pct + "%)";
+		}
+	}
+}
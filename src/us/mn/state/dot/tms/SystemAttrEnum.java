@@ -18,6 +18,8 @@
 package us.mn.state.dot.tms;
 
 import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import us.mn.state.dot.sonar.Namespace;
 import static us.mn.state.dot.tms.SignMessageHelper.DMS_MESSAGE_MAX_PAGES;
 import us.mn.state.dot.tms.utils.I18N;
 
@@ -317,13 +319,96 @@ public enum SystemAttrEnum {
 		return ALL_ATTRIBUTES.get(aname);
 	}
 
+	/** Typed snapshot of all attribute values, indexed by ordinal */
+	static private final class Snapshot {
+		private final Namespace ns;
+		private final int type_serial;
+		private final int serial;
+		private final boolean[] found;
+		private final boolean[] bools;
+		private final int[] ints;
+		private final float[] floats;
+		private final String[] strings;
+		private Snapshot(Namespace n, int ts, int s) {
+			SystemAttrEnum[] all = values();
+			ns = n;
+			type_serial = ts;
+			serial = s;
+			found = new boolean[all.length];
+			bools = new boolean[all.length];
+			ints = new int[all.length];
+			floats = new float[all.length];
+			strings = new String[all.length];
+			for (SystemAttrEnum sa: all)
+				sa.store(this);
+		}
+		private boolean isCurrent(Namespace n, int ts, int s) {
+			return ns == n && type_serial == ts && serial == s;
+		}
+	}
+
+	/** Serial number of attribute changes not yet recorded by the
+	 * namespace */
+	static private final AtomicInteger SERIAL = new AtomicInteger();
+
+	/** Current snapshot (null until first use) */
+	static private volatile Snapshot snapshot;
+
+	/** Invalidate the attribute snapshot.  The snapshot is rebuilt
+	 * whenever the system attribute type serial changes in the namespace,
+	 * so this is only needed when a value is read before the namespace
+	 * records the change (such as from a setter). */
+	static public void invalidateSnapshot() {
+		SERIAL.incrementAndGet();
+	}
+
+	/** Get a current snapshot of all attribute values */
+	static private Snapshot getSnapshot() {
+		Namespace ns = BaseHelper.namespace;
+		int ts = (ns != null)
+		       ? ns.getTypeSerial(SystemAttribute.SONAR_TYPE)
+		       : 0;
+		int s = SERIAL.get();
+		Snapshot snap = snapshot;
+		if (null == snap || !snap.isCurrent(ns, ts, s)) {
+			snap = new Snapshot(ns, ts, s);
+			snapshot = snap;
+		}
+		return snap;
+	}
+
+	/** Store the value of the attribute in a snapshot */
+	private void store(Snapshot snap) {
+		int i = ordinal();
+		SystemAttribute attr = SystemAttributeHelper.get(aname());
+		snap.found[i] = (attr != null);
+		Object v = (attr != null) ? parseValue(attr.getValue())
+		                          : def_value;
+		if (v instanceof Boolean)
+			snap.bools[i] = (Boolean) v;
+		else if (v instanceof Integer)
+			snap.ints[i] = (Integer) v;
+		else if (v instanceof Float)
+			snap.floats[i] = (Float) v;
+		else
+			snap.strings[i] = (v != null) ? v.toString() : null;
+	}
+
+	/** Get a snapshot, warning if the attribute was not found */
+	private Snapshot snapshot() {
+		Snapshot snap = getSnapshot();
+		if (!snap.found[ordinal()])
+			System.err.println(warningDefault());
+		return snap;
+	}
+
 	/**
 	 * Get the value of the attribute as a string.
 	 * @return The value of the attribute as a string, never null.
 	 */
 	public String getString() {
 		assert atype == String.class;
-		return (String) get();
+		return snapshot().strings[ordinal()];
 	}
 
 	/** Get the default value as a String. */
@@ -337,19 +422,19 @@ public enum SystemAttrEnum {
 	/** Get the value of the attribute as a boolean */
 	public boolean getBoolean() {
 		assert atype == Boolean.class;
-		return (Boolean) get();
+		return snapshot().bools[ordinal()];
 	}
 
 	/** Get the value of the attribute as an int */
 	public int getInt() {
 		assert atype == Integer.class;
-		return (Integer) get();
+		return snapshot().ints[ordinal()];
 	}
 
 	/** Get the value of the attribute as a float */
 	public float getFloat() {
 		assert atype == Float.class;
-		return (Float) get();
+		return snapshot().floats[ordinal()];
 	}
 
 	/**
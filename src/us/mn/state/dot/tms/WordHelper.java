@@ -21,6 +21,7 @@ import java.net.URLEncoder;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import us.mn.state.dot.sonar.Namespace;
 import us.mn.state.dot.tms.utils.I18N;
 import us.mn.state.dot.tms.utils.MultiString;
 import us.mn.state.dot.tms.utils.SString;
@@ -79,6 +80,44 @@ public class WordHelper extends BaseHelper {
 		return (Word) namespace.lookupObject(Word.SONAR_TYPE, en);
 	}
 
+	/** Word trie, with the namespace and serial it was built from */
+	static private final class Dictionary {
+		private final Namespace ns;
+		private final int serial;
+		private final WordTrie trie;
+		private Dictionary(Namespace n, int s) {
+			ns = n;
+			serial = s;
+			trie = new WordTrie(iterator());
+		}
+	}
+
+	/** Current dictionary */
+	static private volatile Dictionary dictionary;
+
+	/** Get a current word trie, rebuilding it after words change.
+	 * @return Word trie, or null if there is no namespace. */
+	static private WordTrie getTrie() {
+		Namespace ns = namespace;
+		if (null == ns)
+			return null;
+		int s = ns.getTypeSerial(Word.SONAR_TYPE);
+		Dictionary d = dictionary;
+		if (null == d || d.ns != ns || d.serial != s) {
+			d = new Dictionary(ns, s);
+			dictionary = d;
+		}
+		return d.trie;
+	}
+
+	/** Find a word in the dictionary, ignoring case.
+	 * @param w Unencoded word.
+	 * @return The dictionary word, or null if not found */
+	static private Word find(String w) {
+		WordTrie t = getTrie();
+		return (t != null && w != null) ? t.lookup(w) : null;
+	}
+
 	/** Get the word scheme for allowed or banned words.
 	 * @param allow True for the allowed list else banned.
 	 * @return Word scheme specified by system attribute */
@@ -121,20 +160,21 @@ public class WordHelper extends BaseHelper {
 	static public String spellCheck(String multi) {
 		if (!spellCheckEnabled())
 			return "";
+		List<String> ws = new MultiString(multi).getWords();
 		StringBuilder msg = new StringBuilder();
-		msg.append(buildBannedUserMsg(multi));
-		msg.append(buildAllowedUserMsg(multi));
+		msg.append(buildBannedUserMsg(ws));
+		msg.append(buildAllowedUserMsg(ws));
 		return msg.toString();
 	}
 
 	/** Build a user message for words that are banned.
-	 * @param ms MULTI string
+	 * @param ws Words of MULTI string
 	 * @return A user message indicating which words are misspelled */
-	static private String buildBannedUserMsg(String multi) {
+	static private String buildBannedUserMsg(List<String> ws) {
 		WordScheme bds = getWordScheme(false);
 		if (bds == WordScheme.OFF)
 			return "";
-		List<String> bw = WordHelper.spellCheck(multi, false);
+		List<String> bw = spellCheck(ws, false);
 		if (bw.size() <= 0)
 			return "";
 		StringBuilder msg = new StringBuilder();
@@ -155,13 +195,13 @@ public class WordHelper extends BaseHelper {
 	}
 
 	/** Build a user message for words that are not explicitly allowed.
-	 * @param ms MULTI string
+	 * @param ws Words of MULTI string
 	 * @return A user message indicating which words are misspelled */
-	static private String buildAllowedUserMsg(String multi) {
+	static private String buildAllowedUserMsg(List<String> ws) {
 		WordScheme ads = getWordScheme(true);
 		if (ads == WordScheme.OFF)
 			return "";
-		List<String> aw = WordHelper.spellCheck(multi, true);
+		List<String> aw = spellCheck(ws, true);
 		if (aw.size() <= 0)
 			return "";
 		StringBuilder msg = new StringBuilder();
@@ -191,14 +231,9 @@ public class WordHelper extends BaseHelper {
 		for (String mwd : mwds) {
 			if (ignoreWord(mwd))
 				continue;
-			Iterator<Word> it = WordHelper.iterator();
-			while (it.hasNext()) {
-				Word dwd = it.next();
-				if (!hasAbbr(dwd))
-					continue;
-				if (WordHelper.equals(mwd, dwd.getName()))
-					awords.add(dwd);
-			}
+			Word dwd = find(mwd);
+			if (hasAbbr(dwd))
+				awords.add(dwd);
 		}
 		if (awords.isEmpty())
 			return "";
@@ -226,15 +261,6 @@ public class WordHelper extends BaseHelper {
 		return w1.toUpperCase().equals(w2.toUpperCase());
 	}
 
-	/** Spell check a MULTI string, returning the misspelled words.
-	 * @param ms MULTI string containing words to check.
-	 * @param a True to check against allowed words else banned words.
-	 * @return A list of incorrect words. */
-	static private List<String> spellCheck(String ms, boolean a) {
-		List<String> wrong = new LinkedList<String>();
-		return spellCheck(new MultiString(ms).getWords(), a);
-	}
-
 	/** Spell check a list of words, returning the misspelled words.
 	 * @param ws List of words in the message to spellcheck
 	 * @param a True for the allowed list else banned word list.
@@ -257,7 +283,7 @@ public class WordHelper extends BaseHelper {
 	static private boolean spellCheckWord(String w, boolean allow) {
 		if (ignoreWord(w))
 			return true;
-		Word dwd = lookup(w);
+		Word dwd = find(w);
 		return (dwd != null) ? dwd.getAllowed() : !allow;
 	}
 
@@ -293,7 +319,7 @@ public class WordHelper extends BaseHelper {
 
 	/** Lookup a word and return its abbreviation */
 	static public String abbreviate(String w) {
-		Word word = lookup(w);
+		Word word = find(w);
 		return (word != null && word.getAllowed())
 		      ? word.getAbbr()
 		      : null;
@@ -0,0 +1,110 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2020  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An immutable trie of dictionary words, for case-insensitive lookups
+ * without encoding or upper-casing each word.
+ *
+ * @author Douglas Lau
+ */
+final class WordTrie {
+
+	/** Trie node */
+	static private final class Node {
+
+		/** Sorted characters of child nodes */
+		private final char[] keys;
+
+		/** Child nodes */
+		private final Node[] kids;
+
+		/** Word ending at this node (may be null) */
+		private final Word word;
+
+		/** Create a node from a builder */
+		private Node(Builder b) {
+			int n = b.kids.size();
+			keys = new char[n];
+			kids = new Node[n];
+			int i = 0;
+			for (Map.Entry<Character, Builder> e:
+			     b.kids.entrySet())
+			{
+				keys[i] = e.getKey();
+				kids[i] = new Node(e.getValue());
+				i++;
+			}
+			word = b.word;
+		}
+
+		/** Get a child node */
+		private Node child(char c) {
+			int i = Arrays.binarySearch(keys, c);
+			return (i >= 0) ? kids[i] : null;
+		}
+	}
+
+	/** Mutable node for building a trie */
+	static private final class Builder {
+		private final TreeMap<Character, Builder> kids =
+			new TreeMap<Character, Builder>();
+		private Word word;
+
+		/** Add a word to the trie */
+		private void add(String w, Word wd) {
+			Builder b = this;
+			for (int i = 0; i < w.length(); i++) {
+				char c = Character.toUpperCase(w.charAt(i));
+				Builder k = b.kids.get(c);
+				if (null == k) {
+					k = new Builder();
+					b.kids.put(c, k);
+				}
+				b = k;
+			}
+			b.word = wd;
+		}
+	}
+
+	/** Root node */
+	private final Node root;
+
+	/** Create a word trie.
+	 * @param it Iterator of dictionary words. */
+	public WordTrie(Iterator<Word> it) {
+		Builder b = new Builder();
+		while (it.hasNext()) {
+			Word wd = it.next();
+			b.add(WordHelper.decode(wd.getName()), wd);
+		}
+		root = new Node(b);
+	}
+
+	/** Lookup a word (ignoring case).
+	 * @param w Unencoded word.
+	 * @return Dictionary word, or null if not found. */
+	public Word lookup(String w) {
+		Node n = root;
+		for (int i = 0; i < w.length() && n != null; i++)
+			n = n.child(Character.toUpperCase(w.charAt(i)));
+		return (n != null) ? n.word : null;
+	}
+}
@@ -0,0 +1,167 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2020  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms.client.camera;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * A reader for frames of a multipart MJPEG stream.  Part headers are
+ * scanned in place in a reused buffer, and frame data is read directly
+ * into a caller-supplied array, which is only reallocated when too small.
+ *
+ * @author Douglas Lau
+ */
+class MJPEGReader {
+
+	/** Size of header buffer */
+	static private final int BUF_SIZE = 8192;
+
+	/** Maximum number of header lines before a frame */
+	static private final int MAX_LINES = 100;
+
+	/** Content-length header name (lower case) */
+	static private final byte[] CONTENT_LENGTH =
+		"content-length".getBytes();
+
+	/** Channel to read */
+	private final ReadableByteChannel channel;
+
+	/** Buffer for header data.  Between reads, it is in "get" mode,
+	 * with position at the next unread byte. */
+	private final ByteBuffer buf = ByteBuffer.allocate(BUF_SIZE);
+
+	/** Length of the most recent frame */
+	private int length;
+
+	/** Create a new MJPEG reader */
+	public MJPEGReader(InputStream is) {
+		channel = Channels.newChannel(is);
+		buf.flip();
+	}
+
+	/** Get the length of the most recent frame */
+	public int getLength() {
+		return length;
+	}
+
+	/** Read the next frame.
+	 * @param data Array to reuse for frame data (may be null).
+	 * @return Array containing frame data; see getLength(). */
+	public byte[] readFrame(byte[] data) throws IOException {
+		length = readHeaders();
+		if (null == data || data.length < length)
+			data = new byte[length];
+		int n = Math.min(length, buf.remaining());
+		buf.get(data, 0, n);
+		ByteBuffer dst = ByteBuffer.wrap(data, n, length - n);
+		while (dst.hasRemaining()) {
+			if (channel.read(dst) < 0)
+				throw new IOException("End of stream");
+		}
+		return data;
+	}
+
+	/** Read part headers up to the frame data.
+	 * @return Content length of the frame. */
+	private int readHeaders() throws IOException {
+		int len = -1;
+		for (int i = 0; i < MAX_LINES; i++) {
+			int end = findLineEnd();
+			int start = buf.position();
+			int ll = lineLength(start, end);
+			buf.position(end + 1);
+			if (len >= 0 && ll == 0)
+				return len;
+			if (isContentLength(start, ll))
+				len = parseContentLength(start, ll);
+		}
+		throw new IOException("Missing content-length");
+	}
+
+	/** Find the end of the next line, filling the buffer as needed.
+	 * @return Index of newline in buffer. */
+	private int findLineEnd() throws IOException {
+		int i = buf.position();
+		while (true) {
+			for (; i < buf.limit(); i++) {
+				if (buf.get(i) == '\n')
+					return i;
+			}
+			i -= buf.position();
+			fill();
+		}
+	}
+
+	/** Fill the buffer with more data, keeping unread data */
+	private void fill() throws IOException {
+		buf.compact();
+		try {
+			if (!buf.hasRemaining())
+				throw new IOException("Header too long");
+			if (channel.read(buf) < 0)
+				throw new IOException("End of stream");
+		}
+		finally {
+			buf.flip();
+		}
+	}
+
+	/** Get the length of a line, not including CR/LF */
+	private int lineLength(int start, int end) {
+		int ll = end - start;
+		return (ll > 0 && buf.get(end - 1) == '\r') ? ll - 1 : ll;
+	}
+
+	/** Check if a line is a content-length header */
+	private boolean isContentLength(int start, int ll) {
+		if (ll <= CONTENT_LENGTH.length)
+			return false;
+		for (int i = 0; i < CONTENT_LENGTH.length; i++) {
+			char c = (char) buf.get(start + i);
+			if (Character.toLowerCase(c) != CONTENT_LENGTH[i])
+				return false;
+		}
+		return true;
+	}
+
+	/** Parse the content-length header value */
+	private int parseContentLength(int start, int ll) throws IOException {
+		long v = 0;
+		boolean digits = false;
+		for (int i = CONTENT_LENGTH.length; i < ll; i++) {
+			byte b = buf.get(start + i);
+			if (b >= '0' && b <= '9') {
+				v = v * 10 + (b - '0');
+				digits = true;
+				if (v > Integer.MAX_VALUE)
+					break;
+			} else if (digits || (b != ':' && b != ' ' &&
+			           b != '\t'))
+				break;
+		}
+		if (!digits || v > Integer.MAX_VALUE)
+			throw new IOException("Invalid content-length");
+		return (int) v;
+	}
+
+	/** Close the reader */
+	public void close() throws IOException {
+		channel.close();
+	}
+}
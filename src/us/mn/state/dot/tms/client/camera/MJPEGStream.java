@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2003-2017  Minnesota Department of Transportation
+ * Copyright (C) 2003-2020  Minnesota Department of Transportation
  * Copyright (C) 2015  SRF Consulting Group
  *
  * This program is free software; you can redistribute it and/or modify
@@ -16,16 +16,23 @@
 package us.mn.state.dot.tms.client.camera;
 
 import java.awt.Dimension;
-import java.awt.Image;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLConnection;
 import java.util.Calendar;
-import javax.swing.ImageIcon;
+import java.util.Iterator;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
 import javax.swing.JComponent;
-import javax.swing.JLabel;
 import us.mn.state.dot.sched.Job;
 import us.mn.state.dot.sched.Scheduler;
 import us.mn.state.dot.tms.Camera;
@@ -34,7 +41,10 @@ import us.mn.state.dot.tms.utils.Base64;
 import static us.mn.state.dot.tms.client.widget.Widgets.UI;
 
 /**
- * A video stream which reads an MJPEG source.
+ * A video stream which reads an MJPEG source.  Each stream has its own
+ * reader thread, so streams do not block each other.  Frames are decoded
+ * by a shared pool of decoder threads.  If a frame arrives before the
+ * previous one has been decoded, the older frame is dropped.
  *
  * @author Douglas Lau
  * @author Timothy Johnson
@@ -44,8 +54,32 @@ public class MJPEGStream implements VideoStream {
 	/** Default timeout for direct URL Connections */
 	static protected final int TIMEOUT_DIRECT = 5 * 1000;
 
-	/** Label to display video stream */
-	private final JLabel screen = new JLabel();
+	/** Number of decoder threads */
+	static private final int N_DECODERS = Math.max(1, Math.min(4,
+		Runtime.getRuntime().availableProcessors() / 2));
+
+	/** Decoder threads, shared by all streams */
+	static private final Scheduler[] DECODERS = new Scheduler[N_DECODERS];
+	static {
+		for (int i = 0; i < N_DECODERS; i++)
+			DECODERS[i] = new Scheduler("mjpeg_decode_" + i);
+	}
+
+	/** Count of created streams, for assigning decoders */
+	static private int n_streams = 0;
+
+	/** Get a decoder for a new stream */
+	static private synchronized Scheduler nextDecoder() {
+		n_streams++;
+		return DECODERS[n_streams % N_DECODERS];
+	}
+
+	/** Component to display video stream */
+	private final JComponent screen = new JComponent() {
+		@Override protected void paintComponent(Graphics g) {
+			paintFrame(g);
+		}
+	};
 
 	/** URL of the data source */
 	private final URL url;
@@ -56,11 +90,17 @@ public class MJPEGStream implements VideoStream {
 	/** Input stream to read */
 	private final InputStream stream;
 
-	/** Count of rendered frames */
-	private int n_frames = 0;
+	/** Frame reader */
+	private final MJPEGReader reader;
+
+	/** Reader thread for this stream */
+	private final Scheduler reader_thread;
+
+	/** Decoder thread for this stream */
+	private final Scheduler decoder;
 
 	/** Flag to continue running stream */
-	private boolean running = true;
+	private volatile boolean running = true;
 
 	/** Stream error message */
 	private String error_msg = null;
@@ -71,10 +111,59 @@ public class MJPEGStream implements VideoStream {
 			error_msg = e;
 	}
 
+	/** Frame data being read (reader thread only) */
+	private byte[] read_data;
+
+	/** Frame data waiting to be decoded (null for none) */
+	private byte[] pend_data;
+
+	/** Length of pending frame data */
+	private int pend_len;
+
+	/** Time pending frame was read (ns) */
+	private long pend_time;
+
+	/** Spare frame data buffer for reuse */
+	private byte[] spare_data;
+
+	/** Flag indicating decode job is queued */
+	private boolean decode_queued;
+
+	/** Image reader for decoding (decoder thread only) */
+	private ImageReader img_reader;
+
+	/** Image to reuse as decoding destination (decoder thread only) */
+	private BufferedImage decoded;
+
+	/** Scaled frame images (double buffered) */
+	private final BufferedImage[] frames = new BufferedImage[2];
+
+	/** Index of frame image to display (-1 for none) */
+	private volatile int front = -1;
+
+	/** Count of rendered frames */
+	private int n_frames = 0;
+
+	/** Count of dropped frames */
+	private int n_dropped = 0;
+
+	/** Total latency from read to render (ns) */
+	private long latency_ns = 0;
+
+	/** Frame count at last status update */
+	private int stat_frames = 0;
+
+	/** Dropped count at last status update */
+	private int stat_dropped = 0;
+
+	/** Latency total at last status update (ns) */
+	private long stat_latency = 0;
+
+	/** Time of last status update (ns) */
+	private long stat_time = System.nanoTime();
+
 	/** Create a new MJPEG stream */
-	public MJPEGStream(Scheduler s, VideoRequest req, Camera c)
-		throws IOException
-	{
+	public MJPEGStream(VideoRequest req, Camera c) throws IOException {
 		try {
 			url = req.getUri(c).toURL();
 		}
@@ -84,7 +173,14 @@ public class MJPEGStream implements VideoStream {
 		}
 		size = UI.dimension(req.getSize().width, req.getSize().height);
 		stream = createInputStream();
-		s.addJob(job);
+		reader = new MJPEGReader(stream);
+		decoder = nextDecoder();
+		for (int i = 0; i < frames.length; i++) {
+			frames[i] = new BufferedImage(size.width, size.height,
+				BufferedImage.TYPE_INT_RGB);
+		}
+		reader_thread = new Scheduler("mjpeg_reader");
+		reader_thread.addJob(job);
 	}
 
 	/** Create an input stream from an HTTP connection */
@@ -120,85 +216,148 @@ public class MJPEGStream implements VideoStream {
 	/** Read a video stream */
 	private void readStream() {
 		try {
-			byte[] idata = getImage();
-			screen.setIcon(createIcon(idata));
+			read_data = reader.readFrame(read_data);
+			queueFrame(reader.getLength(), System.nanoTime());
 		}
 		catch(IOException e) {
-			setErrorMsg(e.getMessage());
-			screen.setIcon(null);
-			running = false;
-		}
-	}
-
-	/** Get the next image in the mjpeg stream */
-	protected byte[] getImage() throws IOException {
-		int n_size = getImageSize();
-		byte[] image = new byte[n_size];
-		int n_bytes = 0;
-		while(n_bytes < n_size) {
-			int r = stream.read(image, n_bytes, n_size - n_bytes);
-			if(r >= 0)
-				n_bytes += r;
-			else
-				throw new IOException("End of stream");
-		}
-		n_frames++;
-		return image;
-	}
-
-	/** Create an image icon from image data */
-	protected ImageIcon createIcon(byte[] idata) {
-		ImageIcon icon = new ImageIcon(idata);
-		if(icon.getIconWidth() == size.width &&
-		   icon.getIconHeight() == size.height)
-			return icon;
-		Image im = icon.getImage().getScaledInstance(size.width,
-			size.height, Image.SCALE_FAST);
-		return new ImageIcon(im);
-	}
-
-	/** Get the length of the next image */
-	private int getImageSize() throws IOException {
-		for(int i = 0; i < 100; i++) {
-			String s = readLine();
-			if(s.toLowerCase().indexOf("content-length") > -1) {
-				// throw away an empty line after the
-				// content-length header
-				readLine();
-				return parseContentLength(s);
+			stop(e.getMessage());
+		}
+	}
+
+	/** Stop the stream on an error */
+	private synchronized void stop(String msg) {
+		if (running)
+			setErrorMsg(msg);
+		running = false;
+		front = -1;
+		screen.repaint();
+	}
+
+	/** Queue a frame for decoding */
+	private synchronized void queueFrame(int len, long t) {
+		byte[] data = read_data;
+		if (pend_data != null) {
+			// Previous frame not decoded yet; drop it
+			n_dropped++;
+			read_data = pend_data;
+		} else {
+			read_data = spare_data;
+			spare_data = null;
+		}
+		pend_data = data;
+		pend_len = len;
+		pend_time = t;
+		if (!decode_queued) {
+			decode_queued = true;
+			decoder.addJob(decode_job);
+		}
+	}
+
+	/** Job to decode pending frame */
+	private final Job decode_job = new Job() {
+		public void perform() {
+			decodeFrame();
+		}
+	};
+
+	/** Decode the pending frame */
+	private void decodeFrame() {
+		byte[] data;
+		int len;
+		long t;
+		synchronized (this) {
+			data = pend_data;
+			len = pend_len;
+			t = pend_time;
+			pend_data = null;
+			decode_queued = false;
+		}
+		if (null == data || !running)
+			return;
+		try {
+			BufferedImage im = decode(data, len);
+			if (im != null)
+				renderFrame(im, t);
+		}
+		catch (IOException e) {
+			// Corrupt frame (or incompatible destination); skip it
+			decoded = null;
+		}
+		catch (RuntimeException e) {
+			// Some decoders throw unchecked exceptions on bad data
+			decoded = null;
+		}
+		finally {
+			synchronized (this) {
+				spare_data = data;
 			}
 		}
-		throw new IOException("Missing content-length");
 	}
 
-	/** Parse the content-length header */
-	private int parseContentLength(String s) throws IOException {
-		s = s.substring(s.indexOf(":") + 1);
-		s = s.trim();
+	/** Decode JPEG image data, reusing the previous image if possible */
+	private BufferedImage decode(byte[] data, int len) throws IOException {
+		ImageInputStream iis = new MemoryCacheImageInputStream(
+			new ByteArrayInputStream(data, 0, len));
 		try {
-			return Integer.parseInt(s);
+			ImageReader ir = getImageReader();
+			if (null == ir)
+				return null;
+			ir.setInput(iis, true, true);
+			ImageReadParam param = ir.getDefaultReadParam();
+			BufferedImage d = decoded;
+			if (d != null && d.getWidth() == ir.getWidth(0) &&
+			    d.getHeight() == ir.getHeight(0))
+				param.setDestination(d);
+			decoded = ir.read(0, param);
+			return decoded;
+		}
+		finally {
+			iis.close();
+		}
+	}
+
+	/** Get the image reader for JPEG data */
+	private ImageReader getImageReader() {
+		if (null == img_reader) {
+			Iterator<ImageReader> it =
+				ImageIO.getImageReadersByFormatName("jpeg");
+			if (it.hasNext())
+				img_reader = it.next();
 		}
-		catch(NumberFormatException e) {
-			throw new IOException("Invalid content-length");
+		return img_reader;
+	}
+
+	/** Scale a decoded image into the back frame and display it */
+	private void renderFrame(BufferedImage im, long t) {
+		int b = (front == 0) ? 1 : 0;
+		BufferedImage f = frames[b];
+		synchronized (f) {
+			Graphics2D g = f.createGraphics();
+			try {
+				g.drawImage(im, 0, 0, size.width, size.height,
+					null);
+			}
+			finally {
+				g.dispose();
+			}
 		}
+		front = b;
+		synchronized (this) {
+			n_frames++;
+			latency_ns += System.nanoTime() - t;
+		}
+		screen.repaint();
 	}
 
-	/** Read the next line of text */
-	private String readLine() throws IOException {
-		StringBuilder b = new StringBuilder();
-		while(true) {
-			int ch = stream.read();
-			if(ch < 0) {
-				if(b.length() == 0)
-					throw new IOException("End of stream");
-				else
-					break;
+	/** Paint the current frame */
+	private void paintFrame(Graphics g) {
+		int fr = front;
+		if (fr >= 0) {
+			BufferedImage f = frames[fr];
+			synchronized (f) {
+				g.drawImage(f, 0, 0, null);
 			}
-			b.append((char)ch);
-			if(ch == '\n')
-				break;
 		}
-		return b.toString();
 	}
 
 	/** Get a component for displaying the video stream */
@@ -209,7 +368,25 @@ public class MJPEGStream implements VideoStream {
 	/** Get the status of the stream */
 	public String getStatus() {
 		String e = error_msg;
-		return (e != null) ? e : Encoding.MJPEG.toString();
+		return (e != null) ? e : Encoding.MJPEG.toString() + " " +
+			getStats();
+	}
+
+	/** Get frame statistics since the last call */
+	private synchronized String getStats() {
+		long now = System.nanoTime();
+		int nf = n_frames - stat_frames;
+		int nd = n_dropped - stat_dropped;
+		long lat = latency_ns - stat_latency;
+		long el = Math.max(1, now - stat_time);
+		stat_frames = n_frames;
+		stat_dropped = n_dropped;
+		stat_latency = latency_ns;
+		stat_time = now;
+		float fps = nf * 1e9f / el;
+		long ms = (nf > 0) ? lat / nf / 1000000 : 0;
+		return String.format("%.1f fps, %d ms, %d dropped", fps, ms,
+			nd);
 	}
 
 	/** Test if the video is playing */
@@ -221,11 +398,22 @@ public class MJPEGStream implements VideoStream {
 	public void dispose() {
 		running = false;
 		try {
+			reader.close();
 			stream.close();
 		}
 		catch(IOException e) {
 			setErrorMsg(e.getMessage());
 		}
-		screen.setIcon(null);
+		reader_thread.dispose();
+		decoder.addJob(new Job() {
+			public void perform() {
+				if (img_reader != null)
+					img_reader.dispose();
+				img_reader = null;
+				decoded = null;
+			}
+		});
+		front = -1;
+		screen.repaint();
 	}
 }
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2002-2017  Minnesota Department of Transportation
+ * Copyright (C) 2002-2020  Minnesota Department of Transportation
  * Copyright (C) 2014-2015  AHMCT, University of California
  *
  * This program is free software; you can redistribute it and/or modify
@@ -358,7 +358,7 @@ public class StreamPanel extends JPanel {
 	/** Create a new video stream */
 	private VideoStream createStream(Camera c) throws IOException {
 		if (video_req.hasMJPEG(c))
-			return new MJPEGStream(STREAMER, video_req, c);
+			return new MJPEGStream(video_req, c);
 		else
 			throw new IOException("Unable to stream");
 	}
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2000-2016  Minnesota Department of Transportation
+ * Copyright (C) 2000-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -82,6 +82,13 @@ abstract public class Layer {
 		fireLayerChanged(new LayerChangeEvent(Layer.this, reason));
 	}
 
+	/** Notify all listeners of a change to one map object.
+	 * @param reason Reason for layer change (should be status).
+	 * @param mo Changed map object. */
+	protected void fireLayerChanged(LayerChange reason, MapObject mo) {
+		fireLayerChanged(new LayerChangeEvent(Layer.this, reason, mo));
+	}
+
 	/** Create a new layer state */
 	abstract public LayerState createState(MapBean mb);
 
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2000-2016  Minnesota Department of Transportation
+ * Copyright (C) 2000-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -27,14 +27,31 @@ public class LayerChangeEvent extends EventObject {
 	/** Reason code for layer change */
 	private LayerChange reason;
 
+	/** Changed map object (null for whole layer) */
+	private final MapObject map_object;
+
 	/** Create a new LayerChangeEvent */
 	public LayerChangeEvent(Object source, LayerChange why) {
+		this(source, why, null);
+	}
+
+	/** Create a new LayerChangeEvent for one map object.
+	 * @param source Source of event.
+	 * @param why Reason for change.
+	 * @param mo Changed map object, or null for whole layer. */
+	public LayerChangeEvent(Object source, LayerChange why, MapObject mo) {
 		super(source);
 		reason = why;
+		map_object = mo;
 	}
 
 	/** Get the reason the layer changed */
 	public LayerChange getReason() {
 		return reason;
 	}
+
+	/** Get the changed map object (null for whole layer) */
+	public MapObject getMapObject() {
+		return map_object;
+	}
 }
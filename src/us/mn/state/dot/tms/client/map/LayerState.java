@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2000-2019  Minnesota Department of Transportation
+ * Copyright (C) 2000-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -24,6 +24,7 @@ import java.util.ArrayList;
 import java.util.List;
 import javax.swing.SwingUtilities;
 import javax.swing.event.EventListenerList;
+import static us.mn.state.dot.tms.client.widget.Widgets.UI;
 
 /**
  * Layer state is the rendering state for one layer on a map. Multiple layer
@@ -36,6 +37,9 @@ import javax.swing.event.EventListenerList;
  */
 abstract public class LayerState {
 
+	/** Margin (pixels) around map objects for viewport culling */
+	static private final int CULL_MARGIN = UI.scaled(64);
+
 	/** Empty selection special case (for equality comparisons) */
 	static private final MapObject[] NO_SELECTION = new MapObject[0];
 
@@ -187,21 +191,60 @@ abstract public class LayerState {
 	/** Call the specified callback for each map object in the layer */
 	abstract public MapObject forEach(MapSearcher s);
 
+	/** Call the specified callback for each map object in the layer
+	 * which may be within bounds.  Sub-classes can override this to
+	 * skip objects which are not nearby.
+	 * @param s Map searcher callback.
+	 * @param b Bounds in world coordinates.
+	 * @return Map object found, if any. */
+	public MapObject forEach(MapSearcher s, Rectangle2D b) {
+		return forEach(s);
+	}
+
+	/** Get the margin for culling map objects (world coordinates) */
+	protected double getCullMargin() {
+		return CULL_MARGIN * getScale();
+	}
+
+	/** Expand bounds by the culling margin */
+	private Rectangle2D cullBounds(Rectangle2D r) {
+		double m = getCullMargin();
+		return new Rectangle2D.Double(r.getX() - m, r.getY() - m,
+			r.getWidth() + 2 * m, r.getHeight() + 2 * m);
+	}
+
 	/** Paint the layer */
 	public void paint(final Graphics2D g) {
 		if (isVisible()) {
 			final AffineTransform t = g.getTransform();
 			theme.setScale(getScale());
-			forEach(new MapSearcher() {
+			MapSearcher ms = new MapSearcher() {
 				public boolean next(MapObject mo) {
 					theme.draw(g, mo);
 					g.setTransform(t);
 					return false;
 				}
-			});
+			};
+			Shape clip = g.getClip();
+			if (clip != null)
+				forEach(ms, cullBounds(clip.getBounds2D()));
+			else
+				forEach(ms);
 		}
 	}
 
+	/** Get the bounds (world coordinates) which must be repainted when
+	 * one map object changes.
+	 * @param mo Changed map object.
+	 * @return Bounds, or null to repaint the whole layer. */
+	public Rectangle2D getDirtyBounds(MapObject mo) {
+		if (mo != null && theme != null) {
+			theme.setScale(getScale());
+			return theme.getBounds(mo);
+		} else
+			return null;
+	}
+
 	/** Paint the selections for the layer */
 	public void paintSelections(Graphics2D g) {
 		if (isVisible()) {
@@ -254,11 +297,13 @@ abstract public class LayerState {
 	/** Search the layer for a map object containing the given point */
 	public MapObject search(final Point2D p) {
 		theme.setScale(getScale());
+		Rectangle2D b = new Rectangle2D.Double(p.getX(), p.getY(),
+			0, 0);
 		return forEach(new MapSearcher() {
 			public boolean next(MapObject mo) {
 				return theme.hit(p, mo);
 			}
-		});
+		}, cullBounds(b));
 	}
 
 	/** Process a mouse click for the layer */
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2000-2016  Minnesota Department of Transportation
+ * Copyright (C) 2000-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -14,20 +14,30 @@
  */
 package us.mn.state.dot.tms.client.map;
 
+import java.awt.AlphaComposite;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.RenderingHints;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.NoninvertibleTransformException;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 
 /**
  * This class can be used to generate map graphics when access to the graphics
  * subsystem is not available.
  *
+ * Each visible layer is rendered into its own surface, which is retained
+ * between frames.  When one map object changes, only the region around it
+ * is repainted on that layer's surface, and then composed onto the screen
+ * buffer.
+ *
  * @author Erik Engstrom
  * @author Douglas Lau
  */
@@ -36,12 +46,57 @@ public class MapPane implements LayerChangeListener {
 	/** Minimum width/height of map pane */
 	static private final int MIN_SIZE = 1;
 
+	/** Padding (pixels) around dirty map object bounds */
+	static private final int DIRTY_PAD = 4;
+
+	/** Retained surface for one layer */
+	static private class Surface {
+
+		/** Image of rendered layer */
+		private final BufferedImage image;
+
+		/** Flag indicating whole surface is dirty */
+		private boolean dirty = true;
+
+		/** Dirty region (screen coordinates) */
+		private Rectangle region;
+
+		/** Create a new surface */
+		private Surface(int width, int height) {
+			image = new BufferedImage(width, height,
+				BufferedImage.TYPE_INT_ARGB_PRE);
+		}
+
+		/** Add a region to the dirty region */
+		private void addRegion(Rectangle r) {
+			if (region != null)
+				region.add(r);
+			else
+				region = r;
+		}
+
+		/** Check if the surface needs repainting */
+		private boolean needsPaint() {
+			return dirty || region != null;
+		}
+
+		/** Clear dirty state */
+		private void clean() {
+			dirty = false;
+			region = null;
+		}
+	}
+
 	/** Buffer for map */
 	private BufferedImage screenBuffer;
 
 	/** Dirty flag */
 	private boolean dirty = true;
 
+	/** Retained layer surfaces */
+	private final HashMap<LayerState, Surface> surfaces =
+		new HashMap<LayerState, Surface>();
+
 	/** Transform from world to screen coordinates */
 	private final AffineTransform transform = new AffineTransform();
 
@@ -63,6 +118,7 @@ public class MapPane implements LayerChangeListener {
 	/** Set the pixel size of the map panel */
 	public void setSize(Dimension d) {
 		screenBuffer = createImage(d.width, d.height);
+		surfaces.clear();
 		rescale();
 		dirty = true;
 	}
@@ -83,7 +139,7 @@ public class MapPane implements LayerChangeListener {
 
 	/** Dispose of the map pane */
 	public void dispose() {
-		// nothing to do
+		surfaces.clear();
 	}
 
 	/** Change the scale of the map panel */
@@ -115,23 +171,79 @@ public class MapPane implements LayerChangeListener {
 	/** Get the current image for the map panel */
 	public BufferedImage getImage() {
 		BufferedImage bi = screenBuffer;
-		if (dirty) {
-			drawImage(bi);
-			dirty = false;
-		}
+		Rectangle r = paintSurfaces(bi);
+		if (r != null)
+			composeImage(bi, r);
 		return bi;
 	}
 
-	/** Draw the map image */
-	private void drawImage(BufferedImage bi) {
-		Graphics2D g = bi.createGraphics();
-		g.setBackground(background);
-		g.clearRect(0, 0, bi.getWidth(), bi.getHeight());
+	/** Paint all layer surfaces which need it.
+	 * @return Screen region to compose, or null if nothing changed. */
+	private Rectangle paintSurfaces(BufferedImage bi) {
+		Rectangle full = new Rectangle(0, 0, bi.getWidth(),
+			bi.getHeight());
+		Rectangle r = dirty ? full : null;
+		dirty = false;
+		List<LayerState> layers = mapbean.getLayers();
+		Iterator<LayerState> it = surfaces.keySet().iterator();
+		while (it.hasNext()) {
+			LayerState s = it.next();
+			if (!s.isVisible() || !layers.contains(s)) {
+				it.remove();
+				r = full;
+			}
+		}
+		for (LayerState s: layers) {
+			if (!s.isVisible())
+				continue;
+			Surface sf = surfaces.get(s);
+			if (null == sf) {
+				sf = new Surface(bi.getWidth(), bi.getHeight());
+				surfaces.put(s, sf);
+				r = full;
+			}
+			if (sf.needsPaint()) {
+				Rectangle sr = paintSurface(s, sf, full);
+				if (r != null)
+					r.add(sr);
+				else
+					r = sr;
+			}
+		}
+		return r;
+	}
+
+	/** Paint one layer surface.
+	 * @return Screen region which was painted. */
+	private Rectangle paintSurface(LayerState s, Surface sf,
+		Rectangle full)
+	{
+		Rectangle r = sf.dirty ? full : sf.region.intersection(full);
+		Graphics2D g = sf.image.createGraphics();
+		g.clip(r);
+		g.setComposite(AlphaComposite.Clear);
+		g.fillRect(r.x, r.y, r.width, r.height);
+		g.setComposite(AlphaComposite.SrcOver);
 		g.transform(transform);
 		g.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
 			RenderingHints.VALUE_ANTIALIAS_ON);
-		for (LayerState s: mapbean.getLayers())
-			s.paint(g);
+		s.paint(g);
+		g.dispose();
+		sf.clean();
+		return r;
+	}
+
+	/** Compose layer surfaces onto the map image */
+	private void composeImage(BufferedImage bi, Rectangle r) {
+		Graphics2D g = bi.createGraphics();
+		g.clip(r);
+		g.setBackground(background);
+		g.clearRect(r.x, r.y, r.width, r.height);
+		for (LayerState s: mapbean.getLayers()) {
+			Surface sf = surfaces.get(s);
+			if (sf != null)
+				g.drawImage(sf.image, 0, 0, null);
+		}
 		g.dispose();
 	}
 
@@ -149,11 +261,66 @@ public class MapPane implements LayerChangeListener {
 		case model:
 		case extent:
 			rescale();
+			invalidateAll();
+			return;
 		default:
-			dirty = true;
+			invalidate(ev);
 		}
 	}
 
+	/** Invalidate all layer surfaces */
+	private void invalidateAll() {
+		for (Surface sf: surfaces.values())
+			sf.dirty = true;
+		dirty = true;
+	}
+
+	/** Invalidate layer surfaces affected by a change event */
+	private void invalidate(LayerChangeEvent ev) {
+		Object src = ev.getSource();
+		boolean found = false;
+		for (LayerState s: mapbean.getLayers()) {
+			if (s == src || s.getLayer() == src) {
+				found = true;
+				invalidate(s, ev.getMapObject());
+			}
+		}
+		if (!found)
+			invalidateAll();
+	}
+
+	/** Invalidate one layer surface */
+	private void invalidate(LayerState s, MapObject mo) {
+		Surface sf = surfaces.get(s);
+		if (sf != null) {
+			if (mo != null) {
+				// The event is sent after the object changed,
+				// so these are its new bounds.  Per-object
+				// events are only sent for status changes,
+				// which do not move an object or change its
+				// shape, so the old pixels are within the same
+				// bounds.  Moving an object sends a geometry
+				// event for the whole layer (with no map
+				// object), which repaints the whole surface.
+				addDirtyBounds(s, sf, mo);
+			} else
+				sf.dirty = true;
+		} else
+			dirty = true;
+	}
+
+	/** Add the screen bounds of a map object to a surface dirty region */
+	private void addDirtyBounds(LayerState s, Surface sf, MapObject mo) {
+		Rectangle2D b = s.getDirtyBounds(mo);
+		if (b != null) {
+			Rectangle r = transform.createTransformedShape(b)
+				.getBounds();
+			r.grow(DIRTY_PAD, DIRTY_PAD);
+			sf.addRegion(r);
+		} else
+			sf.dirty = true;
+	}
+
 	/** Get the transform from world to screen coordinates */
 	public AffineTransform getTransform() {
 		return transform;
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2000-2016  Minnesota Department of Transportation
+ * Copyright (C) 2000-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -16,6 +16,7 @@ package us.mn.state.dot.tms.client.map;
 
 import java.awt.Graphics2D;
 import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
 import javax.swing.Icon;
 
 /**
@@ -37,6 +38,10 @@ public interface Symbol {
 	/** Hit-test map object */
 	boolean hit(Point2D p, MapObject mo);
 
+	/** Get the bounds of a map object in world coordinates.
+	 * @return Bounds, or null if unknown. */
+	Rectangle2D getBounds(MapObject mo);
+
 	/** Get the legend icon */
 	Icon getLegend(Style sty);
 }
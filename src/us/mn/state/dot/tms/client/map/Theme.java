@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2004-2019  Minnesota Department of Transportation
+ * Copyright (C) 2004-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -17,6 +17,7 @@ package us.mn.state.dot.tms.client.map;
 import java.awt.Graphics2D;
 import java.awt.Shape;
 import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
 import java.util.List;
 import javax.swing.Icon;
@@ -105,6 +106,11 @@ public class Theme {
 		return symbol.hit(p, mo);
 	}
 
+	/** Get the bounds of a map object in world coordinates */
+	public Rectangle2D getBounds(MapObject mo) {
+		return symbol.getBounds(mo);
+	}
+
 	/** Get tooltip text for the given map object */
 	public String getTip(MapObject mo) {
 		return mo.toString();
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2011-2016  Minnesota Department of Transportation
+ * Copyright (C) 2011-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -15,98 +15,448 @@
 package us.mn.state.dot.tms.client.map;
 
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.imageio.ImageIO;
 
 /**
- * A cache of image tiles.
+ * A cache of image tiles.  Decoded images are kept in a least-recently-used
+ * memory tier.  Encoded tiles are also stored in an optional disk tier,
+ * which persists between client sessions.  Tiles are loaded asynchronously
+ * by a pool of fetch threads; visible tiles are loaded before prefetched
+ * tiles.  The disk tier index is loaded by the first fetch thread, so the
+ * constructor does not block on disk I/O.
  *
  * @author Douglas Lau
  */
 public class TileCache {
 
-	/** FIFO of tile names in cache */
-	protected final LinkedList<String> tiles = new LinkedList<String>();
+	/** Listener for loaded tiles */
+	public interface Listener {
 
-	/** Hash of tile names to image files */
-	protected final HashMap<String, TempImageFile> tile_hash =
-		new HashMap<String, TempImageFile>();
+		/** A requested tile has been loaded into the cache */
+		void tileLoaded(String n);
+	}
+
+	/** Number of fetch threads */
+	static private final int N_THREADS = 4;
+
+	/** Maximum total size of disk tier (bytes) */
+	static private final long DISK_MAX_BYTES = 256L * 1024 * 1024;
+
+	/** Maximum size of one tile (bytes) */
+	static private final int MAX_TILE_BYTES = 256 * 1024;
+
+	/** Maximum number of queued tile requests */
+	static private final int MAX_QUEUE = 256;
+
+	/** Tile file extension */
+	static private final String EXT = ".png";
+
+	/** A tile file found while scanning the disk tier */
+	static private final class DiskFile {
+		private final String name;
+		private final long modified;
+		private final long length;
+		private DiskFile(String n, File f) {
+			name = n;
+			modified = f.lastModified();
+			length = f.length();
+		}
+	}
+
+	/** Read the entire contents of an input stream.
+	 * @throws IOException if the tile is larger than MAX_TILE_BYTES. */
+	static private byte[] readStream(InputStream is) throws IOException {
+		try {
+			byte[] buf = new byte[4096];
+			ByteArrayOutputStream baos =
+				new ByteArrayOutputStream();
+			while (true) {
+				int n_bytes = is.read(buf, 0, buf.length);
+				if (n_bytes < 0)
+					return baos.toByteArray();
+				baos.write(buf, 0, n_bytes);
+				if (baos.size() > MAX_TILE_BYTES)
+					throw new IOException("Tile too large");
+			}
+		}
+		finally {
+			is.close();
+		}
+	}
+
+	/** Decode a tile image */
+	static private BufferedImage decode(byte[] data) throws IOException {
+		BufferedImage img = ImageIO.read(
+			new ByteArrayInputStream(data));
+		if (img != null)
+			return img;
+		else
+			throw new IOException("Invalid image");
+	}
 
 	/** Image fetcher */
-	protected final ImageFetcher fetcher;
+	private final ImageFetcher fetcher;
 
-	/** Size of cache (number of tiles) */
-	protected final int size;
+	/** Size of memory tier (number of decoded tiles) */
+	private final int size;
 
 	/** Get the size of cache */
 	public int getSize() {
 		return size;
 	}
 
-	/** Create a new tile cache */
-	public TileCache(ImageFetcher f, int sz) {
+	/** Directory of disk tier (null for none) */
+	private final File dir;
+
+	/** LRU memory tier of decoded images */
+	private final LinkedHashMap<String, BufferedImage> images;
+
+	/** LRU index of disk tier (tile name to file size).
+	 * All access must be synchronized on the "disk" lock. */
+	private final LinkedHashMap<String, Long> disk =
+		new LinkedHashMap<String, Long>(256, 0.75f, true);
+
+	/** Total size of disk tier (bytes) */
+	private long disk_bytes = 0;
+
+	/** Flag indicating disk tier index has been loaded */
+	private boolean disk_loaded = false;
+
+	/** Set of tiles missing from server */
+	private final HashSet<String> missing = new HashSet<String>();
+
+	/** Queue of tile requests; visible tiles are at the front */
+	private final LinkedList<String> queue = new LinkedList<String>();
+
+	/** Pending requests, mapped to "notify listeners" flag */
+	private final HashMap<String, Boolean> pending =
+		new HashMap<String, Boolean>();
+
+	/** Listeners for loaded tiles */
+	private final List<Listener> listeners =
+		new CopyOnWriteArrayList<Listener>();
+
+	/** Flag indicating cache has been destroyed */
+	private boolean destroyed = false;
+
+	/** Create a new tile cache.
+	 * @param f Image fetcher.
+	 * @param sz Size of memory tier (number of tiles).
+	 * @param d Directory for disk tier (null for none). */
+	public TileCache(ImageFetcher f, final int sz, File d) {
 		fetcher = f;
 		size = sz;
+		dir = d;
+		images = new LinkedHashMap<String, BufferedImage>(sz, 0.75f,
+			true)
+		{
+			protected boolean removeEldestEntry(
+				Map.Entry<String, BufferedImage> e)
+			{
+				return size() > sz;
+			}
+		};
+		for (int i = 0; i < N_THREADS; i++)
+			startThread(i);
+	}
+
+	/** Start one fetch thread */
+	private void startThread(final int i) {
+		Thread t = new Thread("Tile fetch " + i) {
+			@Override
+			public void run() {
+				if (0 == i && dir != null)
+					scanDisk();
+				runFetch();
+			}
+		};
+		t.setDaemon(true);
+		t.start();
+	}
+
+	/** Add a listener for loaded tiles */
+	public void addListener(Listener l) {
+		listeners.add(l);
+	}
+
+	/** Remove a listener for loaded tiles */
+	public void removeListener(Listener l) {
+		listeners.remove(l);
+	}
+
+	/** Get the named tile from the memory tier.
+	 * @param n Tile name.
+	 * @return Decoded tile image, or null if not loaded. */
+	public synchronized BufferedImage getTile(String n) {
+		return images.get(n);
 	}
 
-	/** Purge the oldest image from the cache */
-	protected void purgeOldestImage() {
-		removeFirst();
+	/** Check if a tile is missing from the server */
+	public synchronized boolean isMissing(String n) {
+		return missing.contains(n);
 	}
 
-	/** Remove a tile from the cache */
-	protected TempImageFile removeFirst() {
-		synchronized(tile_hash) {
-			String name = tiles.removeFirst();
-			return tile_hash.remove(name);
+	/** Request a visible tile to be loaded.  Listeners are notified
+	 * when the tile is loaded. */
+	public synchronized void requestTile(String n) {
+		if (images.containsKey(n) || missing.contains(n))
+			return;
+		Boolean visible = pending.get(n);
+		if (visible != null) {
+			if (visible)
+				return;
+			// Promote prefetch request to the front
+			queue.remove(n);
 		}
+		else if (queue.size() >= MAX_QUEUE)
+			dropRequest();
+		pending.put(n, true);
+		queue.addFirst(n);
+		notify();
 	}
 
-	/** Get the named tile from the cache */
-	public BufferedImage getTile(String n) throws IOException {
-		TempImageFile tif = getTempImageFile(n);
-		if(tif != null)
-			return tif.getImage();
-		else
+	/** Request a tile to be prefetched.  Listeners are not notified. */
+	public synchronized void prefetchTile(String n) {
+		if (images.containsKey(n) || missing.contains(n) ||
+		    pending.containsKey(n) || queue.size() >= MAX_QUEUE)
+			return;
+		pending.put(n, false);
+		queue.addLast(n);
+		notify();
+	}
+
+	/** Drop the request at the back of the queue.  That is the oldest
+	 * prefetch request, or the oldest visible request if there are no
+	 * prefetches; it can be requested again later. */
+	private void dropRequest() {
+		pending.remove(queue.removeLast());
+	}
+
+	/** Fetch tiles until the cache is destroyed */
+	private void runFetch() {
+		while (true) {
+			String n = takeRequest();
+			if (null == n)
+				return;
+			BufferedImage img = null;
+			try {
+				img = loadTile(n);
+			}
+			catch (FileNotFoundException e) {
+				synchronized (this) {
+					missing.add(n);
+				}
+			}
+			catch (IOException e) {
+				System.err.print("I/O Error ");
+				System.err.print(e.getMessage());
+				System.err.println(" loading tile: " + n);
+			}
+			finishRequest(n, img);
+		}
+	}
+
+	/** Take the next tile request, waiting if necessary.
+	 * @return Tile name, or null if cache was destroyed. */
+	private synchronized String takeRequest() {
+		while (queue.isEmpty() && !destroyed) {
+			try {
+				wait();
+			}
+			catch (InterruptedException e) {
+				// Ignore
+			}
+		}
+		return destroyed ? null : queue.removeFirst();
+	}
+
+	/** Finish a tile request */
+	private void finishRequest(String n, BufferedImage img) {
+		boolean visible;
+		synchronized (this) {
+			visible = Boolean.TRUE.equals(pending.remove(n));
+			if (img != null && !destroyed)
+				images.put(n, img);
+		}
+		if (img != null && visible) {
+			for (Listener l: listeners)
+				l.tileLoaded(n);
+		}
+	}
+
+	/** Load a tile from the disk tier or server */
+	private BufferedImage loadTile(String n) throws IOException {
+		byte[] data = readDisk(n);
+		if (data != null) {
+			try {
+				return decode(data);
+			}
+			catch (IOException e) {
+				removeDisk(n);
+			}
+		}
+		data = readStream(fetcher.fetchImage(n));
+		BufferedImage img = decode(data);
+		writeDisk(n, data);
+		return img;
+	}
+
+	/** Get the disk file for a tile */
+	private File getFile(String n) {
+		return new File(dir, n + EXT);
+	}
+
+	/** Scan the disk tier directory, oldest files first.  Tiles which
+	 * were written during the scan are already in the index. */
+	private void scanDisk() {
+		ArrayList<DiskFile> files = new ArrayList<DiskFile>();
+		scanDir(dir, files);
+		Collections.sort(files, new Comparator<DiskFile>() {
+			public int compare(DiskFile a, DiskFile b) {
+				return Long.compare(a.modified, b.modified);
+			}
+		});
+		synchronized (disk) {
+			for (DiskFile f: files) {
+				if (!disk.containsKey(f.name)) {
+					disk.put(f.name, f.length);
+					disk_bytes += f.length;
+				}
+			}
+			disk_loaded = true;
+		}
+		trimDisk();
+	}
+
+	/** Scan a directory for tile files */
+	private void scanDir(File d, List<DiskFile> files) {
+		File[] list = d.listFiles();
+		if (list != null) {
+			int p = dir.getPath().length() + 1;
+			for (File f: list) {
+				if (f.isDirectory())
+					scanDir(f, files);
+				else if (f.getName().endsWith(EXT)) {
+					String path = f.getPath();
+					String n = path.substring(p,
+						path.length() - EXT.length())
+						.replace(File.separatorChar,
+						'/');
+					files.add(new DiskFile(n, f));
+				}
+			}
+		}
+	}
+
+	/** Read a tile from the disk tier.
+	 * @return Tile data, or null if not on disk. */
+	private byte[] readDisk(String n) {
+		if (null == dir)
+			return null;
+		boolean indexed, loaded;
+		synchronized (disk) {
+			// Use get to update LRU order
+			indexed = disk.get(n) != null;
+			loaded = disk_loaded;
+		}
+		File f = getFile(n);
+		// Check the file itself until the index is loaded
+		if (!indexed && (loaded || !f.isFile()))
+			return null;
+		try {
+			byte[] data = Files.readAllBytes(f.toPath());
+			// Keep LRU order between sessions
+			f.setLastModified(System.currentTimeMillis());
+			return data;
+		}
+		catch (IOException e) {
+			removeDisk(n);
 			return null;
+		}
 	}
 
-	/** Get the named temp image file from the cache */
-	protected TempImageFile getTempImageFile(String n) {
-		synchronized(tile_hash) {
-			if(tile_hash.containsKey(n))
-				return tile_hash.get(n);
-			else
-				return null;
+	/** Write a tile to the disk tier */
+	private void writeDisk(String n, byte[] data) {
+		if (null == dir)
+			return;
+		File f = getFile(n);
+		try {
+			File d = f.getParentFile();
+			d.mkdirs();
+			File tmp = File.createTempFile("tile", ".tmp", d);
+			try {
+				Files.write(tmp.toPath(), data);
+				Files.move(tmp.toPath(), f.toPath(),
+					StandardCopyOption.REPLACE_EXISTING);
+			}
+			finally {
+				tmp.delete();
+			}
+		}
+		catch (IOException e) {
+			System.err.println("Tile cache: " + e.getMessage());
+			return;
+		}
+		synchronized (disk) {
+			Long old = disk.put(n, (long) data.length);
+			if (old != null)
+				disk_bytes -= old;
+			disk_bytes += data.length;
 		}
+		trimDisk();
 	}
 
-	/** Lookup a tile and put it in the cache */
-	public void lookupTile(String n) throws IOException {
-		while(isFull())
-			purgeOldestImage();
-		TempImageFile tif = new TempImageFile(fetcher.fetchImage(n));
-		// Update the FIFO and hash map last so that exceptions cannot
-		// leave us in an inconsistent state
-		synchronized(tile_hash) {
-			tiles.addLast(n);
-			tile_hash.put(n, tif);
+	/** Remove a tile from the disk tier */
+	private void removeDisk(String n) {
+		synchronized (disk) {
+			Long sz = disk.remove(n);
+			if (sz != null)
+				disk_bytes -= sz;
 		}
+		getFile(n).delete();
 	}
 
-	/** Check if the cache is full */
-	protected boolean isFull() {
-		synchronized(tile_hash) {
-			return tile_hash.size() >= size;
+	/** Remove least-recently-used tiles until disk tier fits */
+	private void trimDisk() {
+		while (true) {
+			String n;
+			synchronized (disk) {
+				if (disk_bytes <= DISK_MAX_BYTES ||
+				    disk.isEmpty())
+					return;
+				n = disk.keySet().iterator().next();
+			}
+			removeDisk(n);
 		}
 	}
 
 	/** Destroy the tile cache */
-	public void destroy() throws IOException {
-		synchronized(tile_hash) {
-			tiles.clear();
-			tile_hash.clear();
+	public void destroy() {
+		synchronized (this) {
+			destroyed = true;
+			queue.clear();
+			pending.clear();
+			images.clear();
+			notifyAll();
 		}
+		listeners.clear();
 	}
 }
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2011-2016  Minnesota Department of Transportation
+ * Copyright (C) 2011-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -14,6 +14,7 @@
  */
 package us.mn.state.dot.tms.client.map;
 
+import java.io.File;
 import java.io.IOException;
 
 /**
@@ -42,7 +43,21 @@ public class TileLayer extends Layer {
 	/** Initialize the tile layer */
 	public void initialize() throws IOException {
 		ImageFetcher f = new ImageFetcher(url);
-		cache = new TileCache(f, n_cached);
+		cache = new TileCache(f, n_cached, getTileDir());
+	}
+
+	/** Dispose of the tile layer, stopping the fetch threads */
+	public void dispose() {
+		if (cache != null)
+			cache.destroy();
+		cache = null;
+	}
+
+	/** Get the disk cache directory for tiles */
+	private File getTileDir() {
+		File home = new File(System.getProperty("user.home"));
+		File tiles = new File(new File(home, "iris"), "tiles");
+		return new File(tiles, url.replaceAll("[^A-Za-z0-9.-]", "_"));
 	}
 
 	/** Create a new layer state */
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2011-2016  Minnesota Department of Transportation
+ * Copyright (C) 2011-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -17,11 +17,8 @@ package us.mn.state.dot.tms.client.map;
 import java.awt.Dimension;
 import java.awt.Image;
 import java.awt.geom.Point2D;
-import java.io.FileNotFoundException;
-import java.io.IOException;
-import java.util.HashSet;
-import javax.swing.SwingWorker;
 import us.mn.state.dot.tms.geo.ZoomLevel;
+import static us.mn.state.dot.tms.client.widget.SwingRunner.runSwing;
 
 /**
  * A tile layer state for drawing a Google-style tile map.
@@ -33,14 +30,30 @@ public class TileLayerState extends LayerState {
 	/** Cache of tiles */
 	private final TileCache cache;
 
-	/** Set of missing tiles */
-	private final HashSet<String> no_tile = new HashSet<String>();
+	/** Listener for loaded tiles */
+	private final TileCache.Listener listener = new TileCache.Listener() {
+		public void tileLoaded(String n) {
+			runSwing(new Runnable() {
+				public void run() {
+					fireLayerChanged(LayerChange.geometry);
+				}
+			});
+		}
+	};
 
 	/** Create a new tile layer state */
 	public TileLayerState(TileLayer layer, MapBean mb, TileCache c) {
 		super(layer, mb, new Theme("Tile", new TileSymbol(),
 			new Style("Tile")));
 		cache = c;
+		cache.addListener(listener);
+	}
+
+	/** Dispose of the layer state */
+	@Override
+	public void dispose() {
+		cache.removeListener(listener);
+		super.dispose();
 	}
 
 	/** Call the specified callback for each map object in the layer */
@@ -65,18 +78,44 @@ public class TileLayerState extends LayerState {
 			for (int y = y0; y <= y1; y++) {
 				int yp = (y1 - y) * 256 + oy;
 				String tile = getTileName(zoom, x, y);
-				Image img = getTile(tile);
+				Image img = cache.getTile(tile);
 				if (img != null)
 					s.next(new TileMapObject(img, xp, yp));
-				else {
-					if (!isTileMissing(tile))
-						createTileWorker(tile);
-				}
+				else
+					cache.requestTile(tile);
 			}
 		}
+		prefetchTiles(zoom, x0, x1, y0, y1);
 		return null;
 	}
 
+	/** Prefetch tiles around the visible tiles, and the tiles for
+	 * zooming out */
+	private void prefetchTiles(ZoomLevel zoom, int x0, int x1, int y0,
+		int y1)
+	{
+		for (int x = x0 - 1; x <= x1 + 1; x++) {
+			for (int y = y0 - 1; y <= y1 + 1; y++) {
+				boolean edge = (x < x0 || x > x1 ||
+				                y < y0 || y > y1);
+				if (edge && isValid(zoom, x) && isValid(zoom, y))
+					cache.prefetchTile(getTileName(zoom,x,y));
+			}
+		}
+		ZoomLevel out = ZoomLevel.fromOrdinal(zoom.ordinal() - 1);
+		if (out != null) {
+			for (int x = x0 / 2; x <= x1 / 2; x++) {
+				for (int y = y0 / 2; y <= y1 / 2; y++)
+					cache.prefetchTile(getTileName(out,x,y));
+			}
+		}
+	}
+
+	/** Check if an X or Y tile is valid for a zoom level */
+	private boolean isValid(ZoomLevel zoom, int xory) {
+		return xory >= 0 && xory < zoom.n_tiles;
+	}
+
 	/** Limit X or Y tile based on zoom level */
 	private int zoomLimit(ZoomLevel zoom, int xory) {
 		return Math.max(0, Math.min(zoom.n_tiles - 1, xory));
@@ -87,67 +126,4 @@ public class TileLayerState extends LayerState {
 		int gy = zoom.n_tiles - 1 - ty;
 		return "" + zoom.ordinal() + '/' + tx + '/' + gy;
 	}
-
-	/** Is the given tile missing? */
-	private boolean isTileMissing(String tile) {
-		synchronized (no_tile) {
-			return no_tile.contains(tile);
-		}
-	}
-
-	/** Get a tile from the tile cache */
-	private Image getTile(String tile) {
-		try {
-			return cache.getTile(tile);
-		}
-		catch (IOException e) {
-			System.err.print("I/O Error ");
-			System.err.print(e.getMessage());
-			System.err.println(" reading tile: " + tile);
-			return null;
-		}
-	}
-
-	/** Create a worker to lookup one tile */
-	private void createTileWorker(final String tile) {
-		SwingWorker worker = new SwingWorker<String, Void>() {
-			@Override
-			public String doInBackground() {
-				return lookupTile(tile);
-			}
-			@Override
-			public void done() {
-				try {
-					String tile = get();
-					if (tile != null) {
-						fireLayerChanged(
-							LayerChange.geometry);
-					}
-				}
-				catch (Exception e) {
-					// ignore
-				}
-			}
-		};
-		worker.execute();
-	}
-
-	/** Lookup one tile */
-	private String lookupTile(String tile) {
-		try {
-			cache.lookupTile(tile);
-			return tile;
-		}
-		catch (FileNotFoundException e) {
-			synchronized (no_tile) {
-				no_tile.add(tile);
-			}
-		}
-		catch (IOException e) {
-			System.err.print("I/O Error ");
-			System.err.print(e.getMessage());
-			System.err.println(" loading tile: " + tile);
-		}
-		return null;
-	}
 }
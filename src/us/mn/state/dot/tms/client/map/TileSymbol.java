@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2011-2016  Minnesota Department of Transportation
+ * Copyright (C) 2011-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -16,6 +16,7 @@ package us.mn.state.dot.tms.client.map;
 
 import java.awt.Graphics2D;
 import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
 import javax.swing.Icon;
 
 /**
@@ -53,6 +54,13 @@ public class TileSymbol implements Symbol {
 		return false;
 	}
 
+	/** Get the bounds of a map object in world coordinates */
+	@Override
+	public Rectangle2D getBounds(MapObject mo) {
+		// tiles are drawn in screen coordinates
+		return null;
+	}
+
 	/** Get the legend icon */
 	@Override
 	public Icon getLegend(Style sty) {
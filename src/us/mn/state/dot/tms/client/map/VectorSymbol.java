@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2007-2016  Minnesota Department of Transportation
+ * Copyright (C) 2007-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -153,6 +153,17 @@ public class VectorSymbol implements Symbol {
 		return shp.contains(ip);
 	}
 
+	/** Get the bounds of a map object in world coordinates */
+	@Override
+	public Rectangle2D getBounds(MapObject mo) {
+		AffineTransform t = mo.getTransform();
+		if (t == null)
+			return null;
+		Rectangle2D b = getShape(mo).getBounds2D();
+		b.add(getOutlineShape(mo).getBounds2D());
+		return t.createTransformedShape(b).getBounds2D();
+	}
+
 	/** Get the legend icon */
 	@Override
 	public Icon getLegend(Style sty) {
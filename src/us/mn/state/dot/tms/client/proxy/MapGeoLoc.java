@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2008-2018  Minnesota Department of Transportation
+ * Copyright (C) 2008-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -54,6 +54,8 @@ public class MapGeoLoc implements MapObject {
 		}
 		updateTransform();
 		updateInverseTransform();
+		if (manager != null)
+			manager.updateLocation(this);
 	}
 
 	/** Update the layer geometry */
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2008-2016  Minnesota Department of Transportation
+ * Copyright (C) 2008-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -61,6 +61,11 @@ public class ProxyLayer<T extends SonarObject> extends Layer {
 		fireLayerChanged(LayerChange.status);
 	}
 
+	/** Update the status of one map object */
+	public void updateStatus(MapObject mo) {
+		fireLayerChanged(LayerChange.status, mo);
+	}
+
 	/** Update the layer extent */
 	public void updateExtent() {
 		IWorker<Rectangle2D> worker = new IWorker<Rectangle2D>() {
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2008-2019  Minnesota Department of Transportation
+ * Copyright (C) 2008-2020  Minnesota Department of Transportation
  * Copyright (C) 2010  AHMCT, University of California
  *
  * This program is free software; you can redistribute it and/or modify
@@ -18,6 +18,7 @@ package us.mn.state.dot.tms.client.proxy;
 import java.awt.FlowLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.MouseEvent;
+import java.awt.geom.Rectangle2D;
 import java.util.Collection;
 import javax.swing.Icon;
 import javax.swing.JLabel;
@@ -249,8 +250,13 @@ abstract public class ProxyManager<T extends SonarObject> {
 
 	/** Called when a proxy has been changed */
 	protected void proxyChangedSwing(T proxy, String attr) {
-		if (layer != null && isStyleAttrib(attr))
-			layer.updateStatus();
+		if (layer != null && isStyleAttrib(attr)) {
+			MapGeoLoc loc = findGeoLoc(proxy);
+			if (loc != null)
+				layer.updateStatus(loc);
+			else
+				layer.updateStatus();
+		}
 	}
 
 	/** Get the normal vector for the given location */
@@ -467,6 +473,25 @@ abstract public class ProxyManager<T extends SonarObject> {
 		return null;
 	}
 
+	/** Iterate through proxy objects which may be within bounds.
+	 * @param s Map searcher callback.
+	 * @param b Bounds in world coordinates.
+	 * @return Map object found, if any. */
+	public MapObject forEach(MapSearcher s, Rectangle2D b) {
+		synchronized (map_cache) {
+			for (MapGeoLoc loc: map_cache.find(b)) {
+				if (isVisible(loc) && s.next(loc))
+					return loc;
+			}
+		}
+		return null;
+	}
+
+	/** Update the spatial index for a moved MapGeoLoc */
+	void updateLocation(MapGeoLoc loc) {
+		map_cache.move(loc);
+	}
+
 	/** Check if a MapGeoLoc is visible */
 	private boolean isVisible(MapGeoLoc loc) {
 		return isLocationSet(loc) && isStyleVisible(loc);
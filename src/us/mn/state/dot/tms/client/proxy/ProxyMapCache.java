@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2008-2019  Minnesota Department of Transportation
+ * Copyright (C) 2008-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -14,28 +14,70 @@
  */
 package us.mn.state.dot.tms.client.proxy;
 
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.Set;
 import us.mn.state.dot.sonar.SonarObject;
+import us.mn.state.dot.tms.geo.GridIndex;
 
 /**
  * A cache mapping from MapGeoLoc to proxy objects.  This cache
- * is an optimization to help ProxyManager.findProxy run fast.
+ * is an optimization to help ProxyManager.findProxy run fast.  It also
+ * keeps a spatial index of MapGeoLoc positions, so that painting and
+ * hit-testing only need to check nearby objects.
  *
  * @author Douglas Lau
  */
 public final class ProxyMapCache<T extends SonarObject>
 	implements Iterable<MapGeoLoc>
 {
+	/** Cell size of spatial index (spherical mercator meters) */
+	static private final double CELL_SIZE = 2000;
+
+	/** Get the indexed position of a MapGeoLoc */
+	static private Point2D getPosition(MapGeoLoc loc) {
+		AffineTransform t = loc.getTransform();
+		return new Point2D.Double(t.getTranslateX(),
+			t.getTranslateY());
+	}
+
 	/** Mapping from MapGeoLoc to proxy objects.  This is an optimization
 	 * cache to help findProxy run fast. */
 	private final HashMap<MapGeoLoc, T> map_proxies =
 		new HashMap<MapGeoLoc, T>();
 
+	/** Spatial index of MapGeoLoc positions */
+	private final GridIndex<MapGeoLoc> index =
+		new GridIndex<MapGeoLoc>(CELL_SIZE);
+
+	/** Positions of MapGeoLocs in spatial index */
+	private final HashMap<MapGeoLoc, Point2D> positions =
+		new HashMap<MapGeoLoc, Point2D>();
+
 	/** Dispose of the proxy map cache */
 	public synchronized void dispose() {
 		map_proxies.clear();
+		index.clear();
+		positions.clear();
+	}
+
+	/** Add a MapGeoLoc to the spatial index */
+	private void addIndex(MapGeoLoc loc) {
+		Point2D p = getPosition(loc);
+		index.add(loc, p.getX(), p.getY(), p.getX(), p.getY());
+		positions.put(loc, p);
+	}
+
+	/** Remove a MapGeoLoc from the spatial index */
+	private void removeIndex(MapGeoLoc loc) {
+		Point2D p = positions.remove(loc);
+		if (p != null)
+			index.remove(loc, p.getX(), p.getY(), p.getX(),
+				p.getY());
 	}
 
 	/** Put an entry into cache.
@@ -43,6 +85,18 @@ public final class ProxyMapCache<T extends SonarObject>
 	 * @param proxy Proxy to associate with map object. */
 	public synchronized void put(MapGeoLoc loc, T proxy) {
 		map_proxies.put(loc, proxy);
+		removeIndex(loc);
+		addIndex(loc);
+	}
+
+	/** Update the position of a MapGeoLoc in the spatial index.
+	 * @param loc Map object which may have moved. */
+	public synchronized void move(MapGeoLoc loc) {
+		Point2D p = positions.get(loc);
+		if (p != null && !p.equals(getPosition(loc))) {
+			removeIndex(loc);
+			addIndex(loc);
+		}
 	}
 
 	/** Remove an entry from cache.
@@ -53,6 +107,7 @@ public final class ProxyMapCache<T extends SonarObject>
 		while (it.hasNext()) {
 			Map.Entry<MapGeoLoc, T> ent = it.next();
 			if (ent.getValue() == proxy) {
+				removeIndex(ent.getKey());
 				it.remove();
 				break;
 			}
@@ -66,6 +121,14 @@ public final class ProxyMapCache<T extends SonarObject>
 		return map_proxies.get(loc);
 	}
 
+	/** Find all MapGeoLocs which may be within bounds.
+	 * @param b Bounds in world coordinates.
+	 * @return Set of candidate map objects. */
+	public synchronized Set<MapGeoLoc> find(Rectangle2D b) {
+		return index.find(b.getMinX(), b.getMinY(), b.getMaxX(),
+			b.getMaxY());
+	}
+
 	/** Get an iterator over the MapGeoLoc keys */
 	public Iterator<MapGeoLoc> iterator() {
 		return map_proxies.keySet().iterator();
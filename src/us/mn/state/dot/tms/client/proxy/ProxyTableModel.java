@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2007-2017  Minnesota Department of Transportation
+ * Copyright (C) 2007-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -14,10 +14,17 @@
  */
 package us.mn.state.dot.tms.client.proxy;
 
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import javax.swing.RowSorter;
+import javax.swing.Timer;
 import javax.swing.table.AbstractTableModel;
 import javax.swing.table.DefaultTableColumnModel;
 import javax.swing.table.TableColumn;
@@ -31,11 +38,20 @@ import us.mn.state.dot.tms.utils.NumericAlphaComparator;
  * Table model for IRIS proxies.  This model allows a RowSorter to be used
  * with the table for sorting and filtering.
  *
+ * Proxy changes are coalesced and applied in batches.  Rows which stay in
+ * sorted order are only updated; other rows are removed and merged back
+ * into the sorted list, with one event for each contiguous range of rows.
+ * Subclasses which need to act after rows have changed should override
+ * proxiesChangedSwing, which is called after each batch.
+ *
  * @author Douglas Lau
  */
 abstract public class ProxyTableModel<T extends SonarObject>
 	extends AbstractTableModel implements ITableModel
 {
+	/** Delay to coalesce proxy changes (ms) */
+	static private final int COALESCE_MS = 50;
+
 	/** User session */
 	protected final Session session;
 
@@ -59,6 +75,21 @@ abstract public class ProxyTableModel<T extends SonarObject>
 	/** Proxy list */
 	private final ArrayList<T> list;
 
+	/** Mapping of proxies to row indices (null when invalid) */
+	private IdentityHashMap<T, Integer> index;
+
+	/** Proxies changed since the last batch update */
+	private final LinkedHashSet<T> changed = new LinkedHashSet<T>();
+
+	/** Timer for batch updates */
+	private final Timer timer = new Timer(COALESCE_MS,
+		new ActionListener()
+	{
+		public void actionPerformed(ActionEvent e) {
+			updateChanged();
+		}
+	});
+
 	/** Proxy comparator */
 	private final Comparator<T> comp = comparator();
 
@@ -83,6 +114,7 @@ abstract public class ProxyTableModel<T extends SonarObject>
 				if (check(proxy))
 					list.add(proxy);
 			}
+			index = null;
 			int sz = list.size() - 1;
 			if (sz >= 0)
 				fireTableRowsInserted(0, sz);
@@ -113,6 +145,7 @@ abstract public class ProxyTableModel<T extends SonarObject>
 		row_height = rh;
 		columns = createColumns();
 		list = new ArrayList<T>();
+		timer.setRepeats(false);
 	}
 
 	/** Create a new proxy table model.
@@ -132,6 +165,8 @@ abstract public class ProxyTableModel<T extends SonarObject>
 	/** Dispose of the proxy table model */
 	public void dispose() {
 		descriptor.cache.removeProxyListener(listener);
+		timer.stop();
+		changed.clear();
 	}
 
 	/** Create the columns in the model via method, which is called
@@ -209,44 +244,166 @@ abstract public class ProxyTableModel<T extends SonarObject>
 	}
 
 	/** Add a new proxy to the table model */
-	private int doProxyAdded(T proxy) {
+	int doProxyAdded(T proxy) {
 		if (check(proxy)) {
-			int n_size = list.size();
-			for (int i = 0; i < n_size; ++i) {
-				int c = comp.compare(proxy, list.get(i));
-				if (c == 0)
-					return -1;
-				if (c < 0) {
-					list.add(i, proxy);
-					return i;
-				}
-			}
-			list.add(proxy);
-			return n_size;
+			int i = Collections.binarySearch(list, proxy, comp);
+			if (i >= 0)
+				return -1;
+			i = -(i + 1);
+			list.add(i, proxy);
+			index = null;
+			return i;
 		} else
 			return -1;
 	}
 
 	/** Remove a proxy from the table model */
 	private int doProxyRemoved(T proxy) {
+		changed.remove(proxy);
 		int i = getIndex(proxy);
-		if (i >= 0)
+		if (i >= 0) {
 			list.remove(i);
+			index = null;
+		}
 		return i;
 	}
 
-	/** Change a proxy in the table model */
+	/** Change a proxy in the table model.  The change is applied with
+	 * any others in the next batch update. */
 	protected void proxyChangedSwing(T proxy) {
-		int pre = doProxyRemoved(proxy);
-		int post = doProxyAdded(proxy);
-		if (pre >= 0 && post >= 0) {
-			int r0 = Math.min(pre, post);
-			int r1 = Math.max(pre, post);
+		changed.add(proxy);
+		if (!timer.isRunning())
+			timer.start();
+	}
+
+	/** Apply all changed proxies as a batch update */
+	void updateChanged() {
+		if (changed.isEmpty())
+			return;
+		IdentityHashMap<T, Integer> idx = getIndex();
+		ArrayList<Integer> rows = new ArrayList<Integer>();
+		ArrayList<T> moved = new ArrayList<T>();
+		for (T proxy: changed) {
+			Integer i = idx.get(proxy);
+			if (i != null)
+				rows.add(i);
+			else if (check(proxy))
+				moved.add(proxy);
+		}
+		changed.clear();
+		Collections.sort(rows);
+		ArrayList<Integer> removed = new ArrayList<Integer>();
+		ArrayList<Integer> updated = new ArrayList<Integer>();
+		findMovedRows(rows, updated, removed, moved);
+		fireRowsUpdated(updated);
+		removeRows(removed);
+		mergeRows(moved);
+		proxiesChangedSwing();
+	}
+
+	/** Called after a batch of proxy changes has been applied to the
+	 * table.  Subclasses may override this to act on the changed rows. */
+	protected void proxiesChangedSwing() {
+		// Subclasses should override this if necessary
+	}
+
+	/** Find changed rows which are no longer in sorted order.
+	 * @param rows Sorted list of changed rows.
+	 * @param updated List of rows which can be updated in place.
+	 * @param removed List of rows to be removed.
+	 * @param moved List of proxies to be merged back into the list. */
+	private void findMovedRows(List<Integer> rows, List<Integer> updated,
+		List<Integer> removed, List<T> moved)
+	{
+		int n = 0;
+		while (n < rows.size()) {
+			// Find a run of consecutive changed rows
+			int r0 = rows.get(n);
+			int r1 = r0;
+			while (n + 1 < rows.size() &&
+			       rows.get(n + 1) == r1 + 1)
+			{
+				n++;
+				r1++;
+			}
+			n++;
+			T last = (r0 > 0) ? list.get(r0 - 1) : null;
+			T next = (r1 + 1 < list.size())
+			       ? list.get(r1 + 1)
+			       : null;
+			for (int r = r0; r <= r1; r++) {
+				T proxy = list.get(r);
+				boolean keep = check(proxy);
+				if (keep && (last == null ||
+				    comp.compare(last, proxy) < 0) &&
+				    (next == null ||
+				    comp.compare(proxy, next) < 0))
+				{
+					updated.add(r);
+					last = proxy;
+				} else {
+					removed.add(r);
+					if (keep)
+						moved.add(proxy);
+				}
+			}
+		}
+	}
+
+	/** Remove rows from the list, firing one event per range.
+	 * @param removed Sorted list of rows to remove. */
+	private void removeRows(List<Integer> removed) {
+		int n = removed.size() - 1;
+		while (n >= 0) {
+			int r1 = removed.get(n);
+			int r0 = r1;
+			while (n > 0 && removed.get(n - 1) == r0 - 1) {
+				n--;
+				r0--;
+			}
+			n--;
+			list.subList(r0, r1 + 1).clear();
+			index = null;
+			fireTableRowsDeleted(r0, r1);
+		}
+	}
+
+	/** Merge proxies into the sorted list, firing one event per range */
+	private void mergeRows(List<T> moved) {
+		Collections.sort(moved, comp);
+		int n = 0;
+		while (n < moved.size()) {
+			int i = Collections.binarySearch(list, moved.get(n),
+				comp);
+			i = (i >= 0) ? i + 1 : -(i + 1);
+			// Find run of proxies to insert at the same position
+			int e = n + 1;
+			while (e < moved.size() && (i >= list.size() ||
+			       comp.compare(moved.get(e), list.get(i)) < 0))
+				e++;
+			list.addAll(i, moved.subList(n, e));
+			index = null;
+			fireTableRowsInserted(i, i + e - n - 1);
+			n = e;
+		}
+	}
+
+	/** Fire update events for ranges of rows.
+	 * @param rows Sorted list of rows. */
+	private void fireRowsUpdated(List<Integer> rows) {
+		int n = 0;
+		while (n < rows.size()) {
+			int r0 = rows.get(n);
+			int r1 = r0;
+			while (n + 1 < rows.size() &&
+			       rows.get(n + 1) == r1 + 1)
+			{
+				n++;
+				r1++;
+			}
+			n++;
 			fireTableRowsUpdated(r0, r1);
-		} else if (pre >= 0 && post < 0)
-			fireTableRowsDeleted(pre, pre);
-		else if (pre < 0 && post >= 0)
-			fireTableRowsInserted(post, post);
+		}
 	}
 
 	/** Check if an attribute change is interesting */
@@ -267,11 +424,18 @@ abstract public class ProxyTableModel<T extends SonarObject>
 
 	/** Get the index of the given proxy */
 	public int getIndex(T proxy) {
-		for (int i = 0; i < list.size(); ++i) {
-			if (proxy == list.get(i))
-				return i;
+		Integer i = getIndex().get(proxy);
+		return (i != null) ? i : -1;
+	}
+
+	/** Get the mapping of proxies to row indices */
+	private IdentityHashMap<T, Integer> getIndex() {
+		if (null == index) {
+			index = new IdentityHashMap<T, Integer>(list.size());
+			for (int i = 0; i < list.size(); i++)
+				index.put(list.get(i), i);
 		}
-		return -1;
+		return index;
 	}
 
 	/** Get the visible row count */
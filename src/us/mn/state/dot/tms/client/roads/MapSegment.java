@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2009-2018  Minnesota Department of Transportation
+ * Copyright (C) 2009-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -69,6 +69,11 @@ public class MapSegment implements MapObject {
 	/** Segment object */
 	private final Segment segment;
 
+	/** Get the segment */
+	public Segment getSegment() {
+		return segment;
+	}
+
 	/** Get the r_node */
 	public R_Node getR_Node() {
 		return segment.getModel().r_node;
@@ -128,11 +133,10 @@ public class MapSegment implements MapObject {
 		lane = segment.getLane(sh);
 		float inner = calculateInner(scale);
 		float width = calculateLaneWidth(scale);
-		R_NodeModel mdl = segment.getModel();
-		float in_a = inner + width * mdl.getUpstreamOffset(sh);
-		float out_a = inner + width * mdl.getUpstreamOffset(sh + 1);
-		float in_b = inner + width * mdl.getDownstreamOffset(sh);
-		float out_b = inner + width * mdl.getDownstreamOffset(sh + 1);
+		float in_a = inner + width * s.getUpstreamOffset(sh);
+		float out_a = inner + width * s.getUpstreamOffset(sh + 1);
+		float in_b = inner + width * s.getDownstreamOffset(sh);
+		float out_b = inner + width * s.getDownstreamOffset(sh + 1);
 		shape = createShape(in_a, out_a, in_b, out_b, false);
 		outline = createShape(in_a, out_a, in_b, out_b, true);
 	}
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2006-2019  Minnesota Department of Transportation
+ * Copyright (C) 2006-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -25,8 +25,6 @@ import javax.swing.ComboBoxModel;
 import javax.swing.DefaultComboBoxModel;
 import javax.swing.JLabel;
 import javax.swing.JPopupMenu;
-import javax.xml.parsers.ParserConfigurationException;
-import org.xml.sax.SAXException;
 import us.mn.state.dot.sonar.client.TypeCache;
 import us.mn.state.dot.tms.CorridorBase;
 import us.mn.state.dot.tms.CorridorFinder;
@@ -117,7 +115,7 @@ public class R_NodeManager extends ProxyManager<R_Node>
 
 	/** Create a new roadway node manager */
 	public R_NodeManager(Session s, GeoLocManager lm, Properties p)
-		throws IOException, SAXException, ParserConfigurationException
+		throws IOException
 	{
 		super(s, lm, descriptor(s), 10);
 		builder = canRead()
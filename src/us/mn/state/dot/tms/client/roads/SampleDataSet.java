@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2010-2012  Minnesota Department of Transportation
+ * Copyright (C) 2009-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -14,43 +14,204 @@
  */
 package us.mn.state.dot.tms.client.roads;
 
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
 
 /**
  * A sample data set contains all samples for the most recent period.
+ * Each sensor ID is assigned a stable index into primitive sample arrays.
+ * Samples for the next period are written into a separate set of arrays,
+ * which replaces the current arrays when swapped.
  *
  * @author Douglas Lau
  */
 public class SampleDataSet {
 
-	/** Mapping of sensor ID to sample data */
-	protected final HashMap<String, SensorSample> samples =
-		new HashMap<String, SensorSample>();
+	/** Missing data value */
+	static public final int MISSING_DATA = SampleXmlParser.MISSING_DATA;
 
-	/** Mapping of sensor ID to sample data for next interval */
-	protected final HashMap<String, SensorSample> next_samples =
-		new HashMap<String, SensorSample>();
+	/** Sample arrays for one period */
+	static private class Samples {
+
+		/** Flow rates (vehicles per hour per lane) */
+		private final int[] flow;
+
+		/** Speeds (miles per hour) */
+		private final int[] speed;
+
+		/** Occupancies */
+		private final float[] occ;
+
+		/** Create sample arrays with all data missing */
+		private Samples(int n) {
+			flow = new int[n];
+			speed = new int[n];
+			occ = new float[n];
+			Arrays.fill(flow, MISSING_DATA);
+			Arrays.fill(speed, MISSING_DATA);
+			Arrays.fill(occ, Float.NaN);
+		}
+
+		/** Create a copy with room for more sensors */
+		private Samples grow(int n) {
+			Samples s = new Samples(n);
+			System.arraycopy(flow, 0, s.flow, 0, flow.length);
+			System.arraycopy(speed, 0, s.speed, 0, speed.length);
+			System.arraycopy(occ, 0, s.occ, 0, occ.length);
+			return s;
+		}
+
+		/** Get the number of sensors */
+		private int size() {
+			return flow.length;
+		}
+
+		/** Get the flow for a sensor index */
+		private int getFlow(int i) {
+			return (i < flow.length) ? flow[i] : MISSING_DATA;
+		}
+
+		/** Get the speed for a sensor index */
+		private int getSpeed(int i) {
+			return (i < speed.length) ? speed[i] : MISSING_DATA;
+		}
+
+		/** Get the occupancy for a sensor index */
+		private float getOcc(int i) {
+			return (i < occ.length) ? occ[i] : Float.NaN;
+		}
+
+		/** Check if a sensor has the same data in other samples */
+		private boolean isSame(int i, Samples o) {
+			return getFlow(i) == o.getFlow(i)
+			    && getSpeed(i) == o.getSpeed(i)
+			    && Float.compare(getOcc(i), o.getOcc(i)) == 0;
+		}
+	}
+
+	/** Mapping of sensor ID to sample array index */
+	private final HashMap<String, Integer> sensors =
+		new HashMap<String, Integer>();
+
+	/** Samples for the current period.  This is replaced atomically when
+	 * samples are swapped, so it can be read without locking. */
+	private volatile Samples samples = new Samples(0);
+
+	/** Samples for the next period */
+	private Samples next_samples = new Samples(0);
+
+	/** Sensor indices updated in next samples */
+	private final BitSet updated = new BitSet();
+
+	/** Lookup the sample array index of a sensor.  An index is assigned
+	 * the first time a sensor ID is seen, and never changes. */
+	public synchronized int lookupSensor(String sid) {
+		Integer i = sensors.get(sid);
+		if (null == i) {
+			i = sensors.size();
+			sensors.put(sid, i);
+		}
+		return i;
+	}
+
+	/** Update one sample.
+	 * @param sid Sensor ID.
+	 * @param f Flow rate, or MISSING_DATA.
+	 * @param s Speed, or MISSING_DATA.
+	 * @param o Occupancy, or NaN. */
+	public synchronized void updateSample(String sid, int f, int s,
+		float o)
+	{
+		int i = lookupSensor(sid);
+		if (i >= next_samples.size()) {
+			next_samples = next_samples.grow(Math.max(
+				sensors.size(), 2 * next_samples.size()));
+		}
+		next_samples.flow[i] = f;
+		next_samples.speed[i] = s;
+		next_samples.occ[i] = o;
+		updated.set(i);
+	}
 
 	/** Update one sample */
-	public synchronized void updateSample(SensorSample s) {
-		next_samples.put(s.id, s);
+	public void updateSample(SensorSample s) {
+		Integer f = s.getFlow();
+		Integer spd = s.getSpeed();
+		Float o = s.getOcc();
+		updateSample(s.id, (f != null) ? f : MISSING_DATA,
+			(spd != null) ? spd : MISSING_DATA,
+			(o != null) ? o : Float.NaN);
+	}
+
+	/** Swap the samples.
+	 * @return Set of sensor indices with changed sample data. */
+	public synchronized BitSet swapSamples() {
+		Samples cur = samples;
+		Samples nxt = next_samples;
+		int n = Math.max(cur.size(), nxt.size());
+		BitSet changed = new BitSet(n);
+		for (int i = 0; i < n; i++) {
+			if (!cur.isSame(i, nxt))
+				changed.set(i);
+		}
+		samples = nxt;
+		next_samples = new Samples(nxt.size());
+		updated.clear();
+		return changed;
 	}
 
-	/** Swap the samples */
-	public synchronized void swapSamples() {
-		samples.clear();
-		samples.putAll(next_samples);
-		next_samples.clear();
+	/** Swap the samples, keeping current data for sensors which were
+	 * not updated.  Only updated sensors are compared.
+	 * @return Set of sensor indices with changed sample data. */
+	public synchronized BitSet swapDelta() {
+		Samples cur = samples;
+		Samples nxt = cur.grow(Math.max(cur.size(),
+			next_samples.size()));
+		BitSet changed = new BitSet(nxt.size());
+		for (int i = updated.nextSetBit(0); i >= 0;
+		     i = updated.nextSetBit(i + 1))
+		{
+			nxt.flow[i] = next_samples.flow[i];
+			nxt.speed[i] = next_samples.speed[i];
+			nxt.occ[i] = next_samples.occ[i];
+			if (!cur.isSame(i, nxt))
+				changed.set(i);
+		}
+		samples = nxt;
+		next_samples = new Samples(nxt.size());
+		updated.clear();
+		return changed;
+	}
+
+	/** Clear samples updated for the next period */
+	public synchronized void clearUpdates() {
+		next_samples = new Samples(next_samples.size());
+		updated.clear();
 	}
 
 	/** Clear the samples */
 	public synchronized void clearSamples() {
-		samples.clear();
-		next_samples.clear();
+		samples = new Samples(0);
+		next_samples = new Samples(next_samples.size());
+		updated.clear();
+	}
+
+	/** Get the flow rate for a sensor index.
+	 * @return Flow rate, or MISSING_DATA. */
+	public int getFlow(int i) {
+		return samples.getFlow(i);
+	}
+
+	/** Get the speed for a sensor index.
+	 * @return Speed, or MISSING_DATA. */
+	public int getSpeed(int i) {
+		return samples.getSpeed(i);
 	}
 
-	/** Get a sample for the given sensor ID */
-	public synchronized SensorSample getSample(String sid) {
-		return samples.get(sid);
+	/** Get the occupancy for a sensor index.
+	 * @return Occupancy, or NaN. */
+	public float getOcc(int i) {
+		return samples.getOcc(i);
 	}
 }
@@ -0,0 +1,199 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2020  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms.client.roads;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.zip.GZIPInputStream;
+import us.mn.state.dot.tms.utils.LineReader;
+
+/**
+ * Reader for the detector sample stream (det_sample.seq).  The most recent
+ * sequence number is read first; then only the delta files since the
+ * previous read are fetched.  If any delta is unavailable, the full
+ * snapshot is read instead.  Samples are written directly into a sample
+ * data set; after reading deltas, it should be swapped with swapDelta, so
+ * only the changed samples are processed.
+ *
+ * @author Douglas Lau
+ */
+public class SampleStreamReader {
+
+	/** Maximum number of delta files to fetch */
+	static private final int MAX_DELTAS = 10;
+
+	/** Maximum number of chars on one line */
+	static private final int MAX_LINE = 256;
+
+	/** Missing data value */
+	static private final int MISSING_DATA = SampleDataSet.MISSING_DATA;
+
+	/** Parse an integer value.
+	 * @return Parsed value, or MISSING_DATA. */
+	static private int parseInt(String v) {
+		try {
+			if (v.length() > 0)
+				return Integer.parseInt(v);
+		}
+		catch (NumberFormatException e) {
+			// Invalid value
+		}
+		return MISSING_DATA;
+	}
+
+	/** Parse a float value.
+	 * @return Parsed value, or NaN. */
+	static private float parseFloat(String v) {
+		try {
+			if (v.length() > 0)
+				return Float.parseFloat(v);
+		}
+		catch (NumberFormatException e) {
+			// Invalid value
+		}
+		return Float.NaN;
+	}
+
+	/** URL of sequence file */
+	private final URL url;
+
+	/** Timeout for URL connections (ms) */
+	private final int timeout;
+
+	/** Sample data set to update */
+	private final SampleDataSet samples;
+
+	/** Flag indicating the most recent read was only deltas */
+	private boolean delta = false;
+
+	/** Sequence number of current samples */
+	private long seq = 0;
+
+	/** Create a new sample stream reader.
+	 * @param u URL of sequence file.
+	 * @param t Timeout (ms).
+	 * @param ds Sample data set to update. */
+	public SampleStreamReader(URL u, int t, SampleDataSet ds) {
+		url = u;
+		timeout = t;
+		samples = ds;
+	}
+
+	/** Check if the most recent read was only deltas.  If so, the sample
+	 * data set must be swapped with swapDelta; otherwise swapSamples. */
+	public boolean isDelta() {
+		return delta;
+	}
+
+	/** Reset the reader, so the next read is a full snapshot */
+	public void reset() {
+		samples.clearUpdates();
+		seq = 0;
+	}
+
+	/** Read new samples from the stream.
+	 * @return true if samples were updated. */
+	public boolean read() throws IOException {
+		long latest = readSequence();
+		if (latest == seq)
+			return false;
+		if (seq > 0 && latest > seq && latest - seq <= MAX_DELTAS) {
+			try {
+				for (long s = seq + 1; s <= latest; s++)
+					readSamples(new URL(url, "det_sample_" +
+						s + ".txt.gz"), s);
+				delta = true;
+				return true;
+			}
+			catch (FileNotFoundException e) {
+				// Delta missing; fall through to snapshot
+			}
+			catch (IOException e) {
+				// Bad delta; fall through to snapshot
+			}
+		}
+		reset();
+		delta = false;
+		readSamples(new URL(url, "det_sample.txt.gz"), 0);
+		return true;
+	}
+
+	/** Open an input stream from a URL */
+	private InputStream openStream(URL u) throws IOException {
+		URLConnection conn = u.openConnection();
+		conn.setConnectTimeout(timeout);
+		conn.setReadTimeout(timeout);
+		conn.setUseCaches(false);
+		return conn.getInputStream();
+	}
+
+	/** Read the most recent sequence number */
+	private long readSequence() throws IOException {
+		try (InputStream in = openStream(url)) {
+			LineReader lr = new LineReader(in, MAX_LINE);
+			String line = lr.readLine();
+			if (line == null)
+				throw new IOException("Empty sequence");
+			return Long.parseLong(line.trim());
+		}
+		catch (NumberFormatException e) {
+			throw new IOException("Invalid sequence");
+		}
+	}
+
+	/** Read a sample file.
+	 * @param u URL of sample file.
+	 * @param s Expected sequence number (0 for snapshot). */
+	private void readSamples(URL u, long s) throws IOException {
+		try (InputStream in = new GZIPInputStream(openStream(u))) {
+			LineReader lr = new LineReader(in, MAX_LINE);
+			String[] head = parseHeader(lr.readLine());
+			long hs = Long.parseLong(head[1]);
+			long ps = Long.parseLong(head[2]);
+			if (s > 0 && (hs != s || ps != seq))
+				throw new IOException("Sequence mismatch");
+			String line = lr.readLine();
+			while (line != null) {
+				parseSample(line);
+				line = lr.readLine();
+			}
+			seq = hs;
+		}
+		catch (NumberFormatException e) {
+			throw new IOException("Invalid header");
+		}
+	}
+
+	/** Parse a sample file header line */
+	private String[] parseHeader(String line) throws IOException {
+		String[] head = (line != null) ? line.split(" ") : null;
+		if (head == null || head.length != 3 || !"seq".equals(head[0]))
+			throw new IOException("Invalid header");
+		return head;
+	}
+
+	/** Parse one sample line.  A sample with all values missing
+	 * removes the sensor's data. */
+	private void parseSample(String line) {
+		String[] v = line.split(",", -1);
+		if (v.length != 4)
+			return;
+		samples.updateSample(v[0], parseInt(v[1]), parseInt(v[2]),
+			parseFloat(v[3]));
+	}
+}
@@ -0,0 +1,374 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2020  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms.client.roads;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streaming parser for station sample XML documents (stat_sample.xml).
+ * This reads bytes directly, without building strings or boxed values for
+ * sample data.  Only the traffic_sample and sample elements are handled;
+ * the declaration, DTD, comments and end tags are skipped.
+ *
+ * @author Douglas Lau
+ */
+public class SampleXmlParser {
+
+	/** Handler for parsed data */
+	public interface Handler {
+
+		/** Handle the traffic_sample time stamp.
+		 * @param stamp Time stamp attribute.
+		 * @return true if samples should be handled. */
+		boolean timeStamp(String stamp);
+
+		/** Handle one sample.
+		 * @param sensor Sensor ID.
+		 * @param flow Flow rate, or MISSING_DATA.
+		 * @param speed Speed, or MISSING_DATA.
+		 * @param occ Occupancy, or NaN. */
+		void sample(String sensor, int flow, int speed, float occ);
+	}
+
+	/** Missing data value */
+	static public final int MISSING_DATA = -1;
+
+	/** Size of input buffer */
+	static private final int BUF_SZ = 16384;
+
+	/** Maximum length of a name or attribute value */
+	static private final int MAX_TOKEN = 256;
+
+	/** Get the bytes of a name */
+	static private byte[] name(String n) {
+		return n.getBytes(StandardCharsets.US_ASCII);
+	}
+
+	/** Element and attribute names */
+	static private final byte[] TRAFFIC_SAMPLE = name("traffic_sample");
+	static private final byte[] SAMPLE = name("sample");
+	static private final byte[] TIME_STAMP = name("time_stamp");
+	static private final byte[] SENSOR = name("sensor");
+	static private final byte[] FLOW = name("flow");
+	static private final byte[] SPEED = name("speed");
+	static private final byte[] OCC = name("occ");
+
+	/** Check if a byte is XML white space */
+	static private boolean isSpace(int c) {
+		return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+	}
+
+	/** Check if a token matches a name */
+	static private boolean isName(byte[] tok, int len, byte[] n) {
+		if (len != n.length)
+			return false;
+		for (int i = 0; i < len; i++) {
+			if (tok[i] != n[i])
+				return false;
+		}
+		return true;
+	}
+
+	/** Parse an integer value.
+	 * @return Value, or MISSING_DATA if invalid. */
+	static private int parseInt(byte[] tok, int len) {
+		if (len < 1 || len > 9)
+			return MISSING_DATA;
+		int v = 0;
+		for (int i = 0; i < len; i++) {
+			int d = tok[i] - '0';
+			if (d < 0 || d > 9)
+				return MISSING_DATA;
+			v = v * 10 + d;
+		}
+		return v;
+	}
+
+	/** Parse a float value.
+	 * @return Value, or NaN if invalid. */
+	static private float parseFloat(byte[] tok, int len) {
+		long v = 0;
+		long div = 1;
+		boolean frac = false;
+		int digits = 0;
+		for (int i = 0; i < len; i++) {
+			int c = tok[i];
+			if (c == '.' && !frac)
+				frac = true;
+			else if (c >= '0' && c <= '9' && digits < 15) {
+				v = v * 10 + (c - '0');
+				digits++;
+				if (frac)
+					div *= 10;
+			} else
+				return parseFloatSlow(tok, len);
+		}
+		return (digits > 0) ? (float) ((double) v / div) : Float.NaN;
+	}
+
+	/** Parse a float value with an unusual format */
+	static private float parseFloatSlow(byte[] tok, int len) {
+		try {
+			return Float.parseFloat(new String(tok, 0, len,
+				StandardCharsets.ISO_8859_1));
+		}
+		catch (NumberFormatException e) {
+			return Float.NaN;
+		}
+	}
+
+	/** Decode a string value, replacing predefined entities */
+	static private String decode(byte[] tok, int len) {
+		String v = new String(tok, 0, len, StandardCharsets.UTF_8);
+		if (v.indexOf('&') < 0)
+			return v;
+		return v.replace("&lt;", "<")
+		        .replace("&gt;", ">")
+		        .replace("&quot;", "\"")
+		        .replace("&apos;", "'")
+		        .replace("&amp;", "&");
+	}
+
+	/** Handler for parsed data */
+	private final Handler handler;
+
+	/** Input buffer */
+	private final byte[] buf = new byte[BUF_SZ];
+
+	/** Name token */
+	private final byte[] name = new byte[MAX_TOKEN];
+
+	/** Value token */
+	private final byte[] value = new byte[MAX_TOKEN];
+
+	/** Input stream */
+	private InputStream input;
+
+	/** Position in buffer */
+	private int pos;
+
+	/** Number of valid bytes in buffer */
+	private int len;
+
+	/** Length of name token */
+	private int name_len;
+
+	/** Length of value token */
+	private int value_len;
+
+	/** Flag indicating samples should be handled */
+	private boolean handle_samples;
+
+	/** Create a new sample XML parser */
+	public SampleXmlParser(Handler h) {
+		handler = h;
+	}
+
+	/** Parse an XML document */
+	public void parse(InputStream is) throws IOException {
+		input = is;
+		pos = 0;
+		len = 0;
+		handle_samples = false;
+		try {
+			int c = read();
+			while (c >= 0) {
+				if (c == '<')
+					parseMarkup();
+				c = read();
+			}
+		}
+		finally {
+			input = null;
+		}
+	}
+
+	/** Read the next byte.
+	 * @return Byte value, or -1 at end of stream. */
+	private int read() throws IOException {
+		if (pos >= len) {
+			len = input.read(buf, 0, BUF_SZ);
+			pos = 0;
+			if (len <= 0) {
+				len = 0;
+				return -1;
+			}
+		}
+		return buf[pos++] & 0xFF;
+	}
+
+	/** Read the next byte, which must exist */
+	private int readRequired() throws IOException {
+		int c = read();
+		if (c < 0)
+			throw new IOException("Unexpected end of document");
+		return c;
+	}
+
+	/** Parse markup after a '<' */
+	private void parseMarkup() throws IOException {
+		int c = readRequired();
+		if (c == '!')
+			skipDeclaration();
+		else if (c == '?' || c == '/')
+			skipTo('>');
+		else
+			parseElement(c);
+	}
+
+	/** Skip to a terminating byte */
+	private void skipTo(int t) throws IOException {
+		while (readRequired() != t);
+	}
+
+	/** Skip a comment or declaration (including an internal DTD) */
+	private void skipDeclaration() throws IOException {
+		int c = readRequired();
+		if (c == '-') {
+			skipComment();
+			return;
+		}
+		int depth = 0;
+		while (c != '>' || depth > 0) {
+			if (c == '[')
+				depth++;
+			else if (c == ']')
+				depth--;
+			else if (c == '<' && depth > 0) {
+				// Markup declaration within DTD
+				c = readRequired();
+				if (c == '!') {
+					c = readRequired();
+					if (c == '-') {
+						skipComment();
+						c = readRequired();
+						continue;
+					}
+				}
+				if (c != '>')
+					skipTo('>');
+			}
+			c = readRequired();
+		}
+	}
+
+	/** Skip a comment, after "<!-" */
+	private void skipComment() throws IOException {
+		int dashes = 0;
+		while (true) {
+			int c = readRequired();
+			if (c == '>' && dashes >= 2)
+				return;
+			dashes = (c == '-') ? dashes + 1 : 0;
+		}
+	}
+
+	/** Parse an element start tag */
+	private void parseElement(int c) throws IOException {
+		name_len = 0;
+		while (!isSpace(c) && c != '/' && c != '>') {
+			addName(c);
+			c = readRequired();
+		}
+		if (isName(name, name_len, SAMPLE)) {
+			if (handle_samples)
+				parseSample(c);
+			else
+				skipTag(c);
+		} else if (isName(name, name_len, TRAFFIC_SAMPLE))
+			parseTrafficSample(c);
+		else
+			skipTag(c);
+	}
+
+	/** Add a byte to the name token */
+	private void addName(int c) {
+		if (name_len < MAX_TOKEN)
+			name[name_len++] = (byte) c;
+	}
+
+	/** Skip the rest of a tag */
+	private void skipTag(int c) throws IOException {
+		while (c != '>')
+			c = parseAttribute(c);
+	}
+
+	/** Parse a traffic_sample element */
+	private void parseTrafficSample(int c) throws IOException {
+		String stamp = null;
+		while (c != '>') {
+			c = parseAttribute(c);
+			if (isName(name, name_len, TIME_STAMP))
+				stamp = decode(value, value_len);
+		}
+		handle_samples = (stamp != null) && handler.timeStamp(stamp);
+	}
+
+	/** Parse a sample element */
+	private void parseSample(int c) throws IOException {
+		String sensor = null;
+		int flow = MISSING_DATA;
+		int speed = MISSING_DATA;
+		float occ = Float.NaN;
+		while (c != '>') {
+			c = parseAttribute(c);
+			if (isName(name, name_len, SENSOR))
+				sensor = decode(value, value_len);
+			else if (isName(name, name_len, FLOW))
+				flow = parseInt(value, value_len);
+			else if (isName(name, name_len, SPEED))
+				speed = parseInt(value, value_len);
+			else if (isName(name, name_len, OCC))
+				occ = parseFloat(value, value_len);
+		}
+		if (sensor != null)
+			handler.sample(sensor, flow, speed, occ);
+	}
+
+	/** Parse one attribute into the name and value tokens.
+	 * @param c Current byte.
+	 * @return Next byte after the attribute ('>' at end of tag). */
+	private int parseAttribute(int c) throws IOException {
+		name_len = 0;
+		value_len = 0;
+		while (isSpace(c) || c == '/')
+			c = readRequired();
+		if (c == '>')
+			return c;
+		while (c != '=' && !isSpace(c) && c != '>') {
+			addName(c);
+			c = readRequired();
+		}
+		while (isSpace(c))
+			c = readRequired();
+		if (c != '=')
+			return c;
+		c = readRequired();
+		while (isSpace(c))
+			c = readRequired();
+		if (c != '\'' && c != '"')
+			throw new IOException("Invalid attribute");
+		int q = c;
+		c = readRequired();
+		while (c != q) {
+			if (value_len < MAX_TOKEN)
+				value[value_len++] = (byte) c;
+			c = readRequired();
+		}
+		return readRequired();
+	}
+}
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2009-2018  Minnesota Department of Transportation
+ * Copyright (C) 2009-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -14,8 +14,9 @@
  */
 package us.mn.state.dot.tms.client.roads;
 
+import java.awt.geom.Rectangle2D;
+import java.util.BitSet;
 import java.util.HashMap;
-import java.util.Map;
 import java.util.Set;
 import us.mn.state.dot.tms.Detector;
 import us.mn.state.dot.tms.DetectorHelper;
@@ -56,6 +57,20 @@ public class Segment {
 		     : null;
 	}
 
+	/** Check if two positions are equal (may be null) */
+	static private boolean isSamePos(SphericalMercatorPosition p0,
+		SphericalMercatorPosition p1)
+	{
+		return (p0 != null && p1 != null)
+		      ? (p0.getX() == p1.getX() && p0.getY() == p1.getY())
+		      : (p0 == p1);
+	}
+
+	/** Clamp a lane shift */
+	static private int clamp(int sh, int left, int right) {
+		return Math.min(right, Math.max(left, sh));
+	}
+
 	/** Get normal vector of a MapGeoLoc (may be null) */
 	static private MapVector getNormalVector(MapGeoLoc loc) {
 		return (loc != null)
@@ -74,6 +89,18 @@ public class Segment {
 	/** Shift from station node to downstream end */
 	private final int shift;
 
+	/** Upstream left lane shift */
+	private final int up_left;
+
+	/** Upstream right lane shift */
+	private final int up_right;
+
+	/** Downstream left lane shift */
+	private final int down_left;
+
+	/** Downstream right lane shift */
+	private final int down_right;
+
 	/** Flag indicating whether the segment contains parking detection */
 	public final boolean parking;
 
@@ -113,6 +140,34 @@ public class Segment {
 	private final HashMap<String, Integer> lane_sensors =
 		new HashMap<String, Integer>();
 
+	/** Sample data set indices of sensors */
+	private int[] sensor_idx = new int[0];
+
+	/** Lane numbers of sensors (parallel to sensor_idx) */
+	private int[] sensor_lane = new int[0];
+
+	/** Sample data for one lane (or all lanes) */
+	static private class LaneData {
+		private Integer flow;
+		private Integer speed;
+		private Integer density;
+		private Float occ;
+	}
+
+	/** Mapping of lane numbers to sample data (null key for all lanes).
+	 * This is replaced whenever samples for the segment change. */
+	private volatile HashMap<Integer, LaneData> lane_data =
+		new HashMap<Integer, LaneData>();
+
+	/** Scale of cached map segments */
+	private float cache_scale;
+
+	/** Cached station map segment */
+	private MapSegment station_seg;
+
+	/** Cached lane map segments, indexed by shift from left */
+	private MapSegment[] lane_segs;
+
 	/** Create a new segment.
 	 * @param m Upstream node model.
 	 * @param al Location of node at upstream end of segment.
@@ -132,6 +187,10 @@ public class Segment {
 		normal_b = getNormalVector(bl);
 		samples = sds;
 		shift = model.getShift(s);
+		up_left = model.getUpstreamLane(true);
+		up_right = model.getUpstreamLane(false);
+		down_left = model.getDownstreamLane(true);
+		down_right = model.getDownstreamLane(false);
 		parking = R_NodeHelper.isParking(b);
 		good = (s != null) && R_NodeHelper.isJoined(b) &&
 			isWithinSegmentDist(al, bl);
@@ -141,6 +200,80 @@ public class Segment {
 			labels.put(null, getStationLabel(s));
 			addDetection(dhash.getDetectors(s));
 		}
+		updateSamples();
+	}
+
+	/** Check if another segment has the same geometry and detection.
+	 * If so, it can be replaced by this segment, keeping cached map
+	 * segments and sample data. */
+	public boolean isSame(Segment o) {
+		return model.r_node == o.model.r_node
+		    && good == o.good
+		    && parking == o.parking
+		    && shift == o.shift
+		    && up_left == o.up_left
+		    && up_right == o.up_right
+		    && down_left == o.down_left
+		    && down_right == o.down_right
+		    && isSamePos(pos_a, o.pos_a)
+		    && isSamePos(pos_b, o.pos_b)
+		    && normal_a.equals(o.normal_a)
+		    && normal_b.equals(o.normal_b)
+		    && labels.equals(o.labels)
+		    && lane_sensors.equals(o.lane_sensors);
+	}
+
+	/** Check if the segment has detection from any of a set of sensors.
+	 * @param sids Set of sample data set sensor indices. */
+	public boolean hasSensor(BitSet sids) {
+		for (int i: sensor_idx) {
+			if (sids.get(i))
+				return true;
+		}
+		return false;
+	}
+
+	/** Get the bounds of the segment.
+	 * @param m Margin to add around segment ends.
+	 * @return Bounds in world coordinates, or null if unknown. */
+	public Rectangle2D getBounds(double m) {
+		if (null == pos_a || null == pos_b)
+			return null;
+		double x0 = Math.min(pos_a.getX(), pos_b.getX());
+		double x1 = Math.max(pos_a.getX(), pos_b.getX());
+		double y0 = Math.min(pos_a.getY(), pos_b.getY());
+		double y1 = Math.max(pos_a.getY(), pos_b.getY());
+		return new Rectangle2D.Double(x0 - m, y0 - m,
+			x1 - x0 + 2 * m, y1 - y0 + 2 * m);
+	}
+
+	/** Get the station map segment for a scale */
+	public synchronized MapSegment getMapSegment(float scale) {
+		checkScale(scale);
+		if (null == station_seg)
+			station_seg = new MapSegment(this, scale);
+		return station_seg;
+	}
+
+	/** Get a lane map segment for a scale.
+	 * @param sh Absolute shift (from getLeftMin to getRightMax).
+	 * @param scale Map scale. */
+	public synchronized MapSegment getMapSegment(int sh, float scale) {
+		checkScale(scale);
+		int i = sh - getLeftMin();
+		if (null == lane_segs[i])
+			lane_segs[i] = new MapSegment(this, sh, scale);
+		return lane_segs[i];
+	}
+
+	/** Check scale of cached map segments */
+	private void checkScale(float scale) {
+		if (scale != cache_scale || null == lane_segs) {
+			cache_scale = scale;
+			station_seg = null;
+			lane_segs = new MapSegment[Math.max(0,
+				getRightMax() - getLeftMin())];
+		}
 	}
 
 	/** Get label for a station segment */
@@ -163,10 +296,16 @@ public class Segment {
 
 	/** Add detection to the segment */
 	private void addDetection(Set<Detector> dets) {
+		sensor_idx = new int[dets.size()];
+		sensor_lane = new int[dets.size()];
+		int i = 0;
 		for (Detector d: dets) {
 			String sid = d.getName();
 			int ln = d.getLaneNumber();
 			lane_sensors.put(sid, ln);
+			sensor_idx[i] = samples.lookupSensor(sid);
+			sensor_lane[i] = ln;
+			i++;
 			addDetectorLabel(d);
 		}
 	}
@@ -194,112 +333,112 @@ public class Segment {
 		return sb.toString().trim();
 	}
 
-	/** Get the flow for the given lane */
-	public Integer getFlow(Integer lane) {
-		int total = 0;
-		int count = 0;
-		for (Map.Entry<String, Integer> ent: lane_sensors.entrySet()) {
-			if (lane == null || lane == ent.getValue()) {
-				String sid = ent.getKey();
-				SensorSample s = samples.getSample(sid);
-				if (s != null) {
-					Integer f = s.getFlow();
-					if (f != null) {
-						total += f;
-						count++;
-					}
-				}
+	/** Update the sample data for all lanes */
+	public void updateSamples() {
+		HashMap<Integer, LaneData> data =
+			new HashMap<Integer, LaneData>();
+		data.put(null, calculateLaneData(null));
+		for (Integer ln: lane_sensors.values()) {
+			if (!data.containsKey(ln))
+				data.put(ln, calculateLaneData(ln));
+		}
+		lane_data = data;
+	}
+
+	/** Calculate the sample data for the given lane */
+	private LaneData calculateLaneData(Integer lane) {
+		int flow = 0;
+		int n_flow = 0;
+		int speed = 0;
+		int n_speed = 0;
+		int density = 0;
+		int n_density = 0;
+		float occ = 0;
+		int n_occ = 0;
+		for (int i = 0; i < sensor_idx.length; i++) {
+			if (lane != null && lane != sensor_lane[i])
+				continue;
+			int f = samples.getFlow(sensor_idx[i]);
+			int spd = samples.getSpeed(sensor_idx[i]);
+			float o = samples.getOcc(sensor_idx[i]);
+			if (f != SampleDataSet.MISSING_DATA) {
+				flow += f;
+				n_flow++;
+			}
+			if (spd != SampleDataSet.MISSING_DATA) {
+				speed += spd;
+				n_speed++;
+			}
+			if (f != SampleDataSet.MISSING_DATA && spd > 0) {
+				density += Math.round((float) f / (float) spd);
+				n_density++;
+			}
+			if (!Float.isNaN(o)) {
+				occ += o;
+				n_occ++;
 			}
 		}
-		if (count > 0)
-			return total / count;
-		else
-			return null;
+		LaneData ld = new LaneData();
+		ld.flow = (n_flow > 0) ? flow / n_flow : null;
+		ld.speed = (n_speed > 0) ? speed / n_speed : null;
+		ld.density = (n_density > 0) ? density / n_density : null;
+		ld.occ = (n_occ > 0) ? occ / n_occ : null;
+		return ld;
+	}
+
+	/** Get the flow for the given lane */
+	public Integer getFlow(Integer lane) {
+		LaneData ld = lane_data.get(lane);
+		return (ld != null) ? ld.flow : null;
 	}
 
 	/** Get the speed for the given lane */
 	public Integer getSpeed(Integer lane) {
-		int total = 0;
-		int count = 0;
-		for (Map.Entry<String, Integer> ent: lane_sensors.entrySet()) {
-			if (lane == null || lane == ent.getValue()) {
-				String sid = ent.getKey();
-				SensorSample s = samples.getSample(sid);
-				if (s != null) {
-					Integer spd = s.getSpeed();
-					if (spd != null) {
-						total += spd;
-						count++;
-					}
-				}
-			}
-		}
-		if (count > 0)
-			return total / count;
-		else
-			return null;
+		LaneData ld = lane_data.get(lane);
+		return (ld != null) ? ld.speed : null;
 	}
 
 	/** Get the density for the given lane */
 	public Integer getDensity(Integer lane) {
-		int total = 0;
-		int count = 0;
-		for (Map.Entry<String, Integer> ent: lane_sensors.entrySet()) {
-			if (lane == null || lane == ent.getValue()) {
-				String sid = ent.getKey();
-				SensorSample s = samples.getSample(sid);
-				if (s != null) {
-					Integer d = s.getDensity();
-					if (d != null) {
-						total += d;
-						count++;
-					}
-				}
-			}
-		}
-		if (count > 0)
-			return total / count;
-		else
-			return null;
+		LaneData ld = lane_data.get(lane);
+		return (ld != null) ? ld.density : null;
 	}
 
 	/** Get the occupancy for the given lane */
 	public Float getOcc(Integer lane) {
-		float total = 0;
-		int count = 0;
-		for (Map.Entry<String, Integer> ent: lane_sensors.entrySet()) {
-			if (lane == null || lane == ent.getValue()) {
-				String sid = ent.getKey();
-				SensorSample s = samples.getSample(sid);
-				if (s != null) {
-					Float o = s.getOcc();
-					if (o != null) {
-						total += o;
-						count++;
-					}
-				}
-			}
-		}
-		return (count > 0) ? total / count : null;
+		LaneData ld = lane_data.get(lane);
+		return (ld != null) ? ld.occ : null;
 	}
 
 	/** Get the minimum left shift */
 	public int getLeftMin() {
-		return Math.min(model.getUpstreamLane(true),
-				model.getDownstreamLane(true));
+		return Math.min(up_left, down_left);
 	}
 
 	/** Get the maximum right shift */
 	public int getRightMax() {
-		return Math.max(model.getUpstreamLane(false),
-				model.getDownstreamLane(false));
+		return Math.max(up_right, down_right);
 	}
 
 	/** Get the lane for the given shift.
 	 * @param sh Absolute shift.
 	 * @return Lane number (1 for right lane) */
 	public int getLane(int sh) {
-		return model.getDownstreamLane(false) - sh - shift;
+		return down_right - sh - shift;
+	}
+
+	/** Get the lane offset for an upstream shift.
+	 * @param sh Absolute shift.
+	 * @return Offset from r_node */
+	public int getUpstreamOffset(int sh) {
+		return clamp(sh, up_left, up_right) - up_left;
+	}
+
+	/** Get the lane offset for a downstream shift.
+	 * @param sh Absolute shift.
+	 * @return Offset from r_node */
+	public int getDownstreamOffset(int sh) {
+		return clamp(sh, down_left, down_right) - down_left;
 	}
 
 	/** Get the count of lanes */
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2009-2018  Minnesota Department of Transportation
+ * Copyright (C) 2009-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -17,13 +17,13 @@ package us.mn.state.dot.tms.client.roads;
 import java.io.IOException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Properties;
 import java.util.concurrent.ConcurrentSkipListMap;
-import javax.xml.parsers.ParserConfigurationException;
-import org.xml.sax.SAXException;
 import static us.mn.state.dot.tms.client.widget.SwingRunner.runSwing;
 import us.mn.state.dot.tms.CorridorBase;
 import us.mn.state.dot.tms.Detector;
@@ -39,6 +39,9 @@ import us.mn.state.dot.tms.client.proxy.MapGeoLoc;
   */
 public class SegmentBuilder implements Iterable<Segment> {
 
+	/** Maximum number of changed segments to repaint individually */
+	static private final int MAX_DIRTY_SEGMENTS = 64;
+
 	/** Mapping of corridor names to segment lists */
 	private final ConcurrentSkipListMap<String, List<Segment>> cor_segs =
 		new ConcurrentSkipListMap<String, List<Segment>>();
@@ -57,7 +60,7 @@ public class SegmentBuilder implements Iterable<Segment> {
 
 	/** Create a new segment builder */
 	public SegmentBuilder(Session s, R_NodeManager m, Properties p)
-		throws IOException, SAXException, ParserConfigurationException
+		throws IOException
 	{
 		manager = m;
 		det_hash = new DetectorHash(s);
@@ -65,8 +68,8 @@ public class SegmentBuilder implements Iterable<Segment> {
 	}
 
 	/** Create a sensor reader */
-	private SensorReader createReader(Properties props) throws IOException,
-		SAXException, ParserConfigurationException
+	private SensorReader createReader(Properties props)
+		throws IOException
 	{
 		String loc = props.getProperty("tdxml.detector.url");
 		return (loc != null)
@@ -86,20 +89,66 @@ public class SegmentBuilder implements Iterable<Segment> {
 		det_hash.dispose();
 	}
 
+	/** Get the sample data set */
+	public SampleDataSet getSampleDataSet() {
+		return samples;
+	}
+
 	/** Update one sensor sample */
 	public void update(SensorSample s) {
 		samples.updateSample(s);
 	}
 
+	/** Update one sensor sample.
+	 * @param sid Sensor ID.
+	 * @param f Flow rate, or MISSING_DATA.
+	 * @param s Speed, or MISSING_DATA.
+	 * @param o Occupancy, or NaN. */
+	public void update(String sid, int f, int s, float o) {
+		samples.updateSample(sid, f, s, o);
+	}
+
 	/** Complete one sample update */
 	public void completeSamples() {
-		samples.swapSamples();
-		updateStatus();
+		updateSegments(samples.swapSamples());
+	}
+
+	/** Complete one sample update, keeping samples which were not
+	 * updated */
+	public void completeDelta() {
+		updateSegments(samples.swapDelta());
+	}
+
+	/** Update segments with changed samples */
+	private void updateSegments(BitSet changed) {
+		if (changed.isEmpty())
+			return;
+		final ArrayList<Segment> dirty = new ArrayList<Segment>();
+		for (Segment seg: this) {
+			if (seg.hasSensor(changed)) {
+				seg.updateSamples();
+				dirty.add(seg);
+			}
+		}
+		if (dirty.size() > MAX_DIRTY_SEGMENTS)
+			updateStatus();
+		else if (dirty.size() > 0) {
+			runSwing(new Runnable() {
+				public void run() {
+					for (Segment seg: dirty) {
+						manager.getLayer().updateStatus(
+							new MapSegment(seg, 0));
+					}
+				}
+			});
+		}
 	}
 
 	/** Clear all sample data */
 	public void clearSamples() {
 		samples.clearSamples();
+		for (Segment seg: this)
+			seg.updateSamples();
 		updateStatus();
 	}
 
@@ -112,8 +161,10 @@ public class SegmentBuilder implements Iterable<Segment> {
 		});
 	}
 
-	/** Update a corridor */
+	/** Update a corridor.  Segments which have not changed are reused,
+	 * so their cached geometry and sample data are kept. */
 	public void updateCorridor(CorridorBase<R_Node> corridor) {
+		HashMap<R_Node, Segment> prev = getSegments(corridor);
 		List<Segment> below = new ArrayList<Segment>();
 		List<Segment> above = new ArrayList<Segment>();
 		R_Node sn = null;       // station node
@@ -124,6 +175,9 @@ public class SegmentBuilder implements Iterable<Segment> {
 			MapGeoLoc bl = findGeoLoc(bn);
 			Segment seg = new Segment(mdl, al, bn, bl, sn, sl,
 				samples, det_hash);
+			Segment ps = prev.get(bn);
+			if (ps != null && ps.isSame(seg))
+				seg = ps;
 			if (seg.isGood()) {
 				mdl = seg.getModel();
 				if (bn.getAbove())
@@ -143,6 +197,26 @@ public class SegmentBuilder implements Iterable<Segment> {
 		cor_segs.put('z' + corridor.getName(), above);
 	}
 
+	/** Get the current segments of a corridor, mapped by r_node */
+	private HashMap<R_Node, Segment> getSegments(
+		CorridorBase<R_Node> corridor)
+	{
+		HashMap<R_Node, Segment> segs = new HashMap<R_Node, Segment>();
+		addSegments(segs, cor_segs.get(corridor.getName()));
+		addSegments(segs, cor_segs.get('z' + corridor.getName()));
+		return segs;
+	}
+
+	/** Add segments to an r_node mapping */
+	private void addSegments(HashMap<R_Node, Segment> segs,
+		List<Segment> list)
+	{
+		if (list != null) {
+			for (Segment seg: list)
+				segs.put(seg.getModel().r_node, seg);
+		}
+	}
+
 	/** Find the map geo loc */
 	public MapGeoLoc findGeoLoc(R_Node n) {
 		return manager.findGeoLoc(n);
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2009-2018  Minnesota Department of Transportation
+ * Copyright (C) 2009-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -15,6 +15,7 @@
 package us.mn.state.dot.tms.client.roads;
 
 import java.awt.event.MouseEvent;
+import java.awt.geom.Rectangle2D;
 import us.mn.state.dot.tms.R_Node;
 import us.mn.state.dot.tms.client.map.MapBean;
 import us.mn.state.dot.tms.client.map.MapObject;
@@ -53,10 +54,30 @@ public class SegmentLayerState extends ProxyLayerState<R_Node> {
 	/** Iterate through the segments in the layer */
 	@Override
 	public MapObject forEach(MapSearcher s) {
+		return forEach(s, null);
+	}
+
+	/** Iterate through the segments in the layer within bounds */
+	@Override
+	public MapObject forEach(MapSearcher s, Rectangle2D b) {
 		if (isPastLaneZoomThreshold())
-			return forEachLane(s);
+			return forEachLane(s, b);
 		else
-			return forEachStation(s);
+			return forEachStation(s, b);
+	}
+
+	/** Check if a segment is outside bounds.
+	 * @param seg Segment to check.
+	 * @param b Bounds in world coordinates (null for no bounds). */
+	static private boolean isOutside(Segment seg, Rectangle2D b) {
+		if (null == b || null == seg.pos_a || null == seg.pos_b)
+			return false;
+		double x0 = Math.min(seg.pos_a.getX(), seg.pos_b.getX());
+		double x1 = Math.max(seg.pos_a.getX(), seg.pos_b.getX());
+		double y0 = Math.min(seg.pos_a.getY(), seg.pos_b.getY());
+		double y1 = Math.max(seg.pos_a.getY(), seg.pos_b.getY());
+		return x1 < b.getMinX() || x0 > b.getMaxX() ||
+		       y1 < b.getMinY() || y0 > b.getMaxY();
 	}
 
 	/** Is the zoom level past the "individual lane" threshold? */
@@ -69,6 +90,17 @@ public class SegmentLayerState extends ProxyLayerState<R_Node> {
 		return map.getModel().getZoomLevel().ordinal() >= 17;
 	}
 
+	/** Get the bounds to repaint when one map object changes */
+	@Override
+	public Rectangle2D getDirtyBounds(MapObject mo) {
+		// Segments are drawn instead of r_node map objects
+		if (mo instanceof MapSegment) {
+			Segment seg = ((MapSegment) mo).getSegment();
+			return seg.getBounds(getCullMargin());
+		} else
+			return null;
+	}
+
 	/** Get the current map scale */
 	@Override
 	protected float getScale() {
@@ -77,10 +109,12 @@ public class SegmentLayerState extends ProxyLayerState<R_Node> {
 	}
 
 	/** Iterate through the stations in the layer */
-	private MapObject forEachStation(MapSearcher s) {
+	private MapObject forEachStation(MapSearcher s, Rectangle2D b) {
 		float scale = getScale();
 		for (Segment seg: builder) {
-			MapSegment ms = new MapSegment(seg, scale);
+			if (isOutside(seg, b))
+				continue;
+			MapSegment ms = seg.getMapSegment(scale);
 			if (s.next(ms))
 				return ms;
 		}
@@ -89,12 +123,18 @@ public class SegmentLayerState extends ProxyLayerState<R_Node> {
 
 	/** Iterate through each lane segment in the layer.
 	 * @param s Map searcher callback.
+	 * @param b Bounds in world coordinates (null for no bounds).
 	 * @return Map object found, if any. */
-	private MapObject forEachLane(MapSearcher s) {
+	private MapObject forEachLane(MapSearcher s, Rectangle2D b) {
 		float scale = getScale();
 		boolean parking = isPastParkingZoomThreshold();
 		MapVector normal = null;
 		for (Segment seg: builder) {
+			// Parking spaces depend on the previous normal
+			if (!seg.parking && isOutside(seg, b)) {
+				normal = null;
+				continue;
+			}
 			if (parking && seg.parking) {
 				ParkingSpace ps;
 				if (seg.laneCount() > 1) {
@@ -133,7 +173,7 @@ public class SegmentLayerState extends ProxyLayerState<R_Node> {
 			for (int sh = seg.getLeftMin(); sh < seg.getRightMax();
 			     sh++)
 			{
-				MapSegment ms = new MapSegment(seg, sh, scale);
+				MapSegment ms = seg.getMapSegment(sh, scale);
 				if (s.next(ms))
 					return ms;
 			}
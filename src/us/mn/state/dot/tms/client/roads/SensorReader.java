@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2000-2018  Minnesota Department of Transportation
+ * Copyright (C) 2000-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -21,20 +21,14 @@ import java.net.URLConnection;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.zip.GZIPInputStream;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
-import org.xml.sax.Attributes;
-import org.xml.sax.SAXException;
-import org.xml.sax.SAXParseException;
-import org.xml.sax.helpers.DefaultHandler;
 import us.mn.state.dot.sched.Job;
 import us.mn.state.dot.sched.Scheduler;
 
 /**
  * SensorReader reads and parses an XML document at a 30-second interval.
- * SensorSample objects are created for each sample element, and reported
- * to the segment layer.
+ * Samples are parsed directly into the segment builder's sample data set.
+ * If the URL is a sample stream sequence file (det_sample.seq), a
+ * SampleStreamReader is used instead.
  *
  * @author Douglas Lau
  */
@@ -52,35 +46,17 @@ public class SensorReader {
 	/** Timeout for direct URL Connections */
 	static private final int URL_TIMEOUT_MS = 5 * 1000;
 
-	/** Parse an attribute as an integer value */
-	static private Integer parseInt(String v) {
-		try {
-			if (v != null)
-				return Integer.parseInt(v);
-		}
-		catch (NumberFormatException e) {
-			// Invalid value
-		}
-		return null;
-	}
-
-	/** Parse an attribute as a float value */
-	static private Float parseFloat(String v) {
-		try {
-			if (v != null)
-				return Float.parseFloat(v);
-		}
-		catch (NumberFormatException e) {
-			// Invalid value
-		}
-		return null;
-	}
+	/** Missing data value */
+	static private final int MISSING_DATA = SampleXmlParser.MISSING_DATA;
 
 	/** The URL of the xml document */
 	private final URL url;
 
-	/** SAX parser */
-	private final SAXParser parser;
+	/** Sample XML parser */
+	private final SampleXmlParser parser;
+
+	/** Sample stream reader (null for XML) */
+	private final SampleStreamReader stream;
 
 	/** Time stamp from previous read */
 	private String last_stamp = "";
@@ -94,9 +70,6 @@ public class SensorReader {
 	/** Segment builder */
 	private final SegmentBuilder builder;
 
-	/** Sensor handler */
-	private final SensorHandler handler = new SensorHandler();
-
 	/** Job to perform */
 	private final Job job = new Job(Calendar.SECOND, 30, Calendar.SECOND,
 		OFFSET_SECS)
@@ -107,13 +80,23 @@ public class SensorReader {
 	};
 
 	/** Create a new sensor reader */
-	public SensorReader(URL u, SegmentBuilder sb) throws SAXException,
-		ParserConfigurationException
-	{
+	public SensorReader(URL u, SegmentBuilder sb) {
 		url = u;
 		builder = sb;
-		SAXParserFactory factory = SAXParserFactory.newInstance();
-		parser = factory.newSAXParser();
+		parser = new SampleXmlParser(new SampleXmlParser.Handler() {
+			public boolean timeStamp(String stamp) {
+				return handleTimeStamp(stamp);
+			}
+			public void sample(String sensor, int flow, int speed,
+				float occ)
+			{
+				handleSample(sensor, flow, speed, occ);
+			}
+		});
+		stream = u.getPath().endsWith(".seq")
+		       ? new SampleStreamReader(u, URL_TIMEOUT_MS,
+		                                sb.getSampleDataSet())
+		       : null;
 		// Read the sensor data right away
 		READER.addJob(new Job() {
 			public void perform() {
@@ -133,7 +116,10 @@ public class SensorReader {
 	private void readXmlFile() {
 		try {
 			time_changed = false;
-			parse();
+			if (stream != null)
+				readStream();
+			else
+				parse();
 		}
 		catch (Exception e) {
 			logErr(e.getMessage());
@@ -142,11 +128,17 @@ public class SensorReader {
 			long now = System.currentTimeMillis();
 			if (time_changed) {
 				receive_stamp = now;
-				builder.completeSamples();
+				if (stream != null && stream.isDelta())
+					builder.completeDelta();
+				else
+					builder.completeSamples();
 			} else {
 				logErr("lastStamp: " + last_stamp);
-				if (now - receive_stamp > SAMPLE_VALID_MS)
+				if (now - receive_stamp > SAMPLE_VALID_MS) {
+					if (stream != null)
+						stream.reset();
 					builder.clearSamples();
+				}
 			}
 		}
 	}
@@ -156,56 +148,39 @@ public class SensorReader {
 		System.err.println("" + new Date() + " SensorReader " + msg);
 	}
 
+	/** Read the sample stream into the segment builder's samples */
+	private void readStream() throws IOException {
+		time_changed = stream.read();
+	}
+
 	/** Parse the XML document and notify clients */
-	private void parse() throws IOException, SAXException {
+	private void parse() throws IOException {
 		URLConnection conn = url.openConnection();
 		conn.setConnectTimeout(URL_TIMEOUT_MS);
 		conn.setReadTimeout(URL_TIMEOUT_MS);
 		InputStream in = new GZIPInputStream(conn.getInputStream());
-		parser.parse(in, handler);
-	}
-
-	/** Inner class to handle parsing sensor elements */
-	private class SensorHandler extends DefaultHandler {
-		public void startElement(String uri, String localName,
-			String qname, Attributes attrs)
-		{
-			if (qname.equals("traffic_sample"))
-				handleTrafficSample(attrs);
-			if (qname.equals("sample"))
-				handleSample(attrs);
+		try {
+			parser.parse(in);
+		}
+		finally {
+			in.close();
 		}
 	}
 
-	/** Handle a traffic_sample element */
-	private void handleTrafficSample(Attributes attrs) {
-		String stamp = attrs.getValue("time_stamp");
+	/** Handle the traffic_sample time stamp.
+	 * @return true if the time stamp changed. */
+	private boolean handleTimeStamp(String stamp) {
 		time_changed = !stamp.equals(last_stamp);
 		last_stamp = stamp;
+		return time_changed;
 	}
 
-	/** Notify segment layer of one sensor sample */
-	private void notifySensorSample(String sensor, String f, String s,
-		String o)
+	/** Handle one sensor sample */
+	private void handleSample(String sensor, int flow, int speed,
+		float occ)
 	{
-		Integer flow = parseInt(f);
-		Integer speed = parseInt(s);
-		Float occ = parseFloat(o);
-		if (flow != null || speed != null || occ != null) {
-			builder.update(new SensorSample(sensor, flow, speed,
-				occ));
-		}
-	}
-
-	/** Handle one sensor sample element */
-	private void handleSample(Attributes attrs) {
-		if (time_changed) {
-			String sensor = attrs.getValue("sensor");
-			String flow = attrs.getValue("flow");
-			String speed = attrs.getValue("speed");
-			String occ = attrs.getValue("occ");
-			if (sensor != null)
-				notifySensorSample(sensor, flow, speed, occ);
-		}
+		if (flow != MISSING_DATA || speed != MISSING_DATA ||
+		    !Float.isNaN(occ))
+			builder.update(sensor, flow, speed, occ);
 	}
 }
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2007-2014  Minnesota Department of Transportation
+ * Copyright (C) 2007-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -43,8 +43,7 @@ public class RolePanel extends JPanel {
 		setBorder(UI.border);
 		session = s;
 		RoleModel r_mdl = new RoleModel(s) {
-			protected void proxyChangedSwing(Role r) {
-				super.proxyChangedSwing(r);
+			protected void proxiesChangedSwing() {
 				/* Repaint the capability panel when the
 				 * role capabilities are changed. */
 				cap_pnl.repaint();
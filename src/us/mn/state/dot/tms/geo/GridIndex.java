@@ -0,0 +1,187 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2020  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms.geo;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * A uniform grid spatial index for items with rectangular bounds, such as
+ * line segments in spherical mercator space.  An item is stored in every
+ * grid cell which its bounds overlap.
+ *
+ * @author Douglas Lau
+ */
+public class GridIndex<T> {
+
+	/** Maximum number of cells for one item.  Items with larger bounds
+	 * are kept in a separate list, which is checked by every query. */
+	static private final long MAX_ITEM_CELLS = 1024;
+
+	/** Combine cell coordinates into a key */
+	static private long cellKey(long cx, long cy) {
+		return (cx << 32) ^ (cy & 0xFFFFFFFFL);
+	}
+
+	/** Cell size (map units) */
+	private final double cell_size;
+
+	/** Mapping of cell keys to items */
+	private final HashMap<Long, ArrayList<T>> cells =
+		new HashMap<Long, ArrayList<T>>();
+
+	/** Items too large to store in cells */
+	private final ArrayList<T> oversize = new ArrayList<T>();
+
+	/** Create a new grid index.
+	 * @param cs Cell size (map units). */
+	public GridIndex(double cs) {
+		cell_size = cs;
+	}
+
+	/** Get a cell coordinate */
+	private long cell(double v) {
+		return (long) Math.floor(v / cell_size);
+	}
+
+	/** Count the cells overlapping bounds (without overflow) */
+	private double cellCount(double x0, double y0, double x1, double y1) {
+		double w = Math.floor(x1 / cell_size) -
+			Math.floor(x0 / cell_size) + 1;
+		double h = Math.floor(y1 / cell_size) -
+			Math.floor(y0 / cell_size) + 1;
+		return w * h;
+	}
+
+	/** Remove all items from the index */
+	public void clear() {
+		cells.clear();
+		oversize.clear();
+	}
+
+	/** Add an item to the index.
+	 * @param item Item to add.
+	 * @param x0 First X coordinate of bounds.
+	 * @param y0 First Y coordinate of bounds.
+	 * @param x1 Second X coordinate of bounds.
+	 * @param y1 Second Y coordinate of bounds. */
+	public void add(T item, double x0, double y0, double x1, double y1) {
+		double xmin = Math.min(x0, x1);
+		double xmax = Math.max(x0, x1);
+		double ymin = Math.min(y0, y1);
+		double ymax = Math.max(y0, y1);
+		if (!(cellCount(xmin, ymin, xmax, ymax) <= MAX_ITEM_CELLS)) {
+			oversize.add(item);
+			return;
+		}
+		long cx0 = cell(xmin);
+		long cx1 = cell(xmax);
+		long cy0 = cell(ymin);
+		long cy1 = cell(ymax);
+		for (long cx = cx0; cx <= cx1; cx++) {
+			for (long cy = cy0; cy <= cy1; cy++)
+				addToCell(cellKey(cx, cy), item);
+		}
+	}
+
+	/** Add an item to one cell */
+	private void addToCell(long key, T item) {
+		ArrayList<T> items = cells.get(key);
+		if (items == null) {
+			items = new ArrayList<T>(2);
+			cells.put(key, items);
+		}
+		if (!items.contains(item))
+			items.add(item);
+	}
+
+	/** Remove an item from the index.
+	 * @param item Item to remove.
+	 * @param x0 First X coordinate of bounds when added.
+	 * @param y0 First Y coordinate of bounds when added.
+	 * @param x1 Second X coordinate of bounds when added.
+	 * @param y1 Second Y coordinate of bounds when added. */
+	public void remove(T item, double x0, double y0, double x1,
+		double y1)
+	{
+		double xmin = Math.min(x0, x1);
+		double xmax = Math.max(x0, x1);
+		double ymin = Math.min(y0, y1);
+		double ymax = Math.max(y0, y1);
+		if (!(cellCount(xmin, ymin, xmax, ymax) <= MAX_ITEM_CELLS)) {
+			oversize.remove(item);
+			return;
+		}
+		long cx0 = cell(xmin);
+		long cx1 = cell(xmax);
+		long cy0 = cell(ymin);
+		long cy1 = cell(ymax);
+		for (long cx = cx0; cx <= cx1; cx++) {
+			for (long cy = cy0; cy <= cy1; cy++)
+				removeFromCell(cellKey(cx, cy), item);
+		}
+	}
+
+	/** Remove an item from one cell */
+	private void removeFromCell(long key, T item) {
+		ArrayList<T> items = cells.get(key);
+		if (items != null) {
+			items.remove(item);
+			if (items.isEmpty())
+				cells.remove(key);
+		}
+	}
+
+	/** Find all items with bounds which may be within a distance of a
+	 * point.  Some returned items may be farther than the distance, so
+	 * callers must check the exact distance.
+	 * @param x X coordinate of point.
+	 * @param y Y coordinate of point.
+	 * @param dist Distance from point (map units).
+	 * @return Set of candidate items. */
+	public Set<T> findWithin(double x, double y, double dist) {
+		return find(x - dist, y - dist, x + dist, y + dist);
+	}
+
+	/** Find all items with bounds which may overlap a rectangle.  Some
+	 * returned items may not overlap, so callers must check exact bounds.
+	 * @param x0 Minimum X coordinate.
+	 * @param y0 Minimum Y coordinate.
+	 * @param x1 Maximum X coordinate.
+	 * @param y1 Maximum Y coordinate.
+	 * @return Set of candidate items. */
+	public Set<T> find(double x0, double y0, double x1, double y1) {
+		LinkedHashSet<T> found = new LinkedHashSet<T>(oversize);
+		if (!(cellCount(x0, y0, x1, y1) <= cells.size())) {
+			for (ArrayList<T> items: cells.values())
+				found.addAll(items);
+			return found;
+		}
+		long cx0 = cell(x0);
+		long cx1 = cell(x1);
+		long cy0 = cell(y0);
+		long cy1 = cell(y1);
+		for (long cx = cx0; cx <= cx1; cx++) {
+			for (long cy = cy0; cy <= cy1; cy++) {
+				ArrayList<T> items = cells.get(cellKey(cx,cy));
+				if (items != null)
+					found.addAll(items);
+			}
+		}
+		return found;
+	}
+}
@@ -0,0 +1,59 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2020  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms.server;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Inputs used to evaluate actions.  Each input has a serial number, which
+ * is incremented whenever it changes.  Action jobs compare serial numbers
+ * to skip evaluations when none of their inputs have changed.
+ *
+ * @author Douglas Lau
+ */
+public enum ActionInput {
+	PLAN,		// action plans, actions and quick messages
+	STATION,	// station traffic data
+	TOLL_ZONE,	// toll zone densities
+	FEED,		// message feeds
+	PARKING;	// parking area availability
+
+	/** Serial number of changes */
+	private final AtomicLong serial = new AtomicLong();
+
+	/** Record a change to the input */
+	public void changed() {
+		serial.incrementAndGet();
+	}
+
+	/** Get the current serial number */
+	public long getSerial() {
+		return serial.get();
+	}
+
+	/** Get the bit for an input */
+	public int bit() {
+		return 1 << ordinal();
+	}
+
+	/** Get a snapshot of the serial numbers of all inputs */
+	static public long[] snapshot() {
+		ActionInput[] values = values();
+		long[] s = new long[values.length];
+		for (ActionInput ai: values)
+			s[ai.ordinal()] = ai.getSerial();
+		return s;
+	}
+}
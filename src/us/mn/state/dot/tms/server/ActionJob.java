@@ -0,0 +1,120 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2020  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms.server;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import us.mn.state.dot.sched.Job;
+import us.mn.state.dot.sched.TimeSteward;
+import us.mn.state.dot.tms.ActionPlan;
+import us.mn.state.dot.tms.ActionPlanHelper;
+import static us.mn.state.dot.tms.server.ActionPlanJob.SCHED_LOG;
+
+/**
+ * Base job to perform the actions of all active action plans.  Actions are
+ * found through the action plan indexes, and the time taken is logged to
+ * the schedule debug log.
+ *
+ * Actions are performed every run, since device state may be changed by
+ * other sources and must be re-applied.  Every 5 minutes, a run is flagged
+ * as a full sweep, so that jobs can refresh any cached evaluations.
+ *
+ * @author Douglas Lau
+ */
+abstract public class ActionJob extends Job {
+
+	/** Interval for full sweep of all actions (ms) */
+	static private final long SWEEP_MS = 5 * 60 * 1000;
+
+	/** State of one kind of action job (jobs are created each period) */
+	static private class State {
+		private long sweep_time = 0;
+	}
+
+	/** Mapping of job names to states */
+	static private final HashMap<String, State> STATES =
+		new HashMap<String, State>();
+
+	/** Lookup the state for a job */
+	static private State lookupState(String name) {
+		synchronized (STATES) {
+			State s = STATES.get(name);
+			if (null == s) {
+				s = new State();
+				STATES.put(name, s);
+			}
+			return s;
+		}
+	}
+
+	/** Flag indicating this run is a full sweep */
+	private boolean sweep;
+
+	/** Create a new action job */
+	protected ActionJob() {
+		super(0);
+	}
+
+	/** Check if this run is a full sweep */
+	protected boolean isSweep() {
+		return sweep;
+	}
+
+	/** Perform actions for all active action plans */
+	@Override
+	public void perform() {
+		State state = lookupState(getName());
+		long now = TimeSteward.currentTimeMillis();
+		synchronized (state) {
+			sweep = (now - state.sweep_time >= SWEEP_MS) ||
+			        (now < state.sweep_time);
+			if (sweep)
+				state.sweep_time = now;
+		}
+		performAll();
+	}
+
+	/** Perform actions for all active action plans */
+	private void performAll() {
+		long st = System.nanoTime();
+		int n_plans = 0;
+		int n_actions = 0;
+		Iterator<ActionPlan> it = ActionPlanHelper.iterator();
+		while (it.hasNext()) {
+			ActionPlan ap = it.next();
+			if (ap.getActive()) {
+				n_plans++;
+				n_actions += performActions(ap);
+			}
+		}
+		finishActions();
+		if (SCHED_LOG.isOpen()) {
+			long us = (System.nanoTime() - st) / 1000;
+			SCHED_LOG.log(getName() + ": " + n_plans + " plans, " +
+				n_actions + " actions, " + us + " us" +
+				(sweep ? " (sweep)" : ""));
+		}
+	}
+
+	/** Perform the actions of one active action plan.
+	 * @param ap Active action plan.
+	 * @return Number of actions performed. */
+	abstract protected int performActions(ActionPlan ap);
+
+	/** Finish after actions of all plans have been performed */
+	protected void finishActions() {
+		// Override if needed
+	}
+}
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2009-2019  Minnesota Department of Transportation
+ * Copyright (C) 2009-2020  Minnesota Department of Transportation
  * Copyright (C) 2018  Iteris Inc.
  *
  * This program is free software; you can redistribute it and/or modify
@@ -18,29 +18,20 @@ package us.mn.state.dot.tms.server;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
 import us.mn.state.dot.sched.TimeSteward;
 import us.mn.state.dot.sonar.Namespace;
 import us.mn.state.dot.tms.ActionPlan;
 import us.mn.state.dot.tms.Beacon;
 import us.mn.state.dot.tms.BeaconAction;
-import us.mn.state.dot.tms.BeaconActionHelper;
 import us.mn.state.dot.tms.ChangeVetoException;
-import us.mn.state.dot.tms.DMS;
 import us.mn.state.dot.tms.DmsAction;
-import us.mn.state.dot.tms.DmsActionHelper;
-import us.mn.state.dot.tms.DmsSignGroup;
 import us.mn.state.dot.tms.EventType;
-import us.mn.state.dot.tms.DmsSignGroupHelper;
 import us.mn.state.dot.tms.LaneAction;
-import us.mn.state.dot.tms.LaneActionHelper;
 import us.mn.state.dot.tms.LaneMarking;
 import us.mn.state.dot.tms.MeterAction;
-import us.mn.state.dot.tms.MeterActionHelper;
 import us.mn.state.dot.tms.PlanPhase;
 import us.mn.state.dot.tms.RampMeter;
-import us.mn.state.dot.tms.SignGroup;
 import us.mn.state.dot.tms.TMSException;
 import us.mn.state.dot.tms.server.event.ActionPlanEvent;
 import static us.mn.state.dot.tms.server.ActionPlanSystem.sendEmailAlert;
@@ -234,6 +225,7 @@ public class ActionPlanImpl extends BaseObjectImpl implements ActionPlan {
 	@Override
 	public void setActive(boolean a) {
 		active = a;
+		ActionInput.PLAN.changed();
 		String un = getProcUser();
 		EventType et = (a ? EventType.ACTION_PLAN_ACTIVATED : 
 			EventType.ACTION_PLAN_DEACTIVATED);
@@ -290,6 +282,7 @@ public class ActionPlanImpl extends BaseObjectImpl implements ActionPlan {
 	@Override
 	public void setPhase(PlanPhase p) {
 		phase = p;
+		ActionInput.PLAN.changed();
 		phase_time = TimeSteward.currentTimeMillis();
 		EventType et = EventType.ACTION_PLAN_PHASE_CHANGED;
 		logEvent(new ActionPlanEvent(et, getName(), p.toString()));
@@ -339,10 +332,8 @@ public class ActionPlanImpl extends BaseObjectImpl implements ActionPlan {
 	 * ActionPlan is not deployable.
 	 */
 	private void validateDmsActions() throws ChangeVetoException {
-		Iterator<DmsAction> it = DmsActionHelper.iterator();
-		while (it.hasNext()) {
-			DmsAction da = it.next();
-			if (da.getActionPlan() == this && !isDeployable(da)) {
+		for (DmsAction da: DmsActionImpl.lookupActions(this)) {
+			if (!isDeployable(da)) {
 				throw new ChangeVetoException("DMS action " +
 					da.getName() + " not deployable");
 			}
@@ -351,17 +342,11 @@ public class ActionPlanImpl extends BaseObjectImpl implements ActionPlan {
 
 	/** Check if a DMS action is deployable */
 	private boolean isDeployable(DmsAction da) {
-		SignGroup sg = da.getSignGroup();
-		Iterator<DmsSignGroup> it = DmsSignGroupHelper.iterator();
-		while (it.hasNext()) {
-			DmsSignGroup dsg = it.next();
-			if (dsg.getSignGroup() == sg) {
-				DMS dms = dsg.getDms();
-				if (dms instanceof DMSImpl) {
-					if (((DMSImpl) dms).hasError())
-						return false;
-				}
-			}
+		for (DMSImpl dms: DmsSignGroupImpl.lookupDms(
+			da.getSignGroup()))
+		{
+			if (dms.hasError())
+				return false;
 		}
 		return true;
 	}
@@ -371,10 +356,8 @@ public class ActionPlanImpl extends BaseObjectImpl implements ActionPlan {
 	 * @throws ChangeVetoException
 	 */
 	private void validateBeaconActions() throws ChangeVetoException {
-		Iterator<BeaconAction> it = BeaconActionHelper.iterator();
-		while (it.hasNext()) {
-			BeaconAction ba = it.next();
-			if (ba.getActionPlan() == this && !isDeployable(ba)) {
+		for (BeaconAction ba: BeaconActionImpl.lookupActions(this)) {
+			if (!isDeployable(ba)) {
 				throw new ChangeVetoException("Beacon action " +
 					ba.getName() + " not deployable");
 			}
@@ -396,10 +379,8 @@ public class ActionPlanImpl extends BaseObjectImpl implements ActionPlan {
 	 * deployable.
 	 */
 	private void validateLaneActions() throws ChangeVetoException {
-		Iterator<LaneAction> it = LaneActionHelper.iterator();
-		while (it.hasNext()) {
-			LaneAction la = it.next();
-			if (la.getActionPlan() == this && !isDeployable(la)) {
+		for (LaneAction la: LaneActionImpl.lookupActions(this)) {
+			if (!isDeployable(la)) {
 				throw new ChangeVetoException("Lane action " +
 					la.getName() + " not deployable");
 			}
@@ -420,10 +401,8 @@ public class ActionPlanImpl extends BaseObjectImpl implements ActionPlan {
 	 * @throws ChangeVetoException
 	 */
 	private void validateMeterActions() throws ChangeVetoException {
-		Iterator<MeterAction> it = MeterActionHelper.iterator();
-		while (it.hasNext()) {
-			MeterAction ma = it.next();
-			if (ma.getActionPlan() == this && !isDeployable(ma)) {
+		for (MeterAction ma: MeterActionImpl.lookupActions(this)) {
+			if (!isDeployable(ma)) {
 				throw new ChangeVetoException("Meter action " +
 					ma.getName() + " not deployable");
 			}
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2009-2018  Minnesota Department of Transportation
+ * Copyright (C) 2009-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -14,12 +14,9 @@
  */
 package us.mn.state.dot.tms.server;
 
-import java.util.Iterator;
-import us.mn.state.dot.sched.Job;
 import us.mn.state.dot.tms.ActionPlan;
 import us.mn.state.dot.tms.Beacon;
 import us.mn.state.dot.tms.BeaconAction;
-import us.mn.state.dot.tms.BeaconActionHelper;
 import us.mn.state.dot.tms.PlanPhase;
 
 /**
@@ -27,23 +24,21 @@ import us.mn.state.dot.tms.PlanPhase;
  *
  * @author Douglas Lau
  */
-public class BeaconActionJob extends Job {
+public class BeaconActionJob extends ActionJob {
 
 	/** Create a new beacon action job */
 	public BeaconActionJob() {
-		super(0);
 	}
 
-	/** Perform all beacon actions */
+	/** Perform all beacon actions for an active plan */
 	@Override
-	public void perform() {
-		Iterator<BeaconAction> it = BeaconActionHelper.iterator();
-		while (it.hasNext()) {
-			BeaconAction ba = it.next();
-			ActionPlan ap = ba.getActionPlan();
-			if (ap.getActive())
-				performBeaconAction(ba, ap.getPhase());
+	protected int performActions(ActionPlan ap) {
+		int n = 0;
+		for (BeaconAction ba: BeaconActionImpl.lookupActions(ap)) {
+			performBeaconAction(ba, ap.getPhase());
+			n++;
 		}
+		return n;
 	}
 
 	/** Perform a beacon action */
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2019  Minnesota Department of Transportation
+ * Copyright (C) 2019-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -17,6 +17,7 @@ package us.mn.state.dot.tms.server;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import us.mn.state.dot.tms.ActionPlan;
 import us.mn.state.dot.tms.CameraAction;
@@ -31,6 +32,16 @@ import us.mn.state.dot.tms.TMSException;
  */
 public class CameraActionImpl extends BaseObjectImpl implements CameraAction {
 
+	/** Index of camera actions by action plan */
+	static private final RelationIndex<ActionPlan, CameraActionImpl>
+		PLAN_ACTIONS =
+		new RelationIndex<ActionPlan, CameraActionImpl>();
+
+	/** Lookup all camera actions for an action plan */
+	static public List<CameraActionImpl> lookupActions(ActionPlan ap) {
+		return PLAN_ACTIONS.lookup(ap);
+	}
+
 	/** Load all the camera actions */
 	static protected void loadAll() throws TMSException {
 		namespace.registerType(SONAR_TYPE, CameraActionImpl.class);
@@ -86,6 +97,22 @@ public class CameraActionImpl extends BaseObjectImpl implements CameraAction {
 		action_plan = lookupActionPlan(ap);
 		preset = lookupPreset(cp);
 		phase = lookupPlanPhase(p);
+		initTransients();
+	}
+
+	/** Initialize the transient fields */
+	@Override
+	protected void initTransients() {
+		PLAN_ACTIONS.add(action_plan, this);
+		ActionInput.PLAN.changed();
+	}
+
+	/** Destroy an object */
+	@Override
+	public void doDestroy() throws TMSException {
+		super.doDestroy();
+		PLAN_ACTIONS.remove(action_plan, this);
+		ActionInput.PLAN.changed();
 	}
 
 	/** Action plan */
@@ -113,6 +140,7 @@ public class CameraActionImpl extends BaseObjectImpl implements CameraAction {
 	@Override
 	public void setPhase(PlanPhase p) {
 		phase = p;
+		ActionInput.PLAN.changed();
 	}
 
 	/** Set the plan phase to perform action */
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2019  Minnesota Department of Transportation
+ * Copyright (C) 2019-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -14,36 +14,62 @@
  */
 package us.mn.state.dot.tms.server;
 
-import java.util.Iterator;
-import us.mn.state.dot.sched.Job;
+import java.util.HashMap;
 import us.mn.state.dot.tms.ActionPlan;
 import us.mn.state.dot.tms.Camera;
 import us.mn.state.dot.tms.CameraAction;
-import us.mn.state.dot.tms.CameraActionHelper;
 import us.mn.state.dot.tms.CameraPreset;
 import us.mn.state.dot.tms.PlanPhase;
 
 /**
- * Job to update camera actions
+ * Job to update camera actions.  Presets are only recalled when a plan
+ * becomes active, or its phase changes, so that operators can move cameras
+ * while a plan is active.
  *
  * @author Douglas Lau
  */
-public class CameraActionJob extends Job {
+public class CameraActionJob extends ActionJob {
+
+	/** Phases of active plans from the previous run, mapped by name */
+	static private final HashMap<String, PlanPhase> PHASES =
+		new HashMap<String, PlanPhase>();
+
+	/** Phases of active plans for this run */
+	private final HashMap<String, PlanPhase> phases =
+		new HashMap<String, PlanPhase>();
 
 	/** Create a new camera action job */
 	public CameraActionJob() {
-		super(0);
 	}
 
-	/** Perform all camera actions */
+	/** Perform all camera actions for an active plan, if it was not
+	 * active or its phase has changed */
+	@Override
+	protected int performActions(ActionPlan ap) {
+		PlanPhase phase = ap.getPhase();
+		phases.put(ap.getName(), phase);
+		PlanPhase prev;
+		synchronized (PHASES) {
+			prev = PHASES.get(ap.getName());
+		}
+		if (phase == prev)
+			return 0;
+		int n = 0;
+		for (CameraAction ca: CameraActionImpl.lookupActions(ap)) {
+			performCameraAction(ca, phase);
+			n++;
+		}
+		return n;
+	}
+
+	/** Record plan phases for the next run.  Plans which are no longer
+	 * active are dropped, so their presets are recalled again when they
+	 * are activated. */
 	@Override
-	public void perform() {
-		Iterator<CameraAction> it = CameraActionHelper.iterator();
-		while (it.hasNext()) {
-			CameraAction ca = it.next();
-			ActionPlan ap = ca.getActionPlan();
-			if (ap.getActive())
-				performCameraAction(ca, ap.getPhase());
+	protected void finishActions() {
+		synchronized (PHASES) {
+			PHASES.clear();
+			PHASES.putAll(phases);
 		}
 	}
 
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2000-2019  Minnesota Department of Transportation
+ * Copyright (C) 2000-2020  Minnesota Department of Transportation
  * Copyright (C) 2011  Berkeley Transportation Systems Inc.
  *
  * This program is free software; you can redistribute it and/or modify
@@ -414,12 +414,35 @@ public class ControllerImpl extends BaseObjectImpl implements Controller {
 		return io_pins.get(pin);
 	}
 
+	/** Detectors indexed by I/O pin.  This is replaced whenever an I/O
+	 * pin is assigned, so it can be used without locking. */
+	private transient volatile DetectorImpl[] det_pins =
+		new DetectorImpl[0];
+
 	/** Assign an IO to the specified controller I/O pin */
 	public synchronized void setIO(int pin, ControllerIO io) {
 		if (io != null)
 			io_pins.put(pin, io);
 		else
 			io_pins.remove(pin);
+		updateDetectorPins();
+	}
+
+	/** Update the array of detectors indexed by pin */
+	private void updateDetectorPins() {
+		int max_pin = -1;
+		for (Map.Entry<Integer, ControllerIO> e: io_pins.entrySet()) {
+			if (e.getValue() instanceof DetectorImpl)
+				max_pin = Math.max(max_pin, e.getKey());
+		}
+		DetectorImpl[] dets = new DetectorImpl[max_pin + 1];
+		for (Map.Entry<Integer, ControllerIO> e: io_pins.entrySet()) {
+			ControllerIO io = e.getValue();
+			int pin = e.getKey();
+			if (io instanceof DetectorImpl && pin >= 0)
+				dets[pin] = (DetectorImpl) io;
+		}
+		det_pins = dets;
 	}
 
 	/** Determine whether this controller has an active ramp meter */
@@ -444,47 +467,26 @@ public class ControllerImpl extends BaseObjectImpl implements Controller {
 		return null;
 	}
 
-	/** Get a map of pins to detectors */
-	private synchronized HashMap<Integer, DetectorImpl> getDetectors() {
-		HashMap<Integer, DetectorImpl> dets =
-			new HashMap<Integer, DetectorImpl>();
-		for (Integer pin: io_pins.keySet()) {
-			ControllerIO io = io_pins.get(pin);
-			if (io instanceof DetectorImpl)
-				dets.put(pin, (DetectorImpl) io);
-		}
-		return dets;
-	}
-
 	/** Get a detector by its I/O pin number */
 	public DetectorImpl getDetectorAtPin(int pin) {
-		ControllerIO io = getIO(pin);
-		if (io instanceof DetectorImpl)
-			return (DetectorImpl) io;
-		else
-			return null;
+		DetectorImpl[] dets = det_pins;
+		return (pin >= 0 && pin < dets.length) ? dets[pin] : null;
 	}
 
 	/** Get first detector pin */
-	public synchronized int getDetectorPinFirst() {
-		int p = Integer.MAX_VALUE;
-		for (Integer pin: io_pins.keySet()) {
-			ControllerIO io = io_pins.get(pin);
-			if (io instanceof DetectorImpl)
-				p = Integer.min(p, pin);
+	public int getDetectorPinFirst() {
+		DetectorImpl[] dets = det_pins;
+		for (int pin = 0; pin < dets.length; pin++) {
+			if (dets[pin] != null)
+				return pin;
 		}
-		return (p < Integer.MAX_VALUE) ? p : -1;
+		return -1;
 	}
 
 	/** Get last detector pin */
-	public synchronized int getDetectorPinLast() {
-		int p = Integer.MIN_VALUE;
-		for (Integer pin: io_pins.keySet()) {
-			ControllerIO io = io_pins.get(pin);
-			if (io instanceof DetectorImpl)
-				p = Integer.max(p, pin);
-		}
-		return (p > Integer.MIN_VALUE) ? p : -1;
+	public int getDetectorPinLast() {
+		// Last element is always a detector (if any)
+		return det_pins.length - 1;
 	}
 
 	/** Check whether this controller has any active detectors */
@@ -561,15 +563,14 @@ public class ControllerImpl extends BaseObjectImpl implements Controller {
 	public void storeVehCount(long stamp, int period, int start_pin,
 		int[] veh_count, VehLengthClass vc)
 	{
-		HashMap<Integer, DetectorImpl> dets = getDetectors();
-		for (Integer pin: dets.keySet()) {
-			DetectorImpl det = dets.get(pin);
-			int i = pin - start_pin;
-			int v = sampleValue(veh_count, i);
-			PeriodicSample ps = (v >= 0)
-				? new PeriodicSample(stamp, period, v)
-				: null;
-			det.storeVehCount(ps, vc);
+		DetectorImpl[] dets = det_pins;
+		for (int pin = 0; pin < dets.length; pin++) {
+			DetectorImpl det = dets[pin];
+			if (det != null) {
+				int v = sampleValue(veh_count, pin - start_pin);
+				if (v >= 0)
+					det.storeVehCount(stamp, period, v, vc);
+			}
 		}
 	}
 
@@ -582,15 +583,18 @@ public class ControllerImpl extends BaseObjectImpl implements Controller {
 	public void storeOccupancy(long stamp, int period, int start_pin,
 		int[] scans, int max_scans)
 	{
-		HashMap<Integer, DetectorImpl> dets = getDetectors();
-		for (Integer pin: dets.keySet()) {
-			DetectorImpl det = dets.get(pin);
-			int i = pin - start_pin;
-			int v = sampleValue(scans, i);
-			OccupancySample occ = (v >= 0)
-			    ? new OccupancySample(stamp, period, v, max_scans)
-			    : null;
-			det.storeOccupancy(occ);
+		DetectorImpl[] dets = det_pins;
+		for (int pin = 0; pin < dets.length; pin++) {
+			DetectorImpl det = dets[pin];
+			if (det != null) {
+				int v = sampleValue(scans, pin - start_pin);
+				if (v >= 0) {
+					det.storeOccupancy(stamp, period,
+						OccupancySample.calculateOccupancy(
+						v, max_scans));
+				} else
+					det.clearOccupancy();
+			}
 		}
 	}
 
@@ -602,15 +606,14 @@ public class ControllerImpl extends BaseObjectImpl implements Controller {
 	public void storeSpeed(long stamp, int period, int start_pin,
 		int[] speed)
 	{
-		HashMap<Integer, DetectorImpl> dets = getDetectors();
-		for (Integer pin: dets.keySet()) {
-			DetectorImpl det = dets.get(pin);
-			int i = pin - start_pin;
-			int s = sampleValue(speed, i);
-			PeriodicSample ps = (s > 0)
-				? new PeriodicSample(stamp, period, s)
-				: null;
-			det.storeSpeed(ps);
+		DetectorImpl[] dets = det_pins;
+		for (int pin = 0; pin < dets.length; pin++) {
+			DetectorImpl det = dets[pin];
+			if (det != null) {
+				int s = sampleValue(speed, pin - start_pin);
+				if (s > 0)
+					det.storeSpeed(stamp, period, s);
+			}
 		}
 	}
 
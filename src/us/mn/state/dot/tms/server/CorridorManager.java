@@ -16,15 +16,19 @@ package us.mn.state.dot.tms.server;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.TreeMap;
+import us.mn.state.dot.sonar.Namespace;
+import us.mn.state.dot.tms.BaseHelper;
 import us.mn.state.dot.tms.Direction;
 import us.mn.state.dot.tms.GeoLoc;
 import us.mn.state.dot.tms.GeoLocHelper;
 import us.mn.state.dot.tms.LaneType;
 import us.mn.state.dot.tms.R_Node;
 import us.mn.state.dot.tms.R_NodeHelper;
+import us.mn.state.dot.tms.geo.GridIndex;
 import us.mn.state.dot.tms.geo.SphericalMercatorPosition;
 import us.mn.state.dot.tms.units.Distance;
 
@@ -35,10 +39,23 @@ import us.mn.state.dot.tms.units.Distance;
  */
 public class CorridorManager {
 
+	/** Cell size for corridor segment index (spherical mercator units) */
+	static private final double INDEX_CELL_SIZE = 2000;
+
 	/** Map to hold all corridors */
 	private final Map<String, Corridor> corridors =
 		new TreeMap<String, Corridor>();
 
+	/** Spatial index of r_node segments */
+	private final GridIndex<Corridor.NodeSegment> index =
+		new GridIndex<Corridor.NodeSegment>(INDEX_CELL_SIZE);
+
+	/** R_Node type serial when index was built */
+	private int r_node_serial = -1;
+
+	/** Flag indicating an r_node location has changed */
+	private volatile boolean loc_changed = false;
+
 	/** Create all corridors from the existing r_nodes */
 	public synchronized void createCorridors() {
 		corridors.clear();
@@ -53,6 +70,47 @@ public class CorridorManager {
 		}
 		for (Corridor c: corridors.values())
 			c.arrangeNodes();
+		rebuildIndex();
+	}
+
+	/** Mark the spatial index stale after an r_node location has
+	 * changed.  Other locations (devices, etc.) do not affect it. */
+	public void rNodeLocChanged() {
+		loc_changed = true;
+	}
+
+	/** Check if the spatial index is stale.  Any change to an r_node
+	 * (including active and transition) or its location can change the
+	 * segments of a corridor. */
+	private boolean isIndexStale() {
+		Namespace ns = BaseHelper.namespace;
+		return loc_changed || ((ns != null) &&
+		       ns.getTypeSerial(R_Node.SONAR_TYPE) != r_node_serial);
+	}
+
+	/** Rebuild the spatial index of all corridors */
+	private void rebuildIndex() {
+		Namespace ns = BaseHelper.namespace;
+		if (ns != null)
+			r_node_serial = ns.getTypeSerial(R_Node.SONAR_TYPE);
+		loc_changed = false;
+		index.clear();
+		for (Corridor c: corridors.values())
+			indexCorridor(c);
+	}
+
+	/** Add all r_node segments of a corridor to the spatial index */
+	private void indexCorridor(Corridor c) {
+		for (Corridor.NodeSegment s: c.getSegments()) {
+			SphericalMercatorPosition p0 = GeoLocHelper.getPosition(
+				s.n0.getGeoLoc());
+			SphericalMercatorPosition p1 = GeoLocHelper.getPosition(
+				s.n1.getGeoLoc());
+			if (p0 != null && p1 != null) {
+				index.add(s, p0.getX(), p0.getY(), p1.getX(),
+					p1.getY());
+			}
+		}
 	}
 
 	/** Add an r_node to the proper corridor */
@@ -85,10 +143,9 @@ public class CorridorManager {
 			c.writeXml(w, m_nodes);
 	}
 
-	/** Find the current bottlenecks for all corridors */
-	public synchronized void findBottlenecks() {
-		for (Corridor c: corridors.values())
-			c.findBottlenecks();
+	/** Get a list of all corridors */
+	public synchronized ArrayList<Corridor> getCorridorList() {
+		return new ArrayList<Corridor>(corridors.values());
 	}
 
 	/** Lookup the corridor for a location */
@@ -102,13 +159,17 @@ public class CorridorManager {
 	public synchronized GeoLoc snapGeoLoc(SphericalMercatorPosition smp,
 		LaneType lt, Distance max_dist, Direction dir)
 	{
+		if (isIndexStale())
+			rebuildIndex();
 		GeoLoc loc = null;
 		Distance dist = max_dist;
-		for (Corridor c: corridors.values()) {
+		for (Corridor.NodeSegment s: index.findWithin(smp.getX(),
+		     smp.getY(), max_dist.m()))
+		{
 			if (dir != Direction.UNKNOWN &&
-			    dir.ordinal() != c.getRoadDir())
+			    dir.ordinal() != s.getCorridor().getRoadDir())
 				continue;
-			Corridor.GeoLocDist ld = c.snapGeoLoc(smp, lt, dist);
+			Corridor.GeoLocDist ld = s.snapGeoLoc(smp, lt, dist);
 			if (ld != null && ld.dist.m() < dist.m()) {
 				loc = ld.loc;
 				dist = ld.dist;
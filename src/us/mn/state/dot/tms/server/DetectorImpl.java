@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2000-2019  Minnesota Department of Transportation
+ * Copyright (C) 2000-2020  Minnesota Department of Transportation
  * Copyright (C) 2011  Berkeley Transportation Systems Inc.
  *
  * This program is free software; you can redistribute it and/or modify
@@ -42,7 +42,6 @@ import us.mn.state.dot.tms.TMSException;
 import us.mn.state.dot.tms.VehLengthClass;
 import us.mn.state.dot.tms.units.Interval;
 import static us.mn.state.dot.tms.units.Interval.HOUR;
-import static us.mn.state.dot.tms.units.Interval.Units.MILLISECONDS;
 import static us.mn.state.dot.tms.units.Interval.Units.SECONDS;
 import static us.mn.state.dot.tms.server.Constants.MISSING_DATA;
 import static us.mn.state.dot.tms.server.XmlWriter.createAttribute;
@@ -191,6 +190,13 @@ public class DetectorImpl extends DeviceImpl implements Detector,VehicleSampler{
 	static public final long SAMPLE_PERIOD_MS = new Interval(
 		SAMPLE_PERIOD_SEC).ms();
 
+	/** Milliseconds per hour */
+	static private final float HOUR_MS = HOUR.ms();
+
+	/** Feet per mile */
+	static private final float FEET_PER_MILE =
+		new Distance(1, MILES).asFloat(FEET);
+
 	/** Calculate the end time of previous period */
 	static public long calculateEndTime() {
 		long stamp = TimeSteward.currentTimeMillis();
@@ -233,6 +239,18 @@ public class DetectorImpl extends DeviceImpl implements Detector,VehicleSampler{
 		}
 	}
 
+	/** Update the current sample for all detectors.  This should happen
+	 * once per period, after sample data has been stored. */
+	static public void updateSampleAll() {
+		long end = calculateEndTime();
+		Iterator<Detector> it = DetectorHelper.iterator();
+		while (it.hasNext()) {
+			Detector d = it.next();
+			if (d instanceof DetectorImpl)
+				((DetectorImpl) d).updateSample(end);
+		}
+	}
+
 	/** Create a fake detector object */
 	static private FakeDetector createFakeDetector(String f)
 		throws ChangeVetoException
@@ -745,11 +763,63 @@ public class DetectorImpl extends DeviceImpl implements Detector,VehicleSampler{
 		      : MISSING_DATA;
 	}
 
-	/** Get the current occupancy */
-	public float getOccupancy() {
-		long end = calculateEndTime();
+	/** End time of current sample period (-1 for none) */
+	private long sample_end = -1;
+
+	/** Current sample raw (non-faked) flow rate (vehicles per hour) */
+	private int sample_flow = MISSING_DATA;
+
+	/** Current sample occupancy */
+	private float sample_occ = MISSING_DATA;
+
+	/** Current sample raw (non-faked) density (vehicles per mile) */
+	private float sample_density = MISSING_DATA;
+
+	/** Current sample raw (non-faked) speed (MPH) */
+	private float sample_speed = MISSING_DATA;
+
+	/** Current sample speed estimate from flow / density (MPH) */
+	private float sample_est = MISSING_DATA;
+
+	/** Update the current sample.  Sample caches are queried once, and
+	 * all values are calculated without allocating.
+	 * @param end End time of sample period. */
+	private synchronized void updateSample(long end) {
 		long start = end - SAMPLE_PERIOD_MS;
-		return getOccupancy(start, end);
+		int flow = getFlowRaw(start, end);
+		float occ = getOccupancy(start, end);
+		float spd = getSpeedRaw(start, end);
+		float k_occ = densityFromOccupancy(occ);
+		sample_flow = flow;
+		sample_occ = occ;
+		sample_density = (spd > 0 && flow > MISSING_DATA)
+		               ? flow / spd
+		               : k_occ;
+		sample_speed = spd;
+		sample_est = (flow > 0 && k_occ > DENSITY_THRESHOLD)
+		           ? flow / k_occ
+		           : MISSING_DATA;
+		sample_end = end;
+	}
+
+	/** Invalidate the current sample after storing new data.  This holds
+	 * the lock, so an update which queried the caches before the data
+	 * was stored cannot publish its sample afterward. */
+	private synchronized void invalidateSample() {
+		sample_end = -1;
+	}
+
+	/** Check the current sample, updating it if the period has ended */
+	private void checkSample() {
+		long end = calculateEndTime();
+		if (end != sample_end)
+			updateSample(end);
+	}
+
+	/** Get the current occupancy */
+	public synchronized float getOccupancy() {
+		checkSample();
+		return sample_occ;
 	}
 
 	/** Get the current occupancy */
@@ -772,15 +842,15 @@ public class DetectorImpl extends DeviceImpl implements Detector,VehicleSampler{
 	/** Get a raw (non-faked) flow rate (vehicles per hour) */
 	protected int getFlowRaw(long start, long end) {
 		int v = getVehCount(start, end);
-		float ph = new Interval(end - start, MILLISECONDS).per(HOUR);
-		return (v >= 0) ? Math.round(v * ph) : MISSING_DATA;
+		return (v >= 0)
+		      ? Math.round(v * HOUR_MS / (end - start))
+		      : MISSING_DATA;
 	}
 
 	/** Get the current raw (non-faked) flow rate (vehicles per hour) */
-	private int getFlowRaw() {
-		long end = calculateEndTime();
-		long start = end - SAMPLE_PERIOD_MS;
-		return getFlowRaw(start, end);
+	private synchronized int getFlowRaw() {
+		checkSample();
+		return sample_flow;
 	}
 
 	/** Get a fake flow rate (vehicles per hour) */
@@ -797,30 +867,16 @@ public class DetectorImpl extends DeviceImpl implements Detector,VehicleSampler{
 	}
 
 	/** Get the current raw (non-faked) density (vehicles per mile) */
-	protected float getDensityRaw() {
-		float k = getDensityFromFlowSpeed();
-		return (k >= 0) ? k : getDensityFromOccupancy();
-	}
-
-	/** Get the density from flow and speed (vehicles per mile) */
-	private float getDensityFromFlowSpeed() {
-		float speed = getSpeedRaw();
-		if (speed > 0) {
-			int flow = getFlowRaw();
-			if (flow > MISSING_DATA)
-				return flow / speed;
-		}
-		return MISSING_DATA;
+	protected synchronized float getDensityRaw() {
+		checkSample();
+		return sample_density;
 	}
 
-	/** Get the density from occupancy (vehicles per mile) */
-	private float getDensityFromOccupancy() {
-		float occ = getOccupancy();
-		if (occ >= 0 && field_length > 0) {
-			Distance fl = new Distance(field_length, FEET);
-			return occ / (fl.asFloat(MILES) * MAX_OCCUPANCY);
-		} else
-			return MISSING_DATA;
+	/** Calculate density from occupancy (vehicles per mile) */
+	private float densityFromOccupancy(float occ) {
+		return (occ >= 0 && field_length > 0)
+		      ? occ * FEET_PER_MILE / (field_length * MAX_OCCUPANCY)
+		      : MISSING_DATA;
 	}
 
 	/** Get fake density (vehicles per mile) */
@@ -843,10 +899,9 @@ public class DetectorImpl extends DeviceImpl implements Detector,VehicleSampler{
 	}
 
 	/** Get the current raw (non-faked) speed (miles per hour) */
-	protected float getSpeedRaw() {
-		long end = calculateEndTime();
-		long start = end - SAMPLE_PERIOD_MS;
-		return getSpeedRaw(start, end);
+	protected synchronized float getSpeedRaw() {
+		checkSample();
+		return sample_speed;
 	}
 
 	/** Get the raw (non-faked) speed (MPH) */
@@ -857,14 +912,9 @@ public class DetectorImpl extends DeviceImpl implements Detector,VehicleSampler{
 	}
 
 	/** Get speed estimate based on flow / density */
-	private float getSpeedEstimate() {
-		int flow = getFlowRaw();
-		if (flow <= 0)
-			return MISSING_DATA;
-		float density = getDensityFromOccupancy();
-		if (density <= DENSITY_THRESHOLD)
-			return MISSING_DATA;
-		return flow / density;
+	private synchronized float getSpeedEstimate() {
+		checkSample();
+		return sample_est;
 	}
 
 	/** Get fake speed (miles per hour) */
@@ -885,44 +935,55 @@ public class DetectorImpl extends DeviceImpl implements Detector,VehicleSampler{
 	 * @param v PeriodicSample containing vehicle count data.
 	 * @param vc Vehicle class. */
 	public void storeVehCount(PeriodicSample v, VehLengthClass vc) {
-		if (vc == null)
-			storeVehCount(v);
-		else if (v != null) {
+		if (v != null)
+			storeVehCount(v.stamp, v.period, v.value, vc);
+	}
+
+	/** Store one vehicle count sample for this detector.
+	 * @param v PeriodicSample containing vehicle count data. */
+	public void storeVehCount(PeriodicSample v) {
+		storeVehCount(v, null);
+	}
+
+	/** Store one vehicle count sample for this detector.
+	 * @param stamp Time stamp after end of sample period.
+	 * @param period Sample period (seconds).
+	 * @param v Vehicle count.
+	 * @param vc Vehicle class (null for all vehicles). */
+	public void storeVehCount(long stamp, int period, int v,
+		VehLengthClass vc)
+	{
+		if (vc == null) {
+			if (lane_type != LaneType.GREEN &&
+			    period == SAMPLE_PERIOD_SEC)
+				testVehCount(period, v);
+			veh_cache.add(stamp, period, v, name);
+			invalidateSample();
+		} else {
 			switch (vc) {
 			case MOTORCYCLE:
-				mc_count_cache.add(v, name);
+				mc_count_cache.add(stamp, period, v, name);
 				break;
 			case SHORT:
-				s_count_cache.add(v, name);
+				s_count_cache.add(stamp, period, v, name);
 				break;
 			case MEDIUM:
-				m_count_cache.add(v, name);
+				m_count_cache.add(stamp, period, v, name);
 				break;
 			case LONG:
-				l_count_cache.add(v, name);
+				l_count_cache.add(stamp, period, v, name);
 				break;
 			}
 		}
 	}
 
-	/** Store one vehicle count sample for this detector.
-	 * @param v PeriodicSample containing vehicle count data. */
-	public void storeVehCount(PeriodicSample v) {
-		if (v != null) {
-			if (lane_type != LaneType.GREEN &&
-			    v.period == SAMPLE_PERIOD_SEC)
-				testVehCount(v);
-			veh_cache.add(v, name);
-		}
-	}
-
 	/** Test a vehicle count sample with error detecting algorithms */
-	private void testVehCount(PeriodicSample vs) {
-		chatter.updateState(vs.period, vs.value > MAX_VEH_COUNT_30);
-		if (chatter.checkLogging(vs.period))
+	private void testVehCount(int period, int v) {
+		chatter.updateState(period, v > MAX_VEH_COUNT_30);
+		if (chatter.checkLogging(period))
 			logEvent(EventType.DET_CHATTER);
-		no_hits.updateState(vs.period, vs.value == 0);
-		if (no_hits.checkLogging(vs.period))
+		no_hits.updateState(period, v == 0);
+		if (no_hits.checkLogging(period))
 			logEvent(EventType.DET_NO_HITS);
 		updateAutoFail();
 	}
@@ -942,32 +1003,45 @@ public class DetectorImpl extends DeviceImpl implements Detector,VehicleSampler{
 	/** Store one occupancy sample for this detector.
 	 * @param occ Occupancy sample data. */
 	public void storeOccupancy(OccupancySample occ) {
-		if (occ != null) {
-			int n_scans = occ.as60HzScans();
-			if (occ.period == SAMPLE_PERIOD_SEC) {
-				testScans(occ);
-				prev_value = occ.value;
-			}
-			scn_cache.add(new PeriodicSample(occ.stamp, occ.period,
-				n_scans), name);
-		} else
+		if (occ != null)
+			storeOccupancy(occ.stamp, occ.period, occ.value);
+		else
 			prev_value = MISSING_DATA;
 	}
 
+	/** Store one occupancy sample for this detector.
+	 * @param stamp Time stamp after end of sample period.
+	 * @param period Sample period (seconds).
+	 * @param occ Occupancy (0 - OccupancySample.MAX). */
+	public void storeOccupancy(long stamp, int period, int occ) {
+		int n_scans = OccupancySample.as60HzScans(period, occ);
+		if (period == SAMPLE_PERIOD_SEC) {
+			testScans(period, occ);
+			prev_value = occ;
+		}
+		scn_cache.add(stamp, period, n_scans, name);
+		invalidateSample();
+	}
+
+	/** Clear the previous occupancy sample */
+	public void clearOccupancy() {
+		prev_value = MISSING_DATA;
+	}
+
 	/** Test an occupancy sample with error detecting algorithms */
-	private void testScans(OccupancySample occ) {
-		boolean lock = occ.value >= OccupancySample.MAX;
+	private void testScans(int period, int occ) {
+		boolean lock = occ >= OccupancySample.MAX;
 		// Locked-on counter should be cleared only with good
 		// non-zero samples.  This helps when the duration of
 		// occupancy spikes is shorter than the threshold time
 		// and interspersed with zeroes.
-		boolean hold = locked_on.failed && (occ.value == 0);
-		locked_on.updateState(occ.period, lock || hold);
-		if (locked_on.checkLogging(occ.period))
+		boolean hold = locked_on.failed && (occ == 0);
+		locked_on.updateState(period, lock || hold);
+		if (locked_on.checkLogging(period))
 			logEvent(EventType.DET_LOCKED_ON);
-		boolean v = (occ.value > 0) && (occ.value == prev_value);
-		no_change.updateState(occ.period, v);
-		if (no_change.checkLogging(occ.period))
+		boolean v = (occ > 0) && (occ == prev_value);
+		no_change.updateState(period, v);
+		if (no_change.checkLogging(period))
 			logEvent(EventType.DET_NO_CHANGE);
 		updateAutoFail();
 	}
@@ -976,7 +1050,16 @@ public class DetectorImpl extends DeviceImpl implements Detector,VehicleSampler{
 	 * @param speed PeriodicSample containing speed data. */
 	public void storeSpeed(PeriodicSample speed) {
 		if (speed != null)
-			spd_cache.add(speed, name);
+			storeSpeed(speed.stamp, speed.period, speed.value);
+	}
+
+	/** Store one speed sample for this detector.
+	 * @param stamp Time stamp after end of sample period.
+	 * @param period Sample period (seconds).
+	 * @param speed Speed (MPH). */
+	public void storeSpeed(long stamp, int period, int speed) {
+		spd_cache.add(stamp, period, speed, name);
+		invalidateSample();
 	}
 
 	/** Flush buffered data to disk */
@@ -1050,24 +1133,52 @@ public class DetectorImpl extends DeviceImpl implements Detector,VehicleSampler{
 		w.write("/>\n");
 	}
 
-	/** Print the current sample as an XML element */
-	public void writeSampleXml(Writer w) throws IOException {
+	/** Format the current sample values.
+	 * @return Flow, speed and occupancy (null if missing), or null if
+	 *         not sampling. */
+	private String[] formatSample() {
 		if (abandoned || !isSampling())
-			return;
+			return null;
 		int flow = getFlowRaw();
 		int speed = Math.round(getSpeed());
 		float occ = getOccupancy();
+		return new String[] {
+			(flow != MISSING_DATA) ? Integer.toString(flow) : null,
+			(isMainline() && speed > 0)
+				? Integer.toString(speed) : null,
+			(occ >= 0) ? formatFloat(occ, 2) : null
+		};
+	}
+
+	/** Print the current sample as an XML element */
+	public void writeSampleXml(Writer w) throws IOException {
+		String[] v = formatSample();
+		if (null == v)
+			return;
 		w.write("\t<sample");
 		w.write(createAttribute("sensor", name));
-		if (flow != MISSING_DATA)
-			w.write(createAttribute("flow", flow));
-		if (isMainline() && speed > 0)
-			w.write(createAttribute("speed", speed));
-		if (occ >= 0)
-			w.write(createAttribute("occ", formatFloat(occ, 2)));
+		w.write(createAttribute("flow", v[0]));
+		w.write(createAttribute("speed", v[1]));
+		w.write(createAttribute("occ", v[2]));
 		w.write("/>\n");
 	}
 
+	/** Get the current sample as a line of the sample stream.
+	 * @return Comma-separated sensor, flow, speed and occupancy (missing
+	 *         values are empty), or null if not sampling. */
+	public String getSampleLine() {
+		String[] v = formatSample();
+		if (null == v)
+			return null;
+		StringBuilder sb = new StringBuilder(name);
+		for (String f: v) {
+			sb.append(',');
+			if (f != null)
+				sb.append(f);
+		}
+		return sb.toString();
+	}
+
 	/** Send a device request operation */
 	@Override
 	protected void sendDeviceRequest(DeviceRequest dr) {
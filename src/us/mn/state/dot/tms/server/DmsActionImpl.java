@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2009-2018  Minnesota Department of Transportation
+ * Copyright (C) 2009-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -17,6 +17,7 @@ package us.mn.state.dot.tms.server;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import us.mn.state.dot.sonar.Namespace;
 import us.mn.state.dot.tms.ActionPlan;
@@ -34,6 +35,15 @@ import us.mn.state.dot.tms.TMSException;
  */
 public class DmsActionImpl extends BaseObjectImpl implements DmsAction {
 
+	/** Index of DMS actions by action plan */
+	static private final RelationIndex<ActionPlan, DmsActionImpl>
+		PLAN_ACTIONS = new RelationIndex<ActionPlan, DmsActionImpl>();
+
+	/** Lookup all DMS actions for an action plan */
+	static public List<DmsActionImpl> lookupActions(ActionPlan ap) {
+		return PLAN_ACTIONS.lookup(ap);
+	}
+
 	/** Load all the DMS actions */
 	static protected void loadAll() throws TMSException {
 		namespace.registerType(SONAR_TYPE, DmsActionImpl.class);
@@ -110,6 +120,22 @@ public class DmsActionImpl extends BaseObjectImpl implements DmsAction {
 		quick_message = qm;
 		beacon_enabled = be;
 		msg_priority = mp;
+		initTransients();
+	}
+
+	/** Initialize the transient fields */
+	@Override
+	protected void initTransients() {
+		PLAN_ACTIONS.add(action_plan, this);
+		ActionInput.PLAN.changed();
+	}
+
+	/** Destroy an object */
+	@Override
+	public void doDestroy() throws TMSException {
+		super.doDestroy();
+		PLAN_ACTIONS.remove(action_plan, this);
+		ActionInput.PLAN.changed();
 	}
 
 	/** Action plan */
@@ -137,6 +163,7 @@ public class DmsActionImpl extends BaseObjectImpl implements DmsAction {
 	@Override
 	public void setPhase(PlanPhase p) {
 		phase = p;
+		ActionInput.PLAN.changed();
 	}
 
 	/** Set the plan phase to perform action */
@@ -160,6 +187,7 @@ public class DmsActionImpl extends BaseObjectImpl implements DmsAction {
 	@Override
 	public void setQuickMessage(QuickMessage qm) {
 		quick_message = qm;
+		ActionInput.PLAN.changed();
 	}
 
 	/** Set the quick message */
@@ -183,6 +211,7 @@ public class DmsActionImpl extends BaseObjectImpl implements DmsAction {
 	@Override
 	public void setBeaconEnabled(boolean be) {
 		beacon_enabled = be;
+		ActionInput.PLAN.changed();
 	}
 
 	/** Set beacon enabled flag */
@@ -208,6 +237,7 @@ public class DmsActionImpl extends BaseObjectImpl implements DmsAction {
 	@Override
 	public void setMsgPriority(int mp) {
 		msg_priority = mp;
+		ActionInput.PLAN.changed();
 	}
 
 	/** Set the message priority */
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2009-2019  Minnesota Department of Transportation
+ * Copyright (C) 2009-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -17,22 +17,23 @@ package us.mn.state.dot.tms.server;
 import java.util.HashMap;
 import java.util.Iterator;
 import us.mn.state.dot.sched.DebugLog;
-import us.mn.state.dot.sched.Job;
 import us.mn.state.dot.tms.ActionPlan;
 import us.mn.state.dot.tms.DMS;
 import us.mn.state.dot.tms.DMSHelper;
 import us.mn.state.dot.tms.DmsAction;
-import us.mn.state.dot.tms.DmsActionHelper;
-import us.mn.state.dot.tms.DmsSignGroup;
-import us.mn.state.dot.tms.DmsSignGroupHelper;
-import us.mn.state.dot.tms.SignGroup;
 
 /**
  * Job to perform DMS actions.
  *
  * @author Douglas Lau
  */
-public class DmsActionJob extends Job {
+public class DmsActionJob extends ActionJob {
+
+	/** Cache of action messages from the previous run, mapped by DMS
+	 * action and sign.  Only accessed from the action plan timer. */
+	static private HashMap<DmsAction, HashMap<DMSImpl, DmsActionMsg>>
+		msg_cache = new HashMap<DmsAction,
+		HashMap<DMSImpl, DmsActionMsg>>();
 
 	/** Logger for debugging */
 	private final DebugLog logger;
@@ -41,9 +42,19 @@ public class DmsActionJob extends Job {
 	private final HashMap<DMSImpl, DmsActionMsg> dms_actions =
 		new HashMap<DMSImpl, DmsActionMsg>();
 
+	/** Cache of action messages for the next run */
+	private final HashMap<DmsAction, HashMap<DMSImpl, DmsActionMsg>>
+		next_cache = new HashMap<DmsAction,
+		HashMap<DMSImpl, DmsActionMsg>>();
+
+	/** Count of evaluated action messages */
+	private int n_evaluated = 0;
+
+	/** Count of reused action messages */
+	private int n_reused = 0;
+
 	/** Create a new DMS action job */
 	public DmsActionJob(DebugLog dl) {
-		super(0);
 		logger = dl;
 	}
 
@@ -53,33 +64,35 @@ public class DmsActionJob extends Job {
 			logger.log(dms.getName() + ": " + msg);
 	}
 
-	/** Perform DMS actions */
+	/** Perform DMS actions for the current phase of an active plan */
 	@Override
-	public void perform() {
-		Iterator<DmsAction> it = DmsActionHelper.iterator();
-		while (it.hasNext()) {
-			DmsAction da = it.next();
-			ActionPlan ap = da.getActionPlan();
-			if (ap.getActive()) {
-				if (ap.getPhase() == da.getPhase())
-					performDmsAction(da);
+	protected int performActions(ActionPlan ap) {
+		int n = 0;
+		for (DmsAction da: DmsActionImpl.lookupActions(ap)) {
+			if (ap.getPhase() == da.getPhase()) {
+				performDmsAction(da);
+				n++;
 			}
 		}
+		return n;
+	}
+
+	/** Update the DMS messages */
+	@Override
+	protected void finishActions() {
+		msg_cache = next_cache;
 		updateDmsMessages();
+		if (ActionPlanJob.SCHED_LOG.isOpen()) {
+			ActionPlanJob.SCHED_LOG.log(getName() + ": " +
+				n_evaluated + " evaluated, " + n_reused +
+				" reused");
+		}
 	}
 
 	/** Perform a DMS action */
 	private void performDmsAction(DmsAction da) {
-		SignGroup sg = da.getSignGroup();
-		Iterator<DmsSignGroup> it = DmsSignGroupHelper.iterator();
-		while (it.hasNext()) {
-			DmsSignGroup dsg = it.next();
-			if (dsg.getSignGroup() == sg) {
-				DMS dms = dsg.getDms();
-				if (dms instanceof DMSImpl)
-					checkAction(da, (DMSImpl) dms);
-			}
-		}
+		for (DMSImpl dms: DmsSignGroupImpl.lookupDms(da.getSignGroup()))
+			checkAction(da, dms);
 	}
 
 	/** Check an action for one DMS */
@@ -87,13 +100,37 @@ public class DmsActionJob extends Job {
 		if (logger.isOpen())
 			logSched(dms, "checking " + da);
 		if (shouldReplace(da, dms)) {
-			DmsActionMsg amsg = new DmsActionMsg(da, dms, logger);
+			DmsActionMsg amsg = lookupMsg(da, dms);
 			if (amsg.isValid())
 				dms_actions.put(dms, amsg);
 		} else if (logger.isOpen())
 			logSched(dms, "dropping " + da);
 	}
 
+	/** Lookup a cached action message, or create a new one if any of
+	 * its inputs have changed */
+	private DmsActionMsg lookupMsg(DmsAction da, DMSImpl dms) {
+		DmsActionMsg amsg = null;
+		if (!isSweep()) {
+			HashMap<DMSImpl, DmsActionMsg> msgs = msg_cache.get(da);
+			if (msgs != null)
+				amsg = msgs.get(dms);
+		}
+		if (amsg != null && amsg.isCurrent())
+			n_reused++;
+		else {
+			amsg = new DmsActionMsg(da, dms, logger);
+			n_evaluated++;
+		}
+		HashMap<DMSImpl, DmsActionMsg> next = next_cache.get(da);
+		if (null == next) {
+			next = new HashMap<DMSImpl, DmsActionMsg>();
+			next_cache.put(da, next);
+		}
+		next.put(dms, amsg);
+		return amsg;
+	}
+
 	/** Check if an action should replace the current DMS action */
 	private boolean shouldReplace(DmsAction da, DMSImpl dms) {
 		DmsActionMsg amsg = dms_actions.get(dms);
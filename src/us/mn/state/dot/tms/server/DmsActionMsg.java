@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2013-2019  Minnesota Department of Transportation
+ * Copyright (C) 2013-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -154,6 +154,33 @@ public class DmsActionMsg {
 		return src;
 	}
 
+	/** Serial numbers of action inputs when message was created */
+	private final long[] serials = ActionInput.snapshot();
+
+	/** Action input bits used by the message */
+	private int inputs = ActionInput.PLAN.bit();
+
+	/** Add an action input used by the message */
+	private void addInput(ActionInput ai) {
+		inputs |= ai.bit();
+	}
+
+	/** Expiration time of feed message (0 for none) */
+	private long expire = 0;
+
+	/** Check if the message is current.  It is current if none of the
+	 * inputs it uses have changed since it was created. */
+	public boolean isCurrent() {
+		if (expire > 0 && expire <= TimeSteward.currentTimeMillis())
+			return false;
+		for (ActionInput ai: ActionInput.values()) {
+			if ((inputs & ai.bit()) != 0 &&
+			    serials[ai.ordinal()] != ai.getSerial())
+				return false;
+		}
+		return true;
+	}
+
 	/** Mapping of station IDs to travel times */
 	private final HashMap<String, TravelTime> travel =
 		new HashMap<String, TravelTime>();
@@ -237,27 +264,34 @@ public class DmsActionMsg {
 		@Override public void addTravelTime(String sid,
 			OverLimitMode mode, String o_txt)
 		{
+			addInput(ActionInput.STATION);
 			processTravelTime(sid, mode, o_txt);
 			// Add tag for processTravelTimes to replace
 			super.addTravelTime(sid, null, null);
 		}
 		@Override public void addSpeedAdvisory() {
+			addInput(ActionInput.STATION);
 			addSpan(speedAdvisorySpan());
 		}
 		@Override public void addSlowWarning(int spd, int dist,
 			String mode)
 		{
+			addInput(ActionInput.STATION);
 			addSpan(slowWarningSpan(spd, dist, mode));
 		}
 		@Override public void addFeed(String fid) {
+			addInput(ActionInput.FEED);
 			parseFeed(fid);
 		}
 		@Override public void addTolling(String mode, String[] zones) {
+			addInput(ActionInput.STATION);
+			addInput(ActionInput.TOLL_ZONE);
 			addSpan(tollingSpan(mode, zones));
 		}
 		@Override public void addParking(String pid, String l_txt,
 			String c_txt)
 		{
+			addInput(ActionInput.PARKING);
 			addSpan(parkingSpan(pid, l_txt, c_txt));
 		}
 	};
@@ -321,6 +355,7 @@ public class DmsActionMsg {
 	/** Get the feed message string */
 	private String getFeedMsg(FeedMsg msg) {
 		addSrc(SignMsgSource.external);
+		expire = msg.getExpireTime();
 		MultiString _multi = msg.getMulti();
 		if (!isMsgFeedVerifyEnabled() || isFeedMsgValid(_multi))
 			return _multi.toString();
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2008-2016  Minnesota Department of Transportation
+ * Copyright (C) 2008-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -16,6 +16,7 @@ package us.mn.state.dot.tms.server;
 
 import java.sql.ResultSet;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import us.mn.state.dot.sonar.server.ServerNamespace;
 import us.mn.state.dot.tms.DmsSignGroup;
@@ -31,6 +32,15 @@ import us.mn.state.dot.tms.TMSException;
  */
 public class DmsSignGroupImpl extends BaseObjectImpl implements DmsSignGroup {
 
+	/** Index of DMS by sign group */
+	static private final RelationIndex<SignGroup, DMSImpl> GROUP_DMS =
+		new RelationIndex<SignGroup, DMSImpl>();
+
+	/** Lookup all DMS which are members of a sign group */
+	static public List<DMSImpl> lookupDms(SignGroup sg) {
+		return GROUP_DMS.lookup(sg);
+	}
+
 	/** Load all the DMS sign groups */
 	static protected void loadAll() throws TMSException {
 		namespace.registerType(SONAR_TYPE, DmsSignGroupImpl.class);
@@ -79,6 +89,7 @@ public class DmsSignGroupImpl extends BaseObjectImpl implements DmsSignGroup {
 		super(n);
 		dms = d;
 		sign_group = g;
+		initTransients();
 	}
 
 	/** Create a new DMS sign group */
@@ -86,6 +97,23 @@ public class DmsSignGroupImpl extends BaseObjectImpl implements DmsSignGroup {
 		this(n, lookupDMS(d), lookupSignGroup(g));
 	}
 
+	/** Initialize the transient fields */
+	@Override
+	protected void initTransients() {
+		if (dms instanceof DMSImpl)
+			GROUP_DMS.add(sign_group, (DMSImpl) dms);
+		ActionInput.PLAN.changed();
+	}
+
+	/** Destroy an object */
+	@Override
+	public void doDestroy() throws TMSException {
+		super.doDestroy();
+		if (dms instanceof DMSImpl)
+			GROUP_DMS.remove(sign_group, (DMSImpl) dms);
+		ActionInput.PLAN.changed();
+	}
+
 	/** DMS name */
 	private DMS dms;
 
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2011-2016  Minnesota Department of Transportation
+ * Copyright (C) 2011-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -17,6 +17,7 @@ package us.mn.state.dot.tms.server;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 
 /**
  * Feed bucket for storing feed messages.
@@ -29,10 +30,37 @@ public class FeedBucket {
 	static private final HashMap<String, HashMap<String, FeedMsg>> bucket =
 		new HashMap<String, HashMap<String, FeedMsg>>();
 
+	/** Most recent content of each feed */
+	static private final HashMap<String, List<String>> contents =
+		new HashMap<String, List<String>>();
+
+	/** Check if the content of a feed has changed since it was last
+	 * processed successfully.
+	 * @param fid Feed name.
+	 * @param lines Lines of feed content.
+	 * @return true if feed should be processed. */
+	static public synchronized boolean isChanged(String fid,
+		List<String> lines)
+	{
+		return !lines.equals(contents.get(fid));
+	}
+
+	/** Set the content of a feed after processing.  This should only be
+	 * called if every line was valid; otherwise, the feed is processed
+	 * again on the next read.
+	 * @param fid Feed name.
+	 * @param lines Lines of feed content (null to clear). */
+	static public synchronized void setContent(String fid,
+		List<String> lines)
+	{
+		contents.put(fid, lines);
+	}
+
 	/** Add a feed message to the bucket */
 	static public synchronized void add(FeedMsg msg) {
 		HashMap<String, FeedMsg> feed = getFeed(msg.getFeed());
 		feed.put(msg.getDms(), msg);
+		ActionInput.FEED.changed();
 	}
 
 	/** Get a feed message from the bucket */
@@ -65,8 +93,10 @@ public class FeedBucket {
 		Iterator<String> it = feed.keySet().iterator();
 		while(it.hasNext()) {
 			FeedMsg msg = feed.get(it.next());
-			if(msg.hasExpired())
+			if(msg.hasExpired()) {
 				it.remove();
+				ActionInput.FEED.changed();
+			}
 		}
 	}
 }
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2011-2016  Minnesota Department of Transportation
+ * Copyright (C) 2011-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -106,4 +106,9 @@ public class FeedMsg {
 	public boolean hasExpired() {
 		return expire == null || expire.before(new Date());
 	}
+
+	/** Get the expiration time (ms since epoch), or 0 if not set */
+	public long getExpireTime() {
+		return (expire != null) ? expire.getTime() : 0;
+	}
 }
@@ -35,6 +35,10 @@ public class FlushXmlJob extends Job {
 	/** Station manager */
 	private final StationManager station_manager;
 
+	/** Detector sample stream writer */
+	private final SampleStreamWriter stream_writer =
+		new SampleStreamWriter();
+
 	/** Create a new flush XML samples job */
 	public FlushXmlJob(StationManager sm) {
 		station_manager = sm;
@@ -45,6 +49,7 @@ public class FlushXmlJob extends Job {
 	public void perform() throws IOException {
 		writeSampleXml();
 		station_manager.writeSampleXml();
+		stream_writer.write();
 	}
 
 	/** Write the sample data out as XML */
@@ -362,6 +362,13 @@ public class GeoLocImpl extends BaseObjectImpl implements GeoLoc {
 	@Override
 	public void setLat(Double lt) {
 		lat = lt;
+		checkRNodeLoc();
+	}
+
+	/** Notify corridors if this is an r_node location */
+	private void checkRNodeLoc() {
+		if (R_Node.SONAR_TYPE.equals(notify_tag))
+			corridors.rNodeLocChanged();
 	}
 
 	/** Set the latitude */
@@ -392,6 +399,7 @@ public class GeoLocImpl extends BaseObjectImpl implements GeoLoc {
 	@Override
 	public void setLon(Double ln) {
 		lon = ln;
+		checkRNodeLoc();
 	}
 
 	/** Set the longitude */
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2001-2018  Minnesota Department of Transportation
+ * Copyright (C) 2001-2020  Minnesota Department of Transportation
  * Copyright (C) 2011-2012  University of Minnesota Duluth (NATSRL)
  *
  * This program is free software; you can redistribute it and/or modify
@@ -15,8 +15,9 @@
  */
 package us.mn.state.dot.tms.server;
 
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
 import us.mn.state.dot.sched.DebugLog;
 import us.mn.state.dot.sched.TimeSteward;
 import us.mn.state.dot.tms.EventType;
@@ -181,9 +182,10 @@ public class KAdaptiveAlgorithm implements MeterAlgorithmState {
 		return (k != null) && (k < K_LOW);
 	}
 
-	/** States for all K adaptive algorithms */
-	static private HashMap<String, KAdaptiveAlgorithm> ALL_ALGS =
-		new HashMap<String, KAdaptiveAlgorithm>();
+	/** States for all K adaptive algorithms.  Meter states are created
+	 * by corridor tasks on pool threads, so this must be concurrent. */
+	static private final ConcurrentHashMap<String, KAdaptiveAlgorithm>
+		ALL_ALGS = new ConcurrentHashMap<String, KAdaptiveAlgorithm>();
 
 	/** Get the K adaptive algorithm state for a meter */
 	static public KAdaptiveAlgorithm meterState(RampMeterImpl meter) {
@@ -200,25 +202,39 @@ public class KAdaptiveAlgorithm implements MeterAlgorithmState {
 	static private KAdaptiveAlgorithm lookupAlgorithm(Corridor c) {
 		KAdaptiveAlgorithm alg = ALL_ALGS.get(c.getName());
 		if (null == alg) {
-			alg = new KAdaptiveAlgorithm(c);
-			alg.log("adding");
-			ALL_ALGS.put(c.getName(), alg);
+			KAdaptiveAlgorithm a = new KAdaptiveAlgorithm(c);
+			alg = ALL_ALGS.putIfAbsent(c.getName(), a);
+			if (null == alg) {
+				a.log("adding");
+				alg = a;
+			}
 		}
 		return alg;
 	}
 
-	/** Process one interval for all K adaptive algorithm states */
-	static public void processAllStates() {
-		Iterator<KAdaptiveAlgorithm> it =
-			ALL_ALGS.values().iterator();
-		while (it.hasNext()) {
-			KAdaptiveAlgorithm alg = it.next();
+	/** Get the names of all corridors with algorithm states */
+	static public ArrayList<String> getStateCorridors() {
+		return new ArrayList<String>(ALL_ALGS.keySet());
+	}
+
+	/** Process one interval for the algorithm state of a corridor.
+	 * States of different corridors may be processed concurrently.
+	 * @param cid Corridor name.
+	 * @return true if the state is done and should be removed. */
+	static public boolean processState(String cid) {
+		KAdaptiveAlgorithm alg = ALL_ALGS.get(cid);
+		if (alg != null) {
 			alg.updateStations();
-			if (alg.isDone()) {
-				alg.log("isDone: removing");
-				it.remove();
-			}
-		}
+			return alg.isDone();
+		} else
+			return false;
+	}
+
+	/** Remove the algorithm state of a corridor */
+	static public void removeState(String cid) {
+		KAdaptiveAlgorithm alg = ALL_ALGS.remove(cid);
+		if (alg != null)
+			alg.log("isDone: removing");
 	}
 
 	/** Calculate the end time of previous period */
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2009-2017  Minnesota Department of Transportation
+ * Copyright (C) 2009-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -16,6 +16,7 @@ package us.mn.state.dot.tms.server;
 
 import java.sql.ResultSet;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import us.mn.state.dot.sonar.Namespace;
 import us.mn.state.dot.tms.ActionPlan;
@@ -32,6 +33,15 @@ import us.mn.state.dot.tms.TMSException;
  */
 public class LaneActionImpl extends BaseObjectImpl implements LaneAction {
 
+	/** Index of lane actions by action plan */
+	static private final RelationIndex<ActionPlan, LaneActionImpl>
+		PLAN_ACTIONS = new RelationIndex<ActionPlan, LaneActionImpl>();
+
+	/** Lookup all lane actions for an action plan */
+	static public List<LaneActionImpl> lookupActions(ActionPlan ap) {
+		return PLAN_ACTIONS.lookup(ap);
+	}
+
 	/** Load all the lane actions */
 	static protected void loadAll() throws TMSException {
 		namespace.registerType(SONAR_TYPE, LaneActionImpl.class);
@@ -95,6 +105,22 @@ public class LaneActionImpl extends BaseObjectImpl implements LaneAction {
 		action_plan = a;
 		lane_marking = lm;
 		phase = p;
+		initTransients();
+	}
+
+	/** Initialize the transient fields */
+	@Override
+	protected void initTransients() {
+		PLAN_ACTIONS.add(action_plan, this);
+		ActionInput.PLAN.changed();
+	}
+
+	/** Destroy an object */
+	@Override
+	public void doDestroy() throws TMSException {
+		super.doDestroy();
+		PLAN_ACTIONS.remove(action_plan, this);
+		ActionInput.PLAN.changed();
 	}
 
 	/** Action plan */
@@ -122,6 +148,7 @@ public class LaneActionImpl extends BaseObjectImpl implements LaneAction {
 	@Override
 	public void setPhase(PlanPhase p) {
 		phase = p;
+		ActionInput.PLAN.changed();
 	}
 
 	/** Set the plan phase to perform action */
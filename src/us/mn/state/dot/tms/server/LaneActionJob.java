@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2009-2018  Minnesota Department of Transportation
+ * Copyright (C) 2009-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -14,11 +14,8 @@
  */
 package us.mn.state.dot.tms.server;
 
-import java.util.Iterator;
-import us.mn.state.dot.sched.Job;
 import us.mn.state.dot.tms.ActionPlan;
 import us.mn.state.dot.tms.LaneAction;
-import us.mn.state.dot.tms.LaneActionHelper;
 import us.mn.state.dot.tms.LaneMarking;
 import us.mn.state.dot.tms.PlanPhase;
 
@@ -27,23 +24,21 @@ import us.mn.state.dot.tms.PlanPhase;
  *
  * @author Douglas Lau
  */
-public class LaneActionJob extends Job {
+public class LaneActionJob extends ActionJob {
 
 	/** Create a new lane action job */
 	public LaneActionJob() {
-		super(0);
 	}
 
-	/** Perform all lane actions */
+	/** Perform all lane actions for an active plan */
 	@Override
-	public void perform() {
-		Iterator<LaneAction> it = LaneActionHelper.iterator();
-		while (it.hasNext()) {
-			LaneAction la = it.next();
-			ActionPlan ap = la.getActionPlan();
-			if (ap.getActive())
-				performLaneAction(la, ap.getPhase());
+	protected int performActions(ActionPlan ap) {
+		int n = 0;
+		for (LaneAction la: LaneActionImpl.lookupActions(ap)) {
+			performLaneAction(la, ap.getPhase());
+			n++;
 		}
+		return n;
 	}
 
 	/** Perform a lane action */
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2009-2017  Minnesota Department of Transportation
+ * Copyright (C) 2009-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -16,6 +16,7 @@ package us.mn.state.dot.tms.server;
 
 import java.sql.ResultSet;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import us.mn.state.dot.sonar.Namespace;
 import us.mn.state.dot.tms.ActionPlan;
@@ -32,6 +33,24 @@ import us.mn.state.dot.tms.TMSException;
  */
 public class MeterActionImpl extends BaseObjectImpl implements MeterAction {
 
+	/** Index of meter actions by action plan */
+	static private final RelationIndex<ActionPlan, MeterActionImpl>
+		PLAN_ACTIONS = new RelationIndex<ActionPlan, MeterActionImpl>();
+
+	/** Lookup all meter actions for an action plan */
+	static public List<MeterActionImpl> lookupActions(ActionPlan ap) {
+		return PLAN_ACTIONS.lookup(ap);
+	}
+
+	/** Index of meter actions by ramp meter */
+	static private final RelationIndex<RampMeter, MeterActionImpl>
+		METER_ACTIONS = new RelationIndex<RampMeter, MeterActionImpl>();
+
+	/** Lookup all meter actions for a ramp meter */
+	static public List<MeterActionImpl> lookupActions(RampMeter d) {
+		return METER_ACTIONS.lookup(d);
+	}
+
 	/** Load all the meter actions */
 	static protected void loadAll() throws TMSException {
 		namespace.registerType(SONAR_TYPE, MeterActionImpl.class);
@@ -95,6 +114,24 @@ public class MeterActionImpl extends BaseObjectImpl implements MeterAction {
 		action_plan = a;
 		ramp_meter = rm;
 		phase = p;
+		initTransients();
+	}
+
+	/** Initialize the transient fields */
+	@Override
+	protected void initTransients() {
+		PLAN_ACTIONS.add(action_plan, this);
+		ActionInput.PLAN.changed();
+		METER_ACTIONS.add(ramp_meter, this);
+	}
+
+	/** Destroy an object */
+	@Override
+	public void doDestroy() throws TMSException {
+		super.doDestroy();
+		PLAN_ACTIONS.remove(action_plan, this);
+		ActionInput.PLAN.changed();
+		METER_ACTIONS.remove(ramp_meter, this);
 	}
 
 	/** Action plan */
@@ -122,6 +159,7 @@ public class MeterActionImpl extends BaseObjectImpl implements MeterAction {
 	@Override
 	public void setPhase(PlanPhase p) {
 		phase = p;
+		ActionInput.PLAN.changed();
 	}
 
 	/** Set the plan phase to perform action */
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2009-2018  Minnesota Department of Transportation
+ * Copyright (C) 2009-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -15,12 +15,9 @@
 package us.mn.state.dot.tms.server;
 
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
-import us.mn.state.dot.sched.Job;
 import us.mn.state.dot.tms.ActionPlan;
 import us.mn.state.dot.tms.MeterAction;
-import us.mn.state.dot.tms.MeterActionHelper;
 import us.mn.state.dot.tms.PlanPhase;
 import us.mn.state.dot.tms.RampMeter;
 
@@ -29,7 +26,7 @@ import us.mn.state.dot.tms.RampMeter;
  *
  * @author Douglas Lau
  */
-public class MeterActionJob extends Job {
+public class MeterActionJob extends ActionJob {
 
 	/** Mapping of ramp meter operating states */
 	private final HashMap<RampMeterImpl, Boolean> meters =
@@ -37,19 +34,22 @@ public class MeterActionJob extends Job {
 
 	/** Create a new meter action job */
 	public MeterActionJob() {
-		super(0);
 	}
 
-	/** Perform all ramp meter actions */
+	/** Perform all ramp meter actions for an active plan */
 	@Override
-	public void perform() {
-		Iterator<MeterAction> it = MeterActionHelper.iterator();
-		while (it.hasNext()) {
-			MeterAction ma = it.next();
-			ActionPlan ap = ma.getActionPlan();
-			if (ap.getActive())
-				updateMeterMap(ma, ap.getPhase());
+	protected int performActions(ActionPlan ap) {
+		int n = 0;
+		for (MeterAction ma: MeterActionImpl.lookupActions(ap)) {
+			updateMeterMap(ma, ap.getPhase());
+			n++;
 		}
+		return n;
+	}
+
+	/** Update operating state of all ramp meters */
+	@Override
+	protected void finishActions() {
 		for (Map.Entry<RampMeterImpl, Boolean> e: meters.entrySet())
 			e.getKey().setOperating(e.getValue());
 	}
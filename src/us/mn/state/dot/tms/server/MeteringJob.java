@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2009-2016  Minnesota Department of Transportation
+ * Copyright (C) 2009-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -14,15 +14,26 @@
  */
 package us.mn.state.dot.tms.server;
 
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Iterator;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import us.mn.state.dot.sched.DebugLog;
 import us.mn.state.dot.sched.Job;
 import us.mn.state.dot.sched.Scheduler;
+import us.mn.state.dot.tms.GeoLocHelper;
 import us.mn.state.dot.tms.RampMeter;
 import us.mn.state.dot.tms.RampMeterHelper;
 
 /**
- * Job to calculate station data and ramp metering.
+ * Job to calculate station data and ramp metering.  After station data is
+ * calculated, bottlenecks and metering are processed for each corridor
+ * concurrently on a fork-join pool.  Corridors are independent, since
+ * bottlenecks and K adaptive states only use stations of one corridor.
  *
  * @author Douglas Lau
  */
@@ -31,6 +42,56 @@ public class MeteringJob extends Job {
 	/** Seconds to offset each poll from start of interval */
 	static private final int OFFSET_SECS = 29;
 
+	/** Metering cycle period (ms) */
+	static private final long PERIOD_MS = 30 * 1000;
+
+	/** Metering job debug log */
+	static private final DebugLog METERING_LOG = new DebugLog("metering");
+
+	/** Pool for processing corridors */
+	static private final ForkJoinPool POOL = new ForkJoinPool();
+
+	/** Name used to group meters with no corridor */
+	static private final String NO_CORRIDOR = "";
+
+	/** Metering work for one corridor */
+	static private class CorridorTask implements Callable<Boolean> {
+		private final String cid;
+		private Corridor corridor;
+		private final ArrayList<RampMeterImpl> meters =
+			new ArrayList<RampMeterImpl>();
+		private CorridorTask(String c) {
+			cid = c;
+		}
+
+		/** Process the corridor.
+		 * @return true if K adaptive state is done. */
+		@Override
+		public Boolean call() {
+			boolean done;
+			try {
+				if (corridor != null)
+					corridor.findBottlenecks();
+			}
+			finally {
+				done = processMetering();
+			}
+			return done;
+		}
+
+		/** Process metering for the corridor */
+		private boolean processMetering() {
+			boolean done = KAdaptiveAlgorithm.processState(cid);
+			for (RampMeterImpl meter: meters)
+				meter.validateAlgorithm();
+			for (RampMeterImpl meter: meters) {
+				meter.updateQueueState();
+				meter.updateRatePlanned();
+			}
+			return done;
+		}
+	}
+
 	/** FLUSH Scheduler for writing XML (I/O to disk) */
 	private final Scheduler flush;
 
@@ -51,36 +112,97 @@ public class MeteringJob extends Job {
 	/** Perform the metering job */
 	@Override
 	public void perform() {
+		long t0 = System.nanoTime();
+		long t1;
+		int n_tasks;
 		try {
 			station_manager.calculateData();
-			// Perform flush job after station data calculated
-			flush.addJob(flush_job);
-			BaseObjectImpl.corridors.findBottlenecks();
 		}
 		finally {
-			validateMetering();
+			t1 = System.nanoTime();
+			n_tasks = processCorridors();
 		}
+		// Perform flush job after all corridors processed
+		flush.addJob(flush_job);
+		if (METERING_LOG.isOpen())
+			logTiming(t0, t1, System.nanoTime(), n_tasks);
 	}
 
-	/** Validate all metering algorithms */
-	private void validateMetering() {
-		KAdaptiveAlgorithm.processAllStates();
-		Iterator<RampMeter> it = RampMeterHelper.iterator();
-		while (it.hasNext()) {
-			RampMeter rm = it.next();
-			if (rm instanceof RampMeterImpl) {
-				RampMeterImpl meter = (RampMeterImpl)rm;
-				meter.validateAlgorithm();
-			}
+	/** Process all corridors concurrently.
+	 * @return Number of corridor tasks. */
+	private int processCorridors() {
+		TreeMap<String, CorridorTask> tasks = createTasks();
+		ArrayList<Future<Boolean>> res = new ArrayList<Future<Boolean>>(
+			POOL.invokeAll(tasks.values()));
+		// All tasks are complete (barrier)
+		int i = 0;
+		for (CorridorTask task: tasks.values()) {
+			if (isDone(res.get(i)))
+				KAdaptiveAlgorithm.removeState(task.cid);
+			i++;
+		}
+		return tasks.size();
+	}
+
+	/** Check if a K adaptive state is done, reporting exceptions */
+	private boolean isDone(Future<Boolean> f) {
+		try {
+			return f.get();
+		}
+		catch (ExecutionException e) {
+			Throwable c = e.getCause();
+			METERING_LOG.log("Corridor task failed: " + c);
+			return false;
 		}
-		it = RampMeterHelper.iterator();
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	/** Create tasks for all corridors, states and meters */
+	private TreeMap<String, CorridorTask> createTasks() {
+		TreeMap<String, CorridorTask> tasks =
+			new TreeMap<String, CorridorTask>();
+		for (Corridor c: BaseObjectImpl.corridors.getCorridorList())
+			lookupTask(tasks, c.getName()).corridor = c;
+		for (String cid: KAdaptiveAlgorithm.getStateCorridors())
+			lookupTask(tasks, cid);
+		Iterator<RampMeter> it = RampMeterHelper.iterator();
 		while (it.hasNext()) {
 			RampMeter rm = it.next();
 			if (rm instanceof RampMeterImpl) {
 				RampMeterImpl meter = (RampMeterImpl) rm;
-				meter.updateQueueState();
-				meter.updateRatePlanned();
+				String cid = GeoLocHelper.getCorridorName(
+					meter.getGeoLoc());
+				if (null == cid)
+					cid = NO_CORRIDOR;
+				lookupTask(tasks, cid).meters.add(meter);
 			}
 		}
+		return tasks;
+	}
+
+	/** Lookup (or create) the task for a corridor */
+	static private CorridorTask lookupTask(TreeMap<String, CorridorTask>
+		tasks, String cid)
+	{
+		CorridorTask task = tasks.get(cid);
+		if (null == task) {
+			task = new CorridorTask(cid);
+			tasks.put(cid, task);
+		}
+		return task;
+	}
+
+	/** Log stage timing and cycle headroom */
+	private void logTiming(long t0, long t1, long t2, int n_tasks) {
+		long st_ms = (t1 - t0) / 1000000;
+		long cor_ms = (t2 - t1) / 1000000;
+		long total = st_ms + cor_ms;
+		METERING_LOG.log("stations: " + st_ms + " ms, corridors: " +
+			cor_ms + " ms (" + n_tasks + " tasks, " +
+			POOL.getParallelism() + " threads), headroom: " +
+			(PERIOD_MS - total) + " ms");
 	}
 }
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2012-2019  Minnesota Department of Transportation
+ * Copyright (C) 2012-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -28,7 +28,7 @@ public class OccupancySample extends PeriodicSample {
 	static public final int MAX = 10000;
 
 	/** Convert protocol-specific scans to occupancy (0 - 10000) */
-	static private int calculateOccupancy(int n_scans, int max_scans) {
+	static public int calculateOccupancy(int n_scans, int max_scans) {
 		assert(max_scans > 0);
 		if (n_scans >= 0)
 			return Math.round((float) n_scans / max_scans * MAX);
@@ -50,8 +50,16 @@ public class OccupancySample extends PeriodicSample {
 
 	/** Get sample as 60 Hz scan count */
 	public int as60HzScans() {
-		if (value >= 0)
-			return Math.round(value * period * HZ_60 / MAX);
+		return as60HzScans(period, value);
+	}
+
+	/** Convert an occupancy value to 60 Hz scan count.
+	 * @param period Sample period (seconds).
+	 * @param occ Occupancy (0 - 10000).
+	 * @return Scan count, or MISSING_DATA. */
+	static public int as60HzScans(int period, int occ) {
+		if (occ >= 0)
+			return Math.round(occ * period * HZ_60 / MAX);
 		else
 			return MISSING_DATA;
 	}
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2018  Minnesota Department of Transportation
+ * Copyright (C) 2018-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -688,6 +688,7 @@ public class ParkingAreaImpl extends BaseObjectImpl implements ParkingArea {
 	@Override
 	public void setLowThreshold(Integer t) {
 		low_threshold = t;
+		ActionInput.PARKING.changed();
 	}
 
 	/** Set the low threshold */
@@ -851,6 +852,7 @@ public class ParkingAreaImpl extends BaseObjectImpl implements ParkingArea {
 			updateTimeStamp();
 			true_available = a;
 			notifyAttribute("trueAvailable");
+			ActionInput.PARKING.changed();
 		}
 	}
 
@@ -886,6 +888,7 @@ public class ParkingAreaImpl extends BaseObjectImpl implements ParkingArea {
 	@Override
 	public void setOpen(Boolean o) {
 		open = o;
+		ActionInput.PARKING.changed();
 	}
 
 	/** Set the open status */
@@ -913,6 +916,7 @@ public class ParkingAreaImpl extends BaseObjectImpl implements ParkingArea {
 			updateTimeStamp();
 			trust_data = t;
 			notifyAttribute("trustData");
+			ActionInput.PARKING.changed();
 		}
 	}
 
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2010-2019  Minnesota Department of Transportation
+ * Copyright (C) 2010-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -146,21 +146,41 @@ public class PeriodicSampleCache {
 	 * cache is cleared first.
 	 * @param ps Sample to add to the cache. */
 	public void add(PeriodicSample ps, String name) {
-		if (checkStamp(ps.stamp)) {
-			if (sample_type.isValid(ps)) {
-				if (!isPeriodOk(ps.period))
-					samples.clear();
-				if (isPeriodSame(ps.period))
-					addSample(ps);
-				else
-					interpolate(ps);
-			}
-		} else {
-			if (SAMPLE_LOG.isOpen()) {
-				SAMPLE_LOG.log(name + ": invalid stamp: " +
-					new Date(ps.stamp));
-			}
+		if (checkStamp(ps.stamp, name) && sample_type.isValid(ps))
+			store(ps);
+	}
+
+	/** Add a periodic sample to the cache.  No objects are allocated
+	 * unless the sample is valid.
+	 * @param stamp Time stamp after end of sample period.
+	 * @param period Sample period (seconds).
+	 * @param value Sample value.
+	 * @param name Name of sample owner (for logging). */
+	public void add(long stamp, int period, int value, String name) {
+		if (checkStamp(stamp, name) &&
+		    sample_type.isValid(period, value))
+			store(new PeriodicSample(stamp, period, value));
+	}
+
+	/** Check a time stamp, logging invalid stamps */
+	private boolean checkStamp(long stamp, String name) {
+		if (checkStamp(stamp))
+			return true;
+		if (SAMPLE_LOG.isOpen()) {
+			SAMPLE_LOG.log(name + ": invalid stamp: " +
+				new Date(stamp));
 		}
+		return false;
+	}
+
+	/** Store a valid periodic sample */
+	private void store(PeriodicSample ps) {
+		if (!isPeriodOk(ps.period))
+			samples.clear();
+		if (isPeriodSame(ps.period))
+			addSample(ps);
+		else
+			interpolate(ps);
 	}
 
 	/** Check if a period is OK to be cached.
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2012-2019  Minnesota Department of Transportation
+ * Copyright (C) 2012-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -92,7 +92,14 @@ public enum PeriodicSampleType {
 
 	/** Is a periodic sample valid? */
 	public boolean isValid(PeriodicSample ps) {
-		return ps.period > 0 &&
-		       ps.value > MISSING_DATA;
+		return isValid(ps.period, ps.value);
+	}
+
+	/** Is a periodic sample valid?
+	 * @param period Sample period (seconds).
+	 * @param value Sample value. */
+	public boolean isValid(int period, int value) {
+		return period > 0 &&
+		       value > MISSING_DATA;
 	}
 }
@@ -25,6 +25,7 @@ import us.mn.state.dot.sched.TimeSteward;
 import us.mn.state.dot.sonar.Connection;
 import us.mn.state.dot.sonar.Namespace;
 import us.mn.state.dot.tms.BaseHelper;
+import us.mn.state.dot.tms.RasterCache;
 
 /**
  * The server profiler is used to periodically write interesting server 
@@ -63,6 +64,8 @@ public class Profiler {
 			long total = jvm.totalMemory();
 			PROFILE_LOG.log("Free memory: " + formatMem(free));
 			PROFILE_LOG.log("Total memory: " + formatMem(total));
+			PROFILE_LOG.log("Raster cache: " +
+				RasterCache.getStats());
 		}
 	}
 
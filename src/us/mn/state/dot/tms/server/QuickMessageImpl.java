@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2009-2019  Minnesota Department of Transportation
+ * Copyright (C) 2009-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -187,6 +187,7 @@ public class QuickMessageImpl extends BaseObjectImpl implements QuickMessage {
 	@Override
 	public void setMulti(String m) {
 		multi = m;
+		ActionInput.PLAN.changed();
 	}
 
 	/** Set the MULTI string */
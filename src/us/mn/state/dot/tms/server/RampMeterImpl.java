@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2000-2019  Minnesota Department of Transportation
+ * Copyright (C) 2000-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -35,7 +35,6 @@ import us.mn.state.dot.tms.GeoLocHelper;
 import us.mn.state.dot.tms.ItemStyle;
 import us.mn.state.dot.tms.LaneType;
 import us.mn.state.dot.tms.MeterAction;
-import us.mn.state.dot.tms.MeterActionHelper;
 import us.mn.state.dot.tms.MeterAlgorithm;
 import us.mn.state.dot.tms.R_Node;
 import us.mn.state.dot.tms.R_NodeType;
@@ -414,14 +413,10 @@ public class RampMeterImpl extends DeviceImpl implements RampMeter {
 	/** Get a list of all meter actions which control the meter */
 	private ArrayList<MeterAction> getMeterActions() {
 		ArrayList<MeterAction> act = new ArrayList<MeterAction>();
-		Iterator<MeterAction> it = MeterActionHelper.iterator();
-		while (it.hasNext()) {
-			MeterAction ma = it.next();
-			if (ma.getRampMeter() == this) {
-				ActionPlan ap = ma.getActionPlan();
-				if (ap.getActive())
-					act.add(ma);
-			}
+		for (MeterAction ma: MeterActionImpl.lookupActions(this)) {
+			ActionPlan ap = ma.getActionPlan();
+			if (ap.getActive())
+				act.add(ma);
 		}
 		return act;
 	}
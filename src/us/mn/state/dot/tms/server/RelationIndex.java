@@ -0,0 +1,65 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2020  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms.server;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * A relation index is a reverse mapping from a key object to all related
+ * values, such as a sign group to its member signs.  It must be updated
+ * when relation objects are created or destroyed.  Lists returned by lookup
+ * are immutable snapshots, so they can be iterated without locking.
+ *
+ * @author Douglas Lau
+ */
+public class RelationIndex<K, V> {
+
+	/** Mapping of keys to related values */
+	private final HashMap<K, List<V>> map = new HashMap<K, List<V>>();
+
+	/** Add a relation */
+	public synchronized void add(K k, V v) {
+		if (k != null) {
+			List<V> vals = map.get(k);
+			ArrayList<V> nv = (vals != null)
+			                ? new ArrayList<V>(vals)
+			                : new ArrayList<V>(1);
+			nv.add(v);
+			map.put(k, Collections.unmodifiableList(nv));
+		}
+	}
+
+	/** Remove a relation */
+	public synchronized void remove(K k, V v) {
+		List<V> vals = (k != null) ? map.get(k) : null;
+		if (vals != null && vals.contains(v)) {
+			ArrayList<V> nv = new ArrayList<V>(vals);
+			nv.remove(v);
+			if (nv.isEmpty())
+				map.remove(k);
+			else
+				map.put(k, Collections.unmodifiableList(nv));
+		}
+	}
+
+	/** Lookup all values related to a key */
+	public synchronized List<V> lookup(K k) {
+		List<V> vals = (k != null) ? map.get(k) : null;
+		return (vals != null) ? vals : Collections.<V>emptyList();
+	}
+}
@@ -0,0 +1,169 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2020  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms.server;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map;
+import us.mn.state.dot.tms.Detector;
+import us.mn.state.dot.tms.DetectorHelper;
+
+/**
+ * Writer for the detector sample stream.  This is a compact alternative to
+ * det_sample.xml, with one comma-separated line per detector.  Every period
+ * has a sequence number, and three files are written:
+ *
+ *  det_sample.txt.gz        All samples (snapshot)
+ *  det_sample_{seq}.txt.gz  Samples changed since previous period (delta)
+ *  det_sample.seq           Most recent sequence number
+ *
+ * The first line of each sample file is "seq {seq} {prev}", where prev is
+ * the sequence of the previous period for deltas, or 0 for the snapshot.
+ * In a delta, a line with all values empty means the sample was removed.
+ * Delta files left from a previous server run are removed before the first
+ * period is written.
+ *
+ * @author Douglas Lau
+ */
+public class SampleStreamWriter {
+
+	/** Base name of sample stream files */
+	static private final String SAMPLE_STREAM = "det_sample";
+
+	/** Number of delta files to keep */
+	static public final int KEEP_DELTAS = 10;
+
+	/** Get the file name of a delta */
+	static private String deltaName(long seq) {
+		return SAMPLE_STREAM + "_" + seq + ".txt";
+	}
+
+	/** Sample lines from previous period, mapped by detector name */
+	private HashMap<String, String> prev = new HashMap<String, String>();
+
+	/** Sequence number of previous period */
+	private long prev_seq = 0;
+
+	/** Sequence numbers of existing delta files */
+	private final LinkedList<Long> deltas = new LinkedList<Long>();
+
+	/** Write the sample stream files */
+	public void write() throws IOException {
+		long seq = DetectorImpl.calculateEndTime() /
+			DetectorImpl.SAMPLE_PERIOD_MS;
+		if (seq <= prev_seq)
+			return;
+		if (0 == prev_seq)
+			purgeStale();
+		HashMap<String, String> lines = collectLines();
+		writeSamples(SAMPLE_STREAM + ".txt", seq, 0, lines.values());
+		if (prev_seq > 0) {
+			writeSamples(deltaName(seq), seq, prev_seq,
+				createDelta(lines));
+			deltas.add(seq);
+		}
+		writeSequence(seq);
+		purgeDeltas();
+		prev = lines;
+		prev_seq = seq;
+	}
+
+	/** Collect sample lines for all detectors */
+	private HashMap<String, String> collectLines() {
+		HashMap<String, String> lines = new HashMap<String, String>();
+		Iterator<Detector> it = DetectorHelper.iterator();
+		while (it.hasNext()) {
+			Detector d = it.next();
+			if (d instanceof DetectorImpl) {
+				DetectorImpl det = (DetectorImpl) d;
+				String line = det.getSampleLine();
+				if (line != null)
+					lines.put(d.getName(), line);
+			}
+		}
+		return lines;
+	}
+
+	/** Create delta lines from previous period */
+	private ArrayList<String> createDelta(HashMap<String, String> lines) {
+		ArrayList<String> delta = new ArrayList<String>();
+		for (Map.Entry<String, String> e: lines.entrySet()) {
+			if (!e.getValue().equals(prev.get(e.getKey())))
+				delta.add(e.getValue());
+		}
+		for (String n: prev.keySet()) {
+			if (!lines.containsKey(n))
+				delta.add(n + ",,,");
+		}
+		return delta;
+	}
+
+	/** Write a sample file */
+	private void writeSamples(String f, final long seq, final long ps,
+		final Collection<String> lines) throws IOException
+	{
+		XmlWriter w = new XmlWriter(f, true) {
+			@Override protected void write(Writer w)
+				throws IOException
+			{
+				w.write("seq " + seq + " " + ps + "\n");
+				for (String line: lines) {
+					w.write(line);
+					w.write('\n');
+				}
+			}
+		};
+		w.write();
+	}
+
+	/** Write the sequence file */
+	private void writeSequence(final long seq) throws IOException {
+		XmlWriter w = new XmlWriter(SAMPLE_STREAM + ".seq", false) {
+			@Override protected void write(Writer w)
+				throws IOException
+			{
+				w.write(seq + "\n");
+			}
+		};
+		w.write();
+	}
+
+	/** Remove delta files left from a previous run */
+	private void purgeStale() {
+		File[] files = XmlWriter.XML_OUTPUT_DIRECTORY.listFiles();
+		if (files != null) {
+			for (File f: files) {
+				String n = f.getName();
+				if (n.startsWith(SAMPLE_STREAM + "_") &&
+				    n.endsWith(".txt.gz"))
+					f.delete();
+			}
+		}
+	}
+
+	/** Remove old delta files */
+	private void purgeDeltas() {
+		while (deltas.size() > KEEP_DELTAS) {
+			String f = deltaName(deltas.removeFirst()) + ".gz";
+			new File(XmlWriter.XML_OUTPUT_DIRECTORY, f).delete();
+		}
+	}
+}
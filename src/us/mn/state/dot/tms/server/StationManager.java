@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2004-2014  Minnesota Department of Transportation
+ * Copyright (C) 2004-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -33,6 +33,7 @@ class StationManager {
 
 	/** Calculate the current data for all stations */
 	public void calculateData() {
+		DetectorImpl.updateSampleAll();
 		Iterator<Station> it = StationHelper.iterator();
 		while(it.hasNext()) {
 			Station s = it.next();
@@ -41,6 +42,7 @@ class StationManager {
 				si.calculateData();
 			}
 		}
+		ActionInput.STATION.changed();
 	}
 
 	/** Write the station sample data out as XML */
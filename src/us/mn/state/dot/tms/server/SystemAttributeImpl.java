@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2008-2018  Minnesota Department of Transportation
+ * Copyright (C) 2008-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -132,6 +132,7 @@ public class SystemAttributeImpl extends BaseObjectImpl
 	public void setValue(String arg_value) {
 		logChange(arg_value);
 		value = arg_value;
+		SystemAttrEnum.invalidateSnapshot();
 		if (DETECTOR_AUTO_FAIL_ENABLE.aname().equals(name) &&
 		   !DETECTOR_AUTO_FAIL_ENABLE.getBoolean())
 		{
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2015  Minnesota Department of Transportation
+ * Copyright (C) 2015-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -60,6 +60,7 @@ public class TollZoneJob extends Job {
 				zone.updateDensity(np);
 			}
 		}
+		ActionInput.TOLL_ZONE.changed();
 	}
 
 	/** Calculate current 3-minute period */
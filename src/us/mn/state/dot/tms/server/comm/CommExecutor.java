@@ -0,0 +1,104 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2020  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms.server.comm;
+
+import java.util.EnumMap;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import us.mn.state.dot.tms.CommProtocol;
+
+/**
+ * Comm executors run comm threads for selected protocols on a shared pool
+ * per protocol, instead of a dedicated thread per comm link.  Pool threads
+ * are reused when a link disconnects and reconnects, and are created with
+ * a configurable stack size.  Protocols are selected with the
+ * "comm.executor.protocols" server property.
+ *
+ * @author Douglas Lau
+ */
+public class CommExecutor {
+
+	/** Thread group for all pooled comm threads */
+	static private final ThreadGroup GROUP = new ThreadGroup("Comm pool");
+
+	/** Default stack size (KiB) of pooled threads */
+	static private final int DEFAULT_STACK_KB = 256;
+
+	/** Executors for each protocol */
+	static private final EnumMap<CommProtocol, ExecutorService> EXECUTORS =
+		new EnumMap<CommProtocol, ExecutorService>(CommProtocol.class);
+
+	/** Initialize executors from server properties */
+	static public void init(Properties props) {
+		String protos = props.getProperty("comm.executor.protocols");
+		if (protos == null)
+			return;
+		long stack = 1024L * parseInt(props.getProperty(
+			"comm.executor.stack.kb"), DEFAULT_STACK_KB);
+		for (String p: protos.trim().split("[ \t,]+")) {
+			try {
+				enable(CommProtocol.valueOf(p), stack);
+			}
+			catch (IllegalArgumentException e) {
+				System.err.println("Invalid protocol: " + p);
+			}
+		}
+	}
+
+	/** Parse an integer property value */
+	static private int parseInt(String v, int d) {
+		try {
+			return (v != null) ? Integer.parseInt(v.trim()) : d;
+		}
+		catch (NumberFormatException e) {
+			return d;
+		}
+	}
+
+	/** Enable an executor for one protocol.
+	 * @param cp Comm protocol.
+	 * @param stack Stack size (bytes) of pooled threads. */
+	static public synchronized void enable(CommProtocol cp, long stack) {
+		if (!EXECUTORS.containsKey(cp))
+			EXECUTORS.put(cp, createExecutor(cp, stack));
+	}
+
+	/** Create an executor for one protocol */
+	static private ExecutorService createExecutor(final CommProtocol cp,
+		final long stack)
+	{
+		return Executors.newCachedThreadPool(new ThreadFactory() {
+			private final AtomicInteger n = new AtomicInteger();
+			public Thread newThread(Runnable r) {
+				String name = "Comm pool: " + cp + " " +
+					n.incrementAndGet();
+				Thread t = new Thread(GROUP, r, name, stack);
+				t.setDaemon(true);
+				return t;
+			}
+		});
+	}
+
+	/** Lookup the executor for a protocol.
+	 * @param cp Comm protocol.
+	 * @return Executor, or null if comm links of the protocol should use
+	 *         dedicated threads. */
+	static public synchronized ExecutorService lookup(CommProtocol cp) {
+		return EXECUTORS.get(cp);
+	}
+}
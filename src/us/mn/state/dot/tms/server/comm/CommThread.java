@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2000-2019  Minnesota Department of Transportation
+ * Copyright (C) 2000-2020  Minnesota Department of Transportation
  * Copyright (C) 2017       SRF Consulting Group
  *
  * This program is free software; you can redistribute it and/or modify
@@ -20,6 +20,8 @@ import java.net.ConnectException;
 import java.net.SocketException;
 import java.net.SocketTimeoutException;
 import java.net.URI;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import us.mn.state.dot.sched.DebugLog;
 import us.mn.state.dot.sched.TimeSteward;
 import us.mn.state.dot.tms.EventType;
@@ -63,7 +65,7 @@ public class CommThread<T extends ControllerProperty> {
 	/** Write a message to the comm log */
 	private void clog(String msg) {
 		if (logger.isOpen())
-			logger.log(thread.getName() + " " + msg);
+			logger.log(name + " " + msg);
 	}
 
 	/** Get an exception message */
@@ -76,8 +78,21 @@ public class CommThread<T extends ControllerProperty> {
 	/** Threaded poller */
 	private final ThreadedPoller<T> poller;
 
-	/** Thread to poll operations */
-	private final Thread thread;
+	/** Thread name */
+	private final String name;
+
+	/** Task to poll operations */
+	private final Runnable task = new Runnable() {
+		public void run() {
+			doRun();
+		}
+	};
+
+	/** Dedicated thread to run task (null for pooled execution) */
+	private volatile Thread thread;
+
+	/** Future of task submitted to a comm executor */
+	private volatile Future<?> future;
 
 	/** Operation queue */
 	protected final OpQueue<T> queue;
@@ -95,10 +110,10 @@ public class CommThread<T extends ControllerProperty> {
 	private final DebugLog logger;
 
 	/** Stopped status */
-	private boolean stopped = false;
+	private volatile boolean stopped = false;
 
 	/** Thread status */
-	private String status = "";
+	private volatile String status = "";
 
 	/** Set the thread status */
 	protected void setStatus(String s) {
@@ -120,13 +135,7 @@ public class CommThread<T extends ControllerProperty> {
 		int rt, DebugLog log)
 	{
 		poller = dp;
- 		thread = new Thread(GROUP, "Comm: " + poller.name) {
-			@Override
-			public void run() {
-				doRun();
-			}
-		};
-		thread.setDaemon(true);
+		name = "Comm: " + poller.name;
 		queue = q;
 		scheme = s;
 		uri = u;
@@ -134,9 +143,18 @@ public class CommThread<T extends ControllerProperty> {
 		logger = log;
 	}
 
-	/** Start the thread */
+	/** Start the thread.  If the poller has a comm executor, the task is
+	 * submitted to it; otherwise a dedicated thread is started. */
 	public void start() {
-		thread.start();
+		ExecutorService ex = poller.getExecutor();
+		if (ex != null)
+			future = ex.submit(task);
+		else {
+			Thread t = new Thread(GROUP, task, name);
+			t.setDaemon(true);
+			thread = t;
+			t.start();
+		}
 	}
 
 	/** Check if the thread is stopped */
@@ -146,12 +164,18 @@ public class CommThread<T extends ControllerProperty> {
 
 	/** Destroy the comm thread */
 	public void destroy() {
-		thread.interrupt();
+		Future<?> f = future;
+		if (f != null)
+			f.cancel(true);
+		Thread t = thread;
+		if (t != null)
+			t.interrupt();
 	}
 
 	/** Check if the comm thread should continue */
 	private boolean shouldContinue() {
-		return queue.isOpen() && !thread.isInterrupted();
+		return queue.isOpen() &&
+		      !Thread.currentThread().isInterrupted();
 	}
 
 	/** Run comm thread operations */
@@ -53,6 +53,18 @@ public class DevicePollerFactory {
 
 	/** Create a device poller */
 	static public DevicePoller create(String name, CommProtocol protocol) {
+		DevicePoller dp = createPoller(name, protocol);
+		if (dp instanceof ThreadedPoller) {
+			((ThreadedPoller) dp).setExecutor(
+				CommExecutor.lookup(protocol));
+		}
+		return dp;
+	}
+
+	/** Create a device poller for a protocol */
+	static private DevicePoller createPoller(String name,
+		CommProtocol protocol)
+	{
 		switch (protocol) {
 		case AXIS_PTZ:
 			return new AxisPTZPoller(name);
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2007-2018  Minnesota Department of Transportation
+ * Copyright (C) 2007-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -14,26 +14,50 @@
  */
 package us.mn.state.dot.tms.server.comm;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.SequenceInputStream;
 import java.net.HttpURLConnection;
+import static java.net.HttpURLConnection.HTTP_NOT_MODIFIED;
 import static java.net.HttpURLConnection.HTTP_UNAUTHORIZED;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
 import java.net.URLConnection;
+import java.util.HashMap;
+import java.util.zip.GZIPInputStream;
 import us.mn.state.dot.tms.server.ControllerImpl;
 import us.mn.state.dot.tms.utils.Base64;
 
 /**
  * A HttpFileMessenger is a class which reads a file from a URL using http.
+ * Responses with an ETag or Last-Modified header are cached, and later
+ * requests for the same URL are made conditional.  When the server responds
+ * with 304 (not modified), the cached response is replayed.
  *
  * @author Douglas Lau
  * @author Michael Darter
  */
 public class HttpFileMessenger extends Messenger {
 
+	/** Maximum size of a cached response (bytes) */
+	static private final int MAX_CACHED_BYTES = 1 << 20;
+
+	/** Cached response for conditional requests */
+	static private class CachedResponse {
+		private final String etag;
+		private final String last_modified;
+		private final byte[] body;
+		private CachedResponse(String et, String lm, byte[] b) {
+			etag = et;
+			last_modified = lm;
+			body = b;
+		}
+	}
+
 	/** Create an HTTP file messenger.
 	 * @param u URI of remote host.
 	 * @param rt Receive timeout (ms). */
@@ -58,6 +82,10 @@ public class HttpFileMessenger extends Messenger {
 			return url;
 	}
 
+	/** Cached responses, mapped by URL */
+	private final HashMap<String, CachedResponse> responses =
+		new HashMap<String, CachedResponse>();
+
 	/** Create a new HTTP file messenger.
 	 * @param url The URL of the file to read.
 	 * @param rt Read timeout (ms). */
@@ -69,7 +97,7 @@ public class HttpFileMessenger extends Messenger {
 	/** Close the messenger */
 	@Override
 	public void close() {
-		// nothing to do
+		responses.clear();
 	}
 
 	/** Get the input stream */
@@ -90,7 +118,10 @@ public class HttpFileMessenger extends Messenger {
 	private InputStream createInputStream(String path, String upass)
 		throws IOException
 	{
-		URLConnection c = getUrl(path).openConnection();
+		URL u = getUrl(path);
+		String key = u.toString();
+		CachedResponse cr = responses.get(key);
+		URLConnection c = u.openConnection();
 		if (upass != null) {
 			String auth = "Basic " + new String(Base64.encode(
 				upass.getBytes()));
@@ -99,14 +130,80 @@ public class HttpFileMessenger extends Messenger {
 		c.setUseCaches(false);
 		c.setConnectTimeout(timeout);
 		c.setReadTimeout(timeout);
+		c.setRequestProperty("Accept-Encoding", "gzip");
+		if (cr != null) {
+			if (cr.etag != null)
+				c.setRequestProperty("If-None-Match", cr.etag);
+			if (cr.last_modified != null) {
+				c.setRequestProperty("If-Modified-Since",
+					cr.last_modified);
+			}
+		}
 		if (c instanceof HttpURLConnection) {
 			HttpURLConnection hc = (HttpURLConnection) c;
-			if (hc.getResponseCode() == HTTP_UNAUTHORIZED) {
+			int rc = hc.getResponseCode();
+			if (rc == HTTP_UNAUTHORIZED) {
 				throw new ControllerException("UNAUTHORIZED: " +
 					HTTP_UNAUTHORIZED);
 			}
+			if (rc == HTTP_NOT_MODIFIED && cr != null) {
+				// Drain so the connection can be reused
+				drainAndClose(hc.getInputStream());
+				return new ByteArrayInputStream(cr.body);
+			}
+		}
+		InputStream is = c.getInputStream();
+		if ("gzip".equalsIgnoreCase(c.getContentEncoding()))
+			is = new GZIPInputStream(is);
+		String etag = c.getHeaderField("ETag");
+		String lm = c.getHeaderField("Last-Modified");
+		if (etag != null || lm != null)
+			return cacheResponse(key, etag, lm, is);
+		else {
+			responses.remove(key);
+			return is;
+		}
+	}
+
+	/** Read any remaining bytes from a stream, then close it */
+	static private void drainAndClose(InputStream is) throws IOException {
+		try {
+			byte[] buf = new byte[256];
+			while (is.read(buf) >= 0)
+				continue;
+		}
+		finally {
+			is.close();
+		}
+	}
+
+	/** Read a response into the cache.
+	 * @param key URL of response.
+	 * @param etag ETag header value (may be null).
+	 * @param lm Last-Modified header value (may be null).
+	 * @param is Input stream of response body.
+	 * @return Input stream of complete response body. */
+	private InputStream cacheResponse(String key, String etag, String lm,
+		InputStream is) throws IOException
+	{
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		byte[] buf = new byte[4096];
+		while (bos.size() <= MAX_CACHED_BYTES) {
+			int n = is.read(buf);
+			if (n < 0) {
+				// Closing allows the connection to be reused
+				is.close();
+				byte[] body = bos.toByteArray();
+				responses.put(key, new CachedResponse(etag, lm,
+					body));
+				return new ByteArrayInputStream(body);
+			}
+			bos.write(buf, 0, n);
 		}
-		return c.getInputStream();
+		// Too large to cache; pass remainder of stream through
+		responses.remove(key);
+		return new SequenceInputStream(new ByteArrayInputStream(
+			bos.toByteArray()), is);
 	}
 
 	/** Get the output stream */
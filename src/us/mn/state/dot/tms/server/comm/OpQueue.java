@@ -15,12 +15,17 @@
  */
 package us.mn.state.dot.tms.server.comm;
 
-import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * A prioritized queue which sorts Operation objects by their priority
  * class.  Operations with the same priority are sorted FIFO.
  *
+ * An explicit lock is used instead of the object monitor, so that a comm
+ * thread blocked waiting for the next operation does not hold a monitor.
+ *
  * @author Douglas Lau
  * @author John L. Stanley
  */
@@ -38,6 +43,12 @@ public final class OpQueue<T extends ControllerProperty> {
 		}
 	}
 
+	/** Lock protecting queue state */
+	private final ReentrantLock lock = new ReentrantLock();
+
+	/** Condition signalled when an operation is added */
+	private final Condition added = lock.newCondition();
+
 	/** Front node in the queue */
 	private Node<T> front = null;
 
@@ -46,10 +57,10 @@ public final class OpQueue<T extends ControllerProperty> {
 	private OpController<T> work = null;
 
 	/** Flag to tell when the poller is closing */
-	private boolean closing = false;
+	private volatile boolean closing = false;
 
 	/** Close the queue for new operations */
-	public synchronized void close() {
+	public void close() {
 		closing = true;
 	}
 
@@ -59,18 +70,30 @@ public final class OpQueue<T extends ControllerProperty> {
 	}
 
 	/** Check if the queue is empty */
-	public synchronized boolean isEmpty() {
-		return (work == null) && (front == null);
+	public boolean isEmpty() {
+		lock.lock();
+		try {
+			return (work == null) && (front == null);
+		}
+		finally {
+			lock.unlock();
+		}
 	}
 
 	/** Enqueue a new operation */
-	public synchronized boolean enqueue(OpController<T> op) {
-		if (shouldAdd(op)) {
-			op.begin();
-			add(op);
-			return true;
-		} else
-			return false;
+	public boolean enqueue(OpController<T> op) {
+		lock.lock();
+		try {
+			if (shouldAdd(op)) {
+				op.begin();
+				add(op);
+				return true;
+			} else
+				return false;
+		}
+		finally {
+			lock.unlock();
+		}
 	}
 
 	/** Check if an operation should be added to the queue */
@@ -108,16 +131,22 @@ public final class OpQueue<T extends ControllerProperty> {
 			front = node;
 		else
 			prev.next = node;
-		notify();
+		added.signal();
 	}
 
 	/** Requeue an in-progress operation */
-	public synchronized boolean requeue(OpController<T> op) {
-		if ((remove(op) == op) && isOpen()) {
-			add(op);
-			return true;
-		} else
-			return false;
+	public boolean requeue(OpController<T> op) {
+		lock.lock();
+		try {
+			if ((remove(op) == op) && isOpen()) {
+				add(op);
+				return true;
+			} else
+				return false;
+		}
+		finally {
+			lock.unlock();
+		}
 	}
 
 	/** Remove an operation from the queue */
@@ -131,9 +160,9 @@ public final class OpQueue<T extends ControllerProperty> {
 		while (node != null) {
 			if (node.operation == op) {
 				if (prev == null)
-					front = node;
+					front = node.next;
 				else
-					prev.next = node;
+					prev.next = node.next;
 				return op;
 			}
 			prev = node;
@@ -149,40 +178,63 @@ public final class OpQueue<T extends ControllerProperty> {
 	 * @return Operation at front of queue.
 	 * @throws InterruptedException If thread is interrupted or idle timeout
 	 *                              expires. */
-	public synchronized OpController<T> next(long idle_ms)
+	public OpController<T> next(long idle_ms)
 		throws InterruptedException
 	{
-		work = null;
-		while (null == front) {
-			wait(idle_ms);
-			if (idle_ms > 0 && null == front)
-				throw new InterruptedException("Idle timeout");
-		}
-		work = front.operation;
-		front = front.next;
-		return work;
+		lock.lockInterruptibly();
+		try {
+			work = null;
+			while (null == front) {
+				if (idle_ms > 0) {
+					added.await(idle_ms, TimeUnit.MILLISECONDS);
+					if (null == front) {
+						throw new InterruptedException(
+							"Idle timeout");
+					}
+				} else
+					added.await();
+			}
+			work = front.operation;
+			front = front.next;
+			return work;
+		}
+		finally {
+			lock.unlock();
+		}
 	}
 
 	/** Get the next operation from the queue (and remove it).
 	 * If there's no op in the queue, immediately return null. */
-	public synchronized OpController<T> tryNext() {
-		OpController<T> op = null;
-		if (front != null) {
-			op = front.operation;
-			front = front.next;
+	public OpController<T> tryNext() {
+		lock.lock();
+		try {
+			OpController<T> op = null;
+			if (front != null) {
+				op = front.operation;
+				front = front.next;
+			}
+			return op;
+		}
+		finally {
+			lock.unlock();
 		}
-		return op;
 	}
 
 	/** Do something to each operation in the queue */
-	public synchronized boolean forEach(OpHandler<T> handler) {
-		OpController<T> w = work;
-		boolean flag = (w != null) ? handler.handle(w) : true;
-		Node<T> node = front;
-		while (node != null) {
-			flag &= handler.handle(node.operation);
-			node = node.next;
+	public boolean forEach(OpHandler<T> handler) {
+		lock.lock();
+		try {
+			OpController<T> w = work;
+			boolean flag = (w != null) ? handler.handle(w) : true;
+			Node<T> node = front;
+			while (node != null) {
+				flag &= handler.handle(node.operation);
+				node = node.next;
+			}
+			return flag;
+		}
+		finally {
+			lock.unlock();
 		}
-		return flag;
 	}
 }
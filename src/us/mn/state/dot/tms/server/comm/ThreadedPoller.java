@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2014-2018  Minnesota Department of Transportation
+ * Copyright (C) 2014-2020  Minnesota Department of Transportation
  * Copyright (C) 2015-2017  SRF Consulting Group
  *
  * This program is free software; you can redistribute it and/or modify
@@ -18,6 +18,7 @@ package us.mn.state.dot.tms.server.comm;
 import java.io.IOException;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
 import us.mn.state.dot.sched.DebugLog;
 import us.mn.state.dot.tms.EventType;
 import us.mn.state.dot.tms.SystemAttrEnum;
@@ -116,10 +117,7 @@ public class ThreadedPoller<T extends ControllerProperty>
 
 	/** Add an operation to the device poller */
 	protected void addOp(OpController<T> op) {
-		if (!isConnected()) {
-			disconnect();
-			createCommThread();
-		}
+		connect();
 		if (queue.enqueue(op))
 			log("ADDING " + op);
 		else
@@ -136,8 +134,10 @@ public class ThreadedPoller<T extends ControllerProperty>
 
 	/** Set the remote URI */
 	@Override
-	public synchronized void setUri(String u) {
-		uri = u;
+	public void setUri(String u) {
+		synchronized (this) {
+			uri = u;
+		}
 		disconnect();
 	}
 
@@ -146,13 +146,15 @@ public class ThreadedPoller<T extends ControllerProperty>
 
 	/** Set the receive timeout (ms) */
 	@Override
-	public synchronized void setTimeout(int rt) {
-		timeout = rt;
+	public void setTimeout(int rt) {
+		synchronized (this) {
+			timeout = rt;
+		}
 		disconnect();
 	}
 
 	/** Modem flag */
-	private boolean modem;
+	private volatile boolean modem;
 
 	/** Set the modem flag */
 	@Override
@@ -160,19 +162,37 @@ public class ThreadedPoller<T extends ControllerProperty>
 		modem = m;
 	}
 
-	/** Comm thread (may be null) */
-	private CommThread c_thread;
+	/** Comm executor (null for a dedicated comm thread) */
+	private volatile ExecutorService executor;
+
+	/** Set the comm executor.
+	 * @param ex Executor to run comm thread, or null for a dedicated
+	 *           thread.  This takes effect on the next connect. */
+	public void setExecutor(ExecutorService ex) {
+		executor = ex;
+	}
+
+	/** Get the comm executor */
+	public ExecutorService getExecutor() {
+		return executor;
+	}
+
+	/** Comm thread (may be null).  Writes are synchronized on the
+	 * poller, but it can be read without locking. */
+	private volatile CommThread c_thread;
 
 	/** Get the poller status */
 	@Override
-	public synchronized String getStatus() {
-		return (c_thread != null) ? c_thread.getStatus() : "";
+	public String getStatus() {
+		CommThread ct = c_thread;
+		return (ct != null) ? ct.getStatus() : "";
 	}
 
 	/** Check if the poller is currently connected */
 	@Override
-	public synchronized boolean isConnected() {
-		return (c_thread != null) && !c_thread.isStopped();
+	public boolean isConnected() {
+		CommThread ct = c_thread;
+		return (ct != null) && !ct.isStopped();
 	}
 
 	/** Get max seconds an idle connection should be left open
@@ -190,10 +210,22 @@ public class ThreadedPoller<T extends ControllerProperty>
 		      : attrCommIdleDisconnect;
 	}
 
-	/** Create the comm thread */
-	private synchronized void createCommThread() {
-		c_thread = createCommThread(uri, timeout);
-		c_thread.start();
+	/** Create and start a comm thread, unless one is running.  The
+	 * check and replacement happen under one lock, so concurrent callers
+	 * cannot both start a thread. */
+	private void connect() {
+		CommThread old;
+		synchronized (this) {
+			if (isConnected())
+				return;
+			old = c_thread;
+			c_thread = createCommThread(uri, timeout);
+			c_thread.start();
+		}
+		if (old != null) {
+			old.destroy();
+			log("THREAD STOP");
+		}
 		log("THREAD START");
 	}
 
@@ -204,10 +236,14 @@ public class ThreadedPoller<T extends ControllerProperty>
 	}
 
 	/** Disconnect and destroy comm thread */
-	public synchronized void disconnect() {
-		if (c_thread != null)
-			c_thread.destroy();
-		c_thread = null;
+	public void disconnect() {
+		CommThread ct;
+		synchronized (this) {
+			ct = c_thread;
+			c_thread = null;
+		}
+		if (ct != null)
+			ct.destroy();
 		log("THREAD STOP");
 	}
 
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2016-2018  Minnesota Department of Transportation
+ * Copyright (C) 2016-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -17,6 +17,7 @@ package us.mn.state.dot.tms.server.comm.incfeed;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import us.mn.state.dot.tms.server.ControllerImpl;
 import us.mn.state.dot.tms.server.comm.ControllerProperty;
 import us.mn.state.dot.tms.utils.LineReader;
@@ -45,12 +46,18 @@ public class IncFeedProperty extends ControllerProperty {
 		throws IOException
 	{
 		LineReader lr = new LineReader(is, MAX_RESP);
+		ArrayList<String> lines = new ArrayList<String>();
 		String line = lr.readLine();
 		while (line != null) {
-			cache.put(new ParsedIncident(line));
+			lines.add(line);
 			line = lr.readLine();
 		}
-		cache.clearOld();
+		if (cache.isChanged(lines)) {
+			for (String ln: lines)
+				cache.put(new ParsedIncident(ln));
+			cache.setProcessed(lines);
+			cache.clearOld();
+		}
 	}
 
 	/** Get a string representation */
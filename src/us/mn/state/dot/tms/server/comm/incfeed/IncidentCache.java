@@ -14,8 +14,10 @@
  */
 package us.mn.state.dot.tms.server.comm.incfeed;
 
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.List;
 import us.mn.state.dot.sched.DebugLog;
 import us.mn.state.dot.sonar.SonarException;
 import us.mn.state.dot.tms.CorridorBase;
@@ -66,12 +68,44 @@ public class IncidentCache {
 	/** Flag to incidate cache has been updated */
 	private boolean updated = false;
 
+	/** Lines of most recently processed feed (after first update) */
+	private List<String> feed_lines = Collections.emptyList();
+
+	/** Flag to indicate an incident could not be updated, and should be
+	 * retried on the next read (snap or create failed) */
+	private boolean failed = false;
+
 	/** Create a new incident cache */
 	public IncidentCache(String cl, DebugLog il) {
 		link = cl;
 		inc_log = il;
 	}
 
+	/** Check if feed content has changed since it was last processed.
+	 * Once the cache has been updated, unchanged content can be skipped.
+	 * @param lines Lines of feed content.
+	 * @return true if feed should be processed. */
+	public boolean isChanged(List<String> lines) {
+		if (updated && lines.equals(feed_lines)) {
+			if (inc_log.isOpen())
+				inc_log.log("Feed unchanged: " + link);
+			return false;
+		}
+		failed = false;
+		return true;
+	}
+
+	/** Record feed content after all lines have been put.  The content
+	 * can only be skipped next time if every incident was updated; the
+	 * first read only records incident IDs.  This must be called before
+	 * clearOld.
+	 * @param lines Lines of feed content. */
+	public void setProcessed(List<String> lines) {
+		feed_lines = (updated && !failed)
+		           ? lines
+		           : Collections.<String>emptyList();
+	}
+
 	/** Put an incident into the cache */
 	public void put(ParsedIncident pi) {
 		if (pi.isValid()) {
@@ -108,8 +142,11 @@ public class IncidentCache {
 			MAX_DIST, pi.dir);
 		if (loc != null)
 			updateIncident(pi, loc);
-		else if (inc_log.isOpen())
-			inc_log.log("Failed to snap incident: " + pi);
+		else {
+			failed = true;
+			if (inc_log.isOpen())
+				inc_log.log("Failed to snap incident: " + pi);
+		}
 	}
 
 	/** Update an incident */
@@ -117,8 +154,11 @@ public class IncidentCache {
 		int n_lanes = getLaneCount(LaneType.MAINLINE, loc);
 		if (n_lanes > 0)
 			updateIncident(pi, loc, n_lanes);
-		else if (inc_log.isOpen())
-			inc_log.log("No lanes at location: " + loc);
+		else {
+			failed = true;
+			if (inc_log.isOpen())
+				inc_log.log("No lanes at location: " + loc);
+		}
 	}
 
 	/** Get the lane count at the incident location */
@@ -134,7 +174,8 @@ public class IncidentCache {
 		// Is this a new incident?
 		if (null == inc && !incidents.contains(pi.id)) {
 			inc_log.log("Creating incident: " + pi);
-			createIncidentNotify(oid, null, pi, loc, n_lanes);
+			if (!createIncidentNotify(oid, null, pi, loc, n_lanes))
+				failed = true;
 		}
 		// Is this a continuing incident?
 		if (isContinuing(inc, pi) &&
@@ -144,7 +185,8 @@ public class IncidentCache {
 			inc.setClearedNotify(true);
 			inc.notifyRemove();
 			String n = IncidentHelper.createUniqueName();
-			createIncidentNotify(n, oid, pi, loc, n_lanes);
+			if (!createIncidentNotify(n, oid, pi, loc, n_lanes))
+				failed = true;
 		}
 	}
 
@@ -49,7 +49,7 @@ abstract public class MndotProperty extends ControllerProperty {
 	/** Calculate the checksum of a packet.
 	 * @param pkt Packet.
 	 * @return Calculated checksum of packet. */
-	static private byte checksum(byte[] pkt) {
+	static byte checksum(byte[] pkt) {
 		byte xsum = 0;
 		for (int i = 0; i < pkt.length - 1; i++)
 			xsum ^= pkt[i];
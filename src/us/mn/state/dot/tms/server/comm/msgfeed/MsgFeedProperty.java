@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2000-2016  Minnesota Department of Transportation
+ * Copyright (C) 2000-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -17,6 +17,7 @@ package us.mn.state.dot.tms.server.comm.msgfeed;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import us.mn.state.dot.tms.utils.LineReader;
 import us.mn.state.dot.tms.server.ControllerImpl;
 import us.mn.state.dot.tms.server.FeedBucket;
@@ -48,17 +49,36 @@ public class MsgFeedProperty extends ControllerProperty {
 		throws IOException
 	{
 		LineReader lr = new LineReader(is, MAX_RESP);
+		ArrayList<String> lines = new ArrayList<String>();
 		String line = lr.readLine();
 		while (line != null) {
-			MsgFeedPoller.slog("parsing " + line);
-			FeedMsg msg = new FeedMsg(feed, line);
-			if (msg.isValid()) {
-				FeedBucket.add(msg);
-				MsgFeedPoller.slog("VALID " + msg);
-			} else
-				MsgFeedPoller.slog("INVALID " + msg);
+			lines.add(line);
 			line = lr.readLine();
 		}
+		if (FeedBucket.isChanged(feed, lines)) {
+			boolean valid = true;
+			for (String ln: lines)
+				valid &= parseLine(ln);
+			// Invalid lines (e.g. for a DMS which does not
+			// exist yet) are retried on the next read
+			FeedBucket.setContent(feed, valid ? lines : null);
+		} else
+			MsgFeedPoller.slog("feed unchanged: " + feed);
+	}
+
+	/** Parse one line of the feed.
+	 * @return true if the line was valid. */
+	private boolean parseLine(String line) {
+		MsgFeedPoller.slog("parsing " + line);
+		FeedMsg msg = new FeedMsg(feed, line);
+		if (msg.isValid()) {
+			FeedBucket.add(msg);
+			MsgFeedPoller.slog("VALID " + msg);
+			return true;
+		} else {
+			MsgFeedPoller.slog("INVALID " + msg);
+			return false;
+		}
 	}
 
 	/** Get a string representation of the property */
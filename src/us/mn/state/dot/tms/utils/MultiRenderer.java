@@ -20,7 +20,6 @@ import us.mn.state.dot.tms.DmsColor;
 import us.mn.state.dot.tms.Font;
 import us.mn.state.dot.tms.FontHelper;
 import us.mn.state.dot.tms.Glyph;
-import us.mn.state.dot.tms.GlyphHelper;
 import us.mn.state.dot.tms.Graphic;
 import us.mn.state.dot.tms.GraphicHelper;
 import us.mn.state.dot.tms.InvalidMsgException;
@@ -758,21 +757,21 @@ public class MultiRenderer extends MultiAdapter {
 			for (int i = 0; i < span.length(); i++) {
 				int cp = span.charAt(i);
 				Glyph g = FontHelper.lookupGlyph(font, cp);
-				renderGlyph(g, foreground, x, y);
+				renderGlyph(FontHelper.lookupBitmap(font, cp),
+					foreground, x, y);
 				x += g.getWidth() + c_space;
 			}
 		}
 	}
 
 	/** Render a glyph onto the raster.
-	 * @param g Glyph to render.
+	 * @param rg Glyph bitmap to render (null if invalid).
 	 * @param fg Foreground color.
 	 * @param x X-position on raster (1-based)
 	 * @param y Y-position on raster (1-based) */
-	private void renderGlyph(Glyph g, DmsColor fg, int x, int y) {
+	private void renderGlyph(RasterGraphic rg, DmsColor fg, int x, int y) {
 		x--;
 		y--;
-		RasterGraphic rg = GlyphHelper.createBitmap(g);
 		if (rg != null) {
 			try {
 				raster.copy(rg, x, y, fg);
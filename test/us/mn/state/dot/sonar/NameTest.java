@@ -0,0 +1,71 @@
+/*
+ * SONAR -- Simple Object Notification And Replication
+ * Copyright (C) 2020  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.sonar;
+
+import junit.framework.TestCase;
+
+/**
+ * Name test cases
+ *
+ * @author Douglas Lau
+ */
+public class NameTest extends TestCase {
+
+	public NameTest(String name) {
+		super(name);
+	}
+
+	/** Assert that a name built from parts matches the parsed path */
+	private void assertParts(String t, String o, String a) {
+		Name p = new Name(t + "/" + o + "/" + a);
+		Name n = new Name(t, o, a);
+		// Trailing separators are not kept in names built from parts
+		assertEquals(p.toString().replaceAll("/+$", ""), n.toString());
+		assertEquals(p.isRoot(), n.isRoot());
+		assertEquals(p.isType(), n.isType());
+		assertEquals(p.isObject(), n.isObject());
+		assertEquals(p.isAttribute(), n.isAttribute());
+		assertEquals(p.getTypePart(), n.getTypePart());
+		assertEquals(p.getObjectPart(), n.getObjectPart());
+		assertEquals(p.getAttributePart(), n.getAttributePart());
+		assertEquals(p.getObjectName(), n.getObjectName());
+		assertEquals(p.getAttributeName(), n.getAttributeName());
+	}
+
+	public void testParts() {
+		assertParts("dms", "V1", "msgCurrent");
+		assertParts("dms", "V1", "");
+		assertParts("dms", "", "msgCurrent");
+		assertParts("dms", "", "");
+		assertParts("", "", "");
+		assertTrue(new Name("").isRoot());
+		assertTrue(new Name("dms").isType());
+		assertEquals("dms", new Name("dms", "").toString());
+		assertEquals("dms/V1", new Name("dms", "V1").toString());
+		assertEquals("dms//msgCurrent", new Name("dms", "",
+			"msgCurrent").toString());
+	}
+
+	public void testIntern() {
+		String t = new String("dms");
+		String a = new String("msgCurrent");
+		Name n0 = new Name("dms", "V1", "msgCurrent");
+		Name n1 = new Name(t, "V2", a);
+		assertSame(n0.getTypePart(), n1.getTypePart());
+		assertSame(n0.getAttributePart(), n1.getAttributePart());
+		assertSame(n0.getTypePart(),
+			new Name("dms/V3/x").getTypePart());
+	}
+}
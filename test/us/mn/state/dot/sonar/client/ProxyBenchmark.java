@@ -0,0 +1,193 @@
+/*
+ * SONAR -- Simple Object Notification And Replication
+ * Copyright (C) 2020  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.sonar.client;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import us.mn.state.dot.sonar.SonarObject;
+
+/**
+ * Memory and getter throughput of slot-based proxies, compared with the
+ * previous design (one HashMap of attributes per proxy, looked up through a
+ * synchronized WeakHashMap).  This is not part of the test suite, since it
+ * forces garbage collection to measure heap use.  Run it with main; the
+ * number of proxies can be changed with the "bench.proxies" property.
+ *
+ * @author Douglas Lau
+ */
+public class ProxyBenchmark {
+
+	/** Number of proxies to create */
+	static private final int PROXIES =
+		Integer.getInteger("bench.proxies", 50000);
+
+	/** Number of getter passes over all proxies */
+	static private final int PASSES = 20;
+
+	/** Class loader for proxies */
+	static private final ClassLoader LOADER =
+		ProxyBenchmark.class.getClassLoader();
+
+	/** Sample interface, similar to a detector */
+	public interface Sample extends SonarObject {
+		int getLaneNumber();
+		void setLaneNumber(int n);
+		boolean getAbandoned();
+		void setAbandoned(boolean a);
+		boolean getForceFail();
+		void setForceFail(boolean f);
+		float getFieldLength();
+		void setFieldLength(float f);
+		String getFake();
+		void setFake(String f);
+		String getNotes();
+		void setNotes(String n);
+		Integer getLaneType();
+		void setLaneType(Integer t);
+	}
+
+	/** Attribute values for a sample */
+	static private final Object[][] VALUES = {
+		{ "laneNumber", 2 },
+		{ "abandoned", false },
+		{ "forceFail", false },
+		{ "fieldLength", 22.0f },
+		{ "fake", "" },
+		{ "notes", "notes" },
+		{ "laneType", 1 },
+	};
+
+	/** Previous design: attribute map per proxy, found by weak map */
+	static private class LegacyInvoker implements InvocationHandler {
+		private final HashMap<Method, String> getters =
+			new HashMap<Method, String>();
+		private final WeakHashMap<Object, Map<String, Object[]>> attrs =
+			new WeakHashMap<Object, Map<String, Object[]>>();
+		LegacyInvoker(Class iface) {
+			for (Method m: iface.getMethods()) {
+				String a = SonarInvoker.attribute_name("get",
+					m);
+				if (a != null)
+					getters.put(m, a);
+			}
+		}
+		Object create(String name) {
+			Object o = Proxy.newProxyInstance(LOADER,
+				new Class[] { Sample.class }, this);
+			HashMap<String, Object[]> amap =
+				new HashMap<String, Object[]>();
+			for (Object[] v: VALUES) {
+				amap.put((String) v[0],
+					new Object[] { v[1].getClass(), v[1] });
+			}
+			amap.put("typeName",
+				new Object[] { String.class, "sample" });
+			amap.put("name", new Object[] { String.class, name });
+			synchronized (this) {
+				attrs.put(o, amap);
+			}
+			return o;
+		}
+		public Object invoke(Object proxy, Method m, Object[] args) {
+			if (getters.containsKey(m)) {
+				Map<String, Object[]> amap;
+				synchronized (this) {
+					amap = attrs.get(proxy);
+				}
+				return amap.get(getters.get(m))[1];
+			}
+			if (m.getName().equals("hashCode"))
+				return System.identityHashCode(proxy);
+			if (m.getName().equals("equals"))
+				return proxy == args[0];
+			return null;
+		}
+	}
+
+	/** Get used heap after garbage collection */
+	static private long usedHeap() {
+		Runtime rt = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++)
+			System.gc();
+		return rt.totalMemory() - rt.freeMemory();
+	}
+
+	/** Create slot-based proxies */
+	static private Sample[] createSlotProxies() throws Exception {
+		SonarInvoker inv = new SonarInvoker(null, "sample",
+			Sample.class);
+		Sample[] s = new Sample[PROXIES];
+		for (int i = 0; i < PROXIES; i++) {
+			AttributeMap amap = inv.createAttributes("S" + i);
+			for (Object[] v: VALUES) {
+				int slot = inv.lookupSlot((String) v[0]);
+				amap.setValue(slot, v[1]);
+			}
+			s[i] = (Sample) Proxy.newProxyInstance(LOADER,
+				new Class[] { Sample.class }, amap);
+		}
+		return s;
+	}
+
+	/** Create proxies using the previous design */
+	static private Sample[] createLegacyProxies() {
+		LegacyInvoker inv = new LegacyInvoker(Sample.class);
+		Sample[] s = new Sample[PROXIES];
+		for (int i = 0; i < PROXIES; i++)
+			s[i] = (Sample) inv.create("S" + i);
+		return s;
+	}
+
+	/** Call getters on all proxies.
+	 * @return Getter calls per microsecond. */
+	static private double readAll(Sample[] s) {
+		long sum = 0;
+		long start = System.nanoTime();
+		for (int p = 0; p < PASSES; p++) {
+			for (Sample o: s) {
+				sum += o.getLaneNumber();
+				sum += o.getNotes().length();
+				sum += o.getName().length();
+			}
+		}
+		long ns = System.nanoTime() - start;
+		if (sum <= 0)
+			throw new IllegalStateException("Bad sum: " + sum);
+		return 3.0 * PASSES * s.length * 1000 / ns;
+	}
+
+	/** Compare slot-based proxies with the previous design */
+	static public void main(String[] args) throws Exception {
+		long h0 = usedHeap();
+		Sample[] legacy = createLegacyProxies();
+		long h1 = usedHeap();
+		readAll(legacy);
+		double legacy_rate = readAll(legacy);
+		legacy = null;
+		long h2 = usedHeap();
+		Sample[] slots = createSlotProxies();
+		long h3 = usedHeap();
+		readAll(slots);
+		double slot_rate = readAll(slots);
+		System.out.printf("%d proxies: legacy %d B/proxy, %.1f " +
+			"gets/us; slots %d B/proxy, %.1f gets/us\n", PROXIES,
+			(h1 - h0) / PROXIES, legacy_rate,
+			(h3 - h2) / PROXIES, slot_rate);
+	}
+}
@@ -0,0 +1,65 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2020  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.sonar.client;
+
+import java.lang.reflect.Proxy;
+import junit.framework.TestCase;
+import us.mn.state.dot.sonar.SonarObject;
+
+/**
+ * SonarInvoker test cases
+ *
+ * @author Douglas Lau
+ */
+public class SonarInvokerTest extends TestCase {
+
+	/** Sample interface */
+	public interface Sample extends SonarObject {
+		int getLaneNumber();
+		void setLaneNumber(int n);
+		float getFieldLength();
+		void setFieldLength(float f);
+		String getNotes();
+		void setNotes(String n);
+	}
+
+	public SonarInvokerTest(String name) {
+		super(name);
+	}
+
+	/** Create a slot-based proxy */
+	private Sample createProxy(SonarInvoker inv, String name)
+		throws Exception
+	{
+		AttributeMap amap = inv.createAttributes(name);
+		amap.setValue(inv.lookupSlot("laneNumber"), 2);
+		amap.setValue(inv.lookupSlot("fieldLength"), 22.0f);
+		amap.setValue(inv.lookupSlot("notes"), "notes");
+		return (Sample) Proxy.newProxyInstance(
+			getClass().getClassLoader(),
+			new Class[] { Sample.class }, amap);
+	}
+
+	public void testGetters() throws Exception {
+		SonarInvoker inv = new SonarInvoker(null, "sample",
+			Sample.class);
+		Sample s = createProxy(inv, "S7");
+		assertEquals("S7", s.getName());
+		assertEquals("sample", s.getTypeName());
+		assertEquals(2, s.getLaneNumber());
+		assertEquals(22.0f, s.getFieldLength());
+		assertEquals("notes", s.getNotes());
+	}
+}
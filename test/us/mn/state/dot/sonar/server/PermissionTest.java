@@ -0,0 +1,177 @@
+/*
+ * SONAR -- Simple Object Notification And Replication
+ * Copyright (C) 2020  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.sonar.server;
+
+import junit.framework.TestCase;
+import us.mn.state.dot.sonar.Capability;
+import us.mn.state.dot.sonar.GroupChecker;
+import us.mn.state.dot.sonar.Name;
+import us.mn.state.dot.sonar.User;
+
+/**
+ * Namespace permission test cases
+ *
+ * @author Douglas Lau
+ */
+public class PermissionTest extends TestCase {
+
+	/** Number of capabilities in fan-out test */
+	static private final int N_CAPS = 60;
+
+	/** Number of privileges per capability */
+	static private final int N_PRIVS = 10;
+
+	/** Number of capabilities per role */
+	static private final int CAPS_PER_ROLE = 10;
+
+	/** Number of connected users */
+	static private final int N_USERS = 100;
+
+	/** Number of attribute notifications */
+	static private final int N_NOTIFY = 200;
+
+	/** Get the index of a capability of a user's role */
+	static private int roleCap(int u, int j) {
+		return (u + j * 7) % N_CAPS;
+	}
+
+	/** Check if a user should be able to read a type.  Type t has one
+	 * privilege, in capability t / N_PRIVS, which is read-only when t is
+	 * even. */
+	static private boolean canRead(int u, int t) {
+		if (t % N_PRIVS % 2 == 1)
+			return false;
+		for (int j = 0; j < CAPS_PER_ROLE; j++) {
+			if (roleCap(u, j) == t / N_PRIVS)
+				return true;
+		}
+		return false;
+	}
+
+	public PermissionTest(String name) {
+		super(name);
+	}
+
+	/** Create a capability */
+	static private CapabilityImpl createCap(ServerNamespace ns, String n)
+		throws Exception
+	{
+		CapabilityImpl c = new CapabilityImpl(n);
+		c.setEnabled(true);
+		ns.addObject(c);
+		return c;
+	}
+
+	/** Create a privilege */
+	static private PrivilegeImpl createPriv(ServerNamespace ns, String n,
+		Capability c, String t, boolean w) throws Exception
+	{
+		PrivilegeImpl p = new PrivilegeImpl(n, c);
+		p.setTypeN(t);
+		p.setWrite(w);
+		ns.addObject(p);
+		return p;
+	}
+
+	/** Create an enabled user with a role */
+	static private UserImpl createUser(ServerNamespace ns, String n,
+		Capability[] caps) throws Exception
+	{
+		RoleImpl r = new RoleImpl(n);
+		r.setEnabled(true);
+		r.setCapabilities(caps);
+		ns.addObject(r);
+		UserImpl u = new UserImpl(n);
+		u.setRole(r);
+		u.setEnabled(true);
+		return u;
+	}
+
+	public void testRead() throws Exception {
+		ServerNamespace ns = new ServerNamespace();
+		CapabilityImpl c = createCap(ns, "view");
+		createPriv(ns, "p0", c, "dms", false);
+		UserImpl u = createUser(ns, "u", new Capability[] { c });
+		assertTrue(ns.canRead(new Name("dms", "V1", "msg"), u));
+		assertFalse(ns.canRead(new Name("camera", "C1", "x"), u));
+		assertFalse(ns.canWrite(new Name("dms", "V1", "msg"), u));
+		// Changes through the namespace must invalidate permissions
+		ns.setAttribute(new Name(c, "enabled"), new String[] {
+			"false" });
+		assertFalse(ns.canRead(new Name("dms", "V1", "msg"), u));
+		ns.setAttribute(new Name(c, "enabled"), new String[] {
+			"true" });
+		assertTrue(ns.canRead(new Name("dms", "V1", "msg"), u));
+		u.setEnabled(false);
+		assertFalse(ns.canRead(new Name("dms", "V1", "msg"), u));
+	}
+
+	public void testWrite() throws Exception {
+		ServerNamespace ns = new ServerNamespace();
+		ns.registerType("dms", Object.class, new GroupChecker() {
+			public boolean checkGroup(Name name, User u, String g) {
+				return "west".equals(g) &&
+				       name.getObjectPart().startsWith("W");
+			}
+		});
+		CapabilityImpl c = createCap(ns, "control");
+		PrivilegeImpl p = createPriv(ns, "p0", c, "dms", true);
+		p.setObjN("V[0-9]+");
+		p.setAttrN("msg");
+		p = createPriv(ns, "p1", c, "dms", true);
+		p.setGroupN("west");
+		UserImpl u = createUser(ns, "u", new Capability[] { c });
+		assertTrue(ns.canWrite(new Name("dms", "V12", "msg"), u));
+		assertFalse(ns.canWrite(new Name("dms", "V12", "notes"), u));
+		assertFalse(ns.canWrite(new Name("dms", "X12", "msg"), u));
+		assertTrue(ns.canWrite(new Name("dms", "W12", "notes"), u));
+		assertFalse(ns.canRead(new Name("dms", "V12", "msg"), u));
+	}
+
+	public void testFanOut() throws Exception {
+		ServerNamespace ns = new ServerNamespace();
+		CapabilityImpl[] caps = new CapabilityImpl[N_CAPS];
+		for (int i = 0; i < N_CAPS; i++) {
+			caps[i] = createCap(ns, "cap" + i);
+			for (int j = 0; j < N_PRIVS; j++) {
+				createPriv(ns, "p" + i + "_" + j, caps[i],
+					"type" + (i * N_PRIVS + j), j % 2 == 1);
+			}
+		}
+		UserImpl[] users = new UserImpl[N_USERS];
+		for (int i = 0; i < N_USERS; i++) {
+			Capability[] rc = new Capability[CAPS_PER_ROLE];
+			for (int j = 0; j < CAPS_PER_ROLE; j++)
+				rc[j] = caps[roleCap(i, j)];
+			users[i] = createUser(ns, "u" + i, rc);
+		}
+		Name[] names = new Name[N_NOTIFY];
+		for (int i = 0; i < N_NOTIFY; i++) {
+			names[i] = new Name("type" + (i * 3 % (N_CAPS *
+				N_PRIVS)), "obj" + i, "attr");
+		}
+		int n_read = 0;
+		for (Name n: names) {
+			int t = Integer.parseInt(n.getTypePart().substring(4));
+			for (int i = 0; i < N_USERS; i++) {
+				boolean r = ns.canRead(n, users[i]);
+				assertEquals(canRead(i, t), r);
+				if (r)
+					n_read++;
+			}
+		}
+		assertTrue(n_read > 0);
+	}
+}
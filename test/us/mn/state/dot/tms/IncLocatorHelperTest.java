@@ -0,0 +1,76 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2020  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms;
+
+import junit.framework.TestCase;
+import us.mn.state.dot.sonar.server.ServerNamespace;
+
+/**
+ * IncLocatorHelper test cases
+ *
+ * @author Douglas Lau
+ */
+public class IncLocatorHelperTest extends TestCase {
+
+	/** Simple incident locator */
+	static public class Loc implements IncLocator {
+		private final String name;
+		private int range;
+		private boolean branched;
+		private boolean picked;
+		public Loc(String n, IncRange r, boolean b, boolean p) {
+			name = n;
+			range = r.ordinal();
+			branched = b;
+			picked = p;
+		}
+		public String getTypeName() { return SONAR_TYPE; }
+		public String getName() { return name; }
+		public void destroy() { }
+		public void setRange(int r) { range = r; }
+		public int getRange() { return range; }
+		public void setBranched(boolean b) { branched = b; }
+		public boolean getBranched() { return branched; }
+		public void setPicked(boolean p) { picked = p; }
+		public boolean getPicked() { return picked; }
+		public void setMulti(String m) { }
+		public String getMulti() { return name; }
+	}
+
+	public IncLocatorHelperTest(String name) {
+		super(name);
+	}
+
+	public void testMatch() throws Exception {
+		ServerNamespace ns = new ServerNamespace();
+		BaseHelper.namespace = ns;
+		IncLocator l0 = new Loc("L0", IncRange.near, false, false);
+		IncLocator l1 = new Loc("L1", IncRange.near, false, true);
+		IncLocator l2 = new Loc("L2", IncRange.near, false, true);
+		ns.addObject(l0);
+		ns.addObject(l1);
+		ns.addObject(l2);
+		assertSame(l0, IncLocatorHelper.match(IncRange.near, false,
+			false));
+		assertSame(l1, IncLocatorHelper.match(IncRange.near, false,
+			true));
+		assertNull(IncLocatorHelper.match(IncRange.far, false, false));
+		// Table must be rebuilt after a locator is added
+		IncLocator l3 = new Loc("L3", IncRange.far, false, false);
+		ns.addObject(l3);
+		assertSame(l3, IncLocatorHelper.match(IncRange.far, false,
+			false));
+	}
+}
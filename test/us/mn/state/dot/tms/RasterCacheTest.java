@@ -0,0 +1,105 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2020  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms;
+
+import junit.framework.TestCase;
+import us.mn.state.dot.sonar.Namespace;
+import us.mn.state.dot.sonar.SonarObject;
+import us.mn.state.dot.sonar.server.ServerNamespace;
+
+/**
+ * RasterCache test cases
+ *
+ * @author Douglas Lau
+ */
+public class RasterCacheTest extends TestCase {
+
+	/** Object of any type, to change type serial numbers */
+	static private class Obj implements SonarObject {
+		private final String tname;
+		private final String name;
+		private Obj(String t, String n) {
+			tname = t;
+			name = n;
+		}
+		public String getTypeName() { return tname; }
+		public String getName() { return name; }
+		public void destroy() { }
+	}
+
+	public RasterCacheTest(String name) {
+		super(name);
+	}
+
+	/** Previous namespace */
+	private Namespace namespace;
+
+	@Override
+	protected void setUp() {
+		namespace = BaseHelper.namespace;
+	}
+
+	@Override
+	protected void tearDown() {
+		BaseHelper.namespace = namespace;
+	}
+
+	/** Create a key for a test message */
+	private String createKey() {
+		return RasterCache.createKey(20, 7, 0, 0, 1, 0, 0, false,
+			"TEST");
+	}
+
+	/** Store a test raster */
+	private void store() {
+		RasterCache.store(createKey(), new RasterGraphic[] {
+			new BitmapGraphic(20, 7)
+		});
+	}
+
+	public void testLookup() {
+		BaseHelper.namespace = new ServerNamespace();
+		store();
+		RasterGraphic[] r = RasterCache.lookup(createKey());
+		assertNotNull(r);
+		assertEquals(1, r.length);
+		assertEquals(20, r[0].getWidth());
+	}
+
+	public void testTypeChanged() throws Exception {
+		ServerNamespace ns = new ServerNamespace();
+		BaseHelper.namespace = ns;
+		String[] types = {
+			Font.SONAR_TYPE, Glyph.SONAR_TYPE, Graphic.SONAR_TYPE
+		};
+		for (String t: types) {
+			store();
+			assertNotNull(RasterCache.lookup(createKey()));
+			ns.addObject(new Obj(t, t + "_1"));
+			assertNull(RasterCache.lookup(createKey()));
+		}
+		// Other types do not affect the cache
+		store();
+		ns.addObject(new Obj(DMS.SONAR_TYPE, "dms_1"));
+		assertNotNull(RasterCache.lookup(createKey()));
+	}
+
+	public void testNamespaceChanged() {
+		BaseHelper.namespace = new ServerNamespace();
+		store();
+		BaseHelper.namespace = new ServerNamespace();
+		assertNull(RasterCache.lookup(createKey()));
+	}
+}
@@ -0,0 +1,68 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2020  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms;
+
+import java.util.ArrayList;
+import junit.framework.TestCase;
+
+/**
+ * WordTrie test cases
+ *
+ * @author Douglas Lau
+ */
+public class WordTrieTest extends TestCase {
+
+	/** Simple dictionary word */
+	static private class Wd implements Word {
+		private final String name;
+		private final boolean allowed;
+		private Wd(String n, boolean a) {
+			name = WordHelper.encode(n);
+			allowed = a;
+		}
+		public String getTypeName() { return SONAR_TYPE; }
+		public String getName() { return name; }
+		public void destroy() { }
+		public String getAbbr() { return ""; }
+		public void setAbbr(String abbr) { }
+		public boolean getAllowed() { return allowed; }
+		public void setAllowed(boolean a) { }
+	}
+
+	public WordTrieTest(String name) {
+		super(name);
+	}
+
+	public void testLookup() {
+		ArrayList<Word> words = new ArrayList<Word>();
+		Word lane = new Wd("LANE", true);
+		Word lanes = new Wd("LANES", true);
+		Word bad = new Wd("BAD", false);
+		Word hwy = new Wd("US89/191", true);
+		words.add(lane);
+		words.add(lanes);
+		words.add(bad);
+		words.add(hwy);
+		WordTrie t = new WordTrie(words.iterator());
+		assertSame(lane, t.lookup("LANE"));
+		assertSame(lane, t.lookup("lane"));
+		assertSame(lanes, t.lookup("Lanes"));
+		assertSame(bad, t.lookup("bad"));
+		assertSame(hwy, t.lookup("us89/191"));
+		assertNull(t.lookup("LAN"));
+		assertNull(t.lookup("LANESS"));
+		assertNull(t.lookup(""));
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2020  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms.client.camera;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import junit.framework.TestCase;
+
+/**
+ * MJPEGReader test cases
+ *
+ * @author Douglas Lau
+ */
+public class MJPEGReaderTest extends TestCase {
+
+	public MJPEGReaderTest(String name) {
+		super(name);
+	}
+
+	/** Create frame data */
+	private byte[] frame(int len, int v) {
+		byte[] data = new byte[len];
+		for (int i = 0; i < len; i++)
+			data[i] = (byte) (v + i);
+		return data;
+	}
+
+	/** Write one part of a multipart stream */
+	private void writePart(ByteArrayOutputStream os, String hdr,
+		byte[] data) throws IOException
+	{
+		os.write(("--myboundary\r\nContent-Type: image/jpeg\r\n" + hdr +
+			"\r\n").getBytes());
+		os.write(data);
+		os.write("\r\n".getBytes());
+	}
+
+	public void testFrames() throws IOException {
+		byte[] f0 = frame(100, 1);
+		byte[] f1 = frame(20000, 2);
+		byte[] f2 = frame(50, 3);
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		writePart(os, "Content-Length: 100\r\n", f0);
+		writePart(os, "content-length:20000\r\nX-Time: 1\r\n", f1);
+		writePart(os, "CONTENT-LENGTH: 50\n", f2);
+		MJPEGReader r = new MJPEGReader(new ByteArrayInputStream(
+			os.toByteArray()));
+		byte[] data = r.readFrame(null);
+		assertEquals(100, r.getLength());
+		assertFrame(f0, data, r.getLength());
+		data = r.readFrame(data);
+		assertEquals(20000, r.getLength());
+		assertFrame(f1, data, r.getLength());
+		byte[] d2 = r.readFrame(data);
+		// Buffer is reused when large enough
+		assertSame(data, d2);
+		assertEquals(50, r.getLength());
+		assertFrame(f2, d2, r.getLength());
+		try {
+			r.readFrame(d2);
+			fail();
+		}
+		catch (IOException e) {
+			assertEquals("End of stream", e.getMessage());
+		}
+	}
+
+	/** Assert that frame data matches */
+	private void assertFrame(byte[] exp, byte[] data, int len) {
+		assertEquals(exp.length, len);
+		for (int i = 0; i < len; i++)
+			assertEquals(exp[i], data[i]);
+	}
+
+	public void testInvalid() throws IOException {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		writePart(os, "Content-Length: abc\r\n", frame(10, 0));
+		MJPEGReader r = new MJPEGReader(new ByteArrayInputStream(
+			os.toByteArray()));
+		try {
+			r.readFrame(null);
+			fail();
+		}
+		catch (IOException e) {
+			assertEquals("Invalid content-length", e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,223 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2020  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms.client.proxy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Random;
+import javax.swing.SwingUtilities;
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+import junit.framework.TestCase;
+import us.mn.state.dot.sonar.SonarObject;
+
+/**
+ * ProxyTableModel batch update test cases
+ *
+ * @author Douglas Lau
+ */
+public class ProxyTableModelTest extends TestCase {
+
+	/** Test object, sorted by key; negative keys are filtered */
+	static private class Item implements SonarObject {
+		private final String name;
+		private int key;
+		private Item(String n, int k) {
+			name = n;
+			key = k;
+		}
+		public String getTypeName() {
+			return "item";
+		}
+		public String getName() {
+			return name;
+		}
+		public void destroy() { }
+		public String toString() {
+			return name + ":" + key;
+		}
+	}
+
+	/** Item comparator */
+	static private final Comparator<Item> COMP = new Comparator<Item>() {
+		public int compare(Item a, Item b) {
+			int c = Integer.compare(a.key, b.key);
+			return (c != 0) ? c : a.name.compareTo(b.name);
+		}
+	};
+
+	/** Table model of items */
+	static private class ItemModel extends ProxyTableModel<Item> {
+		private int batches = 0;
+		private ItemModel() {
+			super(null, null, 0);
+		}
+		protected ArrayList<ProxyColumn<Item>> createColumns() {
+			return new ArrayList<ProxyColumn<Item>>();
+		}
+		protected Comparator<Item> comparator() {
+			return COMP;
+		}
+		protected boolean check(Item item) {
+			return item.key >= 0;
+		}
+		protected void proxiesChangedSwing() {
+			batches++;
+		}
+		private ArrayList<Item> rows() {
+			ArrayList<Item> rows = new ArrayList<Item>();
+			for (int r = 0; r < getRowCount(); r++)
+				rows.add(getRowProxy(r));
+			return rows;
+		}
+	}
+
+	/** Mirror of table rows, maintained only from table events */
+	static private class Mirror implements TableModelListener {
+		private final ItemModel model;
+		private final ArrayList<Item> rows = new ArrayList<Item>();
+		private int events = 0;
+		private Mirror(ItemModel m) {
+			model = m;
+		}
+		public void tableChanged(TableModelEvent e) {
+			events++;
+			int r0 = e.getFirstRow();
+			int r1 = e.getLastRow();
+			switch (e.getType()) {
+			case TableModelEvent.INSERT:
+				for (int r = r0; r <= r1; r++)
+					rows.add(r, model.getRowProxy(r));
+				break;
+			case TableModelEvent.DELETE:
+				rows.subList(r0, r1 + 1).clear();
+				break;
+			case TableModelEvent.UPDATE:
+				for (int r = r0; r <= r1; r++) {
+					assertSame(rows.get(r),
+						model.getRowProxy(r));
+				}
+				break;
+			}
+		}
+	}
+
+	private ItemModel model;
+	private Mirror mirror;
+	private ArrayList<Item> items;
+
+	public ProxyTableModelTest(String name) {
+		super(name);
+	}
+
+	@Override
+	protected void setUp() {
+		model = new ItemModel();
+		mirror = new Mirror(model);
+		model.addTableModelListener(mirror);
+		items = new ArrayList<Item>();
+		for (int i = 0; i < 20; i++) {
+			Item item = new Item("i" + i, i * 10);
+			items.add(item);
+			model.doProxyAdded(item);
+		}
+		mirror.rows.addAll(model.rows());
+	}
+
+	/** Change the keys of items and apply them as one batch.  This runs
+	 * on the Swing thread, so the batch timer cannot fire part way.
+	 * @param kv Pairs of item number and new key. */
+	private void batch(final int... kv) throws Exception {
+		SwingUtilities.invokeAndWait(new Runnable() {
+			public void run() {
+				for (int i = 0; i + 1 < kv.length; i += 2) {
+					Item item = items.get(kv[i]);
+					item.key = kv[i + 1];
+					model.proxyChangedSwing(item);
+				}
+				model.updateChanged();
+			}
+		});
+	}
+
+	/** Check that rows are sorted, filtered and match the mirror */
+	private void checkRows() {
+		ArrayList<Item> expected = new ArrayList<Item>();
+		for (Item item: items) {
+			if (item.key >= 0)
+				expected.add(item);
+		}
+		Collections.sort(expected, COMP);
+		assertEquals(expected, model.rows());
+		assertEquals(expected, mirror.rows);
+		for (int r = 0; r < model.getRowCount(); r++)
+			assertEquals(r, model.getIndex(model.getRowProxy(r)));
+	}
+
+	public void testInPlace() throws Exception {
+		batch(3, 31, 4, 41, 9, 91);
+		checkRows();
+		// Rows 3-4 and 9 are two update events
+		assertEquals(2, mirror.events);
+		assertEquals(1, model.batches);
+	}
+
+	public void testMoved() throws Exception {
+		batch(2, 155, 3, 156, 15, 5);
+		checkRows();
+		assertSame(items.get(15), model.getRowProxy(1));
+		assertSame(items.get(2), model.getRowProxy(14));
+		assertEquals(1, model.batches);
+	}
+
+	public void testRunMoved() throws Exception {
+		// A run of changed rows which stay in order with each other
+		// but not with their neighbours
+		batch(5, 171, 6, 172, 7, 173);
+		checkRows();
+		// One delete and one insert event for the run
+		assertEquals(2, mirror.events);
+	}
+
+	public void testFiltered() throws Exception {
+		batch(0, -1, 10, -1, 19, -1);
+		checkRows();
+		assertEquals(17, model.getRowCount());
+		batch(10, 100);
+		checkRows();
+		assertEquals(18, model.getRowCount());
+	}
+
+	public void testEmptyBatch() throws Exception {
+		batch();
+		assertEquals(0, mirror.events);
+		assertEquals(0, model.batches);
+	}
+
+	public void testRandom() throws Exception {
+		Random rand = new Random(39);
+		for (int b = 0; b < 200; b++) {
+			int[] kv = new int[2 + 2 * rand.nextInt(8)];
+			for (int c = 0; c < kv.length; c += 2) {
+				kv[c] = rand.nextInt(items.size());
+				kv[c + 1] = rand.nextInt(250) - 25;
+			}
+			batch(kv);
+			checkRows();
+		}
+		assertEquals(200, model.batches);
+	}
+}
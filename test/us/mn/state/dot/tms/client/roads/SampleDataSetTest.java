@@ -0,0 +1,73 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2020  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms.client.roads;
+
+import java.util.BitSet;
+import junit.framework.TestCase;
+
+/**
+ * SampleDataSet test cases
+ *
+ * @author Douglas Lau
+ */
+public class SampleDataSetTest extends TestCase {
+
+	static private final int MISSING_DATA = SampleDataSet.MISSING_DATA;
+
+	public SampleDataSetTest(String name) {
+		super(name);
+	}
+
+	public void testSwap() {
+		SampleDataSet ds = new SampleDataSet();
+		ds.updateSample("D1", 600, 55, 8.5f);
+		ds.updateSample("D2", 300, 50, 4.0f);
+		BitSet changed = ds.swapSamples();
+		assertEquals(2, changed.cardinality());
+		ds.updateSample("D2", 300, 50, 4.0f);
+		changed = ds.swapSamples();
+		assertEquals(1, changed.cardinality());
+		assertTrue(changed.get(ds.lookupSensor("D1")));
+		assertEquals(MISSING_DATA, ds.getFlow(ds.lookupSensor("D1")));
+		assertEquals(300, ds.getFlow(ds.lookupSensor("D2")));
+	}
+
+	public void testDelta() {
+		SampleDataSet ds = new SampleDataSet();
+		ds.updateSample("D1", 600, 55, 8.5f);
+		ds.updateSample("D2", 300, 50, 4.0f);
+		ds.swapSamples();
+		ds.updateSample("D2", 360, 45, 5.0f);
+		ds.updateSample("D3", 60, MISSING_DATA, 1.0f);
+		BitSet changed = ds.swapDelta();
+		int d1 = ds.lookupSensor("D1");
+		int d2 = ds.lookupSensor("D2");
+		int d3 = ds.lookupSensor("D3");
+		assertEquals(2, changed.cardinality());
+		assertTrue(changed.get(d2));
+		assertTrue(changed.get(d3));
+		assertEquals(600, ds.getFlow(d1));
+		assertEquals(360, ds.getFlow(d2));
+		assertEquals(60, ds.getFlow(d3));
+		assertEquals(MISSING_DATA, ds.getSpeed(d3));
+		ds.updateSample("D1", 600, 55, 8.5f);
+		ds.updateSample("D3", MISSING_DATA, MISSING_DATA, Float.NaN);
+		changed = ds.swapDelta();
+		assertEquals(1, changed.cardinality());
+		assertTrue(changed.get(d3));
+		assertEquals(MISSING_DATA, ds.getFlow(d3));
+		assertEquals(360, ds.getFlow(d2));
+	}
+}
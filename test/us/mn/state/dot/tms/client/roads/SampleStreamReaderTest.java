@@ -0,0 +1,147 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2020  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms.client.roads;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.BitSet;
+import java.util.zip.GZIPOutputStream;
+import junit.framework.TestCase;
+
+/**
+ * SampleStreamReader test cases
+ *
+ * @author Douglas Lau
+ */
+public class SampleStreamReaderTest extends TestCase {
+
+	static private final int MISSING_DATA = SampleDataSet.MISSING_DATA;
+
+	private File dir;
+
+	public SampleStreamReaderTest(String name) {
+		super(name);
+	}
+
+	@Override
+	protected void setUp() throws IOException {
+		dir = Files.createTempDirectory("stream").toFile();
+	}
+
+	@Override
+	protected void tearDown() {
+		for (File f: dir.listFiles())
+			f.delete();
+		dir.delete();
+	}
+
+	private void write(String name, String text, boolean gz)
+		throws IOException
+	{
+		OutputStream os = new FileOutputStream(new File(dir, name));
+		if (gz)
+			os = new GZIPOutputStream(os);
+		os.write(text.getBytes("US-ASCII"));
+		os.close();
+	}
+
+	private int flow(SampleDataSet ds, String sid) {
+		return ds.getFlow(ds.lookupSensor(sid));
+	}
+
+	private int speed(SampleDataSet ds, String sid) {
+		return ds.getSpeed(ds.lookupSensor(sid));
+	}
+
+	private float occ(SampleDataSet ds, String sid) {
+		return ds.getOcc(ds.lookupSensor(sid));
+	}
+
+	private SampleStreamReader createReader(SampleDataSet ds)
+		throws IOException
+	{
+		return new SampleStreamReader(new File(dir, "det_sample.seq")
+			.toURI().toURL(), 1000, ds);
+	}
+
+	public void testDeltas() throws IOException {
+		SampleDataSet ds = new SampleDataSet();
+		SampleStreamReader r = createReader(ds);
+		write("det_sample.txt.gz", "seq 100 0\nD1,600,55,8.5\n" +
+			"D2,300,,4.0\n", true);
+		write("det_sample.seq", "100\n", false);
+		assertTrue(r.read());
+		assertFalse(r.isDelta());
+		BitSet changed = ds.swapSamples();
+		assertEquals(2, changed.cardinality());
+		assertEquals(600, flow(ds, "D1"));
+		assertEquals(55, speed(ds, "D1"));
+		assertEquals(MISSING_DATA, speed(ds, "D2"));
+		assertFalse(r.read());
+		write("det_sample_101.txt.gz", "seq 101 100\nD1,720,50,9.0\n",
+			true);
+		write("det_sample_102.txt.gz", "seq 102 101\nD2,,,\n" +
+			"D3,60,,1.0\n", true);
+		write("det_sample.txt.gz", "seq 102 0\nD1,0,0,0\n", true);
+		write("det_sample.seq", "102\n", false);
+		assertTrue(r.read());
+		assertTrue(r.isDelta());
+		changed = ds.swapDelta();
+		assertEquals(3, changed.cardinality());
+		assertEquals(720, flow(ds, "D1"));
+		assertEquals(MISSING_DATA, flow(ds, "D2"));
+		assertTrue(Float.isNaN(occ(ds, "D2")));
+		assertEquals(60, flow(ds, "D3"));
+	}
+
+	public void testMissingDelta() throws IOException {
+		SampleDataSet ds = new SampleDataSet();
+		SampleStreamReader r = createReader(ds);
+		write("det_sample.txt.gz", "seq 100 0\nD1,600,55,8.5\n", true);
+		write("det_sample.seq", "100\n", false);
+		assertTrue(r.read());
+		ds.swapSamples();
+		write("det_sample.txt.gz", "seq 102 0\nD4,1,2,3\n", true);
+		write("det_sample.seq", "102\n", false);
+		assertTrue(r.read());
+		assertFalse(r.isDelta());
+		ds.swapSamples();
+		assertEquals(MISSING_DATA, flow(ds, "D1"));
+		assertEquals(1, flow(ds, "D4"));
+	}
+
+	public void testBadDelta() throws IOException {
+		SampleDataSet ds = new SampleDataSet();
+		SampleStreamReader r = createReader(ds);
+		write("det_sample.txt.gz", "seq 100 0\nD1,600,55,8.5\n", true);
+		write("det_sample.seq", "100\n", false);
+		assertTrue(r.read());
+		ds.swapSamples();
+		write("det_sample_101.txt.gz", "seq 101 100\nD5,9,9,9\n",
+			true);
+		write("det_sample_102.txt.gz", "seq 102 100\nD6,9,9,9\n",
+			true);
+		write("det_sample.txt.gz", "seq 102 0\nD4,1,2,3\n", true);
+		write("det_sample.seq", "102\n", false);
+		assertTrue(r.read());
+		assertFalse(r.isDelta());
+		ds.swapSamples();
+		assertEquals(MISSING_DATA, flow(ds, "D5"));
+		assertEquals(1, flow(ds, "D4"));
+	}
+}
@@ -0,0 +1,201 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2020  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms.client.roads;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Random;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+import junit.framework.TestCase;
+import org.xml.sax.Attributes;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * SampleXmlParser test cases
+ *
+ * @author Douglas Lau
+ */
+public class SampleXmlParserTest extends TestCase {
+
+	/** Number of sensors to compare with SAX */
+	static private final int N_SENSORS = 1000;
+
+	static private final String HEAD =
+		"<?xml version='1.0' encoding='UTF-8'?>\n" +
+		"<!DOCTYPE traffic_sample [\n" +
+		"<!ELEMENT traffic_sample (sample)*>\n" +
+		"<!ATTLIST traffic_sample time_stamp CDATA #REQUIRED>\n" +
+		"<!-- comment -->\n" +
+		"<!ATTLIST sample flow CDATA 'UNKNOWN'>\n" +
+		"]>\n";
+
+	public SampleXmlParserTest(String name) {
+		super(name);
+	}
+
+	/** Create a sample document */
+	static private byte[] createDoc(String stamp, int n, Random rnd)
+		throws IOException
+	{
+		StringBuilder sb = new StringBuilder(HEAD);
+		sb.append("<traffic_sample time_stamp='").append(stamp);
+		sb.append("' period='30'>\n");
+		for (int i = 0; i < n; i++) {
+			sb.append("\t<sample sensor='").append(100 + i);
+			sb.append("' flow='").append(rnd.nextInt(2400));
+			if (rnd.nextInt(4) > 0) {
+				sb.append("' speed='").append(20 +
+					rnd.nextInt(50));
+			}
+			sb.append("' occ='").append(rnd.nextInt(100));
+			sb.append('.').append(rnd.nextInt(10));
+			sb.append(rnd.nextInt(10)).append("'/>\n");
+		}
+		sb.append("</traffic_sample>\n");
+		return sb.toString().getBytes("UTF-8");
+	}
+
+	/** Parse a document into a map of samples */
+	static private HashMap<String, SensorSample> parse(byte[] doc)
+		throws IOException
+	{
+		final HashMap<String, SensorSample> m =
+			new HashMap<String, SensorSample>();
+		SampleXmlParser p = new SampleXmlParser(
+			new SampleXmlParser.Handler()
+		{
+			public boolean timeStamp(String stamp) {
+				return true;
+			}
+			public void sample(String sensor, int flow, int speed,
+				float occ)
+			{
+				m.put(sensor, new SensorSample(sensor,
+					(flow >= 0) ? flow : null,
+					(speed >= 0) ? speed : null,
+					Float.isNaN(occ) ? null : occ));
+			}
+		});
+		p.parse(new ByteArrayInputStream(doc));
+		return m;
+	}
+
+	public void testParse() throws IOException {
+		String doc = HEAD + "<traffic_sample time_stamp=\"now\">\n" +
+			"<sample sensor='100' flow='360' speed='55' " +
+			"occ='12.25'/>\n" +
+			"<sample sensor = 'A&amp;B' flow='x' occ='3'/>\n" +
+			"<sample flow='1'/>\n" +
+			"</traffic_sample>\n";
+		HashMap<String, SensorSample> m = parse(doc.getBytes("UTF-8"));
+		assertEquals(2, m.size());
+		SensorSample s = m.get("100");
+		assertEquals(Integer.valueOf(360), s.getFlow());
+		assertEquals(Integer.valueOf(55), s.getSpeed());
+		assertEquals(12.25f, s.getOcc(), 0.0001f);
+		s = m.get("A&B");
+		assertNull(s.getFlow());
+		assertNull(s.getSpeed());
+		assertEquals(3f, s.getOcc(), 0.0001f);
+	}
+
+	public void testStampUnchanged() throws IOException {
+		final ArrayList<String> sensors = new ArrayList<String>();
+		SampleXmlParser p = new SampleXmlParser(
+			new SampleXmlParser.Handler()
+		{
+			public boolean timeStamp(String stamp) {
+				return false;
+			}
+			public void sample(String sensor, int flow, int speed,
+				float occ)
+			{
+				sensors.add(sensor);
+			}
+		});
+		p.parse(new ByteArrayInputStream(createDoc("t", 10,
+			new Random(1))));
+		assertTrue(sensors.isEmpty());
+	}
+
+	public void testSwap() throws IOException {
+		SampleDataSet sds = new SampleDataSet();
+		sds.updateSample("A", 100, 50, 5f);
+		sds.updateSample("B", 200, SampleDataSet.MISSING_DATA, 6f);
+		BitSet changed = sds.swapSamples();
+		assertEquals(2, changed.cardinality());
+		int a = sds.lookupSensor("A");
+		assertEquals(100, sds.getFlow(a));
+		sds.updateSample("A", 100, 50, 5f);
+		changed = sds.swapSamples();
+		assertEquals(1, changed.cardinality());
+		assertTrue(changed.get(sds.lookupSensor("B")));
+		assertEquals(SampleDataSet.MISSING_DATA,
+			sds.getFlow(sds.lookupSensor("B")));
+		assertEquals(SampleDataSet.MISSING_DATA,
+			sds.getFlow(sds.lookupSensor("C")));
+	}
+
+	public void testCompareSax() throws Exception {
+		byte[] doc = createDoc("2020-01-01 00:00:30", N_SENSORS,
+			new Random(42));
+		SAXParser sax = SAXParserFactory.newInstance().newSAXParser();
+		final HashMap<String, Attributes> attrs =
+			new HashMap<String, Attributes>();
+		sax.parse(new ByteArrayInputStream(doc), new DefaultHandler() {
+			public void startElement(String uri, String localName,
+				String qname, Attributes a)
+			{
+				if (qname.equals("sample")) {
+					attrs.put(a.getValue("sensor"),
+						new AttributesImpl(a));
+				}
+			}
+		});
+		final SampleDataSet sds = new SampleDataSet();
+		SampleXmlParser p = new SampleXmlParser(
+			new SampleXmlParser.Handler()
+		{
+			public boolean timeStamp(String stamp) {
+				return true;
+			}
+			public void sample(String sensor, int flow, int speed,
+				float occ)
+			{
+				sds.updateSample(sensor, flow, speed, occ);
+			}
+		});
+		p.parse(new ByteArrayInputStream(doc));
+		sds.swapSamples();
+		assertEquals(N_SENSORS, attrs.size());
+		for (int i = 0; i < N_SENSORS; i++) {
+			String sid = Integer.toString(100 + i);
+			Attributes a = attrs.get(sid);
+			int j = sds.lookupSensor(sid);
+			String s = a.getValue("speed");
+			assertEquals(Integer.parseInt(a.getValue("flow")),
+				sds.getFlow(j));
+			assertEquals((s != null) ? Integer.parseInt(s)
+				: SampleDataSet.MISSING_DATA, sds.getSpeed(j));
+			assertEquals(Float.parseFloat(a.getValue("occ")),
+				sds.getOcc(j), 0.0001f);
+		}
+	}
+}
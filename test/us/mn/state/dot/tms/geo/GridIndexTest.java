@@ -0,0 +1,105 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2020  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms.geo;
+
+import java.util.Random;
+import java.util.Set;
+import junit.framework.TestCase;
+
+/**
+ * GridIndex test cases
+ *
+ * @author Douglas Lau
+ */
+public class GridIndexTest extends TestCase {
+
+	/** Number of segments in test network */
+	static private final int N_SEGMENTS = 10000;
+
+	public GridIndexTest(String name) {
+		super(name);
+	}
+
+	public void testFind() {
+		GridIndex<String> idx = new GridIndex<String>(100);
+		idx.add("a", 0, 0, 250, 0);
+		idx.add("b", 1000, 1000, 1000, 1200);
+		idx.add("huge", -1e7, -1e7, 1e7, 1e7);
+		Set<String> f = idx.findWithin(50, 50, 10);
+		assertTrue(f.contains("a"));
+		assertFalse(f.contains("b"));
+		assertTrue(f.contains("huge"));
+		f = idx.findWithin(1000, 1300, 150);
+		assertTrue(f.contains("b"));
+		f = idx.findWithin(0, 0, Double.POSITIVE_INFINITY);
+		assertEquals(3, f.size());
+		idx.clear();
+		assertTrue(idx.findWithin(0, 0, 1e9).isEmpty());
+	}
+
+	public void testRemove() {
+		GridIndex<String> idx = new GridIndex<String>(100);
+		idx.add("a", 10, 10, 10, 10);
+		idx.add("b", 20, 20, 20, 20);
+		idx.add("huge", -1e7, -1e7, 1e7, 1e7);
+		idx.remove("a", 10, 10, 10, 10);
+		idx.remove("huge", -1e7, -1e7, 1e7, 1e7);
+		Set<String> f = idx.find(0, 0, 50, 50);
+		assertFalse(f.contains("a"));
+		assertTrue(f.contains("b"));
+		assertFalse(f.contains("huge"));
+	}
+
+	public void testNetwork() {
+		Random rnd = new Random(42);
+		MapLineSegment[] segs = new MapLineSegment[N_SEGMENTS];
+		GridIndex<MapLineSegment> idx =
+			new GridIndex<MapLineSegment>(2000);
+		for (int i = 0; i < N_SEGMENTS; i++) {
+			// Metro-sized area, segments up to 1 km long
+			double x = rnd.nextDouble() * 100000;
+			double y = rnd.nextDouble() * 100000;
+			double x1 = x + rnd.nextDouble() * 1000 - 500;
+			double y1 = y + rnd.nextDouble() * 1000 - 500;
+			segs[i] = new MapLineSegment(x, y, x1, y1);
+			idx.add(segs[i], x, y, x1, y1);
+		}
+		double dist = 1000;
+		for (int q = 0; q < 1000; q++) {
+			double x = rnd.nextDouble() * 100000;
+			double y = rnd.nextDouble() * 100000;
+			// Nearest segment found by scanning all segments
+			MapLineSegment near = null;
+			double nd = dist;
+			for (MapLineSegment s: segs) {
+				double d = s.distanceTo(x, y);
+				if (d < nd) {
+					near = s;
+					nd = d;
+				}
+			}
+			MapLineSegment inear = null;
+			double ind = dist;
+			for (MapLineSegment s: idx.findWithin(x, y, dist)) {
+				double d = s.distanceTo(x, y);
+				if (d < ind) {
+					inear = s;
+					ind = d;
+				}
+			}
+			assertSame(near, inear);
+		}
+	}
+}
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2012-2019  Minnesota Department of Transportation
+ * Copyright (C) 2012-2020  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -58,6 +58,16 @@ public class PeriodicSampleCacheTest extends TestCase {
 		assertTrue(areSamplesEqual(cache, 2));
 	}
 
+	public void testAddValue() {
+		PeriodicSampleCache cache = new PeriodicSampleCache(
+			PeriodicSampleType.VEH_COUNT);
+		cache.add(T[1], 30, -1, "test");
+		assertTrue(isEmpty(cache));
+		cache.add(T[1], 30, 2, "test");
+		cache.add(T[2], 30, 3, "test");
+		assertTrue(cache.getValue(T[0], T[2]) == 5);
+	}
+
 	public void testOccupancy() {
 		PeriodicSampleCache cache = new PeriodicSampleCache(
 			PeriodicSampleType.OCCUPANCY);
@@ -0,0 +1,54 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2020  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms.server;
+
+import java.util.List;
+import junit.framework.TestCase;
+
+/**
+ * RelationIndex test cases
+ *
+ * @author Douglas Lau
+ */
+public class RelationIndexTest extends TestCase {
+
+	public RelationIndexTest(String name) {
+		super(name);
+	}
+
+	public void testIndex() {
+		RelationIndex<String, String> idx =
+			new RelationIndex<String, String>();
+		assertTrue(idx.lookup("G1").isEmpty());
+		assertTrue(idx.lookup(null).isEmpty());
+		idx.add("G1", "V1");
+		idx.add("G1", "V2");
+		idx.add("G2", "V1");
+		idx.add(null, "V3");
+		List<String> g1 = idx.lookup("G1");
+		assertEquals(2, g1.size());
+		assertEquals("V1", g1.get(0));
+		assertEquals(1, idx.lookup("G2").size());
+		idx.remove("G1", "V1");
+		// Previous lookup is an unchanged snapshot
+		assertEquals(2, g1.size());
+		assertEquals(1, idx.lookup("G1").size());
+		assertEquals("V2", idx.lookup("G1").get(0));
+		idx.remove("G1", "V2");
+		assertTrue(idx.lookup("G1").isEmpty());
+		idx.remove("G3", "V1");
+		assertEquals(1, idx.lookup("G2").size());
+	}
+}
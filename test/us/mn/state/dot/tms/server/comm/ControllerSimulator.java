@@ -0,0 +1,257 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2020  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms.server.comm;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * An in-process controller simulator listening on a local TCP or UDP port.
+ * Subclasses implement protocol framing and responses.  Each response can
+ * be delayed by a configurable latency and jitter, or dropped to simulate
+ * packet loss.
+ *
+ * @author Douglas Lau
+ */
+abstract public class ControllerSimulator {
+
+	/** Thread group for all simulator threads */
+	static private final ThreadGroup GROUP = new ThreadGroup("Sim");
+
+	/** Maximum datagram size */
+	static private final int MAX_DATAGRAM = 1024;
+
+	/** Read to the end of a buffer, one byte at a time.
+	 * @param is Input stream.
+	 * @param buf Buffer to read into.
+	 * @param off Offset to start reading. */
+	static protected void readFully(InputStream is, byte[] buf, int off)
+		throws IOException
+	{
+		for (int i = off; i < buf.length; i++) {
+			int b = is.read();
+			if (b < 0)
+				throw new EOFException("END OF STREAM");
+			buf[i] = (byte) b;
+		}
+	}
+
+	/** Random number generator */
+	private final Random random = new Random();
+
+	/** Seed the random number generator, so that loss and jitter are
+	 * repeatable.
+	 * @param s Random seed. */
+	public void setSeed(long s) {
+		synchronized (random) {
+			random.setSeed(s);
+		}
+	}
+
+	/** Base response latency (ms) */
+	private int latency_ms;
+
+	/** Maximum additional random latency (ms) */
+	private int jitter_ms;
+
+	/** Probability of dropping a response (0 to 1) */
+	private double loss;
+
+	/** Set the response latency.
+	 * @param l Base latency (ms).
+	 * @param j Maximum random jitter (ms). */
+	public void setLatency(int l, int j) {
+		latency_ms = l;
+		jitter_ms = j;
+	}
+
+	/** Set the probability of dropping a response.
+	 * @param l Loss probability (0 to 1). */
+	public void setLoss(double l) {
+		loss = l;
+	}
+
+	/** TCP server socket (may be null) */
+	private ServerSocket server;
+
+	/** UDP socket (may be null) */
+	private DatagramSocket datagram;
+
+	/** Number of requests received */
+	private volatile int n_requests;
+
+	/** Get the number of requests received */
+	public int getRequests() {
+		return n_requests;
+	}
+
+	/** Read one request from a stream.
+	 * @param is Input stream.
+	 * @return Request bytes.
+	 * @throws IOException on end of stream or framing errors. */
+	abstract protected byte[] readRequest(InputStream is)
+		throws IOException;
+
+	/** Create a response to a request.
+	 * @param req Request bytes.
+	 * @return Response bytes, or null for no response. */
+	abstract protected byte[] createResponse(byte[] req);
+
+	/** Start listening on a TCP port of the loopback address.
+	 * @return URI of simulator. */
+	public String startTcp() throws IOException {
+		server = new ServerSocket(0, 50,
+			InetAddress.getLoopbackAddress());
+		startThread("accept", new Runnable() {
+			public void run() {
+				acceptLoop();
+			}
+		});
+		return "tcp://127.0.0.1:" + server.getLocalPort();
+	}
+
+	/** Start listening on a UDP port of the loopback address.
+	 * @return URI of simulator. */
+	public String startUdp() throws IOException {
+		datagram = new DatagramSocket(new InetSocketAddress(
+			InetAddress.getLoopbackAddress(), 0));
+		startThread("udp", new Runnable() {
+			public void run() {
+				datagramLoop();
+			}
+		});
+		return "udp://127.0.0.1:" + datagram.getLocalPort();
+	}
+
+	/** Stop the simulator */
+	public void stop() {
+		try {
+			if (server != null)
+				server.close();
+			if (datagram != null)
+				datagram.close();
+		}
+		catch (IOException e) {
+			// nothing to do
+		}
+	}
+
+	/** Start a daemon thread */
+	private void startThread(String n, Runnable r) {
+		Thread t = new Thread(GROUP, r, "Sim: " + n);
+		t.setDaemon(true);
+		t.start();
+	}
+
+	/** Accept TCP connections */
+	private void acceptLoop() {
+		try {
+			while (true) {
+				final Socket s = server.accept();
+				startThread("tcp", new Runnable() {
+					public void run() {
+						streamLoop(s);
+					}
+				});
+			}
+		}
+		catch (IOException e) {
+			// server socket closed
+		}
+	}
+
+	/** Handle requests on a TCP connection */
+	private void streamLoop(Socket s) {
+		try {
+			InputStream is = s.getInputStream();
+			OutputStream os = s.getOutputStream();
+			while (true) {
+				byte[] res = handleRequest(readRequest(is));
+				if (res != null)
+					os.write(res);
+			}
+		}
+		catch (IOException e) {
+			// connection closed
+		}
+		finally {
+			try {
+				s.close();
+			}
+			catch (IOException e) {
+				// nothing to do
+			}
+		}
+	}
+
+	/** Handle UDP datagrams */
+	private void datagramLoop() {
+		byte[] buf = new byte[MAX_DATAGRAM];
+		DatagramPacket p = new DatagramPacket(buf, buf.length);
+		try {
+			while (true) {
+				p.setLength(buf.length);
+				datagram.receive(p);
+				byte[] res = handleRequest(Arrays.copyOf(buf,
+					p.getLength()));
+				if (res != null) {
+					datagram.send(new DatagramPacket(res,
+						res.length,
+						p.getSocketAddress()));
+				}
+			}
+		}
+		catch (SocketException e) {
+			// socket closed
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/** Handle one request, applying latency and loss.
+	 * @return Response bytes, or null if dropped. */
+	private byte[] handleRequest(byte[] req) {
+		n_requests++;
+		byte[] res = createResponse(req);
+		int delay = latency_ms;
+		synchronized (random) {
+			if (random.nextDouble() < loss)
+				return null;
+			if (jitter_ms > 0)
+				delay += random.nextInt(jitter_ms);
+		}
+		if (delay > 0) {
+			try {
+				Thread.sleep(delay);
+			}
+			catch (InterruptedException e) {
+				return null;
+			}
+		}
+		return res;
+	}
+}
@@ -0,0 +1,273 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2020  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms.server.comm;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Constructor;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import us.mn.state.dot.sonar.NamespaceError;
+import us.mn.state.dot.sonar.server.ServerNamespace;
+import us.mn.state.dot.tms.CommLink;
+import us.mn.state.dot.tms.CtrlCondition;
+import us.mn.state.dot.tms.SystemAttrEnum;
+import us.mn.state.dot.tms.SystemAttribute;
+import us.mn.state.dot.tms.server.CabinetImpl;
+import us.mn.state.dot.tms.server.ControllerImpl;
+
+/**
+ * Benchmark driver which polls a set of comm links concurrently.  Each link
+ * has its own ThreadedPoller, so operations are queued in an OpQueue and
+ * performed by a CommThread, the same as a running server.  Poll completion
+ * times, CPU time of comm threads and the number of live threads are
+ * recorded.  Heap usage per link is recorded if the "sim.heap" property is
+ * set.
+ *
+ * @author Douglas Lau
+ */
+public class PollBenchmark<T extends ControllerProperty> {
+
+	/** Factory for benchmark pollers and operations */
+	public interface Factory<T extends ControllerProperty> {
+
+		/** Create a poller for one link.
+		 * @param n Link number. */
+		ThreadedPoller<T> createPoller(int n);
+
+		/** Create an operation to poll one link.  The operation must
+		 * call PollBenchmark.complete when it is cleaned up.
+		 * @param n Link number. */
+		OpController<T> createOperation(int n);
+	}
+
+	/** Create a controller without a database or comm link.
+	 * @param n Controller name.
+	 * @param drop Drop address. */
+	static public ControllerImpl createController(String n, int drop)
+		throws Exception
+	{
+		Constructor<ControllerImpl> c =
+			ControllerImpl.class.getDeclaredConstructor(
+			String.class, CabinetImpl.class, CommLink.class,
+			short.class, int.class, String.class, String.class,
+			Date.class, String.class);
+		c.setAccessible(true);
+		return c.newInstance(n, null, null, (short) drop,
+			CtrlCondition.ACTIVE.ordinal(), null, null, null, null);
+	}
+
+	/** System attribute with a fixed value */
+	static private class Attribute implements SystemAttribute {
+		private final String name;
+		private String value;
+		private Attribute(SystemAttrEnum sa) {
+			name = sa.aname();
+			value = sa.getDefault();
+		}
+		public String getTypeName() { return SONAR_TYPE; }
+		public String getName() { return name; }
+		public void destroy() { }
+		public void setValue(String v) { value = v; }
+		public String getValue() { return value; }
+	}
+
+	/** Create a namespace with system attributes read by operations.
+	 * Each attribute has its default value, but is not reported as
+	 * missing.
+	 * @param attrs System attributes to add. */
+	static public ServerNamespace createNamespace(SystemAttrEnum... attrs)
+		throws NamespaceError
+	{
+		ServerNamespace ns = new ServerNamespace();
+		for (SystemAttrEnum sa: attrs)
+			ns.addObject(new Attribute(sa));
+		return ns;
+	}
+
+	/** Maximum time to wait for all operations (ms) */
+	static private final long MAX_WAIT_MS = 60 * 1000;
+
+	/** Flag to measure heap usage, which forces garbage collection */
+	static private final boolean MEASURE_HEAP =
+		Boolean.getBoolean("sim.heap");
+
+	/** Get used heap (bytes), after garbage collection */
+	static private long usedHeap() {
+		if (MEASURE_HEAP) {
+			System.gc();
+			MemoryMXBean mmx = ManagementFactory.getMemoryMXBean();
+			return mmx.getHeapMemoryUsage().getUsed();
+		} else
+			return 0;
+	}
+
+	/** Thread management bean */
+	static private final ThreadMXBean TMX =
+		ManagementFactory.getThreadMXBean();
+
+	/** Remote URIs of all links */
+	private final String[] uris;
+
+	/** Receive timeout (ms) */
+	private final int timeout;
+
+	/** Start times (ns) of operations */
+	private final long[] started;
+
+	/** Completion times (ns) of successful operations */
+	private final long[] elapsed;
+
+	/** Completed flags of operations */
+	private final boolean[] done;
+
+	/** Latch counting incomplete operations */
+	private CountDownLatch latch;
+
+	/** Number of failed operations */
+	private int n_failed;
+
+	/** Total CPU time (ns) of all comm threads */
+	private final AtomicLong cpu_ns = new AtomicLong();
+
+	/** Wall time (ns) of whole benchmark */
+	private long wall_ns;
+
+	/** Heap usage (bytes) added by all links (if measured) */
+	private long heap_bytes;
+
+	/** Live threads added by all links */
+	private int n_threads;
+
+	/** Create a new poll benchmark.
+	 * @param u Remote URIs of all links.
+	 * @param rt Receive timeout (ms). */
+	public PollBenchmark(String[] u, int rt) {
+		uris = u;
+		timeout = rt;
+		started = new long[u.length];
+		elapsed = new long[u.length];
+		done = new boolean[u.length];
+	}
+
+	/** Run one operation on every link, waiting for all to complete */
+	public void run(Factory<T> f) throws InterruptedException {
+		ArrayList<ThreadedPoller<T>> pollers =
+			new ArrayList<ThreadedPoller<T>>();
+		synchronized (this) {
+			latch = new CountDownLatch(uris.length);
+			Arrays.fill(elapsed, -1);
+			Arrays.fill(done, false);
+		}
+		cpu_ns.set(0);
+		long heap0 = usedHeap();
+		int threads0 = TMX.getThreadCount();
+		long start = System.nanoTime();
+		try {
+			for (int i = 0; i < uris.length; i++) {
+				ThreadedPoller<T> p = f.createPoller(i);
+				pollers.add(p);
+				p.setUri(uris[i]);
+				p.setTimeout(timeout);
+				started[i] = System.nanoTime();
+				p.addOp(f.createOperation(i));
+			}
+			latch.await(MAX_WAIT_MS, TimeUnit.MILLISECONDS);
+			wall_ns = System.nanoTime() - start;
+			n_threads = TMX.getThreadCount() - threads0;
+			heap_bytes = usedHeap() - heap0;
+		}
+		finally {
+			for (ThreadedPoller<T> p: pollers)
+				p.destroy();
+		}
+		synchronized (this) {
+			n_failed = 0;
+			for (long e: elapsed) {
+				if (e < 0)
+					n_failed++;
+			}
+		}
+	}
+
+	/** Record completion of an operation.  This is called on the comm
+	 * thread when the operation is cleaned up.
+	 * @param n Link number.
+	 * @param success True if the operation succeeded. */
+	public void complete(int n, boolean success) {
+		long now = System.nanoTime();
+		synchronized (this) {
+			if (done[n])
+				return;
+			done[n] = true;
+			elapsed[n] = success ? now - started[n] : -1;
+		}
+		cpu_ns.addAndGet(TMX.getCurrentThreadCpuTime());
+		latch.countDown();
+	}
+
+	/** Get the number of successful operations */
+	public int getCompleted() {
+		return uris.length - n_failed;
+	}
+
+	/** Get the number of failed operations */
+	public int getFailed() {
+		return n_failed;
+	}
+
+	/** Get a completion time percentile of successful operations.
+	 * @param pct Percentile (0 to 100).
+	 * @return Completion time (ms). */
+	public synchronized double getPercentileMs(double pct) {
+		long[] ok = new long[getCompleted()];
+		int j = 0;
+		for (long e: elapsed) {
+			if (e >= 0)
+				ok[j++] = e;
+		}
+		if (ok.length == 0)
+			return 0;
+		Arrays.sort(ok);
+		int i = (int) Math.ceil(pct / 100 * ok.length) - 1;
+		return ok[Math.max(0, Math.min(ok.length - 1, i))] / 1e6;
+	}
+
+	/** Get a string representation of the results */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("links: ").append(uris.length);
+		sb.append(", ok: ").append(getCompleted());
+		sb.append(", failed: ").append(getFailed());
+		sb.append(String.format(", p50: %.1f ms, p90: %.1f ms, " +
+			"p99: %.1f ms, max: %.1f ms", getPercentileMs(50),
+			getPercentileMs(90), getPercentileMs(99),
+			getPercentileMs(100)));
+		sb.append(String.format(", wall: %.1f ms, cpu: %.1f ms",
+			wall_ns / 1e6, cpu_ns.get() / 1e6));
+		if (MEASURE_HEAP) {
+			sb.append(", heap/link: ");
+			sb.append(heap_bytes / uris.length).append(" B");
+		}
+		sb.append(", threads: ").append(n_threads);
+		return sb.toString();
+	}
+}
@@ -0,0 +1,100 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2020  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms.server.comm.mndot;
+
+import java.io.IOException;
+import java.io.InputStream;
+import us.mn.state.dot.tms.server.comm.ControllerSimulator;
+
+/**
+ * Simulator for a 170 controller using the MnDOT 4-bit protocol.  Only
+ * memory reads are supported; the 30-second data buffer contains simulated
+ * volume and scan counts.  Checksums are calculated with MndotProperty.
+ *
+ * @author Douglas Lau
+ */
+public class Mndot170Simulator extends ControllerSimulator {
+
+	/** Size of 30-second data buffer (24 volumes + 24 scan counts) */
+	static public final int DATA_30_SEC_BYTES = 72;
+
+	/** Calculate the checksum of a packet */
+	static private byte checksum(byte[] pkt) {
+		return MndotProperty.checksum(pkt);
+	}
+
+	/** Read one packet (header, payload and checksum) */
+	static private byte[] readPacket(InputStream is) throws IOException {
+		byte[] header = new byte[2];
+		readFully(is, header, 0);
+		byte[] pkt = new byte[3 + (header[1] & 0xFF)];
+		System.arraycopy(header, 0, pkt, 0, 2);
+		readFully(is, pkt, 2);
+		return pkt;
+	}
+
+	/** Drop address */
+	private final int drop;
+
+	/** Create a new 170 simulator.
+	 * @param d Drop address (1-15). */
+	public Mndot170Simulator(int d) {
+		drop = d;
+	}
+
+	/** Read one request from a stream */
+	@Override
+	protected byte[] readRequest(InputStream is) throws IOException {
+		return readPacket(is);
+	}
+
+	/** Create a response to a request */
+	@Override
+	protected byte[] createResponse(byte[] req) {
+		if (req.length < 3 || (req[0] & 0xFF) >> 4 != drop)
+			return null;
+		if (checksum(req) != req[req.length - 1])
+			return createPacket(StatCode.BAD_POLL_CHECKSUM, 0);
+		int cat = req[0] & 0x0F;
+		if (cat != CatCode.READ_MEMORY.ordinal() || req.length != 6)
+			return createPacket(StatCode.BAD_MESSAGE, 0);
+		int address = ((req[2] & 0xFF) << 8) | (req[3] & 0xFF);
+		int len = req[4] & 0xFF;
+		byte[] pkt = createPacket(StatCode.OK, len);
+		if (address == Address.DATA_BUFFER_30_SECOND)
+			fillSamples(pkt, len);
+		pkt[pkt.length - 1] = checksum(pkt);
+		return pkt;
+	}
+
+	/** Create a response packet.
+	 * @param stat Status code.
+	 * @param len Payload length. */
+	private byte[] createPacket(StatCode stat, int len) {
+		byte[] pkt = new byte[3 + len];
+		pkt[0] = (byte) (drop << 4 | stat.ordinal());
+		pkt[1] = (byte) len;
+		pkt[pkt.length - 1] = checksum(pkt);
+		return pkt;
+	}
+
+	/** Fill a packet with simulated 30-second sample data */
+	private void fillSamples(byte[] pkt, int len) {
+		for (int i = 0; i < len && i < DATA_30_SEC_BYTES; i++) {
+			// 24 volume bytes, then 24 big-endian scan counts
+			pkt[2 + i] = (byte) ((i < 24) ? (drop + i) % 25 : i);
+		}
+	}
+}
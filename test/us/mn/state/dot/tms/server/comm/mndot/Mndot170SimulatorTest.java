@@ -0,0 +1,186 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2020  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms.server.comm.mndot;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import junit.framework.TestCase;
+import us.mn.state.dot.sonar.Namespace;
+import us.mn.state.dot.tms.BaseHelper;
+import us.mn.state.dot.tms.CommProtocol;
+import us.mn.state.dot.tms.EventType;
+import us.mn.state.dot.tms.SystemAttrEnum;
+import us.mn.state.dot.tms.server.ControllerImpl;
+import us.mn.state.dot.tms.server.comm.CommExecutor;
+import us.mn.state.dot.tms.server.comm.OpController;
+import us.mn.state.dot.tms.server.comm.PollBenchmark;
+import us.mn.state.dot.tms.server.comm.ThreadedPoller;
+
+/**
+ * Load test of 30-second sample polls against simulated 170 controllers.
+ * Polls are performed by MndotPoller with OpQuerySamples30Sec operations,
+ * using either dedicated comm threads or a pooled comm executor.
+ * The number of links can be raised with the "sim.links" property.
+ *
+ * @author Douglas Lau
+ */
+public class Mndot170SimulatorTest extends TestCase {
+
+	/** Number of simulated links */
+	static private final int LINKS = Integer.getInteger("sim.links", 100);
+
+	/** Receive timeout (ms) */
+	static private final int TIMEOUT_MS = 750;
+
+	/** Get the drop address for a link */
+	static private int dropAddress(int n) {
+		return 1 + n % 15;
+	}
+
+	/** Sample operation which reports completion to a benchmark.  Comm
+	 * errors are retried, but not logged, since there is no database. */
+	static private class OpBench extends OpQuerySamples30Sec {
+		private final PollBenchmark<MndotProperty> bench;
+		private final int link;
+		private int n_errors = 0;
+		private OpBench(ControllerImpl c,
+			PollBenchmark<MndotProperty> b, int n)
+		{
+			super(c);
+			bench = b;
+			link = n;
+		}
+		@Override
+		public void handleCommError(EventType et, String msg) {
+			n_errors++;
+			if (n_errors >= getRetryThreshold())
+				setFailed();
+		}
+		@Override
+		public void cleanup() {
+			if (isSuccess())
+				super.cleanup();
+			bench.complete(link, isSuccess());
+		}
+	}
+
+	public Mndot170SimulatorTest(String name) {
+		super(name);
+	}
+
+	/** Previous namespace */
+	private Namespace namespace;
+
+	@Override
+	protected void setUp() throws Exception {
+		namespace = BaseHelper.namespace;
+		BaseHelper.namespace = PollBenchmark.createNamespace(
+			SystemAttrEnum.OPERATION_RETRY_THRESHOLD);
+	}
+
+	@Override
+	protected void tearDown() {
+		BaseHelper.namespace = namespace;
+	}
+
+	/** Start simulators, one per link */
+	private Mndot170Simulator[] startSims(boolean udp, double loss,
+		String[] uris) throws IOException
+	{
+		Mndot170Simulator[] sims = new Mndot170Simulator[uris.length];
+		for (int i = 0; i < sims.length; i++) {
+			sims[i] = new Mndot170Simulator(dropAddress(i));
+			sims[i].setLatency(10, 40);
+			sims[i].setLoss(loss);
+			sims[i].setSeed(i);
+			uris[i] = udp ? sims[i].startUdp() : sims[i].startTcp();
+		}
+		return sims;
+	}
+
+	/** Stop all simulators */
+	private void stopSims(Mndot170Simulator[] sims) {
+		for (Mndot170Simulator s: sims)
+			s.stop();
+	}
+
+	/** Poll 30-second data from every link.
+	 * @param udp Use UDP (otherwise TCP).
+	 * @param loss Fraction of requests which get no response.
+	 * @param ex Comm executor, or null for dedicated threads. */
+	private PollBenchmark<MndotProperty> pollAll(boolean udp, double loss,
+		final ExecutorService ex) throws Exception
+	{
+		String[] uris = new String[LINKS];
+		final ControllerImpl[] ctrls = new ControllerImpl[LINKS];
+		for (int i = 0; i < LINKS; i++)
+			ctrls[i] = PollBenchmark.createController("ctl_" + i,
+				dropAddress(i));
+		Mndot170Simulator[] sims = startSims(udp, loss, uris);
+		try {
+			final PollBenchmark<MndotProperty> bench =
+				new PollBenchmark<MndotProperty>(uris,
+				TIMEOUT_MS);
+			bench.run(new PollBenchmark.Factory<MndotProperty>() {
+				public ThreadedPoller<MndotProperty>
+					createPoller(int n)
+				{
+					MndotPoller p = new MndotPoller(
+						"bench_" + n,
+						CommProtocol.MNDOT_4);
+					p.setExecutor(ex);
+					return p;
+				}
+				public OpController<MndotProperty>
+					createOperation(int n)
+				{
+					return new OpBench(ctrls[n], bench, n);
+				}
+			});
+			System.err.println((udp ? "UDP " : "TCP ") +
+				((ex != null) ? "pooled " : "") + bench);
+			return bench;
+		}
+		finally {
+			stopSims(sims);
+		}
+	}
+
+	public void testTcp() throws Exception {
+		PollBenchmark<MndotProperty> bench = pollAll(false, 0, null);
+		assertEquals(LINKS, bench.getCompleted());
+	}
+
+	public void testUdp() throws Exception {
+		PollBenchmark<MndotProperty> bench = pollAll(true, 0, null);
+		assertEquals(LINKS, bench.getCompleted());
+	}
+
+	public void testPooled() throws Exception {
+		CommExecutor.enable(CommProtocol.MNDOT_4, 256 * 1024);
+		ExecutorService ex = CommExecutor.lookup(CommProtocol.MNDOT_4);
+		assertNotNull(ex);
+		PollBenchmark<MndotProperty> bench = pollAll(false, 0, ex);
+		assertEquals(LINKS, bench.getCompleted());
+		bench = pollAll(true, 0, ex);
+		assertEquals(LINKS, bench.getCompleted());
+	}
+
+	public void testLoss() throws Exception {
+		PollBenchmark<MndotProperty> bench = pollAll(false, 0.8, null);
+		assertTrue(bench.getFailed() > 0);
+		assertTrue(bench.getCompleted() > 0);
+	}
+}
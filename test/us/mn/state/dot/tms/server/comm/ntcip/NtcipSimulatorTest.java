@@ -0,0 +1,137 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2020  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms.server.comm.ntcip;
+
+import junit.framework.TestCase;
+import us.mn.state.dot.sonar.Namespace;
+import us.mn.state.dot.tms.BaseHelper;
+import us.mn.state.dot.tms.CommProtocol;
+import us.mn.state.dot.tms.EventType;
+import us.mn.state.dot.tms.SystemAttrEnum;
+import us.mn.state.dot.tms.server.ControllerImpl;
+import us.mn.state.dot.tms.server.comm.OpController;
+import us.mn.state.dot.tms.server.comm.PollBenchmark;
+import us.mn.state.dot.tms.server.comm.ThreadedPoller;
+import us.mn.state.dot.tms.server.comm.snmp.SNMP;
+import us.mn.state.dot.tms.server.comm.snmp.SnmpAgentSimulator;
+
+/**
+ * Load test of 30-second sample polls against simulated NTCIP SNMP agents.
+ * NTCIP_A links use UDP, and NTCIP_C links use TCP.  The number of links
+ * can be raised with the "sim.links" property.
+ *
+ * @author Douglas Lau
+ */
+public class NtcipSimulatorTest extends TestCase {
+
+	/** Number of simulated links */
+	static private final int LINKS = Integer.getInteger("sim.links", 100);
+
+	/** Sample period (sec) */
+	static private final int PERIOD_SEC = 30;
+
+	/** Receive timeout (ms) */
+	static private final int TIMEOUT_MS = 750;
+
+	/** Sample operation which reports completion to a benchmark.  Comm
+	 * errors are retried, but not logged, since there is no database. */
+	static private class OpBench extends OpQuerySamples {
+		private final PollBenchmark bench;
+		private final int link;
+		private int n_errors = 0;
+		private OpBench(ControllerImpl c, PollBenchmark b, int n) {
+			super(c, PERIOD_SEC);
+			bench = b;
+			link = n;
+		}
+		@Override
+		public void handleCommError(EventType et, String msg) {
+			n_errors++;
+			if (n_errors >= getRetryThreshold())
+				setFailed();
+		}
+		@Override
+		public void cleanup() {
+			bench.complete(link, isSuccess());
+		}
+	}
+
+	public NtcipSimulatorTest(String name) {
+		super(name);
+	}
+
+	/** Previous namespace */
+	private Namespace namespace;
+
+	@Override
+	protected void setUp() throws Exception {
+		namespace = BaseHelper.namespace;
+		BaseHelper.namespace = PollBenchmark.createNamespace(
+			SystemAttrEnum.OPERATION_RETRY_THRESHOLD,
+			SystemAttrEnum.COMM_IDLE_DISCONNECT_DMS_SEC);
+	}
+
+	@Override
+	protected void tearDown() {
+		BaseHelper.namespace = namespace;
+	}
+
+	/** Poll sample data from every link */
+	@SuppressWarnings("unchecked")
+	private PollBenchmark pollAll(final CommProtocol cp) throws Exception {
+		String[] uris = new String[LINKS];
+		final ControllerImpl[] ctrls = new ControllerImpl[LINKS];
+		SnmpAgentSimulator[] sims = new SnmpAgentSimulator[LINKS];
+		for (int i = 0; i < LINKS; i++) {
+			ctrls[i] = PollBenchmark.createController("ctl_" + i,
+				1);
+			sims[i] = new SnmpAgentSimulator(SNMP.PUBLIC);
+			sims[i].setLatency(10, 40);
+			sims[i].setSeed(i);
+			uris[i] = (cp == CommProtocol.NTCIP_A)
+			        ? sims[i].startUdp()
+			        : sims[i].startTcp();
+		}
+		try {
+			final PollBenchmark bench = new PollBenchmark(uris,
+				TIMEOUT_MS);
+			bench.run(new PollBenchmark.Factory() {
+				public ThreadedPoller createPoller(int n) {
+					return new NtcipPoller("bench_" + n,
+						cp);
+				}
+				public OpController createOperation(int n) {
+					return new OpBench(ctrls[n], bench, n);
+				}
+			});
+			System.err.println(cp + " " + bench);
+			return bench;
+		}
+		finally {
+			for (SnmpAgentSimulator s: sims)
+				s.stop();
+		}
+	}
+
+	public void testUdp() throws Exception {
+		PollBenchmark bench = pollAll(CommProtocol.NTCIP_A);
+		assertEquals(LINKS, bench.getCompleted());
+	}
+
+	public void testTcp() throws Exception {
+		PollBenchmark bench = pollAll(CommProtocol.NTCIP_C);
+		assertEquals(LINKS, bench.getCompleted());
+	}
+}
@@ -0,0 +1,169 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2020  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms.server.comm.snmp;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import us.mn.state.dot.tms.server.comm.ControllerSimulator;
+
+/**
+ * Simulator for an NTCIP SNMP agent.  Get requests are answered with an
+ * INTEGER for each object, equal to the last sub-identifier of its OID.
+ * Set requests are answered with the values which were set.
+ *
+ * @author Douglas Lau
+ */
+public class SnmpAgentSimulator extends ControllerSimulator {
+
+	/** Community name */
+	private final String community;
+
+	/** Create a new SNMP agent simulator.
+	 * @param c Community name. */
+	public SnmpAgentSimulator(String c) {
+		community = c;
+	}
+
+	/** Read one SNMP message (a BER sequence) from a stream */
+	@Override
+	protected byte[] readRequest(InputStream is) throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		bos.write(readByte(is));
+		int first = readByte(is);
+		bos.write(first);
+		int len = first;
+		if ((first & BER.HIGH_BIT) != 0) {
+			len = 0;
+			for (int i = first & BER.SEVEN_BITS; i > 0; i--) {
+				int b = readByte(is);
+				bos.write(b);
+				len = (len << 8) | b;
+			}
+		}
+		byte[] content = new byte[len];
+		readFully(is, content, 0);
+		bos.write(content);
+		return bos.toByteArray();
+	}
+
+	/** Read one byte from a stream */
+	static private int readByte(InputStream is) throws IOException {
+		byte[] b = new byte[1];
+		readFully(is, b, 0);
+		return b[0] & 0xFF;
+	}
+
+	/** Create a response to a request */
+	@Override
+	protected byte[] createResponse(byte[] req) {
+		try {
+			return new Agent().respond(new ByteArrayInputStream(
+				req));
+		}
+		catch (IOException e) {
+			return null;
+		}
+	}
+
+	/** SNMP codec for one request */
+	private class Agent extends SNMP {
+
+		/** Decode a request and encode a response */
+		private byte[] respond(InputStream is) throws IOException {
+			decodeSequence(is);
+			if (decodeInteger(is) != SNMP_VERSION)
+				return null;
+			String c = new String(decodeOctetString(is));
+			if (!c.equals(community))
+				return null;
+			Tag tag = decodeIdentifier(is);
+			if (tag != SNMPTag.GET_REQUEST &&
+			    tag != SNMPTag.SET_REQUEST)
+				return null;
+			decodeLength(is);
+			int request_id = decodeInteger(is);
+			decodeInteger(is);	// error-status
+			decodeInteger(is);	// error-index
+			byte[] vbl = respondVarBindList(is,
+				tag == SNMPTag.SET_REQUEST);
+			encodeInteger(request_id);
+			encodeInteger(0);	// error-status
+			encodeInteger(0);	// error-index
+			encoder.write(vbl);
+			byte[] pdu = getEncodedData();
+			encodeIdentifier(SNMPTag.GET_RESPONSE);
+			encodeLength(pdu.length);
+			encoder.write(pdu);
+			pdu = getEncodedData();
+			encodeInteger(SNMP_VERSION);
+			encodeOctetString(community.getBytes());
+			encoder.write(pdu);
+			encodeSequence(getEncodedData());
+			return getEncodedData();
+		}
+
+		/** Decode a variable binding list and encode the response */
+		private byte[] respondVarBindList(InputStream is, boolean set)
+			throws IOException
+		{
+			ByteArrayOutputStream vbl = new ByteArrayOutputStream();
+			int len = decodeSequence(is);
+			int end = is.available() - len;
+			while (is.available() > end) {
+				decodeSequence(is);
+				byte[] oid = decodeRawOid(is);
+				byte[] value = decodeRawValue(is);
+				encodeIdentifier(ASN1Tag.OBJECT_IDENTIFIER);
+				encodeLength(oid.length);
+				encoder.write(oid);
+				if (set)
+					encoder.write(value);
+				else
+					encodeInteger(oid[oid.length - 1]);
+				encodeSequence(getEncodedData());
+				vbl.write(getEncodedData());
+			}
+			encodeSequence(vbl.toByteArray());
+			return getEncodedData();
+		}
+
+		/** Decode the contents of an object identifier */
+		private byte[] decodeRawOid(InputStream is) throws IOException{
+			if (decodeIdentifier(is) != ASN1Tag.OBJECT_IDENTIFIER)
+				throw new IOException("EXPECTED OID");
+			byte[] oid = new byte[decodeLength(is)];
+			readFully(is, oid, 0);
+			return oid;
+		}
+
+		/** Decode a value, returning its encoding (tag, length and
+		 * contents) */
+		private byte[] decodeRawValue(InputStream is)
+			throws IOException
+		{
+			is.mark(0);
+			int n = is.available();
+			decodeIdentifier(is);
+			int len = decodeLength(is);
+			int hdr = n - is.available();
+			is.reset();
+			byte[] value = new byte[hdr + len];
+			readFully(is, value, 0);
+			return value;
+		}
+	}
+}
@@ -0,0 +1,195 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2020  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms.server.comm.ss125;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Calendar;
+import java.util.TimeZone;
+import us.mn.state.dot.sched.TimeSteward;
+import us.mn.state.dot.tms.server.comm.CRC;
+import us.mn.state.dot.tms.server.comm.ControllerSimulator;
+
+/**
+ * Simulator for a Wavetronix SmartSensor HD (SS125).  Interval data reads
+ * return one packet per lane, stamped at the end of the previous interval.
+ * Any write request is answered with a "no errors" result.
+ *
+ * @author Douglas Lau
+ */
+public class SS125Simulator extends ControllerSimulator {
+
+	/** Size of packet header */
+	static private final int HEADER_BYTES = 11;
+
+	/** Size of interval data body (including CRC) */
+	static private final int INTERVAL_BYTES = 46;
+
+	/** Size of result body (including CRC) */
+	static private final int RESULT_BYTES = 6;
+
+	/** CRC calculator */
+	static private final CRC crc = new CRC(8, 0x1C, 0x00, false);
+
+	/** Store the CRC of a packet in its last byte */
+	static private void storeCrc(byte[] pkt) {
+		pkt[pkt.length - 1] = (byte) crc.calculate(pkt,pkt.length - 1);
+	}
+
+	/** Check the CRC in the last byte of a packet */
+	static private boolean checkCrc(byte[] pkt) {
+		int c = crc.calculate(pkt, pkt.length - 1);
+		return (byte) c == pkt[pkt.length - 1];
+	}
+
+	/** Format a 16-bit value */
+	static private void format16(byte[] buf, int pos, int v) {
+		buf[pos] = (byte) (v >> 8);
+		buf[pos + 1] = (byte) v;
+	}
+
+	/** Format a 24-bit value */
+	static private void format24(byte[] buf, int pos, int v) {
+		buf[pos] = (byte) (v >> 16);
+		format16(buf, pos + 1, v);
+	}
+
+	/** Format a 32-bit value */
+	static private void format32(byte[] buf, int pos, int v) {
+		format16(buf, pos, v >> 16);
+		format16(buf, pos + 2, v);
+	}
+
+	/** Format a date / time stamp (UTC) */
+	static private void formatDate(byte[] buf, int pos, long stamp) {
+		Calendar cal = Calendar.getInstance(
+			TimeZone.getTimeZone("GMT"));
+		cal.setTimeInMillis(stamp);
+		int date = (cal.get(Calendar.YEAR) << 9) |
+			((cal.get(Calendar.MONTH) + 1) << 5) |
+			cal.get(Calendar.DAY_OF_MONTH);
+		int time = (cal.get(Calendar.HOUR_OF_DAY) << 22) |
+			(cal.get(Calendar.MINUTE) << 16) |
+			(cal.get(Calendar.SECOND) << 10) |
+			cal.get(Calendar.MILLISECOND);
+		format32(buf, pos, date);
+		format32(buf, pos + 4, time);
+	}
+
+	/** Sensor ID (drop address) */
+	private final int drop;
+
+	/** Number of lanes */
+	private final int n_lanes;
+
+	/** Interval period (sec) */
+	private final int period;
+
+	/** Create a new SS125 simulator.
+	 * @param d Sensor ID (drop address).
+	 * @param nl Number of lanes.
+	 * @param p Interval period (sec). */
+	public SS125Simulator(int d, int nl, int p) {
+		drop = d;
+		n_lanes = nl;
+		period = p;
+	}
+
+	/** Read one request (header and body) from a stream */
+	@Override
+	protected byte[] readRequest(InputStream is) throws IOException {
+		byte[] header = new byte[HEADER_BYTES];
+		readFully(is, header, 0);
+		int n_body = header[9] & 0xFF;
+		byte[] req = new byte[HEADER_BYTES + n_body + 1];
+		System.arraycopy(header, 0, req, 0, HEADER_BYTES);
+		readFully(is, req, HEADER_BYTES);
+		return req;
+	}
+
+	/** Create a response to a request */
+	@Override
+	protected byte[] createResponse(byte[] req) {
+		if (req.length < HEADER_BYTES + 4 || req[0] != 'Z')
+			return null;
+		if (((req[3] & 0xFF) << 8 | (req[4] & 0xFF)) != drop)
+			return null;
+		byte[] body = new byte[req.length - HEADER_BYTES];
+		System.arraycopy(req, HEADER_BYTES, body, 0, body.length);
+		if (!checkCrc(body))
+			return null;
+		int src = (req[6] & 0xFF) << 8 | (req[7] & 0xFF);
+		int seq = req[8];
+		int mid = body[0] & 0xFF;
+		int sub = body[1] & 0xFF;
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		if (body[2] == MessageType.READ.code &&
+		    mid == MessageID.INTERVAL.id)
+		{
+			for (int i = 0; i < n_lanes; i++) {
+				byte[] b = createInterval(sub + i, i);
+				writePacket(bos, src, ++seq, b);
+			}
+		} else
+			writePacket(bos, src, ++seq, createResult(mid, sub));
+		return bos.toByteArray();
+	}
+
+	/** Write a response packet (header and body) */
+	private void writePacket(ByteArrayOutputStream bos, int dest, int seq,
+		byte[] body)
+	{
+		byte[] header = new byte[HEADER_BYTES];
+		header[0] = 'Z';
+		header[1] = '1';
+		format16(header, 3, dest);
+		format16(header, 6, drop);
+		header[8] = (byte) seq;
+		header[9] = (byte) (body.length - 1);
+		storeCrc(header);
+		storeCrc(body);
+		bos.write(header, 0, header.length);
+		bos.write(body, 0, body.length);
+	}
+
+	/** Create an interval data body for one lane */
+	private byte[] createInterval(int sub, int lane) {
+		int pms = period * 1000;
+		long stamp = TimeSteward.currentTimeMillis() / pms * pms;
+		int veh = (drop + lane) % 25;
+		byte[] body = new byte[INTERVAL_BYTES];
+		body[0] = (byte) MessageID.INTERVAL.id;
+		body[1] = (byte) sub;
+		body[2] = (byte) MessageType.READ.code;
+		formatDate(body, 6, stamp);
+		format24(body, 14, 0x800000 | (55 << 8)); // speed
+		format24(body, 17, veh);
+		format16(body, 20, 10 << 8); // scans
+		format24(body, 22, veh);
+		format24(body, 34, 0x800000 | (65 << 8)); // speed 85
+		body[43] = (byte) n_lanes;
+		return body;
+	}
+
+	/** Create a result body */
+	private byte[] createResult(int mid, int sub) {
+		byte[] body = new byte[RESULT_BYTES];
+		body[0] = (byte) mid;
+		body[1] = (byte) sub;
+		body[2] = (byte) MessageType.RESULT.code;
+		return body;
+	}
+}
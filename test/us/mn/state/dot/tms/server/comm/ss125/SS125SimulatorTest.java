@@ -0,0 +1,129 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2020  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms.server.comm.ss125;
+
+import junit.framework.TestCase;
+import us.mn.state.dot.sonar.Namespace;
+import us.mn.state.dot.tms.BaseHelper;
+import us.mn.state.dot.tms.EventType;
+import us.mn.state.dot.tms.SystemAttrEnum;
+import us.mn.state.dot.tms.server.ControllerImpl;
+import us.mn.state.dot.tms.server.comm.OpController;
+import us.mn.state.dot.tms.server.comm.PollBenchmark;
+import us.mn.state.dot.tms.server.comm.ThreadedPoller;
+
+/**
+ * Load test of 30-second interval polls against simulated SS125 sensors.
+ * The number of links can be raised with the "sim.links" property.
+ *
+ * @author Douglas Lau
+ */
+public class SS125SimulatorTest extends TestCase {
+
+	/** Number of simulated links */
+	static private final int LINKS = Integer.getInteger("sim.links", 100);
+
+	/** Number of lanes per sensor */
+	static private final int LANES = 4;
+
+	/** Sample period (sec) */
+	static private final int PERIOD_SEC = 30;
+
+	/** Receive timeout (ms) */
+	static private final int TIMEOUT_MS = 750;
+
+	/** Sample operation which reports completion to a benchmark.  Comm
+	 * errors are retried, but not logged, since there is no database. */
+	static private class OpBench extends OpQuerySamples {
+		private final PollBenchmark<SS125Property> bench;
+		private final int link;
+		private int n_errors = 0;
+		private OpBench(ControllerImpl c,
+			PollBenchmark<SS125Property> b, int n)
+		{
+			super(c, PERIOD_SEC);
+			bench = b;
+			link = n;
+		}
+		@Override
+		public void handleCommError(EventType et, String msg) {
+			n_errors++;
+			if (n_errors >= getRetryThreshold())
+				setFailed();
+		}
+		@Override
+		public void cleanup() {
+			if (isSuccess())
+				super.cleanup();
+			bench.complete(link, isSuccess());
+		}
+	}
+
+	public SS125SimulatorTest(String name) {
+		super(name);
+	}
+
+	/** Previous namespace */
+	private Namespace namespace;
+
+	@Override
+	protected void setUp() throws Exception {
+		namespace = BaseHelper.namespace;
+		BaseHelper.namespace = PollBenchmark.createNamespace(
+			SystemAttrEnum.OPERATION_RETRY_THRESHOLD);
+	}
+
+	@Override
+	protected void tearDown() {
+		BaseHelper.namespace = namespace;
+	}
+
+	public void testTcp() throws Exception {
+		String[] uris = new String[LINKS];
+		final ControllerImpl[] ctrls = new ControllerImpl[LINKS];
+		SS125Simulator[] sims = new SS125Simulator[LINKS];
+		for (int i = 0; i < LINKS; i++) {
+			ctrls[i] = PollBenchmark.createController("ctl_" + i,
+				i + 1);
+			sims[i] = new SS125Simulator(i + 1, LANES, PERIOD_SEC);
+			sims[i].setLatency(10, 40);
+			sims[i].setSeed(i);
+			uris[i] = sims[i].startTcp();
+		}
+		try {
+			final PollBenchmark<SS125Property> bench =
+				new PollBenchmark<SS125Property>(uris,
+				TIMEOUT_MS);
+			bench.run(new PollBenchmark.Factory<SS125Property>() {
+				public ThreadedPoller<SS125Property>
+					createPoller(int n)
+				{
+					return new SS125Poller("bench_" + n);
+				}
+				public OpController<SS125Property>
+					createOperation(int n)
+				{
+					return new OpBench(ctrls[n], bench, n);
+				}
+			});
+			System.err.println("SS125 " + bench);
+			assertEquals(LINKS, bench.getCompleted());
+		}
+		finally {
+			for (SS125Simulator s: sims)
+				s.stop();
+		}
+	}
+}